@@ -862,13 +862,31 @@ tasks {
   }
 
   test {
-    useJUnitPlatform()
+    useJUnitPlatform {
+      // timing runs, see the "benchmark" task
+      excludeTags("benchmark")
+    }
     jvmArgs("--enable-native-access=ALL-UNNAMED")
 //    testLogging {
 //      events("passed", "skipped", "failed")
 //    }
   }
 
+  register<Test>("benchmark") {
+    group = "verification"
+    description = "Runs the tests tagged \"benchmark\", which print timings rather than check them."
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+      includeTags("benchmark")
+    }
+    jvmArgs("--enable-native-access=ALL-UNNAMED")
+    testLogging {
+      showStandardStreams = true
+    }
+    outputs.upToDateWhen { false }
+  }
+
   jar {
     manifest {
       attributes.putAll(mapOf(
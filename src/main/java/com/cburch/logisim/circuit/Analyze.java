@@ -15,7 +15,6 @@ import com.cburch.logisim.analyze.model.AnalyzerModel;
 import com.cburch.logisim.analyze.model.Entry;
 import com.cburch.logisim.analyze.model.Expression;
 import com.cburch.logisim.analyze.model.Expressions;
-import com.cburch.logisim.analyze.model.TruthTable;
 import com.cburch.logisim.analyze.model.Var;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.Direction;
@@ -193,52 +192,46 @@ public class Analyze {
     final var rowCount = 1 << inputCount;
     final var columns = new Entry[outputNames.size()][rowCount];
 
-    for (var i = 0; i < rowCount; i++) {
-      final var circuitState = CircuitState.createRootState(proj, circuit, Thread.currentThread());
-      final var prop = circuitState.getPropagator();
-      var incol = 0;
-      for (final var pin : inputPins) {
-        final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
-        final var v = new Value[width];
-        for (var b = width - 1; b >= 0; b--) {
-          var value = TruthTable.isInputSet(i, incol++, inputCount);
-          v[b] = value ? Value.TRUE : Value.FALSE;
+    // Purely combinational circuits are evaluated 64 rows at a time; rows that
+    // cannot be handled that way are simulated one by one, in parallel.
+    BitParallelEvaluator evaluator = null;
+    try {
+      evaluator = BitParallelEvaluator.create(circuit, inputPins);
+    } catch (CircuitException e) {
+      // not compilable, use the propagator for every row
+    }
+    final var evaluated = new boolean[(rowCount + BitParallelEvaluator.LANES - 1) / BitParallelEvaluator.LANES];
+    if (evaluator != null) {
+      for (var block = 0; block < evaluated.length; block++) {
+        final var first = block * BitParallelEvaluator.LANES;
+        evaluated[block] = evaluator.evaluate(first);
+        if (!evaluated[block]) continue;
+        for (var i = first; i < Math.min(rowCount, first + BitParallelEvaluator.LANES); i++) {
+          var outcol = 0;
+          for (final var pin : outputPins) {
+            final var value = evaluator.getValue(pin, i - first);
+            for (var b = value.getWidth() - 1; b >= 0; b--) {
+              columns[outcol++][i] = toEntry(value.get(b));
+            }
+          }
         }
-        final var pinState = circuitState.getInstanceState(pin);
-        Pin.FACTORY.driveInputPin(pinState, Value.create(v));
       }
-
-      prop.propagate();
-      /*
-       * TODO for the SimulatorPrototype class do { prop.step(); } while
-       * (prop.isPending());
-       */
-      // TODO: Search for circuit state
-
-      if (prop.isOscillating()) {
-        for (var j = 0; j < columns.length; j++) {
-          columns[j][i] = Entry.OSCILLATE_ERROR;
+    }
+    try (final var simulator = new ParallelRowSimulator(proj, circuit, inputPins, outputPins)) {
+      simulator.simulate(0, rowCount, i -> !evaluated[i / BitParallelEvaluator.LANES], (i, outputs) -> {
+        if (outputs == null) {
+          for (var j = 0; j < columns.length; j++) {
+            columns[j][i] = Entry.OSCILLATE_ERROR;
+          }
+          return;
         }
-      } else {
         var outcol = 0;
-        for (final var pin : outputPins) {
-          int width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
-          final var pinState = circuitState.getInstanceState(pin);
-          Entry out;
-          for (int b = width - 1; b >= 0; b--) {
-            final var outValue = Pin.FACTORY.getValue(pinState).get(b);
-            if (outValue == Value.TRUE)
-              out = Entry.ONE;
-            else if (outValue == Value.FALSE)
-              out = Entry.ZERO;
-            else if (outValue == Value.ERROR)
-              out = Entry.BUS_ERROR;
-            else
-              out = Entry.DONT_CARE;
-            columns[outcol++][i] = out;
+        for (final var value : outputs) {
+          for (var b = value.getWidth() - 1; b >= 0; b--) {
+            columns[outcol++][i] = toEntry(value.get(b));
           }
         }
-      }
+      });
     }
 
     model.setVariables(inputVars, outputVars);
@@ -247,6 +240,13 @@ public class Analyze {
     }
   }
 
+  private static Entry toEntry(Value outValue) {
+    if (outValue == Value.TRUE) return Entry.ONE;
+    if (outValue == Value.FALSE) return Entry.ZERO;
+    if (outValue == Value.ERROR) return Entry.BUS_ERROR;
+    return Entry.DONT_CARE;
+  }
+
   // computes outputs of affected components
   private static HashSet<Component> getDirtyComponents(Circuit circuit, Set<LocationBit> pointsToProcess) {
     final var dirtyComponents = new HashSet<Component>();
@@ -0,0 +1,101 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
+import java.util.List;
+
+/**
+ * Evaluates a combinational circuit for 64 rows of a truth table at once. The circuit is compiled
+ * as for {@link DenseCircuitSimulation}, and every cell holds one lane per row. Input bits are
+ * numbered as in {@link com.cburch.logisim.analyze.model.TruthTable}: the most significant bit of
+ * the first input pin is the most significant bit of the row number.
+ */
+public class BitParallelEvaluator {
+  public static final int LANES = 64;
+
+  /** Lane patterns of the six least significant row bits. */
+  private static final long[] LANE_BITS = {
+    0xAAAAAAAAAAAAAAAAL, 0xCCCCCCCCCCCCCCCCL, 0xF0F0F0F0F0F0F0F0L,
+    0xFF00FF00FF00FF00L, 0xFFFF0000FFFF0000L, 0xFFFFFFFF00000000L
+  };
+
+  private final DenseCircuitSimulation sim;
+  private final DenseLogicCircuit logic;
+  private final List<Instance> inputPins;
+  private final int inputCount;
+  private final long[] low;
+  private final long[] high;
+  private final int[] auxData;
+
+  private BitParallelEvaluator(DenseCircuitSimulation sim, List<Instance> inputPins) {
+    this.sim = sim;
+    this.logic = sim.getLogic();
+    this.inputPins = inputPins;
+    var count = 0;
+    for (final var pin : inputPins) count += pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+    inputCount = count;
+    low = new long[logic.cellCount];
+    high = new long[logic.cellCount];
+    logic.newWideCells(low, high);
+    auxData = logic.newAuxData();
+  }
+
+  /**
+   * Compiles the circuit. Throws a {@link CircuitException} if it contains components that cannot
+   * be compiled, clocks or any sequential logic.
+   */
+  public static BitParallelEvaluator create(Circuit circuit, List<Instance> inputPins) {
+    final var sim = DenseCircuitSimulation.compile(circuit);
+    if (sim.hasClocks() || sim.getLogic().hasSequentialLogic()) {
+      throw new CircuitException("sequential logic in " + circuit.getName());
+    }
+    return new BitParallelEvaluator(sim, inputPins);
+  }
+
+  /**
+   * Evaluates the rows <code>firstRow</code> to <code>firstRow + 63</code>; <code>firstRow</code>
+   * must be a multiple of {@link #LANES}. Returns false if the circuit did not settle for some of
+   * these rows, or if a gate saw a floating or error value, which the two-valued gates of the
+   * compiled circuit do not handle as Logisim does; these rows then have to be simulated one by one.
+   */
+  public boolean evaluate(int firstRow) {
+    var bit = inputCount;
+    for (final var pin : inputPins) {
+      final var cells = sim.getPinCells(pin);
+      for (var b = cells.length - 1; b >= 0; b--) {
+        bit--;
+        long lanes;
+        if (bit < LANE_BITS.length) {
+          lanes = LANE_BITS[bit];
+        } else {
+          lanes = ((firstRow >> bit) & 1) != 0 ? -1L : 0L;
+        }
+        logic.setCellWide(cells[b], ~lanes, lanes, low, high, auxData);
+      }
+    }
+    return logic.simulateCombinatorialWide(low, high, auxData)
+        && logic.undefinedInputLanesWide(low, high) == 0;
+  }
+
+  /** Returns the value of a top-level pin in the given lane of the last evaluation. */
+  public Value getValue(Instance pin, int lane) {
+    final var cells = sim.getPinCells(pin);
+    final var values = new Value[cells.length];
+    for (var b = 0; b < cells.length; b++) {
+      final var level = (int) ((high[cells[b]] >>> lane) & 1) << 1 | (int) ((low[cells[b]] >>> lane) & 1);
+      values[b] = DenseLogicCircuit.LEV_TO_LS[level];
+    }
+    return Value.create(values);
+  }
+}
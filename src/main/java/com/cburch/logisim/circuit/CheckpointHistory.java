@@ -0,0 +1,103 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import java.util.ArrayDeque;
+
+/**
+ * Keeps a checkpoint of the simulation every few ticks, up to a number of them, so that the
+ * simulation can be stepped back: rewind() restores the last checkpoint before the wanted tick and
+ * ticks forward from there. The oldest checkpoints are dropped to make room for new ones.
+ */
+public class CheckpointHistory {
+  private final int interval;
+  private final int capacity;
+  private final ArrayDeque<SimulationCheckpoint> checkpoints = new ArrayDeque<>();
+
+  /** Keeps a checkpoint every interval ticks, and at most capacity of them. */
+  public CheckpointHistory(int interval, int capacity) {
+    if (interval < 1 || capacity < 1) throw new IllegalArgumentException("interval and capacity must be positive");
+    this.interval = interval;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Takes a checkpoint if the last one is at least interval ticks old. Called from the propagation
+   * thread after each tick has been propagated. A tick count lower than the last checkpoint, or
+   * another circuit, means that the simulation was reset, which drops all the checkpoints.
+   */
+  public void tickCompleted(Propagator prop) {
+    if (prop.isPending() || prop.isOscillating()) return;
+    final var ticks = prop.getTickCount();
+    synchronized (this) {
+      final var last = checkpoints.peekLast();
+      if (last != null && last.getCircuit() == prop.getRootState().getCircuit() && ticks >= last.getTickCount()) {
+        if (ticks - last.getTickCount() < interval) return;
+      } else {
+        checkpoints.clear();
+      }
+    }
+    final var checkpoint = prop.checkpoint();
+    synchronized (this) {
+      checkpoints.addLast(checkpoint);
+      while (checkpoints.size() > capacity) checkpoints.removeFirst();
+    }
+  }
+
+  /** Returns the last checkpoint taken at or before the tick, or null if there is none. */
+  public synchronized SimulationCheckpoint getCheckpoint(int tick) {
+    final var it = checkpoints.descendingIterator();
+    while (it.hasNext()) {
+      final var checkpoint = it.next();
+      if (checkpoint.getTickCount() <= tick) return checkpoint;
+    }
+    return null;
+  }
+
+  /** Returns the lowest tick that rewind() can go back to, or -1 if there is no checkpoint. */
+  public synchronized int getOldestTick() {
+    final var first = checkpoints.peekFirst();
+    return first == null ? -1 : first.getTickCount();
+  }
+
+  public synchronized int size() {
+    return checkpoints.size();
+  }
+
+  public synchronized void clear() {
+    checkpoints.clear();
+  }
+
+  /**
+   * Moves the simulation back by the given number of ticks, to the oldest checkpoint at most, by
+   * restoring the last checkpoint before and ticking forward to the wanted tick. The checkpoints
+   * after it are dropped, as the simulation may take another course from there. Returns false if
+   * there is no checkpoint to go back to. Must be called from the propagation thread.
+   */
+  public boolean rewind(Propagator prop, int ticks) {
+    final SimulationCheckpoint checkpoint;
+    final int target;
+    synchronized (this) {
+      final var first = checkpoints.peekFirst();
+      if (first == null || first.getCircuit() != prop.getRootState().getCircuit()) return false;
+      target = Math.max(first.getTickCount(), prop.getTickCount() - ticks);
+      checkpoint = getCheckpoint(target);
+      while (checkpoints.peekLast() != checkpoint) checkpoints.removeLast();
+    }
+    prop.restore(checkpoint);
+    prop.propagate();
+    while (prop.getTickCount() < target) {
+      prop.toggleClocks();
+      prop.propagate();
+      tickCompleted(prop);
+    }
+    return true;
+  }
+}
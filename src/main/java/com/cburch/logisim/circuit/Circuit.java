@@ -102,9 +102,15 @@ public class Circuit {
   private class MyComponentListener implements ComponentListener {
     @Override
     public void componentInvalidated(ComponentEvent e) {
+      compGrid.update(e.getSource());
       fireEvent(CircuitEvent.ACTION_INVALIDATE, e.getSource());
     }
 
+    @Override
+    public void boundsChanged(ComponentEvent e) {
+      compGrid.update(e.getSource());
+    }
+
     @Override
     public void endChanged(ComponentEvent e) {
       locker.checkForWritePermission("ends changed", Circuit.this);
@@ -115,6 +121,7 @@ public class Circuit {
       final var toAdd = toMap(e.getData());
       final var xn = new EndChangedTransaction(comp, toRemove, toAdd);
       locker.execute(xn);
+      compGrid.update(comp);
       fireEvent(CircuitEvent.ACTION_INVALIDATE, comp);
     }
 
@@ -283,6 +290,9 @@ public class Circuit {
   private final EventSourceWeakSupport<CircuitListener> listeners = new EventSourceWeakSupport<>();
   private LinkedHashSet<Component> comps = new LinkedHashSet<>(); // doesn't include wires
   CircuitWires wires = new CircuitWires();
+  /** Spatial indexes of comps and of the wires, for hit-testing and drawing. */
+  private ComponentGrid compGrid = new ComponentGrid();
+  private ComponentGrid wireGrid = new ComponentGrid();
   private final List<Component> clocks = new ArrayList<>();
   private final CircuitLocker locker;
 
@@ -533,14 +543,77 @@ public class Circuit {
     }
   }
 
+  /**
+   * Draws the components with a static appearance, see ComponentFactory.hasStaticAppearance(), as
+   * they look without a circuit state. The canvas keeps this layer in images, and draws
+   * drawDynamicLayer() on top of it, so unlike in draw() these components are below the wires and
+   * all other components.
+   */
+  public void drawStaticLayer(ComponentDrawContext context) {
+    context.setShowState(false);
+    final var g = context.getGraphics();
+    for (final var c : getVisibleComponents(g)) {
+      if (!hasStaticAppearance(c)) continue;
+      final var gNew = g.create();
+      context.setGraphics(gNew);
+      c.draw(context);
+      gNew.dispose();
+    }
+    context.setGraphics(g);
+    context.setShowState(true);
+  }
+
+  /**
+   * Draws what drawStaticLayer() leaves out: the wires, the other components, and the values on the
+   * ports of the static components.
+   */
+  public void drawDynamicLayer(ComponentDrawContext context) {
+    final var g = context.getGraphics();
+    final var gCopy = g.create();
+    context.setGraphics(gCopy);
+    wires.draw(context, null);
+    gCopy.dispose();
+    final var statics = new ArrayList<Component>();
+    for (final var c : getVisibleComponents(g)) {
+      if (hasStaticAppearance(c)) {
+        statics.add(c);
+        continue;
+      }
+      final var gNew = g.create();
+      context.setGraphics(gNew);
+      c.draw(context);
+      gNew.dispose();
+    }
+    // the ports go over the ends of the wires, as when the component is drawn after the wires
+    final var gPorts = g.create();
+    context.setGraphics(gPorts);
+    for (final var c : statics) {
+      if (!c.getEnds().isEmpty()) context.drawPins(c);
+    }
+    gPorts.dispose();
+    context.setGraphics(g);
+  }
+
+  private static boolean hasStaticAppearance(Component comp) {
+    return comp.getFactory().hasStaticAppearance(comp.getAttributeSet());
+  }
+
+  /** Returns the components that may intersect the clip of g. */
+  private Collection<Component> getVisibleComponents(Graphics g) {
+    final var clip = g.getClipBounds();
+    return clip == null ? comps : compGrid.getNear(Bounds.create(clip.x, clip.y, clip.width, clip.height));
+  }
+
   private void drawComponents(ComponentDrawContext context, Collection<Component> hidden) {
     final var g = context.getGraphics();
     var gCopy = g.create();
     context.setGraphics(gCopy);
     wires.draw(context, hidden);
 
+    // only the components that may intersect the clip are drawn
+    final var visible = getVisibleComponents(g);
     if (CollectionUtil.isNullOrEmpty(hidden)) {
-      for (final var c : comps) {
+      for (final var c : visible) {
         final var gNew = g.create();
         context.setGraphics(gNew);
         gCopy.dispose();
@@ -549,7 +622,7 @@ public class Circuit {
         c.draw(context);
       }
     } else {
-      for (final var c : comps) {
+      for (final var c : visible) {
         if (!hidden.contains(c)) {
           final var gNew = g.create();
           context.setGraphics(gNew);
@@ -585,7 +658,7 @@ public class Circuit {
 
   public Collection<Component> getAllContaining(Location pt) {
     final var ret = new LinkedHashSet<Component>();
-    for (final var comp : getComponents()) {
+    for (final var comp : getNear(pt)) {
       if (comp.contains(pt)) ret.add(comp);
     }
     return ret;
@@ -593,7 +666,7 @@ public class Circuit {
 
   public Collection<Component> getAllContaining(Location pt, Graphics g) {
     final var ret = new LinkedHashSet<Component>();
-    for (final var comp : getComponents()) {
+    for (final var comp : getNear(pt)) {
       if (comp.contains(pt, g)) ret.add(comp);
     }
     return ret;
@@ -601,7 +674,7 @@ public class Circuit {
 
   public Collection<Component> getAllWithin(Bounds bds) {
     final var ret = new LinkedHashSet<Component>();
-    for (final var comp : getComponents()) {
+    for (final var comp : getNear(bds)) {
       if (bds.contains(comp.getBounds())) ret.add(comp);
     }
     return ret;
@@ -609,12 +682,26 @@ public class Circuit {
 
   public Collection<Component> getAllWithin(Bounds bds, Graphics g) {
     final var ret = new LinkedHashSet<Component>();
-    for (final var comp : getComponents()) {
+    for (final var comp : getNear(bds)) {
       if (bds.contains(comp.getBounds(g))) ret.add(comp);
     }
     return ret;
   }
 
+  /** Returns the components, then the wires, that may contain the point, using the spatial indexes. */
+  private List<Component> getNear(Location pt) {
+    final var ret = compGrid.getNear(pt);
+    ret.addAll(wireGrid.getNear(pt));
+    return ret;
+  }
+
+  /** Returns the components, then the wires, that may intersect the area, using the spatial indexes. */
+  private List<Component> getNear(Bounds area) {
+    final var ret = compGrid.getNear(area);
+    ret.addAll(wireGrid.getNear(area));
+    return ret;
+  }
+
   public CircuitAppearance getAppearance() {
     return appearance;
   }
@@ -841,10 +928,12 @@ public class Circuit {
       if (wire.getEnd0().equals(wire.getEnd1())) return;
       var added = wires.add(wire);
       if (!added) return;
+      wireGrid.add(wire);
     } else {
       // add it into the circuit
       var added = comps.add(c);
       if (!added) return;
+      compGrid.add(c);
       socSim.registerComponent(c);
       // Here we check for duplicated labels and clear the label
       // if it already exists in the circuit
@@ -898,6 +987,8 @@ public class Circuit {
     final var oldComps = comps;
     comps = new LinkedHashSet<>();
     wires = new CircuitWires();
+    compGrid = new ComponentGrid();
+    wireGrid = new ComponentGrid();
     clocks.clear();
     myNetList.clear();
     isAnnotated = false;
@@ -909,6 +1000,11 @@ public class Circuit {
     fireEvent(CircuitEvent.ACTION_CLEAR, oldComps);
   }
 
+  /** Called after an attribute of a component was set, as this may change its bounds. */
+  void mutatorSet(Component c) {
+    compGrid.update(c);
+  }
+
   void mutatorRemove(Component c) {
     locker.checkForWritePermission("remove", this);
 
@@ -916,9 +1012,11 @@ public class Circuit {
     myNetList.clear();
     if (c instanceof Wire) {
       wires.remove(c);
+      wireGrid.remove(c);
     } else {
       wires.remove(c);
       comps.remove(c);
+      compGrid.remove(c);
       socSim.removeComponent(c);
       final var factory = c.getFactory();
       factory.removeComponent(this, c, proj.getCircuitState(this));
@@ -135,6 +135,7 @@ class CircuitMutatorImpl implements CircuitMutator {
       final var oldValue = attrs.getValue(a);
       log.add(CircuitChange.set(circuit, comp, attr, oldValue, newValue));
       attrs.setValue(a, newValue);
+      circuit.mutatorSet(comp);
     }
   }
 
@@ -32,7 +32,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -56,8 +55,11 @@ public class CircuitState implements InstanceData {
 
       if (action == CircuitEvent.ACTION_ADD) {
         /* Component was added */
-        // Nothing to do: CircuitWires.Connectivity will be voided, causing
-        // everything to be marked dirty.
+        // CircuitWires.Connectivity will be voided, causing the buses at its
+        // ports to be recomputed, but a component that is not connected to any
+        // bus still needs to be evaluated once.
+        final var comp = (Component) event.getData();
+        if (!(comp instanceof Wire)) markComponentAsDirty(comp);
       } else if (action == CircuitEvent.ACTION_REMOVE) {
         /* Component was removed */
         final var comp = (Component) event.getData();
@@ -72,6 +74,7 @@ public class CircuitState implements InstanceData {
           if (substate != null && substate.parentComp == comp) {
             synchronized (dirtyLock) {
               substates.remove(substate);
+              dirtySubstates.remove(substate);
               substatesDirty = true;
             }
             substate.parentState = null;
@@ -83,10 +86,10 @@ public class CircuitState implements InstanceData {
         }
         if (comp instanceof Wire w) {
           // Nothing to do: CircuitWires.Connectivity will be voided, causing
-          // everything to be marked dirty.
+          // the components on the affected buses to be marked dirty.
         } else {
           // Nothing else to do: CircuitWires.Connectivity will be voided, causing
-          // everything to be marked dirty.
+          // the components on the affected buses to be marked dirty.
           synchronized (dirtyLock) {
             while (dirtyComponents.remove(comp)) {
             }
@@ -105,17 +108,16 @@ public class CircuitState implements InstanceData {
           }
         }
         componentData.clear();
-        synchronized (valuesLock) {
-          slowpathValues.clear(); // slow path
-          clearFastpathGrid(); // fast path
-        }
         synchronized (dirtyLock) {
           dirtyComponents.clear();
           dirtyPoints.clear();
           substates.clear();
+          dirtySubstates.clear();
           substatesWorking = new CircuitState[0];
           substatesDirty = true;
         }
+        // wireData must be rebuilt by the next processDirtyPoints()
+        markDirtyInParent();
       } else if (action == CircuitEvent.ACTION_INVALIDATE) {
         /* Component ends changed */
         final var comp = (Component) event.getData();
@@ -145,6 +147,7 @@ public class CircuitState implements InstanceData {
             sub.parentState = null;
             synchronized (dirtyLock) {
               substates.remove(sub);
+              dirtySubstates.remove(sub);
               substatesDirty = true;
             }
           }
@@ -171,25 +174,18 @@ public class CircuitState implements InstanceData {
   private Component parentComp = null;
   // state
 
+  // wireData holds the values resulting from propagation *within* this circuit,
+  // i.e. the values carried on the wires and buses of this circuit, in an array
+  // indexed by the slots of the wire bundles. When components embedded in this
+  // circuit are called upon to re-calculate / propagate, the components will
+  // call getPortValue() or getValue() to pick out values from it. These are the
+  // values you would see if you stick a probe at some location on the circuit
+  // sheet. Only the simulation thread writes them, and they are read without
+  // locking.
   private CircuitWires.State wireData = null;
   private final HashMap<Component, Object> componentData = new HashMap<>();
-
-  private static final int FASTPATH_GRID_WIDTH = 200;
-  private static final int FASTPATH_GRID_HEIGHT = 200;
-
-  // slowpathValues and fastpathValues store values resulting from propagation
-  // *within* this circuit, i.e. the outputs of componnents in this circuit
-  // together with the values carried on wires and buses in this circuit. When
-  // components embedded in this circuit are called upon to re-calculate /
-  // propagate, the components will call getValue() to pick out values from
-  // these data structures. These are the values you would see if you stick a
-  // probe at some location on the circuit sheet. They are protected by valuesLock.
-  /** values propagated in this circuit. Protected by valuesLock */
-  private Map<Location, Value> slowpathValues = new HashMap<>();
-  /** values propagated in this circuit. Protected by valuesLock */
-  private Value[][] fastpathValues = new Value[FASTPATH_GRID_HEIGHT][FASTPATH_GRID_WIDTH];
-  /** Protects slowPathValues and fastPathValues */
-  private final Object valuesLock = new Object();
+  /** Collects the changes of this state for the canvas showing it, if any. */
+  private volatile ValueChangeTracker changeTracker = null;
 
   // dirtyComponents, dirtyPoints, and substates are components being marked as dirty.
   // They will later be shifted to the working sets to be processed.
@@ -200,7 +196,13 @@ public class CircuitState implements InstanceData {
   private ArrayList<Propagator.SimulatorEvent> dirtyPoints = new ArrayList<>();
   /** Protected by dirtyLock */
   private HashSet<CircuitState> substates = new HashSet<>();
-  /** Protects dirtyComponents, dirtyPoints, and substates */
+  /**
+   * Substates that have dirty points or components somewhere in their subtree. A substate adds
+   * itself here (and its ancestors to their parents) whenever it gets marked dirty, so that the
+   * process methods can skip clean subtrees. Protected by dirtyLock
+   */
+  private HashSet<CircuitState> dirtySubstates = new HashSet<>();
+  /** Protects dirtyComponents, dirtyPoints, substates, and dirtySubstates */
   private final Object dirtyLock = new Object();
 
   // dirtyComponentsWorking, dirtyPointsWorking, and substatesWorking are those elements
@@ -212,6 +214,8 @@ public class CircuitState implements InstanceData {
   /** Substates being processed */
   private CircuitState[] substatesWorking = new CircuitState[0];
   private boolean substatesDirty = true;
+  /** Dirty substates being processed */
+  private CircuitState[] dirtySubstatesWorking = new CircuitState[0];
 
 
   private static int lastId = 0;
@@ -269,6 +273,7 @@ public class CircuitState implements InstanceData {
         newSub.copyFrom(oldSub);
         newSub.parentState = this;
         this.substates.add(newSub);
+        this.dirtySubstates.add(newSub);
         this.substatesDirty = true;
         substateData.put(oldSub, newSub);
       }
@@ -287,28 +292,75 @@ public class CircuitState implements InstanceData {
         this.componentData.put(key, newValue);
       }
     }
-    // note: we don't bother with our this.valuesLock here: it isn't needed
-    // (b/c no other threads have a reference to this yet), and to avoid the
-    // possibility of deadlock (though that shouldn't happen either since no
-    // other threads have references to this yet).
-    this.slowpathValues.clear(); // slow path
-    synchronized (src.valuesLock) {
-      this.slowpathValues.putAll(src.slowpathValues); // slow path
-      for (var y = 0; y < FASTPATH_GRID_HEIGHT; y++) { // fast path
-        System.arraycopy(src.fastpathValues[y], 0, this.fastpathValues[y], 0, FASTPATH_GRID_WIDTH);
-      }
-    }
     synchronized (src.dirtyLock) {
       // note: we don't bother with our this.dirtyLock here: it isn't needed
       // (b/c no other threads have a reference to this yet), and to avoid the
       // possibility of deadlock (though that shouldn't happen either since no
       // other threads have references to this yet).
       this.dirtyComponents.addAll(src.dirtyComponents);
-      this.dirtyPoints.addAll(src.dirtyPoints);
+      // events are recycled once processed, so they can't be shared with src
+      for (final var ev : src.dirtyPoints) {
+        this.dirtyPoints.add(ev.cloneFor(this));
+      }
     }
     if (src.wireData != null) {
       this.wireData = circuit.wires.newState(this); // all buses will be marked as dirty
+      this.wireData.copyValues(src.wireData);
+    }
+  }
+
+  /**
+   * Captures the data of the components of this state and its substates for a checkpoint, with the
+   * values on their wires. The wires must be kept as well, since a latch built from gates holds its
+   * state only there.
+   */
+  SimulationCheckpoint.Snapshot takeSnapshot() {
+    final var data = new HashMap<Component, Object>();
+    for (final var entry : componentData.entrySet()) {
+      final var value = entry.getValue();
+      if (value instanceof CircuitState sub) {
+        data.put(entry.getKey(), sub.takeSnapshot());
+      } else if (isRestorable(value)) {
+        data.put(entry.getKey(), ((ComponentState) value).clone());
+      }
+    }
+    final var wires = wireData == null ? null : wireData.takeSnapshot();
+    return new SimulationCheckpoint.Snapshot(data, wires);
+  }
+
+  /**
+   * Puts back the component and wire data of a snapshot taken by takeSnapshot() and marks all
+   * components dirty, so that the next propagation picks up data that was not restored. Data of
+   * components that had none when the snapshot was taken is dropped, and data attached to a
+   * window, such as that of a keyboard or a terminal, is kept as it is.
+   */
+  void restoreSnapshot(SimulationCheckpoint.Snapshot snapshot) {
+    temporaryClock = null;
+    wireData = snapshot.wires() == null ? null : CircuitWires.State.restore(snapshot.wires());
+    final var tracker = changeTracker;
+    if (tracker != null) tracker.invalidate();
+    for (final var entry : componentData.entrySet()) {
+      final var value = entry.getValue();
+      final var saved = snapshot.data().get(entry.getKey());
+      if (value instanceof CircuitState sub) {
+        if (saved instanceof SimulationCheckpoint.Snapshot subSnapshot) sub.restoreSnapshot(subSnapshot);
+      } else if (saved instanceof ComponentState state) {
+        if (value == null || isRestorable(value)) entry.setValue(state.clone());
+      } else if (isRestorable(value)) {
+        entry.setValue(null);
+      }
     }
+    synchronized (dirtyLock) {
+      dirtyComponents.clear();
+      dirtyPoints.clear();
+    }
+    markAllComponentsDirty();
+  }
+
+  private static boolean isRestorable(Object data) {
+    return data instanceof ComponentState
+        && !(data instanceof ComponentDataGuiProvider)
+        && !(data instanceof TelnetServer);
   }
 
   public void drawOscillatingPoints(ComponentDrawContext context) {
@@ -385,36 +437,37 @@ public class CircuitState implements InstanceData {
   }
 
   public Value getValue(Location p) {
-    Value value = null;
-    if (p.x >= 0 && p.y >= 0
-        && p.x % 10 == 0 && p.y % 10 == 0
-        && p.x < FASTPATH_GRID_WIDTH * 10
-        && p.y < FASTPATH_GRID_HEIGHT * 10) {
-      // fast path
-      final var x = p.x / 10;
-      final var y = p.y / 10;
-      synchronized (valuesLock) {
-        value = fastpathValues[y][x];
-        if (value == null) {
-          value = CircuitWires.getBusValue(this, p);
-        }
-      }
-    } else {
-      // slow path
-      synchronized (valuesLock) {
-        value = slowpathValues.get(p);
-        if (value == null) {
-          value = CircuitWires.getBusValue(this, p);
-        }
-      }
-    }
-    return value != null ? value : Value.createUnknown(circuit.getWidth(p));
+    final var s = wireData;
+    final var value = s == null ? null : s.getValue(p);
+    return value != null ? value : Value.NIL;
+  }
+
+  /**
+   * Returns the value at an end of a component, the same as getValue() at the location of the end,
+   * but without looking the location up for instance components.
+   */
+  public Value getPortValue(Component comp, int index) {
+    final var s = wireData;
+    if (s == null) return Value.NIL;
+    if (!(comp instanceof InstanceComponent instanceComp)) return getValue(comp.getEnd(index).getLocation());
+    final var value = s.getPortValue(instanceComp, index);
+    return value != null ? value : Value.NIL;
   }
 
   CircuitWires.State getWireData() {
     return wireData;
   }
 
+  public ValueChangeTracker getChangeTracker() {
+    return changeTracker;
+  }
+
+  /** Attaches a tracker that collects the changed buses and components, or detaches it (null). */
+  public void setChangeTracker(ValueChangeTracker tracker) {
+    if (tracker != null) tracker.invalidate();
+    changeTracker = tracker;
+  }
+
   public boolean isSubstate() {
     return parentState != null;
   }
@@ -423,27 +476,83 @@ public class CircuitState implements InstanceData {
     synchronized (dirtyLock) {
       dirtyComponents.addAll(circuit.getNonWires());
     }
+    markDirtyInParent();
   }
 
   public void markComponentAsDirty(Component comp) {
     synchronized (dirtyLock) {
       dirtyComponents.add(comp);
     }
+    markDirtyInParent();
   }
 
   public void markComponentsDirty(Collection<Component> comps) {
     synchronized (dirtyLock) {
       dirtyComponents.addAll(comps);
     }
+    markDirtyInParent();
   }
 
   void markPointAsDirty(Propagator.SimulatorEvent ev) {
     synchronized (dirtyLock) {
       dirtyPoints.add(ev);
     }
+    markDirtyInParent();
+  }
+
+  /**
+   * Registers this state in the dirty set of its parent, and the parent in the dirty set of its
+   * own parent, and so on, stopping at the first ancestor that is already registered. Only one
+   * dirtyLock is held at a time, so this may be called from any thread.
+   */
+  private void markDirtyInParent() {
+    var child = this;
+    var parent = child.parentState;
+    while (parent != null) {
+      synchronized (parent.dirtyLock) {
+        if (child.parentState != parent || !parent.dirtySubstates.add(child)) return;
+      }
+      child = parent;
+      parent = child.parentState;
+    }
   }
 
   void processDirtyComponents() {
+    processOwnComponents(false);
+    // This is the last pass of a step, so the dirty substates are taken out of
+    // the dirty set here. Anything marked dirty from now on re-registers itself.
+    final var subs = takeDirtySubstates();
+    if (subs == null) return;
+    final var tracker = changeTracker;
+    if (tracker != null) {
+      // the appearance of a subcircuit may show its state
+      for (var i = 0; i < subs.length && subs[i] != null; i++) tracker.componentChanged(subs[i].parentComp);
+    }
+    if (base.isParallel() && subs.length > 1 && subs[1] != null) {
+      base.processSubstatesInParallel(this, subs);
+      return;
+    }
+    var i = 0;
+    try {
+      for (; i < subs.length && subs[i] != null; i++) {
+        subs[i].processDirtyComponents();
+        subs[i] = null;
+      }
+    } finally {
+      // a buggy component aborted the pass: keep the unprocessed substates dirty
+      for (; i < subs.length && subs[i] != null; i++) {
+        keepDirty(subs[i]);
+        subs[i] = null;
+      }
+    }
+  }
+
+  /**
+   * Propagates the dirty components of this state, but not those of its substates. A pin changes
+   * the ports of the subcircuit in the parent state, which are updated right away unless
+   * deferPorts is set; then the update is left to the propagator, see Propagator.PartitionTask.
+   */
+  void processOwnComponents(boolean deferPorts) {
     if (!dirtyComponentsWorking.isEmpty()) {
       throw new IllegalStateException("INTERNAL ERROR: dirtyComponentsWorking not empty");
     }
@@ -451,39 +560,77 @@ public class CircuitState implements InstanceData {
       final var other = dirtyComponents;
       dirtyComponents = dirtyComponentsWorking; // dirtyComponents is now empty
       dirtyComponentsWorking = other; // working set is now ready to process
-      if (substatesDirty) {
-        substatesDirty = false;
-        substatesWorking = substates.toArray(substatesWorking);
-      }
     }
+    final var strategy = base.getStrategy();
+    final var tracker = changeTracker;
+    if (tracker != null) tracker.componentsChanged(dirtyComponentsWorking);
     try { // comp.propagate() can fail if external (or std) library is buggy
       for (final var comp : dirtyComponentsWorking) {
-        comp.propagate(this);
+        strategy.propagate(comp, this);
         // pin values also get propagated to parent state
         if (comp.getFactory() instanceof Pin && parentState != null) {
-          parentComp.propagate(parentState);
+          if (deferPorts) {
+            base.deferPortUpdate(this);
+          } else {
+            strategy.propagate(parentComp, parentState);
+          }
         }
       }
     } finally {
       dirtyComponentsWorking.clear();
     }
-    for (final var substate : substatesWorking) {
-      if (substate == null) break;
-      substate.processDirtyComponents();
+  }
+
+  /**
+   * Takes the dirty substates out of the dirty set. Returns null if there are none, otherwise an
+   * array holding them, followed by nulls; the caller must clear the entries it is done with.
+   */
+  CircuitState[] takeDirtySubstates() {
+    synchronized (dirtyLock) {
+      if (dirtySubstates.isEmpty()) return null;
+      final var subs = dirtySubstatesWorking = dirtySubstates.toArray(dirtySubstatesWorking);
+      dirtySubstates.clear();
+      return subs;
+    }
+  }
+
+  /** Puts back a substate taken by takeDirtySubstates() that could not be processed. */
+  void keepDirty(CircuitState substate) {
+    synchronized (dirtyLock) {
+      if (substate.parentState == this) dirtySubstates.add(substate);
     }
   }
 
-  void processDirtyPoints() {
+  /** Updates the ports of this state's subcircuit in the parent state. */
+  void propagateToParent() {
+    if (parentState != null) base.getStrategy().propagate(parentComp, parentState);
+  }
+
+  /**
+   * Processes the dirty points of this state and of all dirty substates. When allSubstates is set,
+   * every substate is visited, which is needed after a connectivity change as the wire data of a
+   * clean substate has become stale as well.
+   */
+  void processDirtyPoints(boolean allSubstates) {
     if (!dirtyPointsWorking.isEmpty()) {
       throw new IllegalStateException("INTERNAL ERROR: dirtyPointsWorking not empty");
     }
+    final CircuitState[] subs;
     synchronized (dirtyLock) {
       final var other = dirtyPoints;
       dirtyPoints = dirtyPointsWorking; // dirtyPoints is now empty
       dirtyPointsWorking = other; // working set is now ready to process
-      if (substatesDirty) {
-        substatesDirty = false;
-        substatesWorking = substates.toArray(substatesWorking);
+      if (allSubstates) {
+        if (substatesDirty) {
+          substatesDirty = false;
+          substatesWorking = substates.toArray(substatesWorking);
+        }
+        subs = substatesWorking;
+      } else {
+        // the dirty set is left intact, processDirtyComponents() still needs it
+        subs = dirtySubstates.isEmpty()
+            ? null
+            : (dirtySubstatesWorking = dirtySubstates.toArray(dirtySubstatesWorking));
       }
     }
     // Note: When a new wire map is created (because wires or splitters have
@@ -496,18 +643,22 @@ public class CircuitState implements InstanceData {
     // run-time exception. Instead, we now put the splitter location list in
     // the wire map itself when it is created (which is done by CircuitWires
     // carefully in a thread-safe way).
-    circuit.wires.propagate(this, dirtyPointsWorking);
+    base.getStrategy().propagateWires(this, dirtyPointsWorking);
+    base.recycleEvents(dirtyPointsWorking);
     dirtyPointsWorking.clear();
 
-    for (final var substate : substatesWorking) {
+    if (subs == null) return;
+    for (final var substate : subs) {
       if (substate == null) break;
-      substate.processDirtyPoints();
+      substate.processDirtyPoints(allSubstates);
     }
   }
 
   public void reset() {
     temporaryClock = null;
     wireData = null;
+    final var tracker = changeTracker;
+    if (tracker != null) tracker.invalidate();
     for (final var comp : componentData.keySet()) {
       if (comp.getFactory() instanceof Ram ram) {
         final var remove = ram.reset(this, Instance.getInstanceFor(comp));
@@ -520,13 +671,10 @@ public class CircuitState implements InstanceData {
         componentData.put(comp, null);
       }
     }
-    synchronized (valuesLock) {
-      slowpathValues.clear(); // slow path
-      clearFastpathGrid(); // fast path
-    }
     synchronized (dirtyLock) {
       dirtyComponents.clear();
       dirtyPoints.clear();
+      dirtySubstates.clear();
       for (final var sub : substates) {
         sub.reset();
       }
@@ -541,19 +689,22 @@ public class CircuitState implements InstanceData {
       System.out.println("fixme: removed stale circuitstate... should never happen");
       synchronized (dirtyLock) {
         substates.remove(oldState);
+        dirtySubstates.remove(oldState);
         substatesDirty = true;
       }
       oldState.parentState = null;
       oldState.parentComp = null;
     }
     final var newState = new CircuitState(proj, circ, base);
+    newState.parentState = this;
+    newState.parentComp = comp;
     synchronized (dirtyLock) {
       substates.add(newState);
       substatesDirty = true;
     }
-    newState.parentState = this;
-    newState.parentComp = comp;
     componentData.put(comp, newState);
+    // the new state has all its components marked dirty already
+    newState.markDirtyInParent();
     return newState;
   }
 
@@ -574,13 +725,16 @@ public class CircuitState implements InstanceData {
       synchronized (dirtyLock) {
         if (old != null) {
           substates.remove(old);
+          dirtySubstates.remove(old);
           old.parentState = null;
         }
         sub.parentState = this;
         substates.add(sub);
+        dirtySubstates.add(sub);
         substatesDirty = true;
         dirtyComponents.add(comp);
       }
+      markDirtyInParent();
     } else {
       componentData.put(comp, data);
     }
@@ -600,32 +754,9 @@ public class CircuitState implements InstanceData {
     base.setValue(this, pt, val, cause, delay);
   }
 
-  /** precondition: valuesLock held */
-  private void clearFastpathGrid() {
-    for (var y = 0; y < FASTPATH_GRID_HEIGHT; y++) {
-      for (var x = 0; x < FASTPATH_GRID_WIDTH; x++) {
-        fastpathValues[y][x] = null;
-      }
-    }
-  }
-
-  /** for CircuitWires - to set value at point */
+  /** for CircuitWires - a bus has a new value: wake up the components reading it */
   void setValueByWire(Value v, Location[] points, CircuitWires.BusConnection[] connections) {
-    for (final var p : points) {
-      if (p.x >= 0 && p.y >= 0
-          && p.x % 10 == 0 && p.y % 10 == 0
-          && p.x < FASTPATH_GRID_WIDTH * 10
-          && p.y < FASTPATH_GRID_HEIGHT * 10) {
-        synchronized (valuesLock) {
-          fastpath(p, v);
-        }
-      } else {
-        synchronized (valuesLock) {
-          slowpath(p, v);
-        }
-      }
-      base.locationTouched(this, p);
-    }
+    base.locationsTouched(this, points);
     for (final var bc : connections) {
       if (bc.isSink || (bc.isBidirectional && !Value.equal(v, bc.drivenValue))) {
         markComponentAsDirty(bc.component);
@@ -633,46 +764,6 @@ public class CircuitState implements InstanceData {
     }
   }
 
-  /** for CircuitWires - to set value at point */
-  void clearValuesByWire() {
-    synchronized (valuesLock) {
-      slowpathValues.clear(); // slow path
-      clearFastpathGrid(); // fast path
-    }
-  }
-
-  /** precondition: valuesLock held */
-  private boolean fastpath(Location p, Value v) {
-    final var x = p.x / 10;
-    final var y = p.y / 10;
-    if (v == Value.NIL) {
-      if (fastpathValues[y][x] != null) {
-        fastpathValues[y][x] = null;
-        return true;
-      } else {
-        return false;
-      }
-    } else {
-      if (!v.equals(fastpathValues[y][x])) {
-        fastpathValues[y][x] = v;
-        return true;
-      } else {
-        return false;
-      }
-    }
-  }
-
-  /** precondition: valuesLock held */
-  private boolean slowpath(Location p, Value v) {
-    if (v == Value.NIL) {
-      final var old = slowpathValues.remove(p);
-      return (old != null && old != Value.NIL);
-    } else {
-      final var old = slowpathValues.put(p, v);
-      return !v.equals(old);
-    }
-  }
-
   void setWireData(CircuitWires.State data) {
     wireData = data;
   }
@@ -29,14 +29,19 @@ import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.IteratorUtil;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import javax.swing.SwingUtilities;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -96,6 +101,12 @@ public class CircuitWires {
     /** The isValid flag remains true unless something goes wrong during initialization. */
     volatile boolean isValid = true;
 
+    /** Size of the value arrays of the States for this map, see WireBundle.slot. */
+    int slotCount = 0;
+
+    /** The slots at the ends of the instance components, computed when first asked for. */
+    final ConcurrentHashMap<InstanceComponent, PortSlots> portSlots = new ConcurrentHashMap<>();
+
     /** Info about width incompatibilities, used by GUI to display error. */
     HashSet<WidthIncompatibilityData> incompatibilityData = null;
 
@@ -140,16 +151,236 @@ public class CircuitWires {
       isValid = false;
     }
 
+    /**
+     * Gives a slot to each bundle that doesn't have one yet, reusing the slots that the bundles
+     * taken over from an earlier map left free.
+     */
+    void assignSlots() {
+      var size = bundles.size();
+      for (final var b : bundles) size = Math.max(size, b.slot + 1);
+      final var used = new boolean[size];
+      for (final var b : bundles) {
+        if (b.slot >= 0) used[b.slot] = true;
+      }
+      var next = 0;
+      for (final var b : bundles) {
+        if (b.slot < 0) {
+          while (used[next]) next++;
+          used[next] = true;
+          b.slot = next;
+        }
+        slotCount = Math.max(slotCount, b.slot + 1);
+      }
+    }
+
+    /**
+     * Returns the slots of the bundles at the ends of a component, -1 for an end that is not on
+     * any bundle. They are computed once per map and list of ends.
+     */
+    int[] getPortSlots(InstanceComponent comp) {
+      final var ends = comp.getEnds();
+      final var cached = portSlots.get(comp);
+      if (cached != null && cached.ends() == ends) return cached.slots();
+      final var slots = new int[ends.size()];
+      for (var i = 0; i < slots.length; i++) {
+        final var b = pointBundles.get(ends.get(i).getLocation());
+        slots[i] = b == null ? -1 : b.slot;
+      }
+      portSlots.put(comp, new PortSlots(ends, slots));
+      return slots;
+    }
+
     boolean isValid() {
       return isValid;
     }
   }
 
-  static class SplitterData {
-    final WireBundle[] endBundle; // PointData associated with each end
+  /** The slots of the ends of a component, for one list of ends. */
+  private record PortSlots(List<EndData> ends, int[] slots) {}
+
+  /**
+   * Topology is an immutable copy of everything computeConnectivity() reads from the circuit: the
+   * wires, the splitter configurations, the tunnel labels, the pull values, and the ports and
+   * widths at each location. It is taken under the topology lock, so any thread can compute the
+   * connectivity from it while the event thread keeps editing the circuit.
+   *
+   * <p>When only a few locations changed since some earlier connectivity map, the copy is limited
+   * to a region around them: the smallest set of locations containing the changed ones that is
+   * closed under the wires, splitters and tunnels of the circuit, and under the bundles and
+   * threads of the earlier map. The bundles of the earlier map outside the region are still
+   * valid, and are reused as they are.
+   */
+  private static final class Topology {
+    record SplitterEnds(Location[] locations, BitWidth[] widths, byte[] bitEnd, byte[] bitThread) {}
+
+    record Pull(Location location, Value value) {}
+
+    /** Value of topologyVersion when this copy was taken. */
+    final int version;
+    /** Earlier map whose bundles outside the region are reused, or null to compute everything. */
+    final Connectivity base;
+    /** Locations whose bundles are computed, if base is not null. */
+    final HashSet<Location> region;
+    final ArrayList<Wire> wires;
+    final ArrayList<Splitter> splitters;
+    final ArrayList<SplitterEnds> splitterEnds = new ArrayList<>();
+    final HashMap<String, ArrayList<Location>> tunnelSets = new HashMap<>();
+    final ArrayList<Pull> pulls = new ArrayList<>();
+    final ArrayList<Component> components;
+    /** Locations of the output and bidirectional ports of components. */
+    final ArrayList<Location> drivenLocations = new ArrayList<>();
+    final ArrayList<Location> allLocations;
+    final HashMap<Location, BitWidth> widths = new HashMap<>();
+    final HashMap<Location, ArrayList<Component>> componentsAtLocations;
+    final ArrayList<WidthIncompatibilityData> incompatibilityData;
+
+    /**
+     * Must be called while holding the topology lock of the given wires. If base is not null, only
+     * the region around the changed locations is copied.
+     */
+    Topology(CircuitWires src, Connectivity base, Set<Location> changed) {
+      version = src.topologyVersion;
+      components = new ArrayList<>(src.components);
+      allLocations = new ArrayList<>(src.points.getAllLocations());
+      incompatibilityData = new ArrayList<>(src.points.getWidthIncompatibilityData());
+      final var labels = new HashMap<String, ArrayList<Location>>();
+      for (final var comp : src.tunnels) {
+        final var label = comp.getAttributeSet().getValue(StdAttr.LABEL).trim();
+        if (!label.equals("")) {
+          labels.computeIfAbsent(label, k -> new ArrayList<>(3)).add(comp.getLocation());
+        }
+      }
+      if (base == null) {
+        this.base = null;
+        region = null;
+        wires = new ArrayList<>(src.wires);
+        splitters = new ArrayList<>(src.splitters);
+        tunnelSets.putAll(labels);
+        componentsAtLocations = new HashMap<>();
+        for (final var comp : src.pulls) {
+          pulls.add(new Pull(comp.getEnd(0).getLocation(), PullResistor.getPullValue(Instance.getInstanceFor(comp))));
+        }
+        for (final var comp : src.components) {
+          for (final var e : comp.getEnds()) {
+            if (e.getType() != EndData.INPUT_ONLY) drivenLocations.add(e.getLocation());
+          }
+          addPullPorts(comp, null);
+        }
+        for (final var p : allLocations) copyLocation(src, p);
+      } else {
+        this.base = base;
+        region = findRegion(src, base, changed, labels);
+        final var wireSet = new HashSet<Wire>();
+        final var splitterSet = new HashSet<Splitter>();
+        componentsAtLocations = new HashMap<>(base.componentsAtLocations);
+        for (final var p : region) {
+          componentsAtLocations.remove(p);
+          var driven = false;
+          for (final var comp : src.points.getComponents(p)) {
+            if (comp instanceof Wire wire) {
+              wireSet.add(wire);
+            } else if (comp instanceof Splitter splitter) {
+              splitterSet.add(splitter);
+            } else if (src.pulls.contains(comp)) {
+              pulls.add(new Pull(p, PullResistor.getPullValue(Instance.getInstanceFor(comp))));
+            } else if (src.components.contains(comp)) {
+              for (final var e : comp.getEnds()) {
+                driven |= e.getLocation().equals(p) && e.getType() != EndData.INPUT_ONLY;
+              }
+              addPullPorts(comp, p);
+            }
+          }
+          if (driven) drivenLocations.add(p);
+          copyLocation(src, p);
+        }
+        wires = new ArrayList<>(wireSet);
+        splitters = new ArrayList<>(splitterSet);
+        for (final var entry : labels.entrySet()) {
+          // the region contains either all or none of the tunnels with a given label
+          if (region.contains(entry.getValue().get(0))) tunnelSets.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+
+    /** Adds the pull values of the ports of a component, or only those at a given location. */
+    private void addPullPorts(Component comp, Location only) {
+      if (comp instanceof InstanceComponent instanceComponent) {
+        final Map<Integer, Value> pullPorts = instanceComponent.getPullPorts();
+        if (pullPorts != null) {
+          for (final var portIndex : pullPorts.keySet()) {
+            final var loc = comp.getEnd(portIndex).getLocation();
+            if (only == null || only.equals(loc)) pulls.add(new Pull(loc, pullPorts.get(portIndex)));
+          }
+        }
+      }
+    }
+
+    private void copyLocation(CircuitWires src, Location p) {
+      final var width = src.points.getWidth(p);
+      if (width != BitWidth.UNKNOWN) widths.put(p, width);
+      ArrayList<Component> a = null;
+      for (final var comp : src.points.getComponents(p)) {
+        if ((comp instanceof Wire) || (comp instanceof Splitter)) continue;
+        if (a == null) {
+          a = new ArrayList<Component>();
+        }
+        a.add(comp);
+      }
+      if (a != null) {
+        componentsAtLocations.put(p, a);
+      }
+    }
 
-    SplitterData(int fanOut) {
-      endBundle = new WireBundle[fanOut + 1];
+    private static HashSet<Location> findRegion(CircuitWires src, Connectivity base, Set<Location> changed,
+        HashMap<String, ArrayList<Location>> labels) {
+      final var region = new HashSet<Location>();
+      final var pending = new ArrayDeque<Location>(changed);
+      while (!pending.isEmpty()) {
+        final var p = pending.pop();
+        if (!region.add(p)) continue;
+        final var bundle = base.getBundleAt(p);
+        if (bundle != null) {
+          Collections.addAll(pending, bundle.xpoints);
+          if (bundle.threads != null) {
+            for (final var thread : bundle.threads) {
+              for (final var other : thread.bundle) Collections.addAll(pending, other.xpoints);
+            }
+          }
+        }
+        for (final var comp : src.points.getComponents(p)) {
+          if (comp instanceof Wire wire) {
+            pending.add(wire.e0);
+            pending.add(wire.e1);
+          } else if (comp instanceof Splitter) {
+            for (final var end : comp.getEnds()) pending.add(end.getLocation());
+          } else if (src.tunnels.contains(comp)) {
+            final var label = comp.getAttributeSet().getValue(StdAttr.LABEL).trim();
+            if (!label.equals("")) pending.addAll(labels.get(label));
+          }
+        }
+      }
+      return region;
+    }
+
+    /**
+     * Copies the splitter configurations. This locks each splitter, so it must be called without
+     * holding the topology lock: the event thread locks a splitter while it reconfigures it, and
+     * then updates the circuit.
+     */
+    void copySplitters() {
+      for (final var spl : splitters) {
+        synchronized (spl) {
+          final var ends = spl.getEnds();
+          final var locations = new Location[ends.size()];
+          final var widths = new BitWidth[ends.size()];
+          for (var i = 0; i < locations.length; i++) {
+            locations[i] = ends.get(i).getLocation();
+            widths[i] = ends.get(i).getWidth();
+          }
+          final var splAttrs = (SplitterAttributes) spl.getAttributeSet();
+          splitterEnds.add(new SplitterEnds(locations, widths, splAttrs.bitEnd.clone(), spl.bitThread.clone()));
+        }
+      }
     }
   }
 
@@ -267,6 +498,9 @@ public class CircuitWires {
     /** State.buses[idx] will hold this ValuedBus */
     int idx;
 
+    /** Index of the value of this bus in State.values, the slot of its bundle */
+    final int slot;
+
     /** Negative for invalid width */
     int width;
 
@@ -296,6 +530,7 @@ public class CircuitWires {
 
     ValuedBus(int i, WireBundle wb, Connectivity cmap) {
       idx = i;
+      slot = wb.slot;
       filterComponents(cmap, wb.xpoints); // initializes locations[] and connections[]
       width = wb.threads == null ? -1 : wb.getWidth().getWidth();
       pullVal = wb.getPullValue();
@@ -378,47 +613,90 @@ public class CircuitWires {
     }
   }
 
+  /** The values of the buses of a circuit state, as captured by State.takeSnapshot(). */
+  static final class Snapshot {
+    private final Connectivity connectivity;
+    private final Value[] values;
+    /** The values driven by the connections of each bus, indexed by slot. */
+    private final Value[][] driven;
+
+    private Snapshot(Connectivity connectivity, Value[] values, Value[][] driven) {
+      this.connectivity = connectivity;
+      this.values = values;
+      this.driven = driven;
+    }
+  }
+
   State newState(CircuitState circState) { // for cloning CircuitState
-    return new State(getConnectivity(), circState.getWireData());
+    return new State(getConnectivity(), circState.getWireData(), false);
   }
 
   static class State {
     /** Original source of connectivity info */
     private Connectivity connectivity; // original source of connectivity info
     HashMap<Location, ValuedBus> busAt = new HashMap<>();
+    /** The bus for each bundle of the connectivity map */
+    HashMap<WireBundle, ValuedBus> busFor = new HashMap<>();
     ValuedBus[] buses;
+    /**
+     * The value of each bus, indexed by slot, as last posted to the circuit state. Written by the
+     * simulation thread only, through setValue(), and read by any thread without locking.
+     */
+    Value[] values;
+    /** Whether values is shared with a snapshot, so that it must be copied before a write. */
+    private boolean valuesShared;
     int numDirty;
+    /** Number of buses taken over from the previous State */
+    int numKept;
     static final ValuedBus[] EMPTY_DEPENDENCIES = new ValuedBus[0];
 
-
-    State(Connectivity cm, State prev) {
+    /**
+     * Creates the state for a connectivity map. If keepBuses is set, the buses of prev whose bundle
+     * is still in the map are taken over with their values, and only the other buses are marked
+     * dirty. Otherwise all buses are new, and all are marked dirty.
+     */
+    State(Connectivity cm, State prev, boolean keepBuses) {
       connectivity = cm;
-      HashMap<WireBundle, ValuedBus> allBuses = new HashMap<>();
-      HashMap<ValuedBus, WireBundle> srcBuses = new HashMap<>();
+      values = new Value[cm.slotCount];
+      final var kept = new ArrayList<ValuedBus>();
+      final var srcBuses = new HashMap<ValuedBus, WireBundle>();
       // initialize buses[] and busAt<>
       buses = new ValuedBus[connectivity.bundles.size()];
       int idx = 0;
       for (final var wb : connectivity.bundles) {
-        final var vb = new ValuedBus(idx++, wb, connectivity);
-        buses[vb.idx] = vb;
+        var vb = keepBuses && prev != null ? prev.busFor.get(wb) : null;
+        if (vb != null && !vb.dirty) {
+          kept.add(vb);
+          values[vb.slot] = prev.values[vb.slot];
+        } else {
+          vb = new ValuedBus(idx++, wb, connectivity);
+          buses[vb.idx] = vb;
+          srcBuses.put(vb, wb);
+        }
         for (final var loc : wb.xpoints) {
           ValuedBus old = busAt.put(loc, vb);
           if (old != null) {
             throw new IllegalStateException("oops, two wires occupy same location");
           }
         }
-        allBuses.put(wb, vb);
-        srcBuses.put(vb, wb);
+        busFor.put(wb, vb);
+      }
+      // the new buses are dirty, the buses taken over are clean
+      numDirty = idx;
+      numKept = kept.size();
+      for (final var vb : kept) {
+        vb.idx = idx++;
+        buses[vb.idx] = vb;
       }
-      // create threads for all buses that need them
+      // create threads for all new buses that need them
       HashMap<WireThread, ValuedThread> allThreads = new HashMap<>();
-      for (final var vb : buses) {
-        vb.makeThreads(srcBuses.get(vb).threads, allBuses, allThreads);
+      for (final var vb : srcBuses.keySet()) {
+        vb.makeThreads(srcBuses.get(vb).threads, busFor, allThreads);
       }
       // initialize BusConnection driven values from previous State, if any,
       // but only if they are not sinks (or pins, which always count as sinks)
       if (prev != null) {
-        for (final var vb : buses) {
+        for (final var vb : srcBuses.keySet()) {
           for (final var bc : vb.connections) {
             if (!bc.isSink) {
               bc.drivenValue = prev.getDrivenValue(bc.component, bc.location);
@@ -427,7 +705,7 @@ public class CircuitWires {
         }
       }
       // compute bus dependencies
-      for (final var vb : buses) {
+      for (final var vb : srcBuses.keySet()) {
         if (vb.width <= 0) continue;
         if (vb.threads == null) {
           // degenerate
@@ -445,8 +723,69 @@ public class CircuitWires {
           vb.dependentBuses = deps.toArray(new ValuedBus[size]);
         }
       }
-      // mark all dirty: recomputes values and triggers component propagation
-      numDirty = buses.length;
+    }
+
+    /** Sets the value of the bus at slot, copying the values first if a snapshot shares them. */
+    void setValue(int slot, Value val) {
+      if (valuesShared) {
+        values = values.clone();
+        valuesShared = false;
+      }
+      values[slot] = val;
+    }
+
+    /**
+     * Captures the values of the buses and the values the components drive onto them, for a
+     * checkpoint. The bus values are shared with the snapshot until either side writes them.
+     */
+    Snapshot takeSnapshot() {
+      final var driven = new Value[values.length][];
+      for (final var vb : buses) {
+        final var conns = vb.connections;
+        final var slotDriven = new Value[conns.length];
+        for (var i = 0; i < conns.length; i++) slotDriven[i] = conns[i].drivenValue;
+        driven[vb.slot] = slotDriven;
+      }
+      valuesShared = true;
+      return new Snapshot(connectivity, values, driven);
+    }
+
+    /** Creates a state holding the values of a snapshot taken by takeSnapshot(), with all buses clean. */
+    static State restore(Snapshot snapshot) {
+      final var s = new State(snapshot.connectivity, null, false);
+      for (var i = 0; i < s.numDirty; i++) {
+        final var vb = s.buses[i];
+        final var conns = vb.connections;
+        final var slotDriven = snapshot.driven[vb.slot];
+        for (var j = 0; j < conns.length; j++) conns[j].drivenValue = slotDriven[j];
+        vb.localDrivenValue = vb.width <= 0 ? Value.NIL : Value.combineLikeWidths(vb.width, conns);
+      }
+      // the thread values need the local values of all buses, so recalculate only once these are set
+      for (var i = 0; i < s.numDirty; i++) s.buses[i].recalculate();
+      s.numDirty = 0;
+      s.values = snapshot.values;
+      s.valuesShared = true;
+      return s;
+    }
+
+    /** Copies the values of the buses that are also in src, for a cloned circuit state. */
+    void copyValues(State src) {
+      for (final var wb : busFor.keySet()) {
+        if (src.busFor.containsKey(wb)) values[wb.slot] = src.values[wb.slot];
+      }
+    }
+
+    /** Returns the value at a location, or null if there is none yet. */
+    Value getValue(Location loc) {
+      final var vb = busAt.get(loc);
+      return vb == null ? null : values[vb.slot];
+    }
+
+    /** Returns the value at an end of a component, or null if there is none yet. */
+    Value getPortValue(InstanceComponent comp, int index) {
+      final var slots = connectivity.getPortSlots(comp);
+      final var slot = index < slots.length ? slots[index] : -1;
+      return slot < 0 ? null : values[slot];
     }
 
     Value getDrivenValue(Component c, Location loc) {
@@ -516,6 +855,23 @@ public class CircuitWires {
 
   private volatile Connectivity masterConnectivity = null;
 
+  /** Guards the elements above and topologyVersion. */
+  private final Object topologyLock = new Object();
+  /** Incremented under topologyLock whenever the elements of the circuit change. */
+  private int topologyVersion = 0;
+  /** Last connectivity map that was cached, guarded by topologyLock. */
+  private Connectivity changedBase = null;
+  /**
+   * Locations changed since changedBase was computed, or null if the next map must be computed
+   * from scratch. Guarded by topologyLock.
+   */
+  private HashSet<Location> changedLocations = null;
+  /** Beyond this many changed locations, the next map is computed from scratch. */
+  private static final int MAX_CHANGED_LOCATIONS = 1024;
+
+  /** Incremented whenever the connectivity of any circuit is voided. */
+  private static final AtomicInteger connectivityEpoch = new AtomicInteger();
+
   private TunnelListener tunnelListener = new TunnelListener();
 
   private class TunnelListener implements AttributeListener {
@@ -535,9 +891,15 @@ public class CircuitWires {
 
   CircuitWires() {}
 
-  // NOTE: this could be made much more efficient in most cases to
-  // avoid voiding the connectivity map.
+  // The mutators below void the connectivity map, recording the changed
+  // locations so that the next map only recomputes the bundles around them.
   boolean add(Component comp) {
+    synchronized (topologyLock) {
+      return addLocked(comp);
+    }
+  }
+
+  private boolean addLocked(Component comp) {
     var added = true;
     if (comp instanceof Wire wire) {
       added = addWire(wire);
@@ -557,14 +919,16 @@ public class CircuitWires {
     }
     if (added) {
       points.add(comp);
-      voidConnectivity();
+      voidConnectivity(comp);
     }
     return added;
   }
 
   void add(Component comp, EndData end) {
-    points.add(comp, end);
-    voidConnectivity();
+    synchronized (topologyLock) {
+      points.add(comp, end);
+      voidConnectivity(end.getLocation());
+    }
   }
 
   private boolean addWire(Wire w) {
@@ -578,12 +942,12 @@ public class CircuitWires {
   }
 
   /** To be called by getConnectivity() only */
-  private void computeConnectivity(Connectivity ret) {
+  private static void computeConnectivity(Topology topo, Connectivity ret) {
     // create bundles corresponding to wires and tunnels
-    connectComponents(ret);
-    connectWires(ret);
-    connectTunnels(ret);
-    connectPullResistors(ret);
+    connectComponents(topo, ret);
+    connectWires(topo, ret);
+    connectTunnels(topo, ret);
+    connectPullResistors(topo, ret);
 
     // merge any WireBundle objects united by previous steps
     for (final var it = ret.getBundles().iterator(); it.hasNext(); ) {
@@ -600,36 +964,34 @@ public class CircuitWires {
     }
 
     // make a WireBundle object for each end of a splitter
-    for (final var spl : splitters) {
-      final var ends = new ArrayList<>(spl.getEnds());
-      for (final var end : ends) {
-        final var p = end.getLocation();
+    for (final var spl : topo.splitterEnds) {
+      for (var i = 0; i < spl.locations().length; i++) {
+        final var p = spl.locations()[i];
         final var pb = ret.createBundleAt(p);
-        pb.setWidth(end.getWidth(), p);
+        pb.setWidth(spl.widths()[i], p);
       }
     }
 
     // set the width for each bundle whose size is known
     // based on components
     for (final var p : ret.getBundlePoints()) {
-      final var pb = ret.getBundleAt(p);
-      final var width = points.getWidth(p);
-      if (width != BitWidth.UNKNOWN) {
-        pb.setWidth(width, p);
+      final var width = topo.widths.get(p);
+      if (width != null) {
+        ret.getBundleAt(p).setWidth(width, p);
       }
     }
 
     // determine the bundles at the end of each splitter
-    for (final var spl : splitters) {
-      final var ends = new ArrayList<>(spl.getEnds());
-      int index = -1;
-      for (final var end : ends) {
-        index++;
-        final var p = end.getLocation();
+    final var endBundles = new WireBundle[topo.splitterEnds.size()][];
+    for (var s = 0; s < endBundles.length; s++) {
+      final var spl = topo.splitterEnds.get(s);
+      endBundles[s] = new WireBundle[spl.locations().length];
+      for (var i = 0; i < spl.locations().length; i++) {
+        final var p = spl.locations()[i];
         final var pb = ret.getBundleAt(p);
         if (pb != null) {
-          pb.setWidth(end.getWidth(), p);
-          spl.wireData.endBundle[index] = pb;
+          pb.setWidth(spl.widths()[i], p);
+          endBundles[s][i] = pb;
         }
       }
     }
@@ -649,30 +1011,27 @@ public class CircuitWires {
     }
 
     // unite threads going through splitters
-    for (final var spl : splitters) {
-      synchronized (spl) {
-        final var splAttrs = (SplitterAttributes) spl.getAttributeSet();
-        final var bitEnd = splAttrs.bitEnd;
-        final var splData = spl.wireData;
-        final var fromBundle = splData.endBundle[0];
-        if (fromBundle == null || !fromBundle.isValid()) continue;
-
-        for (var i = 0; i < bitEnd.length; i++) {
-          var j = bitEnd[i];
-          if (j > 0) {
-            var thr = spl.bitThread[i];
-            final var toBundle = splData.endBundle[j];
-            final var toThreads = toBundle.threads;
-            if (toThreads != null && toBundle.isValid()) {
-              final var fromThreads = fromBundle.threads;
-              if (i >= fromThreads.length) {
-                throw new ArrayIndexOutOfBoundsException("from " + i + " of " + fromThreads.length);
-              }
-              if (thr >= toThreads.length) {
-                throw new ArrayIndexOutOfBoundsException("to " + thr + " of " + toThreads.length);
-              }
-              fromThreads[i].unite(toThreads[thr]);
+    for (var s = 0; s < endBundles.length; s++) {
+      final var bitEnd = topo.splitterEnds.get(s).bitEnd();
+      final var bitThread = topo.splitterEnds.get(s).bitThread();
+      final var fromBundle = endBundles[s][0];
+      if (fromBundle == null || !fromBundle.isValid()) continue;
+
+      for (var i = 0; i < bitEnd.length; i++) {
+        var j = bitEnd[i];
+        if (j > 0) {
+          var thr = bitThread[i];
+          final var toBundle = endBundles[s][j];
+          final var toThreads = toBundle.threads;
+          if (toThreads != null && toBundle.isValid()) {
+            final var fromThreads = fromBundle.threads;
+            if (i >= fromThreads.length) {
+              throw new ArrayIndexOutOfBoundsException("from " + i + " of " + fromThreads.length);
             }
+            if (thr >= toThreads.length) {
+              throw new ArrayIndexOutOfBoundsException("to " + thr + " of " + toThreads.length);
+            }
+            fromThreads[i].unite(toThreads[thr]);
           }
         }
       }
@@ -700,38 +1059,33 @@ public class CircuitWires {
 
     // All bundles are made, all threads are now sewn together.
 
+    // Keep the bundles of the earlier map that lie outside the recomputed region.
+    if (topo.base != null) {
+      for (final var b : topo.base.getBundles()) {
+        if (topo.region.contains(b.xpoints[0])) continue;
+        ret.bundles.add(b);
+        for (final var p : b.xpoints) ret.setBundleAt(p, b);
+      }
+    }
+    ret.assignSlots();
+
     // Record all interesting components so they can be marked as dirty when
     // this wire connectivity map is used to initialize a new State.
-    ret.allComponents.addAll(components);
+    ret.allComponents.addAll(topo.components);
 
     // Record all component locations so they can be marked as dirty when this
     // wire connectivity map is used to initialize a new State.
-    ret.allLocations.addAll(points.getAllLocations());
+    ret.allLocations.addAll(topo.allLocations);
 
     // Record all interesting component (non-wire, non-splitter) locations so
     // they can be used to filter out uninteresting points when this wire bundle
     // map is used to initialize a new State. We also need to know which
     // interesting components are at those locations.
-    for (final var p : ret.allLocations) {
-      ArrayList<Component> a = null;
-      for (final var comp : points.getComponents(p)) {
-        if ((comp instanceof Wire) || (comp instanceof Splitter)) continue;
-        if (a == null) {
-          a = new ArrayList<Component>();
-        }
-        a.add(comp);
-      }
-      if (a != null) {
-        ret.componentsAtLocations.put(p, a);
-      }
-    }
+    ret.componentsAtLocations = topo.componentsAtLocations;
 
     // Compute the exception set before leaving.
-    final var exceptions = points.getWidthIncompatibilityData();
-    if (CollectionUtil.isNotEmpty(exceptions)) {
-      for (final var wid : exceptions) {
-        ret.addWidthIncompatibilityData(wid);
-      }
+    for (final var wid : topo.incompatibilityData) {
+      ret.addWidthIncompatibilityData(wid);
     }
     for (final var wireBundle : ret.getBundles()) {
       final var e = wireBundle.getWidthIncompatibilityData();
@@ -741,50 +1095,22 @@ public class CircuitWires {
     }
   }
 
-  private void connectPullResistors(Connectivity ret) {
-    for (final var comp : pulls) {
-      final var loc = comp.getEnd(0).getLocation();
+  private static void connectPullResistors(Topology topo, Connectivity ret) {
+    for (final var pull : topo.pulls) {
+      final var loc = pull.location();
       var b = ret.getBundleAt(loc);
       if (b == null) {
         b = ret.createBundleAt(loc);
         b.tempPoints.add(loc);
         ret.setBundleAt(loc, b);
       }
-      final var instance = Instance.getInstanceFor(comp);
-      b.addPullValue(PullResistor.getPullValue(instance));
-    }
-    for (final var comp : components) {
-      if (comp instanceof InstanceComponent instanceComponent) {
-        final Map<Integer, Value> pullPorts = instanceComponent.getPullPorts();
-        if (pullPorts != null) {
-          for (final var portIndex : pullPorts.keySet()) {
-            final var loc = comp.getEnd(portIndex).getLocation();
-            var b = ret.getBundleAt(loc);
-            if (b == null) {
-              b = ret.createBundleAt(loc);
-              b.tempPoints.add(loc);
-              ret.setBundleAt(loc, b);
-            }
-            b.addPullValue(pullPorts.get(portIndex));
-          }
-        }
-      }
+      b.addPullValue(pull.value());
     }
   }
 
-  private void connectTunnels(Connectivity ret) {
-    // determine the sets of tunnels
-    final var tunnelSets = new HashMap<String, ArrayList<Location>>();
-    for (final var comp : tunnels) {
-      final var label = comp.getAttributeSet().getValue(StdAttr.LABEL).trim();
-      if (!label.equals("")) {
-        final var tunnelSet = tunnelSets.computeIfAbsent(label, k -> new ArrayList<>(3));
-        tunnelSet.add(comp.getLocation());
-      }
-    }
-
-    // now connect the bundles that are tunnelled together
-    for (ArrayList<Location> tunnelSet : tunnelSets.values()) {
+  private static void connectTunnels(Topology topo, Connectivity ret) {
+    // connect the bundles that are tunnelled together
+    for (ArrayList<Location> tunnelSet : topo.tunnelSets.values()) {
       WireBundle foundBundle = null;
       Location foundLocation = null;
       for (final var loc : tunnelSet) {
@@ -813,26 +1139,22 @@ public class CircuitWires {
     }
   }
 
-  private void connectComponents(Connectivity ret) {
+  private static void connectComponents(Topology topo, Connectivity ret) {
     // make a WireBundle object for each output or bidirectional port
     // of a component
-    for (final var comp : components) {
-      for (final var e : comp.getEnds()) {
-        if (e.getType() == EndData.INPUT_ONLY) continue;
-        Location loc = e.getLocation();
-        var b = ret.getBundleAt(loc);
-        if (b == null) {
-          b = ret.createBundleAt(loc);
-          b.tempPoints.add(loc);
-          ret.setBundleAt(loc, b);
-        }
+    for (final var loc : topo.drivenLocations) {
+      var b = ret.getBundleAt(loc);
+      if (b == null) {
+        b = ret.createBundleAt(loc);
+        b.tempPoints.add(loc);
+        ret.setBundleAt(loc, b);
       }
     }
   }
 
-  private void connectWires(Connectivity ret) {
+  private static void connectWires(Topology topo, Connectivity ret) {
     // make a WireBundle object for each tree of connected wires
-    for (final var wire : wires) {
+    for (final var wire : topo.wires) {
       final var bundleA = ret.getBundleAt(wire.e0);
       if (bundleA == null) {
         final var bundleB = ret.createBundleAt(wire.e1);
@@ -866,6 +1188,14 @@ public class CircuitWires {
     return v;
   }
 
+  /** Returns the value of a bundle of the map, by its slot unless the state is not up to date. */
+  private static Value getBusValue(CircuitState state, Connectivity cmap, WireBundle wb, Location loc) {
+    final var s = state.getWireData();
+    if (s == null || s.connectivity != cmap || wb.slot < 0) return getBusValue(state, loc);
+    final var v = s.values[wb.slot];
+    return v == null ? Value.NIL : v;
+  }
+
   void draw(ComponentDrawContext context, Collection<Component> hidden) {
     final var showState = context.getShowState();
     final var state = context.getCircuitState();
@@ -876,10 +1206,13 @@ public class CircuitWires {
 
     final var cmap = getConnectivity();
     final var isValid = cmap.isValid();
+    // only the wires and dots that may intersect the clip are drawn
+    final var clip = g.getClipBounds();
     if (CollectionUtil.isNullOrEmpty(hidden)) {
       for (final var wire : wires) {
         final var s = wire.e0;
         final var t = wire.e1;
+        if (isOutside(clip, s, t)) continue;
         final var wb = cmap.getBundleAt(s);
         var width = 5;
         if (!wb.isValid()) {
@@ -889,7 +1222,7 @@ public class CircuitWires {
         } else if (!isValid) {
           g.setColor(Value.nilColor);
         } else {
-          g.setColor(getBusValue(state, s).getColor());
+          g.setColor(getBusValue(state, cmap, wb, s).getColor());
         }
         if (highlighted.containsWire(wire)) {
           width = wb.isBus() ? Wire.HIGHLIGHTED_WIDTH_BUS : Wire.HIGHLIGHTED_WIDTH;
@@ -924,14 +1257,14 @@ public class CircuitWires {
       }
 
       for (final var loc : points.getAllLocations()) {
-        if (points.getComponentCount(loc) > 2) {
+        if (!isOutside(clip, loc, loc) && points.getComponentCount(loc) > 2) {
           final var wb = cmap.getBundleAt(loc);
           if (wb != null) {
             var color = Color.BLACK;
             if (!wb.isValid()) {
               color = Value.widthErrorColor;
             } else if (showState) {
-              color = !isValid ? Value.nilColor : state.getValue(loc).getColor();
+              color = !isValid ? Value.nilColor : getBusValue(state, cmap, wb, loc).getColor();
             }
             g.setColor(color);
 
@@ -957,7 +1290,7 @@ public class CircuitWires {
           if (!wb.isValid()) {
             g.setColor(Value.widthErrorColor);
           } else if (showState) {
-            g.setColor(!isValid ? Value.nilColor : getBusValue(state, s).getColor());
+            g.setColor(!isValid ? Value.nilColor : getBusValue(state, cmap, wb, s).getColor());
           } else {
             g.setColor(Color.BLACK);
           }
@@ -987,7 +1320,7 @@ public class CircuitWires {
               if (!wireBundle.isValid()) {
                 g.setColor(Value.widthErrorColor);
               } else if (showState) {
-                g.setColor(!isValid ? Value.nilColor : getBusValue(state, loc).getColor());
+                g.setColor(!isValid ? Value.nilColor : getBusValue(state, cmap, wireBundle, loc).getColor());
               } else {
                 g.setColor(Color.BLACK);
               }
@@ -1003,54 +1336,59 @@ public class CircuitWires {
     }
   }
 
-  // There are only two threads that need to use the connectivity map, I think:
-  // the AWT event thread, and the simulation worker thread.
-  // AWT does modifications to the components and wires, then voids the
-  // masterConnectivity, and eventually recomputes a new map (if needed) during
-  // painting. AWT sometimes locks a splitter, then changes components and
-  // wires.
-  // Computing a new connectivity map requires both locking splitters and touching
-  // the components and wires, so to avoid deadlock, only the AWT should create
-  // the new connectivity map. The connectivity map is (essentially, if not entirely)
-  // read-only once it is fully constructed.
-  // The simulation thread never creates a new connectivity map. On the other hand,
-  // the simulation thread creates the State objects for each simulated instance
-  // of the circuit, and each State duplicates data from the connectivity map.
-
-  private class ConnectivityGetter implements Runnable {
-    Connectivity result;
-    public void run() {
-      result = getConnectivity();
-    }
+  /** Returns whether the line from s to t, with its width, dots and highlights, misses the clip. */
+  private static boolean isOutside(Rectangle clip, Location s, Location t) {
+    if (clip == null) return false;
+    final var margin = 2 * Wire.HIGHLIGHTED_WIDTH_BUS;
+    return Math.max(s.getX(), t.getX()) + margin < clip.x
+        || Math.min(s.getX(), t.getX()) - margin > clip.x + clip.width
+        || Math.max(s.getY(), t.getY()) + margin < clip.y
+        || Math.min(s.getY(), t.getY()) - margin > clip.y + clip.height;
   }
 
+  // The connectivity map is used by the AWT event thread, which paints the
+  // wires, and by any number of simulation threads, which create the State
+  // objects for each simulated instance of the circuit. The AWT thread does the
+  // modifications to the components and wires, under topologyLock, and voids
+  // the masterConnectivity while doing so.
+  // Any of these threads may compute a new map: it copies the elements of the
+  // circuit into a Topology under topologyLock, and computes the map from that
+  // copy without holding the lock. The AWT thread sometimes locks a splitter
+  // and then changes the wires, so the splitters are locked only after
+  // topologyLock has been released, and no other lock is held while computing:
+  // two threads may occasionally compute the same map, which is harmless. The
+  // new map is kept only if the circuit
+  // did not change in the meantime; otherwise it is still returned to the
+  // caller, whose State is rebuilt anyway once the change is seen.
+  // The connectivity map is (essentially, if not entirely) read-only once it is
+  // fully constructed.
+
   private Connectivity getConnectivity() {
     final var map = masterConnectivity; // volatile read by AWT or simulation thread
     if (map != null) return map;
-    if (SwingUtilities.isEventDispatchThread()) {
-      // AWT event thread.
-      final var ret = new Connectivity();
-      try {
-        computeConnectivity(ret);
-        masterConnectivity = ret; // volatile write by AWT thread
-      } catch (Exception t) {
-        ret.invalidate();
-        logger.error(t.getLocalizedMessage());
+    final var ret = new Connectivity();
+    final Topology topo;
+    try {
+      synchronized (topologyLock) {
+        final var base = changedLocations == null || !changedBase.isValid() ? null : changedBase;
+        topo = new Topology(this, base, changedLocations);
       }
+      topo.copySplitters();
+      computeConnectivity(topo, ret);
+    } catch (Exception t) {
+      ret.assignSlots();
+      ret.invalidate();
+      logger.error(t.getLocalizedMessage());
       return ret;
-    } else {
-      // Simulation thread.
-      try {
-        final var awtThread = new ConnectivityGetter();
-        SwingUtilities.invokeAndWait(awtThread);
-        return awtThread.result;
-      } catch (Exception t) {
-        logger.error(t.getLocalizedMessage());
-        final var ret = new Connectivity();
-        ret.invalidate();
-        return ret;
+    }
+    synchronized (topologyLock) {
+      if (topologyVersion == topo.version) {
+        masterConnectivity = ret;
+        changedBase = ret;
+        changedLocations = new HashSet<>();
       }
     }
+    return ret;
   }
 
   Iterator<? extends Component> getComponents() {
@@ -1103,20 +1441,36 @@ public class CircuitWires {
   void propagate(CircuitState circState, ArrayList<Propagator.SimulatorEvent> dirtyPoints) {
     final var map = getConnectivity();
     final var dirtyThreads = new ArrayList<WireThread>();
+    final var tracker = circState.getChangeTracker();
 
     // get state, or create a new one if current state is outdated
     var s = circState.getWireData();
     if (s == null || s.connectivity != map) {
-      // if it is outdated, we need to compute for all threads
-      s = new State(map, s);
+      // if it is outdated, we need to compute for all threads whose bundles
+      // are not in the previous State
+      final var prev = s;
+      s = new State(map, prev, true);
       circState.setWireData(s);
-      // Note: all buses are already marked as dirty.
-      // But some component ports that were previously connected to buses
-      // might no longer be connected to those same buses (or might not
-      // be connected to any bus), and vice versa. So we should mark all
-      // components as dirty.
-      circState.clearValuesByWire();
-      circState.markComponentsDirty(map.allComponents);
+      if (tracker != null) tracker.invalidate();
+      if (s.numKept == 0) {
+        // Note: all buses are already marked as dirty, and have no value yet.
+        // But some component ports that were previously connected to buses
+        // might no longer be connected to those same buses (or might not
+        // be connected to any bus), and vice versa. So we should mark all
+        // components as dirty.
+        circState.markComponentsDirty(map.allComponents);
+      } else {
+        // Only the new buses are marked as dirty, and only the buses taken
+        // over have a value. The components connected to the buses that are
+        // gone or new are marked as dirty.
+        for (final var vb : prev.buses) {
+          if (vb.idx < s.buses.length && s.buses[vb.idx] == vb) continue; // taken over
+          for (final var bc : vb.connections) circState.markComponentAsDirty(bc.component);
+        }
+        for (var i = 0; i < s.numDirty; i++) {
+          for (final var bc : s.buses[i].connections) circState.markComponentAsDirty(bc.component);
+        }
+      }
     }
 
     // make note of updates from simulator
@@ -1174,6 +1528,8 @@ public class CircuitWires {
       final var old = vb.busVal;
       final var val = vb.recalculate();
       if (Value.equal(old, val)) continue;
+      s.setValue(vb.slot, val);
+      if (tracker != null) tracker.busChanged(vb);
       circState.setValueByWire(val, vb.locations, vb.connections);
     }
     s.numDirty = 0;
@@ -1207,6 +1563,12 @@ public class CircuitWires {
   }
 
   void remove(Component comp) {
+    synchronized (topologyLock) {
+      removeLocked(comp);
+    }
+  }
+
+  private void removeLocked(Component comp) {
     if (comp instanceof Wire wire) {
       removeWire(wire);
     } else if (comp instanceof Splitter) {
@@ -1224,12 +1586,14 @@ public class CircuitWires {
       }
     }
     points.remove(comp);
-    voidConnectivity();
+    voidConnectivity(comp);
   }
 
   void remove(Component comp, EndData end) {
-    points.remove(comp, end);
-    voidConnectivity();
+    synchronized (topologyLock) {
+      points.remove(comp, end);
+      voidConnectivity(end.getLocation());
+    }
   }
 
   private void removeWire(Wire w) {
@@ -1245,15 +1609,54 @@ public class CircuitWires {
   }
 
   void replace(Component comp, EndData oldEnd, EndData newEnd) {
-    points.remove(comp, oldEnd);
-    points.add(comp, newEnd);
-    voidConnectivity();
+    synchronized (topologyLock) {
+      points.remove(comp, oldEnd);
+      points.add(comp, newEnd);
+      voidConnectivity(oldEnd.getLocation(), newEnd.getLocation());
+    }
   }
 
   private void voidConnectivity() {
     // This should really only be called by AWT thread, but main() also
     // calls it during startup. It should not be called by the simulation
     // thread.
-    masterConnectivity = null; // volatile write by AWT thread (and sometimes main/startup)
+    synchronized (topologyLock) {
+      masterConnectivity = null;
+      changedLocations = null;
+      topologyVersion++;
+    }
+    connectivityEpoch.incrementAndGet();
+  }
+
+  /** Voids the connectivity map after a change at the ends of a component. */
+  private void voidConnectivity(Component comp) {
+    final var ends = comp.getEnds();
+    final var locations = new Location[ends.size()];
+    for (var i = 0; i < locations.length; i++) locations[i] = ends.get(i).getLocation();
+    voidConnectivity(locations);
+  }
+
+  /**
+   * Voids the connectivity map after a change at some locations only, so that the next map can be
+   * derived from the current one by recomputing the bundles around these locations.
+   */
+  private void voidConnectivity(Location... changed) {
+    synchronized (topologyLock) {
+      if (changedLocations != null) {
+        Collections.addAll(changedLocations, changed);
+        if (changedLocations.size() > MAX_CHANGED_LOCATIONS) changedLocations = null;
+      }
+      masterConnectivity = null;
+      topologyVersion++;
+    }
+    connectivityEpoch.incrementAndGet();
+  }
+
+  /**
+   * Returns a counter that changes whenever some connectivity map is voided. The propagator uses
+   * it to know when the wire data of otherwise clean circuit states has become stale.
+   */
+  static int getConnectivityEpoch() {
+    return connectivityEpoch.get();
   }
 }
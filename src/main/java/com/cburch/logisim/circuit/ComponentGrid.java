@@ -0,0 +1,166 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Bounds;
+import com.cburch.logisim.data.Location;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Uniform grid over the bounds of the components of a circuit, so that hit-testing and drawing
+ * only look at the components near a point or inside a rectangle. Every component is registered in
+ * all cells overlapped by its bounds, including its label, plus a small margin. Queries return the
+ * components in the order they were added, which is also their drawing order.
+ *
+ * <p>The grid is kept up to date by the circuit when components are added, removed or changed,
+ * and when they recompute their bounds by themselves, e.g. probes while simulating.
+ */
+final class ComponentGrid {
+  /** Cells are 128 by 128 units. */
+  private static final int CELL_SHIFT = 7;
+  /** Added around the bounds, for the outlines drawn around components and font differences. */
+  private static final int MARGIN = 10;
+
+  private static final class Entry {
+    final Component comp;
+    final long seq;
+    int x0;
+    int y0;
+    int x1;
+    int y1;
+    /** Last query that returned this entry. */
+    int mark;
+
+    Entry(Component comp, long seq) {
+      this.comp = comp;
+      this.seq = seq;
+    }
+  }
+
+  private final HashMap<Long, ArrayList<Entry>> cells = new HashMap<>();
+  private final HashMap<Component, Entry> entries = new HashMap<>();
+  /** Used to measure labels, as no graphics context of a canvas is available here. */
+  private Graphics scratch = null;
+  private long nextSeq = 0;
+  private int queryMark = 0;
+
+  synchronized void add(Component comp) {
+    if (entries.containsKey(comp)) return;
+    final var entry = new Entry(comp, nextSeq++);
+    entries.put(comp, entry);
+    insert(entry);
+  }
+
+  synchronized void remove(Component comp) {
+    final var entry = entries.remove(comp);
+    if (entry != null) delete(entry);
+  }
+
+  /** Registers a component again after its bounds may have changed. */
+  synchronized void update(Component comp) {
+    final var entry = entries.get(comp);
+    if (entry == null) return;
+    delete(entry);
+    insert(entry);
+  }
+
+  synchronized void clear() {
+    cells.clear();
+    entries.clear();
+  }
+
+  /** Returns the components whose bounds, including their label, may contain the point. */
+  synchronized List<Component> getNear(Location pt) {
+    return query(pt.getX(), pt.getY(), pt.getX(), pt.getY());
+  }
+
+  /** Returns the components whose bounds, including their label, may intersect the area. */
+  synchronized List<Component> getNear(Bounds area) {
+    return query(area.getX(), area.getY(), area.getX() + area.getWidth(), area.getY() + area.getHeight());
+  }
+
+  private List<Component> query(int xmin, int ymin, int xmax, int ymax) {
+    final var mark = ++queryMark;
+    final var found = new ArrayList<Entry>();
+    final var cx0 = xmin >> CELL_SHIFT;
+    final var cy0 = ymin >> CELL_SHIFT;
+    final var cx1 = xmax >> CELL_SHIFT;
+    final var cy1 = ymax >> CELL_SHIFT;
+    if ((long) (cx1 - cx0 + 1) * (cy1 - cy0 + 1) > cells.size()) {
+      // the area covers more cells than are in use: look at those instead
+      for (final var cell : cells.entrySet()) {
+        final var cx = (int) (cell.getKey() >> 32);
+        final var cy = (int) (long) cell.getKey();
+        if (cx >= cx0 && cx <= cx1 && cy >= cy0 && cy <= cy1) collect(cell.getValue(), mark, found);
+      }
+    } else {
+      for (var cx = cx0; cx <= cx1; cx++) {
+        for (var cy = cy0; cy <= cy1; cy++) {
+          final var cell = cells.get(key(cx, cy));
+          if (cell != null) collect(cell, mark, found);
+        }
+      }
+    }
+    found.sort((a, b) -> Long.compare(a.seq, b.seq));
+    final var ret = new ArrayList<Component>(found.size());
+    for (final var entry : found) ret.add(entry.comp);
+    return ret;
+  }
+
+  private static void collect(ArrayList<Entry> cell, int mark, ArrayList<Entry> found) {
+    for (final var entry : cell) {
+      if (entry.mark == mark) continue;
+      entry.mark = mark;
+      found.add(entry);
+    }
+  }
+
+  private void insert(Entry entry) {
+    var bds = entry.comp.getBounds();
+    if (bds == null) bds = Bounds.EMPTY_BOUNDS;
+    if (scratch == null) scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+    try {
+      bds = bds.add(entry.comp.getBounds(scratch));
+    } catch (RuntimeException e) {
+      // some components cannot measure their label without a canvas: keep the plain bounds
+    }
+    bds = bds.expand(MARGIN);
+    entry.x0 = bds.getX() >> CELL_SHIFT;
+    entry.y0 = bds.getY() >> CELL_SHIFT;
+    entry.x1 = (bds.getX() + bds.getWidth()) >> CELL_SHIFT;
+    entry.y1 = (bds.getY() + bds.getHeight()) >> CELL_SHIFT;
+    for (var cx = entry.x0; cx <= entry.x1; cx++) {
+      for (var cy = entry.y0; cy <= entry.y1; cy++) {
+        cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>()).add(entry);
+      }
+    }
+  }
+
+  private void delete(Entry entry) {
+    for (var cx = entry.x0; cx <= entry.x1; cx++) {
+      for (var cy = entry.y0; cy <= entry.y1; cy++) {
+        final var k = key(cx, cy);
+        final var cell = cells.get(k);
+        if (cell == null) continue;
+        cell.remove(entry);
+        if (cell.isEmpty()) cells.remove(k);
+      }
+    }
+  }
+
+  private static long key(int cx, int cy) {
+    return ((long) cx << 32) | (cy & 0xffffffffL);
+  }
+}
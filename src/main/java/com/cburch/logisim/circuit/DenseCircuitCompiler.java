@@ -0,0 +1,164 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.EndData;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
+import com.cburch.logisim.std.hdl.DenseLogicCircuitBuilder;
+import com.cburch.logisim.std.wiring.Clock;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.PullResistor;
+import com.cburch.logisim.std.wiring.Tunnel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * Flattens a circuit hierarchy into a single {@link DenseLogicCircuit}. Every bit of every net in
+ * every circuit instance becomes one cell; wires, tunnels and splitters are resolved through the
+ * connectivity of {@link CircuitWires}, subcircuit ports become buffers in the direction of the
+ * pin, and all other components must provide a {@link DenseLogicEmitter}.
+ */
+class DenseCircuitCompiler {
+
+  /** The cells of one circuit instance, keyed by the wire thread they belong to. */
+  private class Scope implements DenseLogicEmitter.Context {
+    private final Circuit circuit;
+    private final HashMap<WireThread, Integer> cells = new HashMap<>();
+
+    Scope(Circuit circuit) {
+      this.circuit = circuit;
+    }
+
+    @Override
+    public DenseLogicCircuitBuilder getBuilder() {
+      return builder;
+    }
+
+    @Override
+    public int getCell(Location point, int bit) {
+      final var bundle = circuit.wires.getWireBundle(point);
+      if (bundle == null || bundle.threads == null || bit >= bundle.threads.length) return -1;
+      if (!bundle.isValid()) {
+        throw new CircuitException("width mismatch at " + point + " in " + circuit.getName());
+      }
+      return cells.computeIfAbsent(bundle.threads[bit], DenseCircuitCompiler.this::createCell);
+    }
+  }
+
+  static int toLevel(Value bit) {
+    if (bit == Value.TRUE) return DenseLogicCircuit.LEV_HIGH;
+    if (bit == Value.FALSE) return DenseLogicCircuit.LEV_LOW;
+    if (bit == Value.ERROR) return DenseLogicCircuit.LEV_ERR;
+    return DenseLogicCircuit.LEV_NONE;
+  }
+
+  private final DenseLogicCircuitBuilder builder = new DenseLogicCircuitBuilder();
+  private final LinkedHashMap<Instance, int[]> pinCells = new LinkedHashMap<>();
+  private final ArrayList<Integer> clockCells = new ArrayList<>();
+  private final ArrayList<Component> clocks = new ArrayList<>();
+
+  private int createCell(WireThread thread) {
+    final var cell = builder.addCell(false);
+    var pull = Value.UNKNOWN;
+    for (final var bundle : thread.bundle) {
+      pull = pull.combine(bundle.getPullValue());
+    }
+    builder.setCellPull(cell, toLevel(pull));
+    return cell;
+  }
+
+  DenseCircuitSimulation compile(Circuit circuit) {
+    final var top = new Scope(circuit);
+    for (final var comp : circuit.getNonWires()) {
+      if (!(comp.getFactory() instanceof Pin)) continue;
+      final var pin = Instance.getInstanceFor(comp);
+      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      final var cells = new int[width];
+      for (var b = 0; b < width; b++) {
+        final var net = top.getCell(comp.getLocation(), b);
+        if (Pin.FACTORY.isInputPin(pin)) {
+          cells[b] = builder.addCell(true);
+          if (net >= 0) builder.attachBuffer(cells[b], net);
+        } else {
+          cells[b] = net >= 0 ? net : DenseLogicCircuit.LEV_NONE;
+        }
+      }
+      pinCells.put(pin, cells);
+    }
+    flatten(top);
+    final var clockCellArray = new int[clockCells.size()];
+    for (var i = 0; i < clockCellArray.length; i++) clockCellArray[i] = clockCells.get(i);
+    return new DenseCircuitSimulation(builder.build(), pinCells, clockCellArray, clocks);
+  }
+
+  private void flatten(Scope scope) {
+    for (final var comp : scope.circuit.getNonWires()) {
+      final var factory = comp.getFactory();
+      if (factory instanceof SubcircuitFactory sub) {
+        flattenSubcircuit(scope, comp, sub.getSubcircuit());
+      } else if (factory instanceof Clock) {
+        final var cell = builder.addCell(true);
+        final var net = scope.getCell(comp.getLocation(), 0);
+        if (net >= 0) builder.attachBuffer(cell, net);
+        clockCells.add(cell);
+        clocks.add(comp);
+      } else if (!(comp instanceof Splitter || factory instanceof Pin
+          || factory instanceof Tunnel || factory instanceof PullResistor || !hasOutputs(comp))) {
+        final var emitter = (DenseLogicEmitter) comp.getFeature(DenseLogicEmitter.class);
+        if (emitter == null) throw unsupported(scope, comp);
+        try {
+          emitter.emitDenseLogic(scope);
+        } catch (UnsupportedOperationException e) {
+          throw unsupported(scope, comp);
+        }
+      }
+    }
+  }
+
+  private void flattenSubcircuit(Scope scope, Component comp, Circuit circuit) {
+    final var child = new Scope(circuit);
+    final var pins = ((CircuitAttributes) comp.getAttributeSet()).getPinInstances();
+    for (var i = 0; i < pins.length; i++) {
+      final var width = pins[i].getAttributeValue(StdAttr.WIDTH).getWidth();
+      final var outer = comp.getEnd(i).getLocation();
+      final var inner = pins[i].getLocation();
+      final var isInput = Pin.FACTORY.isInputPin(pins[i]);
+      for (var b = 0; b < width; b++) {
+        final var outerCell = scope.getCell(outer, b);
+        final var innerCell = child.getCell(inner, b);
+        if (outerCell < 0 || innerCell < 0) continue;
+        if (isInput) {
+          builder.attachBuffer(outerCell, innerCell);
+        } else {
+          builder.attachBuffer(innerCell, outerCell);
+        }
+      }
+    }
+    flatten(child);
+  }
+
+  private static boolean hasOutputs(Component comp) {
+    for (final var end : comp.getEnds()) {
+      if (end.getType() != EndData.INPUT_ONLY) return true;
+    }
+    return false;
+  }
+
+  private static CircuitException unsupported(Scope scope, Component comp) {
+    return new CircuitException(comp.getFactory().getDisplayName() + " "
+        + comp.getLocation() + " in " + scope.circuit.getName());
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
+import com.cburch.logisim.std.wiring.Clock;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Simulates a whole circuit hierarchy on the byte cells of a {@link DenseLogicCircuit} instead of
+ * dispatching events to every component. Only the pins of the top-level circuit are accessible.
+ * Use {@link #compile} to create one; circuits containing components without a {@link
+ * DenseLogicEmitter}, and circuits in which floating or error values reach the inputs of gates or
+ * flip-flops, see {@link #hasUndefinedValues}, have to be simulated by the {@link Propagator}.
+ */
+public class DenseCircuitSimulation {
+  private final DenseLogicCircuit logic;
+  private final Map<Instance, int[]> pinCells;
+  private final int[] clockCells;
+  private final List<Component> clocks;
+  private final byte[] cells;
+  private final int[] auxData;
+  private int halfClockCycles = 0;
+  private boolean oscillating = false;
+  private boolean undefined = false;
+
+  DenseCircuitSimulation(DenseLogicCircuit logic, Map<Instance, int[]> pinCells, int[] clockCells,
+      List<Component> clocks) {
+    this.logic = logic;
+    this.pinCells = pinCells;
+    this.clockCells = clockCells;
+    this.clocks = clocks;
+    cells = logic.newCells();
+    auxData = logic.newAuxData();
+    setClocks();
+  }
+
+  /**
+   * Compiles the circuit and all its subcircuits. Throws a {@link CircuitException} naming the
+   * first component that cannot be compiled.
+   */
+  public static DenseCircuitSimulation compile(Circuit circuit) {
+    return new DenseCircuitCompiler().compile(circuit);
+  }
+
+  DenseLogicCircuit getLogic() {
+    return logic;
+  }
+
+  int[] getPinCells(Instance pin) {
+    return pinCells.get(pin);
+  }
+
+  boolean hasClocks() {
+    return clockCells.length > 0;
+  }
+
+  public int getCellCount() {
+    return logic.cellCount;
+  }
+
+  public int getGateCount() {
+    return logic.gateCount;
+  }
+
+  public Value getValue(Instance pin) {
+    final var bits = pinCells.get(pin);
+    final var values = new Value[bits.length];
+    for (var b = 0; b < bits.length; b++) {
+      values[b] = DenseLogicCircuit.LEV_TO_LS[cells[bits[b]]];
+    }
+    return Value.create(values);
+  }
+
+  public boolean isOscillating() {
+    return oscillating;
+  }
+
+  /**
+   * Returns true if a gate or flip-flop read a floating or error value in the last {@link
+   * #propagate}. The compiled logic is two-valued, so from then on it may not give the same results
+   * as the {@link Propagator}.
+   */
+  public boolean hasUndefinedValues() {
+    return undefined;
+  }
+
+  public void propagate() {
+    logic.simulate(cells, auxData);
+    oscillating = !logic.isStable(auxData);
+    undefined = logic.hasUndefinedInputs(auxData);
+  }
+
+  /** Drives a top-level input pin; the new value is seen by the next {@link #propagate}. */
+  public void setValue(Instance pin, Value value) {
+    final var bits = pinCells.get(pin);
+    for (var b = 0; b < bits.length; b++) {
+      logic.setCell(bits[b], (byte) DenseCircuitCompiler.toLevel(value.get(b)), cells, auxData);
+    }
+  }
+
+  public boolean toggleClocks() {
+    halfClockCycles++;
+    setClocks();
+    return clockCells.length > 0;
+  }
+
+  private void setClocks() {
+    for (var i = 0; i < clockCells.length; i++) {
+      final var value = Clock.getValueAt(halfClockCycles, clocks.get(i).getAttributeSet());
+      logic.setCell(clockCells[i], (byte) DenseCircuitCompiler.toLevel(value), cells, auxData);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.std.hdl.DenseLogicCircuitBuilder;
+
+/**
+ * Component feature used by {@link DenseCircuitCompiler} to translate a component into the cells
+ * and gates of a {@link com.cburch.logisim.std.hdl.DenseLogicCircuit}. The dense engine is
+ * two-valued: gate inputs that are undefined read as low. {@link DenseCircuitSimulation} detects
+ * when that happens, so a component should connect an input that is undefined in Logisim, e.g.
+ * because it is not connected, to an undefined cell rather than to a constant level.
+ */
+public interface DenseLogicEmitter {
+  /**
+   * Attaches the logic of the component to the builder of the context. If the component cannot be
+   * expressed with the current attribute values, it throws <code>UnsupportedOperationException
+   * </code>.
+   */
+  void emitDenseLogic(Context context);
+
+  interface Context {
+    DenseLogicCircuitBuilder getBuilder();
+
+    /**
+     * Returns the cell of the given bit of the net at <code>point</code>, or -1 if nothing is
+     * connected there.
+     */
+    int getCell(Location point, int bit);
+  }
+}
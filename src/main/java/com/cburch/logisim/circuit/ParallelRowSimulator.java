@@ -0,0 +1,131 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.analyze.model.TruthTable;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.util.UniquelyNamedThread;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+/**
+ * Simulates rows of a truth table with the {@link Propagator}, splitting the row range over a pool
+ * of worker threads that is created with the simulator and shut down by close(). Every worker owns
+ * one root state, which is created on the thread that creates the simulator and reset between
+ * rows instead of being recreated, also across calls to simulate().
+ */
+public class ParallelRowSimulator implements AutoCloseable {
+  /** Rows simulated by one worker at a time. */
+  private static final int ROWS_PER_TASK = 16;
+
+  public interface RowListener {
+    /**
+     * Called, possibly concurrently from several threads, with the values of the output pins in a
+     * row, or with null if the circuit oscillates for that row.
+     */
+    void rowSimulated(int row, Value[] outputs);
+  }
+
+  private final List<Instance> inputPins;
+  private final List<Instance> outputPins;
+  private final int inputCount;
+  private final ThreadPoolExecutor pool;
+  private final Map<Thread, CircuitState> states = new ConcurrentHashMap<>();
+
+  public ParallelRowSimulator(Project proj, Circuit circuit, List<Instance> inputPins, List<Instance> outputPins) {
+    this.inputPins = inputPins;
+    this.outputPins = outputPins;
+    var count = 0;
+    for (final var pin : inputPins) count += pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+    inputCount = count;
+    final var threads = new ArrayList<Thread>();
+    final var workers = Runtime.getRuntime().availableProcessors();
+    pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(workers, r -> {
+      final var thread = new UniquelyNamedThread(r, "ParallelRowSimulator");
+      thread.setDaemon(true);
+      threads.add(thread);
+      return thread;
+    });
+    pool.prestartAllCoreThreads();
+    // The states are created here rather than on the workers, as creating one registers a listener
+    // on the options of the project, which is not thread safe.
+    for (final var thread : threads) states.put(thread, CircuitState.createRootState(proj, circuit, thread));
+  }
+
+  /**
+   * Simulates the rows from <code>from</code> (inclusive) to <code>to</code> (exclusive) that are
+   * accepted by the filter, and returns when all of them are done.
+   */
+  public void simulate(int from, int to, IntPredicate filter, RowListener listener) {
+    final var next = new AtomicInteger(from);
+    final var tasks = new ArrayList<Callable<Void>>();
+    for (var i = 0; i < pool.getCorePoolSize(); i++) {
+      tasks.add(() -> {
+        final var state = states.get(Thread.currentThread());
+        if (state == null) throw new IllegalStateException("worker without a circuit state");
+        for (var start = next.getAndAdd(ROWS_PER_TASK); start < to; start = next.getAndAdd(ROWS_PER_TASK)) {
+          for (var row = start; row < Math.min(to, start + ROWS_PER_TASK); row++) {
+            if (filter.test(row)) listener.rowSimulated(row, simulateRow(state, row));
+          }
+        }
+        return null;
+      });
+    }
+    try {
+      for (final var result : pool.invokeAll(tasks)) result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) throw re;
+      if (e.getCause() instanceof Error err) throw err;
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /** Stops the worker threads and drops their states. */
+  @Override
+  public void close() {
+    pool.shutdownNow();
+    states.clear();
+  }
+
+  private Value[] simulateRow(CircuitState state, int row) {
+    final var prop = state.getPropagator();
+    prop.reset();
+    var incol = 0;
+    for (final var pin : inputPins) {
+      final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+      final var v = new Value[width];
+      for (var b = width - 1; b >= 0; b--) {
+        v[b] = TruthTable.isInputSet(row, incol++, inputCount) ? Value.TRUE : Value.FALSE;
+      }
+      Pin.FACTORY.driveInputPin(state.getInstanceState(pin), Value.create(v));
+    }
+    prop.propagate();
+    if (prop.isOscillating()) return null;
+    final var outputs = new Value[outputPins.size()];
+    for (var i = 0; i < outputs.length; i++) {
+      outputs[i] = Pin.FACTORY.getValue(state.getInstanceState(outputPins.get(i)));
+    }
+    return outputs;
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.circuit.TestVectorEvaluator.LineReport;
+import com.cburch.logisim.data.TestException;
+import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.util.UniquelyNamedThread;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.BiConsumer;
+
+/**
+ * Evaluates a TestVector on several threads. The rows are cut into partitions at the points where
+ * the sequential evaluator resets the circuit, i.e. at every new set and at every combinational
+ * row, so partitions do not depend on each other. Every worker evaluates its partitions on its own
+ * clone of the root state, made by the calling thread, and the line reports are passed on in row
+ * order by the calling thread. Once the
+ * evaluation is canceled, every worker stops before its next row.
+ */
+public class ParallelTestVectorEvaluator {
+  /** Partitions are made at least this large, so that handing them out costs little next to evaluating them. */
+  private static final int MIN_PARTITION_ROWS = 32;
+  /** Partitions per worker, so that workers finishing early can pick up more work. */
+  private static final int PARTITIONS_PER_WORKER = 4;
+
+  private final CircuitState state;
+  private final TestVector vector;
+  private final TestVectorEvaluator serial;
+  private final int workers;
+  private volatile boolean canceled = false;
+
+  public ParallelTestVectorEvaluator(CircuitState state, TestVector vector, int workers) throws TestException {
+    // also validates the vector against the circuit before any worker is started
+    serial = new TestVectorEvaluator(state, vector);
+    this.state = state;
+    this.vector = vector;
+    this.workers = workers > 0 ? workers : getDefaultWorkerCount();
+  }
+
+  /** Returns the worker count selected in the preferences. */
+  public static int getDefaultWorkerCount() {
+    final var pref = AppPreferences.TEST_VECTOR_THREADS.get();
+    if (!AppPreferences.TEST_VECTOR_THREADS_AUTO.equals(pref)) {
+      try {
+        return Math.max(1, Integer.parseInt(pref));
+      } catch (NumberFormatException e) {
+        // fall through to the automatic count
+      }
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  public int getWorkerCount() {
+    return workers;
+  }
+
+  public void setCanceled(boolean canceled) {
+    this.canceled = canceled;
+  }
+
+  /**
+   * Evaluates all rows, calling lineReportAction for each row in row order.
+   *
+   * @return a 2 element matrix with the number of passing and number of failing lines.
+   */
+  public int[] evaluate(BiConsumer<Integer, ArrayList<LineReport>> lineReportAction) {
+    canceled = false;
+    final var partitions = getPartitions();
+    if (workers <= 1 || partitions.size() <= 1) {
+      return serial.evaluate((row, report) -> {
+        lineReportAction.accept(row, report);
+        if (canceled) serial.setCanceled(true);
+      });
+    }
+
+    final var threads = new ArrayList<Thread>();
+    final var pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(Math.min(workers, partitions.size()),
+        r -> {
+          final var thread = new UniquelyNamedThread(r, "TestVectorWorker");
+          thread.setDaemon(true);
+          threads.add(thread);
+          return thread;
+        });
+    try {
+      pool.prestartAllCoreThreads();
+      // Cloning a state registers a listener on the options of the project, which is not thread
+      // safe, so the states of the workers are cloned here. As every partition starts with a reset,
+      // a worker uses the same state for all its partitions.
+      final var clones = new HashMap<Thread, CircuitState>();
+      for (final var thread : threads) clones.put(thread, state.cloneAsNewRootState(thread));
+      final var results = new ArrayList<Future<List<ArrayList<LineReport>>>>();
+      for (final var rows : partitions) {
+        results.add(pool.submit(() -> evaluatePartition(rows, clones.get(Thread.currentThread()))));
+      }
+      var numPass = 0;
+      var numFails = 0;
+      for (var i = 0; i < partitions.size() && !canceled; i++) {
+        final List<ArrayList<LineReport>> reports;
+        try {
+          reports = results.get(i).get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        } catch (ExecutionException e) {
+          // the pins were already found in the constructor, so this is not a TestException
+          throw new IllegalStateException(e.getCause());
+        }
+        final var rows = partitions.get(i);
+        for (var j = 0; j < rows.size() && !canceled; j++) {
+          if (reports.get(j).isEmpty()) {
+            numPass++;
+          } else {
+            numFails++;
+          }
+          lineReportAction.accept(rows.get(j), reports.get(j));
+        }
+      }
+      return new int[] {numPass, numFails};
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private List<ArrayList<LineReport>> evaluatePartition(ArrayList<Integer> rows, CircuitState clone)
+      throws TestException {
+    final var reports = new ArrayList<ArrayList<LineReport>>(Collections.nCopies(rows.size(), null));
+    if (canceled) return reports;
+    final var first = rows.get(0);
+    final var evaluator = new TestVectorEvaluator(clone, vector, rows);
+    evaluator.evaluate((row, report) -> {
+      reports.set(row - first, report);
+      // the evaluator checks this before the next row; the pool is shut down by interrupting
+      if (canceled || Thread.currentThread().isInterrupted()) evaluator.setCanceled(true);
+    });
+    return reports;
+  }
+
+  /** Cuts the rows into runs of consecutive rows that start with a reset, grouped into partitions. */
+  private ArrayList<ArrayList<Integer>> getPartitions() {
+    final var rowCount = vector.data.size();
+    final var targetRows = Math.max(MIN_PARTITION_ROWS,
+        (rowCount + workers * PARTITIONS_PER_WORKER - 1) / (workers * PARTITIONS_PER_WORKER));
+    final var partitions = new ArrayList<ArrayList<Integer>>();
+    var current = new ArrayList<Integer>();
+    for (var row = 0; row < rowCount; row++) {
+      // same condition as the reset in TestVectorEvaluator.evaluate
+      final var startsRun = row == 0
+          || vector.seqNumbers[row] == 0
+          || vector.seqNumbers[row - 1] == 0
+          || vector.setNumbers[row] != vector.setNumbers[row - 1];
+      if (startsRun && current.size() >= targetRows) {
+        partitions.add(current);
+        current = new ArrayList<>();
+      }
+      current.add(row);
+    }
+    if (!current.isEmpty()) partitions.add(current);
+    return partitions;
+  }
+}
@@ -21,11 +21,13 @@ import com.cburch.logisim.util.LinkedQueue;
 import com.cburch.logisim.util.QNodeQueue;
 import com.cburch.logisim.util.QueueOfQueues;
 import com.cburch.logisim.util.SplayQueue;
+import com.cburch.logisim.util.TimingWheelQueue;
 import com.cburch.logisim.util.QNode;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.concurrent.RecursiveAction;
 
 public class Propagator {
   private static class Listener implements AttributeListener {
@@ -55,17 +57,20 @@ public class Propagator {
 
   public static class SimulatorEvent extends QNode {
     /** State of circuit containing component */
-    final CircuitState state;
+    CircuitState state;
 
     /** The location at which value is emitted */
-    final Location loc;
+    Location loc;
 
     /** Component emitting the value */
-    final Component cause;
+    Component cause;
 
     /** Value being emitted */
     Value val;
 
+    /** Next event in the free list of the Propagator, while this event is unused */
+    private SimulatorEvent nextFree;
+
     private SimulatorEvent(int time, int serialNumber,
                            CircuitState state, Location loc, Component cause, Value val) {
       super(time, serialNumber);
@@ -75,6 +80,25 @@ public class Propagator {
       this.val = val;
     }
 
+    private void reuse(int time, int serialNumber,
+                       CircuitState state, Location loc, Component cause, Value val) {
+      super.reuse(time, serialNumber);
+      this.state = state;
+      this.cause = cause;
+      this.loc = loc;
+      this.val = val;
+      this.nextFree = null;
+    }
+
+    /** Drops the references of an unused event so that it doesn't keep old states alive. */
+    private void release(SimulatorEvent nextFree) {
+      this.state = null;
+      this.cause = null;
+      this.loc = null;
+      this.val = null;
+      this.nextFree = nextFree;
+    }
+
     public SimulatorEvent cloneFor(CircuitState newState) {
       final var newProp = newState.getPropagator();
       final var dtime = newProp.clock - state.getPropagator().clock;
@@ -87,6 +111,114 @@ public class Propagator {
     }
   }
 
+  /**
+   * Invokes the components and wires of the states. The simulation uses DIRECT unless a
+   * SimulationProfiler is attached, so that the measurements cost nothing when not profiling.
+   */
+  interface Strategy {
+    void propagate(Component comp, CircuitState state);
+
+    void propagateWires(CircuitState state, ArrayList<SimulatorEvent> dirtyPoints);
+  }
+
+  static final Strategy DIRECT = new Strategy() {
+    @Override
+    public void propagate(Component comp, CircuitState state) {
+      comp.propagate(state);
+    }
+
+    @Override
+    public void propagateWires(CircuitState state, ArrayList<SimulatorEvent> dirtyPoints) {
+      state.getCircuit().wires.propagate(state, dirtyPoints);
+    }
+  };
+
+  /**
+   * A value set while processing a partition, scheduled once the partitions are joined. Without a
+   * location, it stands for updating the ports of the state's subcircuit in the parent state.
+   */
+  private record PendingValue(CircuitState state, Location loc, Value val, Component cause, int delay) {}
+
+  /** Values set by the partition the current thread is processing, if any. */
+  private static final ThreadLocal<ArrayList<PendingValue>> PENDING_VALUES = new ThreadLocal<>();
+
+  /**
+   * Propagates the dirty components of a substate and then, in parallel, those of its dirty
+   * substates. The partitions only share their ports: a substate whose pins changed is not allowed
+   * to update its parent, it only notes where the serial pass would have done so. The values set
+   * are kept per task and scheduled afterwards by the propagation thread, which also updates the
+   * ports at the noted places, in the order of the serial pass: a task's values before those of its
+   * substates. The port values only depend on the wires, which don't change until all components
+   * are done, so the event queue ends up the same as with a serial pass.
+   */
+  private static final class PartitionTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    final transient CircuitState state;
+    final transient ArrayList<PendingValue> values = new ArrayList<>();
+    transient PartitionTask[] children;
+
+    PartitionTask(CircuitState state) {
+      this.state = state;
+    }
+
+    @Override
+    protected void compute() {
+      final var saved = PENDING_VALUES.get();
+      PENDING_VALUES.set(values);
+      try {
+        state.processOwnComponents(true);
+        final var subs = state.takeDirtySubstates();
+        if (subs == null) return;
+        children = createTasks(subs);
+        final var failure = runAll(children);
+        for (final var child : children) {
+          if (!child.isCompletedNormally()) state.keepDirty(child.state);
+        }
+        rethrow(failure);
+      } finally {
+        PENDING_VALUES.set(saved);
+      }
+    }
+
+    static PartitionTask[] createTasks(CircuitState[] subs) {
+      var count = 0;
+      while (count < subs.length && subs[count] != null) count++;
+      final var tasks = new PartitionTask[count];
+      for (var i = 0; i < count; i++) {
+        tasks[i] = new PartitionTask(subs[i]);
+        subs[i] = null;
+      }
+      return tasks;
+    }
+
+    /**
+     * Runs the tasks, the first one in the current thread, and waits for all of them even if some
+     * fail. Returns the first failure, if any.
+     */
+    static Throwable runAll(PartitionTask[] tasks) {
+      for (var i = 1; i < tasks.length; i++) tasks[i].fork();
+      Throwable failure = null;
+      for (var i = 0; i < tasks.length; i++) {
+        try {
+          if (i == 0) {
+            tasks[i].invoke();
+          } else {
+            tasks[i].join();
+          }
+        } catch (RuntimeException | Error e) {
+          if (failure == null) failure = e;
+        }
+      }
+      return failure;
+    }
+
+    static void rethrow(Throwable failure) {
+      if (failure instanceof Error error) throw error;
+      if (failure != null) throw (RuntimeException) failure;
+    }
+  }
+
   /** Root of state tree */
   private final CircuitState root;
 
@@ -108,15 +240,35 @@ public class Propagator {
    * or QueueOfQueues with the time queue either linked or TreeMap.The user may choose the
    * implementation in the Experimental panel of User Preferences.
    */
-  private final QNodeQueue<SimulatorEvent> toProcess;
+  private QNodeQueue<SimulatorEvent> toProcess;
 
   /** Allows Propagator to verify correct thread usage. It is usually the simulation thread
    *  but it can be another thread if the simulator is not being used (e.g. command line testing) */
   private final Thread propagatorThread;
 
+  /** Whether independent substates are propagated on several threads. */
+  private volatile boolean parallel;
+  private volatile Strategy strategy = DIRECT;
+  private volatile SimulationProfiler profiler = null;
+  /** Set while partitions are processed, so that setValue() looks for a pending value list. */
+  private volatile boolean inParallelPass = false;
+
   /** Used to handle events generated by threads other than the propagation thread. */
   private final ArrayList<SimulatorEvent> nonPropThreadEvents = new ArrayList<SimulatorEvent>();
   private volatile boolean nonPropThreadEventsAvailable = false;
+  /** Unused events for nonPropThreadEvents. Protected by nonPropThreadEvents */
+  private SimulatorEvent nonPropThreadFreeEvents = null;
+
+  /**
+   * Events that have been processed and can be reused, linked through SimulatorEvent.nextFree.
+   * Once the pool holds as many events as are ever pending at once, propagation no longer
+   * allocates any events. Only used by the propagation thread.
+   */
+  private SimulatorEvent freeEvents = null;
+  /** The number of events scheduled. Only written by the propagation thread */
+  private long eventCount = 0;
+  /** The number of events scheduled that could not be taken from freeEvents. */
+  private long eventAllocationCount = 0;
 
   private int clock = 0;
   private boolean isOscillating = false;
@@ -127,6 +279,8 @@ public class Propagator {
   private int noiseCount = 0;
 
   private int eventSerialNumber = 0;
+  /** Last {@link CircuitWires#getConnectivityEpoch()} seen, to detect stale wire data. */
+  private int connectivityEpoch = -1;
   static int lastId = 0;
 
   final int id = lastId++;
@@ -136,17 +290,35 @@ public class Propagator {
     this.propagatorThread = propagatorThread;
     final var l = new Listener(this);
     root.getProject().getOptions().getAttributeSet().addAttributeListener(l);
-    final var simQueueType = AppPreferences.SIMULATION_QUEUE.get();
-    toProcess = switch (simQueueType) {
+    toProcess = createQueue(AppPreferences.SIMULATION_QUEUE.get());
+    parallel = AppPreferences.SIMULATION_PARALLEL.getBoolean();
+    updateRandomness();
+    updateSimLimit();
+  }
+
+  private static QNodeQueue<SimulatorEvent> createQueue(String simQueueType) {
+    return switch (simQueueType) {
       case AppPreferences.SIM_QUEUE_LIST_OF_QUEUES, AppPreferences.SIM_QUEUE_TREE_OF_QUEUES
           -> new QueueOfQueues<>(simQueueType);
       case AppPreferences.SIM_QUEUE_LINKED -> new LinkedQueue<>();
       case AppPreferences.SIM_QUEUE_SPLAY  -> new SplayQueue<>();
+      case AppPreferences.SIM_QUEUE_TIMING_WHEEL -> new TimingWheelQueue<>();
       // case AppPreferences.SIM_QUEUE_PRIORITY  -> new PriorityEventQueue<>();
       default -> new PriorityEventQueue<>();
     };
-    updateRandomness();
-    updateSimLimit();
+  }
+
+  /**
+   * Replaces the event queue by one of the given AppPreferences.SIM_QUEUE_* type, e.g. to compare
+   * them. The pending events are moved to the new queue. Must be called from the propagation thread.
+   */
+  public void setQueueType(String simQueueType) {
+    if (Thread.currentThread() != propagatorThread) {
+      throw new RuntimeException("setQueueType called with incorrect thread");
+    }
+    final var queue = createQueue(simQueueType);
+    while (!toProcess.isEmpty()) queue.add(toProcess.remove());
+    toProcess = queue;
   }
 
   public void drawOscillatingPoints(ComponentDrawContext context) {
@@ -161,6 +333,47 @@ public class Propagator {
     return halfClockCycles;
   }
 
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  /**
+   * Chooses whether the dirty substates of a state are propagated in parallel on the fork/join
+   * common pool. The results are the same either way, the default comes from the user preferences.
+   */
+  public void setParallel(boolean value) {
+    parallel = value;
+  }
+
+  public SimulationProfiler getProfiler() {
+    return profiler;
+  }
+
+  /**
+   * Attaches a profiler that measures the components and wires from now on, or detaches it when
+   * null. May be called from any thread; it takes effect with the next state that is processed.
+   */
+  public void setProfiler(SimulationProfiler value) {
+    profiler = value;
+    strategy = value == null ? DIRECT : value.strategy;
+  }
+
+  Strategy getStrategy() {
+    return strategy;
+  }
+
+  /**
+   * Returns a count that grows by one with each value set by the current thread, for the
+   * profiler. During a parallel pass it counts the values pending for the current partition.
+   */
+  long getScheduledValueMark() {
+    if (inParallelPass) {
+      final var pending = PENDING_VALUES.get();
+      if (pending != null) return pending.size();
+    }
+    return eventCount;
+  }
+
   public boolean isOscillating() {
     return isOscillating;
   }
@@ -169,10 +382,28 @@ public class Propagator {
     return !toProcess.isEmpty();
   }
 
+  /** Returns the number of events scheduled so far by the propagation thread. */
+  public long getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Returns the number of events that had to be allocated because none could be recycled. In
+   * steady state this no longer grows while getEventCount() does.
+   */
+  public long getEventAllocationCount() {
+    return eventAllocationCount;
+  }
+
   void locationTouched(CircuitState state, Location loc) {
     if (oscAdding) oscPoints.add(state, loc);
   }
 
+  void locationsTouched(CircuitState state, Location[] locs) {
+    if (!oscAdding) return;
+    for (final var loc : locs) oscPoints.add(state, loc);
+  }
+
   /** Must be called from propagation thread */
   public boolean propagate() {
     return propagate(null, null);
@@ -184,8 +415,7 @@ public class Propagator {
       throw new RuntimeException("Propagate called with incorrect thread");
     }
     oscPoints.clear();
-    root.processDirtyPoints();
-    root.processDirtyComponents();
+    processDirtyStates();
 
     final var oscThreshold = simLimit;
     final var logThreshold = 3 * oscThreshold / 4;
@@ -229,6 +459,38 @@ public class Propagator {
     isOscillating = false;
   }
 
+  /**
+   * Captures the state of the simulation at the current tick. Must be called from the propagation
+   * thread, once propagate() has finished.
+   */
+  public SimulationCheckpoint checkpoint() {
+    if (Thread.currentThread() != propagatorThread) {
+      throw new RuntimeException("Checkpoint called with incorrect thread");
+    }
+    return new SimulationCheckpoint(root.getCircuit(), halfClockCycles, root.takeSnapshot());
+  }
+
+  /**
+   * Puts the simulation back to a checkpoint taken by checkpoint(). The pending events are dropped
+   * and all components are marked dirty, so propagate() must be called next. Must be called from
+   * the propagation thread.
+   */
+  public void restore(SimulationCheckpoint checkpoint) {
+    if (Thread.currentThread() != propagatorThread) {
+      throw new RuntimeException("Restore called with incorrect thread");
+    }
+    if (checkpoint.getCircuit() != root.getCircuit()) {
+      throw new IllegalArgumentException("checkpoint of another circuit");
+    }
+    halfClockCycles = checkpoint.getTickCount();
+    toProcess.clear();
+    synchronized (nonPropThreadEvents) {
+      nonPropThreadEvents.clear();
+    }
+    root.restoreSnapshot(checkpoint.getSnapshot());
+    isOscillating = false;
+  }
+
   //
   // package-protected helper methods
   //
@@ -241,6 +503,8 @@ public class Propagator {
       synchronized (nonPropThreadEvents) {
         for (final var ev : nonPropThreadEvents) {
           setValueWithPropThread(ev.state, ev.loc, ev.val, ev.cause, ev.timeKey);
+          ev.release(nonPropThreadFreeEvents);
+          nonPropThreadFreeEvents = ev;
         }
         nonPropThreadEvents.clear();
         nonPropThreadEventsAvailable = false;
@@ -254,11 +518,25 @@ public class Propagator {
     if (delay <= 0) {
       delay = 1;
     }
+    if (inParallelPass) {
+      final var pending = PENDING_VALUES.get();
+      if (pending != null) {
+        pending.add(new PendingValue(state, pt, val, cause, delay));
+        return;
+      }
+    }
     if (Thread.currentThread() == propagatorThread) {
       setValueWithPropThread(state, pt, val, cause, delay);
     } else {
       synchronized (nonPropThreadEvents) {
-        nonPropThreadEvents.add(new SimulatorEvent(delay, 0, state, pt, cause, val));
+        var ev = nonPropThreadFreeEvents;
+        if (ev == null) {
+          ev = new SimulatorEvent(delay, 0, state, pt, cause, val);
+        } else {
+          nonPropThreadFreeEvents = ev.nextFree;
+          ev.reuse(delay, 0, state, pt, cause, val);
+        }
+        nonPropThreadEvents.add(ev);
         nonPropThreadEventsAvailable = true;
       }
     }
@@ -280,8 +558,68 @@ public class Propagator {
         }
       }
     }
-    toProcess.add(new SimulatorEvent(clock + delay, eventSerialNumber, state, pt, cause, val));
+    var ev = freeEvents;
+    if (ev == null) {
+      ev = new SimulatorEvent(clock + delay, eventSerialNumber, state, pt, cause, val);
+      eventAllocationCount++;
+    } else {
+      freeEvents = ev.nextFree;
+      ev.reuse(clock + delay, eventSerialNumber, state, pt, cause, val);
+    }
+    toProcess.add(ev);
     eventSerialNumber++;
+    eventCount++;
+  }
+
+  /**
+   * Notes that the ports of the state's subcircuit have to be updated in the parent state. Must be
+   * called from a partition task.
+   */
+  void deferPortUpdate(CircuitState state) {
+    PENDING_VALUES.get().add(new PendingValue(state, null, null, null, 0));
+  }
+
+  /**
+   * Processes the dirty components of the given substates of parent in parallel, see PartitionTask.
+   * Must be called from the propagation thread.
+   */
+  void processSubstatesInParallel(CircuitState parent, CircuitState[] subs) {
+    final var tasks = PartitionTask.createTasks(subs);
+    final Throwable failure;
+    inParallelPass = true;
+    try {
+      failure = PartitionTask.runAll(tasks);
+    } finally {
+      inParallelPass = false;
+    }
+    for (final var task : tasks) {
+      schedulePendingValues(task);
+      if (!task.isCompletedNormally()) parent.keepDirty(task.state);
+    }
+    PartitionTask.rethrow(failure);
+  }
+
+  private void schedulePendingValues(PartitionTask task) {
+    for (final var v : task.values) {
+      if (v.loc() == null) {
+        v.state().propagateToParent();
+      } else {
+        setValueWithPropThread(v.state(), v.loc(), v.val(), v.cause(), v.delay());
+      }
+    }
+    if (task.children == null) return;
+    for (final var child : task.children) schedulePendingValues(child);
+  }
+
+  /**
+   * Returns processed events to the pool. The events must no longer be referenced anywhere else.
+   * Must be called from the propagation thread.
+   */
+  void recycleEvents(ArrayList<SimulatorEvent> events) {
+    for (final var ev : events) {
+      ev.release(freeEvents);
+      freeEvents = ev;
+    }
   }
 
   /** Must be called from propagation thread */
@@ -290,8 +628,7 @@ public class Propagator {
       throw new RuntimeException("Step called with incorrect thread");
     }
     oscPoints.clear();
-    root.processDirtyPoints();
-    root.processDirtyComponents();
+    processDirtyStates();
     moveNonPropThreadEvents();
 
     if (toProcess.isEmpty()) return false;
@@ -325,7 +662,19 @@ public class Propagator {
       state.markPointAsDirty(ev); // ev.loc, ev.cause, ev.val);
     }
 
-    root.processDirtyPoints();
+    processDirtyStates();
+  }
+
+  /**
+   * Processes the dirty points and components of the state tree. Only dirty subtrees are visited,
+   * except after some connectivity map was voided, in which case every state is visited once so
+   * that it can rebuild its wire data.
+   */
+  private void processDirtyStates() {
+    final var epoch = CircuitWires.getConnectivityEpoch();
+    final var allSubstates = epoch != connectivityEpoch;
+    connectivityEpoch = epoch;
+    root.processDirtyPoints(allSubstates);
     root.processDirtyComponents();
   }
 
@@ -0,0 +1,51 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import java.util.Map;
+
+/**
+ * The state of a simulation at some tick, taken by Propagator.checkpoint() and put back by
+ * Propagator.restore(). It holds a copy of the data of every component, taken with
+ * ComponentState.clone(), and of the values on the wires, so that the simulation can go on without
+ * changing it. Memories and wire values are copied only once either side writes to them, so a
+ * checkpoint of a large memory is cheap.
+ */
+public final class SimulationCheckpoint {
+  /**
+   * The data of the components of one circuit state, a ComponentState or a Snapshot for a
+   * subcircuit, and the values of its wires, or null if it had none yet.
+   */
+  record Snapshot(Map<Component, Object> data, CircuitWires.Snapshot wires) {}
+
+  private final Circuit circuit;
+  private final int tickCount;
+  private final Snapshot snapshot;
+
+  SimulationCheckpoint(Circuit circuit, int tickCount, Snapshot snapshot) {
+    this.circuit = circuit;
+    this.tickCount = tickCount;
+    this.snapshot = snapshot;
+  }
+
+  public Circuit getCircuit() {
+    return circuit;
+  }
+
+  /** Returns the number of clock ticks, Propagator.getTickCount(), at which this was taken. */
+  public int getTickCount() {
+    return tickCount;
+  }
+
+  Snapshot getSnapshot() {
+    return snapshot;
+  }
+}
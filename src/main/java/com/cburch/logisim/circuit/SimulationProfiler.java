@@ -0,0 +1,124 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.instance.StdAttr;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Measures where the simulation spends its time: how often the components and wires are
+ * propagated, how many values they set and how long that takes, per component factory and per
+ * circuit state, that is per subcircuit instance. It is attached with Propagator.setProfiler(),
+ * which swaps in its strategy, so the simulation runs unchanged while nothing is attached.
+ */
+public class SimulationProfiler {
+  /** The measurements of one factory or one circuit state. */
+  public record Sample(String name, long invocations, long events, long nanos) {}
+
+  private static final class Counter {
+    private long invocations;
+    private long events;
+    private long nanos;
+
+    synchronized void add(long eventCount, long time) {
+      invocations++;
+      events += eventCount;
+      nanos += time;
+    }
+
+    synchronized Sample toSample(String name) {
+      return new Sample(name, invocations, events, nanos);
+    }
+  }
+
+  /**
+   * Times each call. The values set are counted through the propagator, so that the components
+   * themselves are not changed. Components may be propagated on several threads at once.
+   */
+  private final class Measuring implements Propagator.Strategy {
+    @Override
+    public void propagate(Component comp, CircuitState state) {
+      final var prop = state.getPropagator();
+      final var mark = prop.getScheduledValueMark();
+      final var start = System.nanoTime();
+      try {
+        comp.propagate(state);
+      } finally {
+        record(comp.getFactory(), state, prop.getScheduledValueMark() - mark, System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public void propagateWires(CircuitState state, ArrayList<Propagator.SimulatorEvent> dirtyPoints) {
+      final var start = System.nanoTime();
+      try {
+        state.getCircuit().wires.propagate(state, dirtyPoints);
+      } finally {
+        record(WireFactory.instance, state, 0, System.nanoTime() - start);
+      }
+    }
+  }
+
+  final Propagator.Strategy strategy = new Measuring();
+  private final Map<ComponentFactory, Counter> byFactory = new ConcurrentHashMap<>();
+  private final Map<CircuitState, Counter> byState = new ConcurrentHashMap<>();
+
+  private void record(ComponentFactory factory, CircuitState state, long events, long nanos) {
+    byFactory.computeIfAbsent(factory, f -> new Counter()).add(events, nanos);
+    byState.computeIfAbsent(state, s -> new Counter()).add(events, nanos);
+  }
+
+  /** Forgets all measurements. */
+  public void clear() {
+    byFactory.clear();
+    byState.clear();
+  }
+
+  /** Returns the measurements per component factory. The wires are counted as one factory. */
+  public List<Sample> getFactorySamples() {
+    return samples(byFactory, ComponentFactory::getDisplayName);
+  }
+
+  /**
+   * Returns the measurements per circuit state, each named by its path from the root state. These
+   * only include the components of the state itself, not those of its substates.
+   */
+  public List<Sample> getInstanceSamples() {
+    return samples(byState, SimulationProfiler::getPath);
+  }
+
+  private static <K> List<Sample> samples(Map<K, Counter> counters, Function<K, String> names) {
+    final var ret = new ArrayList<Sample>(counters.size());
+    for (final var entry : counters.entrySet()) {
+      ret.add(entry.getValue().toSample(names.apply(entry.getKey())));
+    }
+    ret.sort((a, b) -> Long.compare(b.nanos(), a.nanos()));
+    return ret;
+  }
+
+  /** Returns e.g. "main/cpu/alu(240,120)", using the label of a subcircuit if it has one. */
+  static String getPath(CircuitState state) {
+    final var comp = state.getSubcircuit();
+    final var parent = state.getParentState();
+    if (comp == null || parent == null) return state.getCircuit().getName();
+    final var attrs = comp.getAttributeSet();
+    final var label = attrs.containsAttribute(StdAttr.LABEL) ? attrs.getValue(StdAttr.LABEL) : null;
+    final var name = label == null || label.isEmpty()
+        ? state.getCircuit().getName() + comp.getLocation()
+        : label;
+    return getPath(parent) + "/" + name;
+  }
+}
@@ -17,6 +17,7 @@ import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.util.CollectionUtil;
 import com.cburch.logisim.util.UniquelyNamedThread;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -24,18 +25,28 @@ import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
 public class Simulator {
+  /** The ticks between two checkpoints. */
+  private static final int CHECKPOINT_INTERVAL = 16;
+  /** The checkpoints kept, so rewind() can go back this many intervals. */
+  private static final int CHECKPOINT_CAPACITY = 256;
 
   public static class Event {
     private final Simulator source;
     private final boolean didTick;
     private final boolean didSingleStep;
     private final boolean didPropagate;
+    private final int tickCount;
 
     public Event(Simulator src, boolean t, boolean s, boolean p) {
+      this(src, t, s, p, t ? 1 : 0);
+    }
+
+    public Event(Simulator src, boolean t, boolean s, boolean p, int ticks) {
       source = src;
       didTick = t;
       didSingleStep = s;
       didPropagate = p;
+      tickCount = ticks;
     }
 
     public Simulator getSource() {
@@ -53,6 +64,14 @@ public class Simulator {
     public boolean didPropagate() {
       return didPropagate;
     }
+
+    /**
+     * Returns the number of ticks since the last event, which is more than one when the auto-ticks
+     * are run in batches.
+     */
+    public int getTickCount() {
+      return tickCount;
+    }
   }
 
   public static interface StatusListener {
@@ -83,6 +102,19 @@ public class Simulator {
     public void propagationCompleted(Event e);
   }
 
+  /**
+   * A listener that needs to see every tick. When the auto-ticks are run in batches, the other
+   * listeners are only notified once per batch, but these are called after each tick of it but the
+   * last, for which propagationCompleted() follows as usual.
+   */
+  public static interface TickListener extends Listener {
+    /**
+     * Notify listeners that a tick of a batch has been propagated.
+     * Called by the simulation thread, so it should be quick.
+     */
+    public void tickCompleted();
+  }
+
   public static interface ProgressListener extends Listener {
     public boolean wantsProgressEvents();
 
@@ -104,6 +136,10 @@ public class Simulator {
   //     propagator.step(stepPoints) -- propagates a single step
   //     propagator.isPending() -- checks if more signal changes are pending
   //
+  // In turbo mode (AppPreferences.SIMULATION_TURBO) the auto-ticks that are due
+  // are run in one batch, without waiting or notifying the listeners in
+  // between, so that the tick rate is not limited by the repaints.
+  //
   // The thread will invoked these in response to various events:
   //
   // [auto-tick]   If autoTicking is on and autoPropagation is on, the thread
@@ -121,11 +157,19 @@ public class Simulator {
   // [reset]       If the User/GUI requests a reset, the thread wakes up and
   //               invokes reset() and maybe also propagate().
   //
+  // [rewind]      If the User/GUI requests to step back, the thread wakes up
+  //               and restores the last checkpoint before the wanted tick,
+  //               then ticks forward to it. Auto-ticking is turned off.
+  //               Checkpoints are taken every few ticks while the preference
+  //               AppPreferences.SIMULATION_CHECKPOINTS is on.
+  //
   // [single-step] If the User/GUI requests a single-step propagation (this
   //               only happens when autoTicking is off), the thread wakes up
   //               and invokes step(). If autoTicking is on and signals are
   //               stable, then toggleClocks() is also called before step().
   private static class SimThread extends UniquelyNamedThread {
+    private static final long TURBO_FRAME_NANOS = 1_000_000_000L / 30;
+    private static final int TURBO_MAX_BATCH = 1 << 20;
 
     private final Simulator sim;
 
@@ -143,8 +187,11 @@ public class Simulator {
     private int manualStepsRequested = 0;
     private boolean nudgeRequested = false;
     private boolean resetRequested = false;
+    private int rewindTicksRequested = 0;
     private boolean complete = false;
     private double avgTickNanos = -1.0;
+    private long turboNextTick = 0; // when the next turbo tick is due, 0 to restart the schedule
+    private int turboBatchLimit = 1; // the ticks that fit in a frame, adapted after each batch
 
     // These are copies of some of the above variables that can be read without
     // the lock if synchronization with other variables is not needed.
@@ -160,6 +207,10 @@ public class Simulator {
     private volatile String exceptionMessage = null;
     private volatile boolean oscillating = false;
 
+    // Set by the other threads to end a turbo batch before its next tick, on
+    // a reset, a shutdown or a new propagator. Cleared when a batch starts.
+    private volatile boolean batchStopRequested = false;
+
     // This last one should be made thread-safe, but it isn't for now.
     private final PropagationPoints stepPoints = new PropagationPoints();
 
@@ -242,6 +293,7 @@ public class Simulator {
         }
         propagator = prop;
         propagatorUnsynchronized = prop;
+        batchStopRequested = true;
         smoothingFactor = smoothFactor;
         manualTicksRequested = 0;
         manualStepsRequested = 0;
@@ -303,6 +355,7 @@ public class Simulator {
         autoTickFreqUnsynchronized = freq;
         autoTickNanos = freq <= 0 ? 0 : Math.round(1.0e9 / autoTickFreq);
         avgTickNanos = -1.0;
+        turboNextTick = 0;
         if (Thread.currentThread() != this) {
           simStateUpdated.signalAll();
         }
@@ -342,11 +395,30 @@ public class Simulator {
       simStateLock.lock();
       try {
         resetRequested = true;
+        batchStopRequested = true;
+        manualTicksRequested = 0;
+        manualStepsRequested = 0;
+        if (Thread.currentThread() != this) {
+          simStateUpdated.signalAll();
+        }
+      } finally {
+        simStateLock.unlock();
+      }
+    }
+
+    boolean requestRewind(int ticks) {
+      simStateLock.lock();
+      try {
+        rewindTicksRequested += ticks;
         manualTicksRequested = 0;
         manualStepsRequested = 0;
+        final var wasTicking = autoTicking;
+        autoTicking = false;
+        autoTickingUnsynchronized = false;
         if (Thread.currentThread() != this) {
           simStateUpdated.signalAll();
         }
+        return wasTicking;
       } finally {
         simStateLock.unlock();
       }
@@ -387,6 +459,7 @@ public class Simulator {
       simStateLock.lock();
       try {
         complete = true;
+        batchStopRequested = true;
         if (Thread.currentThread() != this) {
           simStateUpdated.signalAll();
         }
@@ -400,11 +473,13 @@ public class Simulator {
       Propagator prop = null;
       ArrayList<TestVectorEvaluator> testVectors = null;
       var doReset = false;
+      var rewindTicks = 0;
       var doNudge = false;
       var doTick = false;
       var doTickIfStable = false;
       var doStep = false;
       var doProp = false;
+      var turboTicks = 0;
       var now = 0L;
 
       simStateLock.lock();
@@ -428,6 +503,10 @@ public class Simulator {
             doReset = true;
             doProp = autoPropagating;
             ready = true;
+          } else if (rewindTicksRequested > 0) {
+            rewindTicks = rewindTicksRequested;
+            rewindTicksRequested = 0;
+            ready = true;
           } else if (nudgeRequested) {
             nudgeRequested = false;
             doNudge = true;
@@ -444,7 +523,25 @@ public class Simulator {
             doStep = !autoPropagating;
             ready = true;
           } else {
-            if (autoTicking && autoPropagating && autoTickNanos > 0) {
+            if (autoTicking && autoPropagating && autoTickNanos > 0
+                && AppPreferences.SIMULATION_TURBO.getBoolean()) {
+              // run all the ticks that are due, rather than spinning until the next one
+              if (turboNextTick == 0) turboNextTick = now;
+              final var delta = turboNextTick - now;
+              if (delta <= 0) {
+                turboTicks = (int) Math.min(turboBatchLimit, 1 - delta / autoTickNanos);
+                batchStopRequested = false;
+                doTick = true;
+                doProp = true;
+                ready = true;
+              } else {
+                try {
+                  simStateUpdated.awaitNanos(delta);
+                } catch (InterruptedException e) {
+                  // Do Nothing
+                }
+              }
+            } else if (autoTicking && autoPropagating && autoTickNanos > 0) {
               // see if it is time to do an auto-tick
               final var smooth = smoothingFactor;
               final var lastNanos = now - lastTick;
@@ -482,6 +579,7 @@ public class Simulator {
               }
             } else {
               avgTickNanos = -1.0;
+              turboNextTick = 0;
               try {
                 simStateUpdated.await();
               } catch (InterruptedException e) {
@@ -533,6 +631,16 @@ public class Simulator {
         }
       }
 
+      if (rewindTicks > 0 && prop != null) {
+        try {
+          stepPoints.clear();
+          propagated = sim.checkpoints.rewind(prop, rewindTicks);
+        } catch (Exception err) {
+          oops = true;
+          recordException(err);
+        }
+      }
+
       if (doTick || (doTickIfStable && prop != null && !prop.isPending())) {
         lastTick = now;
         ticked = true;
@@ -572,6 +680,34 @@ public class Simulator {
         }
       }
 
+      final var recording = prop != null && !oops && AppPreferences.SIMULATION_CHECKPOINTS.getBoolean();
+      if (recording && (ticked || doReset)) {
+        try {
+          sim.checkpoints.tickCompleted(prop);
+        } catch (Exception err) {
+          oops = true;
+          recordException(err);
+        }
+      }
+
+      var ticks = ticked ? 1 : 0;
+      if (turboTicks > 1 && ticked && !oops && prop != null) {
+        try {
+          // stop, single-step and rewind turn auto-ticking or auto-propagation off
+          while (ticks < turboTicks && hasClocks && !prop.isOscillating() && !batchStopRequested
+              && autoTickingUnsynchronized && autoPropagatingUnsynchronized) {
+            sim.fireTickCompleted();
+            hasClocks = prop.toggleClocks();
+            prop.propagate();
+            if (recording) sim.checkpoints.tickCompleted(prop);
+            ticks++;
+          }
+        } catch (Exception err) {
+          oops = true;
+          recordException(err);
+        }
+      }
+
       osc = prop != null && prop.isOscillating();
 
       var clockDied = false;
@@ -587,6 +723,15 @@ public class Simulator {
         if (ticked && manualTicksRequested > 0) {
           manualTicksRequested--;
         }
+        if (turboTicks > 0 && turboNextTick != 0) {
+          // size the next batch so that it takes about one frame
+          final var end = System.nanoTime();
+          final var limit = TURBO_FRAME_NANOS * ticks / Math.max(1, end - now);
+          turboBatchLimit = (int) Math.max(1, Math.min(TURBO_MAX_BATCH, limit));
+          turboNextTick += ticks * autoTickNanos;
+          // too slow for the requested frequency: run flat out instead of building a backlog
+          if (turboNextTick - end < -TURBO_FRAME_NANOS) turboNextTick = end;
+        }
         if (autoTicking && !hasClocks) {
           autoTicking = false;
           autoTickingUnsynchronized = false;
@@ -600,7 +745,7 @@ public class Simulator {
       // accompanied by a tick, step, or propagate. That allows for a repaint in
       // some components.
       if (ticked || stepped || propagated || doNudge) {
-        sim.firePropagationCompleted(ticked, stepped && !propagated, propagated);
+        sim.firePropagationCompleted(ticked, stepped && !propagated, propagated, ticks);
       }
       if (clockDied) {
         sim.fireSimulatorStateChanged();
@@ -646,6 +791,8 @@ public class Simulator {
   //
 
   public final SimThread simThread;
+  /** The checkpoints of the simulation, taken every so many ticks, for rewind(). */
+  private final CheckpointHistory checkpoints = new CheckpointHistory(CHECKPOINT_INTERVAL, CHECKPOINT_CAPACITY);
 
   // listeners is protected by a lock because simThread calls the _fire*()
   // methods, but the gui thread can call add/removeSimulatorListener() at any
@@ -653,6 +800,7 @@ public class Simulator {
   private final ArrayList<StatusListener> statusListeners = new ArrayList<>();
   private ArrayList<Listener> activityListeners = new ArrayList<>();
   private volatile ProgressListener progressListener = null;
+  private volatile TickListener[] tickListeners = new TickListener[0];
   private final Object lock = new Object();
   private volatile int numListeners = 0;
   private volatile Listener[] listeners = new Listener[10];
@@ -687,6 +835,11 @@ public class Simulator {
           listeners[numListeners] = (Listener) listener;
           numListeners++;
         }
+        if (listener instanceof TickListener tickListener) {
+          final var newArray = Arrays.copyOf(tickListeners, tickListeners.length + 1);
+          newArray[tickListeners.length] = tickListener;
+          tickListeners = newArray;
+        }
         if (listener instanceof ProgressListener) {
           if (progressListener != null) {
             throw new IllegalStateException("only one chronogram listener supported");
@@ -707,6 +860,9 @@ public class Simulator {
         if (listener == progressListener) {
           progressListener = null;
         }
+        if (listener instanceof TickListener) {
+          tickListeners = Arrays.stream(tickListeners).filter(l -> l != listener).toArray(TickListener[]::new);
+        }
         statusListeners.remove(listener);
         activityListeners.remove((Listener) listener);
         numListeners = -1;
@@ -755,8 +911,8 @@ public class Simulator {
   }
 
   // called from simThread
-  private void firePropagationCompleted(boolean t, boolean s, boolean p) {
-    final var event = new Event(this, t, s, p);
+  private void firePropagationCompleted(boolean t, boolean s, boolean p, int ticks) {
+    final var event = new Event(this, t, s, p, ticks);
     var nrListeners = numListeners;
     if (nrListeners < 0) {
       synchronized (lock) {
@@ -781,6 +937,13 @@ public class Simulator {
     }
   }
 
+  // called from simThread
+  private void fireTickCompleted() {
+    for (final var listener : tickListeners) {
+      listener.tickCompleted();
+    }
+  }
+
   // called from either the gui thread or the simulation thread
   private void fireSimulatorStateChanged() {
     final var event = new Event(this, false, false, false);
@@ -819,8 +982,10 @@ public class Simulator {
   }
 
   public void setCircuitState(CircuitState state) {
-    if (simThread.setPropagator(state == null ? null : state.getPropagator()))
+    if (simThread.setPropagator(state == null ? null : state.getPropagator())) {
+      checkpoints.clear();
       fireSimulatorStateChanged();
+    }
   }
 
   public void setAutoPropagation(boolean value) {
@@ -860,6 +1025,20 @@ public class Simulator {
     simThread.requestReset();
   }
 
+  /**
+   * Steps the simulation back by the given number of ticks, or as far as the checkpoints go, and
+   * stops auto-ticking. Checkpoints are only taken while AppPreferences.SIMULATION_CHECKPOINTS is
+   * on.
+   */
+  public void rewind(int ticks) {
+    if (ticks <= 0) return;
+    if (simThread.requestRewind(ticks)) fireSimulatorStateChanged();
+  }
+
+  public CheckpointHistory getCheckpoints() {
+    return checkpoints;
+  }
+
   // Circuit changed, nudge the signals if needed to fix any pending changes
   public boolean nudge() {
     return simThread.requestNudge();
@@ -0,0 +1,111 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Bounds;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Collects what changed in one circuit state since it was last asked: the buses whose value
+ * changed, and the components that were propagated. The canvas attaches one to the state it shows
+ * with CircuitState.setChangeTracker(), so that it can repaint only the parts of the circuit whose
+ * values changed. When too much changed, or the wiring itself changed, it gives up and reports
+ * that everything must be repainted.
+ */
+public class ValueChangeTracker {
+  /** Beyond this many changes, painting everything is about as fast as painting the parts. */
+  private static final int MAX_CHANGES = 4096;
+  /** The margin around a wire or component, for wider lines, dots and value markers. */
+  private static final int MARGIN = 6;
+
+  private HashSet<CircuitWires.ValuedBus> buses = new HashSet<>();
+  private HashSet<Component> components = new HashSet<>();
+  private int changes = 0;
+  private boolean everything = true;
+
+  synchronized void busChanged(CircuitWires.ValuedBus bus) {
+    if (everything) return;
+    if (buses.add(bus) && ++changes > MAX_CHANGES) invalidate();
+  }
+
+  synchronized void componentChanged(Component comp) {
+    if (everything) return;
+    if (components.add(comp) && ++changes > MAX_CHANGES) invalidate();
+  }
+
+  synchronized void componentsChanged(Collection<? extends Component> comps) {
+    if (everything) return;
+    if (comps.size() > MAX_CHANGES) {
+      invalidate();
+      return;
+    }
+    for (final var comp : comps) componentChanged(comp);
+  }
+
+  /** Notes that everything may have changed, e.g. the wiring of the circuit. */
+  public synchronized void invalidate() {
+    everything = true;
+    buses.clear();
+    components.clear();
+    changes = 0;
+  }
+
+  /** Forgets the changes so far, as everything is about to be repainted anyway. */
+  public synchronized void clear() {
+    everything = false;
+    buses.clear();
+    components.clear();
+    changes = 0;
+  }
+
+  /**
+   * Returns the bounds of the wires and components that changed since the last call, and forgets
+   * them, or returns null if everything may have changed. This reads the wires of the circuit, so
+   * it must be called from the AWT thread, like the painting.
+   */
+  public List<Bounds> takeChangedBounds(CircuitState state) {
+    final HashSet<CircuitWires.ValuedBus> changedBuses;
+    final HashSet<Component> changedComps;
+    synchronized (this) {
+      if (everything) {
+        clear();
+        return null;
+      }
+      changedBuses = buses;
+      changedComps = components;
+      buses = new HashSet<>();
+      components = new HashSet<>();
+      changes = 0;
+    }
+    final var ret = new ArrayList<Bounds>();
+    if (!changedBuses.isEmpty()) {
+      final var points = state.getCircuit().wires.points;
+      final var seen = new HashSet<Wire>();
+      for (final var vb : changedBuses) {
+        for (final var loc : vb.locations) {
+          final var wires = points.getWires(loc);
+          if (wires.isEmpty()) {
+            ret.add(Bounds.create(loc).expand(MARGIN));
+          } else {
+            for (final var wire : wires) {
+              if (seen.add(wire)) ret.add(wire.getBounds().expand(MARGIN));
+            }
+          }
+        }
+      }
+    }
+    for (final var comp : changedComps) ret.add(comp.getBounds().expand(MARGIN));
+    return ret;
+  }
+}
@@ -23,6 +23,11 @@ class WireBundle {
   WireThread[] threads = null; // will be set when Connectivity is done being constructed
   Location[] xpoints = null; // will be set when Connectivity is done being constructed
   HashSet<Location> tempPoints = new HashSet<>();
+  /**
+   * Index of the value of this bundle in CircuitWires.State. Given once by the first Connectivity
+   * that holds this bundle, and kept by the later ones that take it over.
+   */
+  int slot = -1;
   // bundle
   // hits
   private WidthIncompatibilityData incompatibilityData = null;
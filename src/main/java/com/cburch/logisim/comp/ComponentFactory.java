@@ -79,6 +79,15 @@ public interface ComponentFactory extends AttributeDefaultProvider {
 
   boolean hasThreeStateDrivers(AttributeSet attrs);
 
+  /**
+   * Returns whether the components look the same in every circuit state, apart from the values
+   * shown on their ports, so that the canvas can draw them once and keep the picture. Such
+   * components are drawn below the wires and the other components.
+   */
+  default boolean hasStaticAppearance(AttributeSet attrs) {
+    return false;
+  }
+
   boolean isHDLSupportedComponent(AttributeSet attrs);
 
   @Override
@@ -21,4 +21,9 @@ public interface ComponentListener {
   default void labelChanged(ComponentEvent e) {
     // no-op implementation
   }
+
+  /** Called when the component changed its bounds by itself, outside of a circuit mutation. */
+  default void boundsChanged(ComponentEvent e) {
+    // no-op implementation
+  }
 }
@@ -45,7 +45,8 @@ public class LogFrame extends LFrame.SubWindowWithSimulation {
   private final LogMenuListener menuListener;
 
   private class MyListener
-      implements ProjectListener, LibraryListener, Simulator.ProgressListener, LocaleListener {
+      implements ProjectListener, LibraryListener, Simulator.ProgressListener, Simulator.TickListener,
+          LocaleListener {
 
     @Override
     public void libraryChanged(LibraryEvent event) {
@@ -86,6 +87,11 @@ public class LogFrame extends LFrame.SubWindowWithSimulation {
       curModel.propagationCompleted(e.didTick(), e.didSingleStep(), e.didPropagate());
     }
 
+    @Override
+    public void tickCompleted() {
+      curModel.propagationCompleted(true, false, true);
+    }
+
     @Override
     public boolean wantsProgressEvents() {
       return curModel.isFine();
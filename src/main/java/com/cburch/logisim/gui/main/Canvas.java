@@ -480,6 +480,7 @@ public class Canvas extends JPanel implements LocaleListener, CanvasPaneContents
 
   @Override
   public void localeChanged() {
+    painter.invalidateStaticLayer();
     paintCoordinator.requestRepaint();
   }
 
@@ -496,6 +497,7 @@ public class Canvas extends JPanel implements LocaleListener, CanvasPaneContents
     }
 
     inPaint = true; // volatile
+    final var start = System.nanoTime();
     try {
       super.paintComponent(g);
       painter.paintContents(g, proj);
@@ -507,7 +509,7 @@ public class Canvas extends JPanel implements LocaleListener, CanvasPaneContents
         inPaint = false;
         repaintLock.notifyAll();
       }
-      paintCoordinator.repaintCompleted();
+      paintCoordinator.repaintCompleted(System.nanoTime() - start);
     }
   }
 
@@ -557,6 +559,19 @@ public class Canvas extends JPanel implements LocaleListener, CanvasPaneContents
     }
   }
 
+  /**
+   * Paints a region of the canvas, in pixels, right away, together with whatever the viewport
+   * shows on top of it.
+   */
+  void paintImmediatelyWithOverlays(Rectangle r) {
+    if (canvasPane == null) {
+      paintImmediately(r);
+      return;
+    }
+    final var pos = viewport.getViewPosition();
+    viewport.paintImmediately(r.x - pos.x, r.y - pos.y, r.width, r.height);
+  }
+
   private void repairMouseEvent(MouseEvent e) {
     final var zoom = getZoomFactor();
     if (zoom != 1.0) {
@@ -996,6 +1011,7 @@ public class Canvas extends JPanel implements LocaleListener, CanvasPaneContents
 
     @Override
     public void attributeValueChanged(AttributeEvent e) {
+      painter.invalidateStaticLayer();
       Attribute<?> attr = e.getAttribute();
       if (attr == Options.ATTR_GATE_UNDEFINED) {
         final var circState = getCircuitState();
@@ -1007,6 +1023,7 @@ public class Canvas extends JPanel implements LocaleListener, CanvasPaneContents
 
     @Override
     public void circuitChanged(CircuitEvent event) {
+      painter.invalidateStaticLayer();
       int act = event.getAction();
       if (act == CircuitEvent.ACTION_REMOVE) {
         final var c = (Component) event.getData();
@@ -1136,7 +1153,7 @@ public class Canvas extends JPanel implements LocaleListener, CanvasPaneContents
 
     @Override
     public void propagationCompleted(Simulator.Event e) {
-      paintCoordinator.requestRepaint();
+      paintCoordinator.requestValueRepaint();
     }
 
     @Override
@@ -9,122 +9,229 @@
 
 package com.cburch.logisim.gui.main;
 
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.ValueChangeTracker;
+import com.cburch.logisim.prefs.AppPreferences;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-
 
 // This class forms a bridge between the simulation threads, which recompute
 // circuit values and update circuit state, and the AWT thread, which redraws
 // the screen.
-//  (1) The sim thread calls requestRepaint() whenever the circuit has state
-//      been updated and needs to be redrawn. This may happen as frequently as
-//      every few milliseconds or faster, or as slowly as once per few seconds,
-//      depending on the user's chosen tick frequency.
+//  (1) The sim thread calls requestValueRepaint() whenever the values of the
+//      circuit have been updated and need to be redrawn. This may happen as
+//      frequently as every few milliseconds or faster, or as slowly as once per
+//      few seconds, depending on the user's chosen tick frequency. Anything
+//      else that changes the picture calls requestRepaint().
 //  (2) CanvasPaintCoordinator keeps track of those requests, and periodically
-//      invokes canvas.repaint(), which enqueues work on the AWT thread. The
-//      repaint() calls are metered so they occur at most once per approx 50
-//      milliseconds (so about 20 redraws per second), and so there is never more than
-//      one repaint() outstanding at a time. We use a
-//  (3) The ATW thread services the repaint() requests performs the drawing. It
-//      also invokes repaintCompleted() as a callback to notify
-//      CanvasPaintCoordinator that the repaining is finished, so that another
-//      repaint() can be issued, if and when needed.
+//      repaints the canvas on the AWT thread. The repaints are metered so they
+//      occur at most once per frame, and so there is never more than one
+//      repaint outstanding at a time. The length of a frame adapts to how long
+//      painting takes, so that a large circuit does not keep the AWT thread
+//      busy all the time.
+//  (3) When only values changed, the ValueChangeTracker attached to the shown
+//      circuit state tells which wires and components changed, and only those
+//      regions are painted, right away. Otherwise the whole canvas is repainted
+//      by the AWT thread, which invokes repaintCompleted() as a callback, so
+//      that another repaint can be issued, if and when needed.
 
 class CanvasPaintCoordinator {
 
-  // We use a variety of times around 50ms to avoid common factors
-  // with the auto-tick frequencies.
-  private static final int[] REPAINT_TIMESPANS =
-      new int[] { 47, 53, 49, 51, 50, 47, 53, 50, 48, 52 };
-  private int repaintTimespanIdx = 0;
+  /** The shortest frame, about 25 frames per second as before. */
+  static final long MIN_FRAME_MILLIS = 40;
+  /** The longest frame, so that even a huge circuit is updated twice per second. */
+  static final long MAX_FRAME_MILLIS = 500;
+  /** A frame lasts this many times the time painting takes, leaving the rest to the user. */
+  private static final int FRAME_PER_PAINT = 4;
+  /** More regions are merged until there are no more than this. */
+  static final int MAX_REGIONS = 8;
+  /** The size of the tick rate shown in the top left corner of the viewport. */
+  private static final Rectangle TICK_RATE_REGION = new Rectangle(0, 0, 200, 40);
 
-  private Canvas canvas;
+  private final Canvas canvas;
+  private final ValueChangeTracker tracker = new ValueChangeTracker();
+  private final Object lock = new Object();
+  private final Timer timer;
 
-  private volatile long tDirtied; // timestamp at which canvas was last dirtied
-  private volatile long tCleaned; // timestamp at which last canvas cleaning started
-  private volatile long sDirtied; // sequence number updated when canvas was last dirtied
-  private volatile long sCleaned; // sequence number at which last canvas cleaning started
-  private volatile boolean cleaning; // repaint is curently scheduled or in progress
+  // protected by lock
+  private boolean dirtyAll = true; // something other than values changed
+  private boolean dirtyValues = false; // values changed since the last cleaning
+  private boolean cleaning = false; // repaint is curently scheduled or in progress
+  private long tCleaned = 0; // timestamp at which last canvas cleaning started
+  private long frameMillis = MIN_FRAME_MILLIS;
 
-  private Timer timer;
-  private Object lock;
+  // only used on the AWT thread
+  private CircuitState trackedState = null;
+  private boolean paintingRegions = false;
+  private double paintMillis = 0; // moving average of the time painting takes
 
   public CanvasPaintCoordinator(Canvas canvas) {
     this.canvas = canvas;
-    lock = new Object();
-    tCleaned = tDirtied = System.currentTimeMillis();
-    sDirtied = sCleaned = 0;
-    cleaning = false;
-    timer = new Timer(1, new ActionListener() {
-      public void actionPerformed(ActionEvent e) {
-        synchronized (lock) {
-          sCleaned = sDirtied;
-          tCleaned = tDirtied;
-        }
-        canvas.repaint();
-      }
-    });
+    timer = new Timer(1, e -> clean());
     timer.setRepeats(false);
   }
 
+  /** Requests a repaint of the whole canvas. */
   public void requestRepaint() {
-    long now = System.currentTimeMillis();
-    boolean repaintNow = false;
-    long repaintSoon = 0;
     synchronized (lock) {
-      sDirtied++;
-      tDirtied = now;
-      long ago = now - tCleaned;
-      int repaint_timespan = REPAINT_TIMESPANS[repaintTimespanIdx];
-      repaintTimespanIdx = (repaintTimespanIdx + 1) % REPAINT_TIMESPANS.length;
-      if (!cleaning && ago >= repaint_timespan) {
-        // it's been a while, so repaint immediately
-        cleaning = true;
-        sCleaned = sDirtied;
-        tCleaned = tDirtied;
-        repaintNow = true;
-      } else if (!cleaning) {
-        // we repainted too recently, so repaint in a little while
-        cleaning = true;
-        repaintSoon = repaint_timespan - ago;
-      }
+      dirtyAll = true;
+    }
+    schedule();
+  }
+
+  /** Requests a repaint of the wires and components whose values changed. */
+  public void requestValueRepaint() {
+    synchronized (lock) {
+      dirtyValues = true;
+    }
+    schedule();
+  }
+
+  /** Notifies that the canvas was painted, which took paintNanos, by paintComponent(). */
+  public void repaintCompleted(long paintNanos) {
+    if (paintingRegions) return; // counted by clean()
+    paintFinished(paintNanos);
+  }
+
+  private void schedule() {
+    final long delay;
+    synchronized (lock) {
+      if (cleaning || !(dirtyAll || dirtyValues)) return;
+      cleaning = true;
+      delay = Math.max(0, tCleaned + frameMillis - System.currentTimeMillis());
+    }
+    if (delay == 0) {
+      SwingUtilities.invokeLater(this::clean);
+    } else {
+      // the timer is started from any thread, and fires on the AWT thread
+      timer.setInitialDelay((int) delay);
+      timer.restart();
+    }
+  }
+
+  /** Repaints what is dirty, on the AWT thread. */
+  private void clean() {
+    final boolean all;
+    synchronized (lock) {
+      all = dirtyAll;
+      dirtyAll = dirtyValues = false;
+      tCleaned = System.currentTimeMillis();
+    }
+    final var regions = all ? null : getChangedRegions();
+    if (regions == null) {
+      tracker.clear();
+      canvas.repaint(); // calls repaintCompleted() when done
+      return;
     }
-    if (repaintNow) {
-      canvas.repaint();
-    } else if (repaintSoon > 0) {
-      timer.setInitialDelay((int) repaintSoon);
-      timer.start();
+    final var start = System.nanoTime();
+    paintingRegions = true;
+    try {
+      for (final var region : regions) canvas.paintImmediatelyWithOverlays(region);
+    } finally {
+      paintingRegions = false;
     }
+    paintFinished(regions.isEmpty() ? -1 : System.nanoTime() - start);
   }
 
-  public void repaintCompleted() {
-    long now = System.currentTimeMillis();
-    boolean repaintNow = false;
-    long repaintSoon = 0;
+  private void paintFinished(long paintNanos) {
+    if (paintNanos >= 0) {
+      paintMillis = 0.75 * paintMillis + 0.25 * (paintNanos / 1e6);
+    }
     synchronized (lock) {
+      frameMillis = Math.max(MIN_FRAME_MILLIS, Math.min(MAX_FRAME_MILLIS, Math.round(paintMillis * FRAME_PER_PAINT)));
       cleaning = false;
-      long ago = now - tCleaned;
-      int repaintTimespan = REPAINT_TIMESPANS[repaintTimespanIdx];
-      repaintTimespanIdx = (repaintTimespanIdx + 1) % REPAINT_TIMESPANS.length;
-      if (sCleaned < sDirtied && ago >= repaintTimespan) {
-        // it's been a while, so repaint immediately
-        cleaning = true;
-        sCleaned = sDirtied;
-        tCleaned = tDirtied;
-        repaintNow = true;
-      } else if (sCleaned < sDirtied) {
-        // we repainted too recently, so repaint in a little while
-        cleaning = true;
-        repaintSoon = repaintTimespan - ago;
+    }
+    schedule();
+  }
+
+  /**
+   * Returns the regions of the canvas, in pixels, that show changed values, or null if the whole
+   * canvas must be repainted.
+   */
+  private List<Rectangle> getChangedRegions() {
+    final var proj = canvas.getProject();
+    final var sim = proj.getSimulator();
+    final var state = proj.getCircuitState();
+    if (state == null || sim == null) return null;
+    if (state != trackedState || state.getChangeTracker() != tracker) {
+      if (trackedState != null && trackedState.getChangeTracker() == tracker) trackedState.setChangeTracker(null);
+      trackedState = state;
+      state.setChangeTracker(tracker);
+      return null;
+    }
+    // stepping and oscillation show markers that are not tracked
+    if (!sim.isAutoPropagating() || sim.isOscillating()) return null;
+    final var bounds = tracker.takeChangedBounds(state);
+    if (bounds == null) return null;
+    final var zoom = canvas.getZoomFactor();
+    final var visible = canvas.getVisibleRect();
+    final var regions = new ArrayList<Rectangle>(bounds.size() + 1);
+    for (final var b : bounds) {
+      final var x = (int) Math.floor(b.getX() * zoom);
+      final var y = (int) Math.floor(b.getY() * zoom);
+      final var r = new Rectangle(x, y,
+          (int) Math.ceil((b.getX() + b.getWidth()) * zoom) - x,
+          (int) Math.ceil((b.getY() + b.getHeight()) * zoom) - y);
+      final var clipped = r.intersection(visible);
+      if (!clipped.isEmpty()) regions.add(clipped);
+    }
+    if (!regions.isEmpty() && AppPreferences.SHOW_TICK_RATE.getBoolean()) {
+      final var tickRate = new Rectangle(TICK_RATE_REGION);
+      tickRate.translate(visible.x, visible.y);
+      regions.add(tickRate);
+    }
+    return mergeRegions(regions, visible, MAX_REGIONS);
+  }
+
+  /**
+   * Merges the regions until there are at most max, each time the two whose union adds the least
+   * area. Returns null if the merged regions cover more than half the visible area, as then a
+   * single repaint is cheaper.
+   */
+  static List<Rectangle> mergeRegions(List<Rectangle> regions, Rectangle visible, int max) {
+    var rects = regions;
+    if (rects.size() > 8 * max) {
+      // first merge the regions by their center on a coarse grid of the visible area
+      final var cells = new Rectangle[64];
+      for (final var r : rects) {
+        final var cx = Math.min(7, Math.max(0, (int) (8L * (r.x + r.width / 2 - visible.x) / Math.max(1, visible.width))));
+        final var cy = Math.min(7, Math.max(0, (int) (8L * (r.y + r.height / 2 - visible.y) / Math.max(1, visible.height))));
+        final var i = 8 * cy + cx;
+        cells[i] = cells[i] == null ? new Rectangle(r) : cells[i].union(r);
       }
+      rects = new ArrayList<>();
+      for (final var cell : cells) if (cell != null) rects.add(cell);
+    } else {
+      rects = new ArrayList<>(rects);
     }
-    if (repaintNow) {
-      canvas.repaint();
-    } else if (repaintSoon > 0) {
-      timer.setInitialDelay((int) repaintSoon);
-      timer.start();
+    while (rects.size() > max) {
+      var bestI = 0;
+      var bestJ = 1;
+      var bestCost = Long.MAX_VALUE;
+      for (var i = 0; i < rects.size(); i++) {
+        for (var j = i + 1; j < rects.size(); j++) {
+          final var a = rects.get(i);
+          final var b = rects.get(j);
+          final var cost = area(a.union(b)) - area(a) - area(b);
+          if (cost < bestCost) {
+            bestCost = cost;
+            bestI = i;
+            bestJ = j;
+          }
+        }
+      }
+      rects.set(bestI, rects.get(bestI).union(rects.get(bestJ)));
+      rects.remove(bestJ);
     }
+    var total = 0L;
+    for (final var r : rects) total += area(r);
+    return 2 * total > area(visible) ? null : rects;
   }
 
+  private static long area(Rectangle r) {
+    return (long) r.width * r.height;
+  }
 }
@@ -32,6 +32,7 @@ class CanvasPainter implements PropertyChangeListener {
 
   private final Canvas canvas;
   private final GridPainter grid;
+  private final StaticLayerCache staticLayer;
   private Component haloedComponent = null;
   private Circuit haloedCircuit = null;
   private WireSet highlightedWires = WireSet.EMPTY;
@@ -39,6 +40,7 @@ class CanvasPainter implements PropertyChangeListener {
   CanvasPainter(Canvas canvas) {
     this.canvas = canvas;
     this.grid = new GridPainter(canvas);
+    this.staticLayer = new StaticLayerCache(canvas, grid);
 
     AppPreferences.ATTRIBUTE_HALO.addPropertyChangeListener(this);
     AppPreferences.CANVAS_BG_COLOR.addPropertyChangeListener(this);
@@ -49,6 +51,9 @@ class CanvasPainter implements PropertyChangeListener {
     AppPreferences.COMPONENT_SECONDARY_COLOR.addPropertyChangeListener(this);
     AppPreferences.COMPONENT_GHOST_COLOR.addPropertyChangeListener(this);
     AppPreferences.COMPONENT_ICON_COLOR.addPropertyChangeListener(this);
+    // any preference may change how components look; the support only keeps weak references to
+    // its listeners, so this must be a listener the painter holds on to
+    AppPreferences.addPropertyChangeListener(this);
   }
 
   private void drawWidthIncompatibilityData(Graphics base, Graphics g, Project proj) {
@@ -103,14 +108,10 @@ class CanvasPainter implements PropertyChangeListener {
     GraphicsUtil.switchToWidth(g, 1);
   }
 
-  private void drawWithUserState(Graphics base, Graphics g, Project proj) {
+  private void drawWithUserState(Graphics base, Graphics g, Project proj, boolean useStaticLayer) {
     final var circ = proj.getCurrentCircuit();
     final var sel = proj.getSelection();
-    final var dragTool = canvas.getDragTool();
-    var hidden = (dragTool == null)
-            ? NO_COMPONENTS
-            : dragTool.getHiddenComponents(canvas);
-    if (hidden == null) hidden = NO_COMPONENTS;
+    final var hidden = getHiddenComponents();
 
     // draw halo around component whose attributes we are viewing
     final var showHalo = AppPreferences.ATTRIBUTE_HALO.getBoolean();
@@ -138,10 +139,15 @@ class CanvasPainter implements PropertyChangeListener {
     final var circState = proj.getCircuitState();
     final var context = new ComponentDrawContext(canvas, circ, circState, base, g, false);
     context.setHighlightedWires(highlightedWires);
-    circ.draw(context, hidden);
+    if (useStaticLayer) {
+      circ.drawDynamicLayer(context);
+    } else {
+      circ.draw(context, hidden);
+    }
     sel.draw(context, hidden);
 
     // draw tool
+    final var dragTool = canvas.getDragTool();
     final var tool = dragTool != null ? dragTool : proj.getTool();
     if (tool != null && !canvas.isPopupMenuUp()) {
       final var gfxCopy = g.create();
@@ -151,6 +157,12 @@ class CanvasPainter implements PropertyChangeListener {
     }
   }
 
+  private Set<Component> getHiddenComponents() {
+    final var dragTool = canvas.getDragTool();
+    final var hidden = dragTool == null ? null : dragTool.getHiddenComponents(canvas);
+    return hidden == null ? NO_COMPONENTS : hidden;
+  }
+
   private void exposeHaloedComponent(Graphics gfx) {
     final var comp = haloedComponent;
     if (comp == null) return;
@@ -173,6 +185,11 @@ class CanvasPainter implements PropertyChangeListener {
     return grid;
   }
 
+  /** Drops the images of the static parts of the circuit, as they changed. */
+  void invalidateStaticLayer() {
+    staticLayer.invalidate();
+  }
+
   Component getHaloedComponent() {
     return haloedComponent;
   }
@@ -184,19 +201,28 @@ class CanvasPainter implements PropertyChangeListener {
     final var size = canvas.getSize();
     final double zoomFactor = canvas.getZoomFactor();
 
-    grid.paintGrid(g);
+    final var circ = proj.getCurrentCircuit();
+    // the static layer leaves out nothing only when no components are being dragged
+    final var useStaticLayer = circ != null
+        && AppPreferences.CANVAS_STATIC_CACHE.getBoolean()
+        && g instanceof Graphics2D
+        && getHiddenComponents().isEmpty();
+    if (useStaticLayer) {
+      staticLayer.paint((Graphics2D) g, circ, proj.getCircuitState());
+    } else {
+      grid.paintGrid(g);
+    }
     g.setColor(Color.black);
 
     final var gfxScaled = g.create();
     if (zoomFactor != 1.0 && gfxScaled instanceof Graphics2D g2d) {
       g2d.scale(zoomFactor, zoomFactor);
     }
-    final var circ = proj.getCurrentCircuit();
     if (circ == null) {
       gfxScaled.dispose();
       return;
     }
-    drawWithUserState(g, gfxScaled, proj);
+    drawWithUserState(g, gfxScaled, proj, useStaticLayer);
     drawWidthIncompatibilityData(g, gfxScaled, proj);
 
     final var circState = proj.getCircuitState();
@@ -213,6 +239,7 @@ class CanvasPainter implements PropertyChangeListener {
 
   @Override
   public void propertyChange(PropertyChangeEvent event) {
+    staticLayer.invalidate();
     if (AppPreferences.GRID_BG_COLOR.isSource(event)
         || AppPreferences.GRID_DOT_COLOR.isSource(event)
         || AppPreferences.GRID_ZOOMED_DOT_COLOR.isSource(event)
@@ -0,0 +1,229 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.main;
+
+import static com.cburch.logisim.gui.Strings.S;
+
+import com.cburch.logisim.circuit.Propagator;
+import com.cburch.logisim.circuit.SimulationProfiler;
+import com.cburch.logisim.gui.generic.LFrame;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.util.LocaleListener;
+import com.cburch.logisim.util.LocaleManager;
+import com.cburch.logisim.util.TableSorter;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.swing.JButton;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTabbedPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Shows the measurements of a SimulationProfiler attached to the simulation of the project, by
+ * component type and by subcircuit instance, so that the hot spots of a large design can be found.
+ */
+public class SimulationProfileFrame extends LFrame.SubWindow {
+  private static final long serialVersionUID = 1L;
+  private static final int REFRESH_MILLIS = 1000;
+
+  private final SimulationProfiler profiler = new SimulationProfiler();
+  private final ProfileTableModel byFactory = new ProfileTableModel(profiler::getFactorySamples);
+  private final ProfileTableModel byInstance = new ProfileTableModel(profiler::getInstanceSamples);
+  private final JTabbedPane tabs = new JTabbedPane();
+  private final JButton start = new JButton();
+  private final JButton stop = new JButton();
+  private final JButton clear = new JButton();
+  private final JButton close = new JButton();
+  private final MyListener myListener = new MyListener();
+  private final Timer refreshTimer = new Timer(REFRESH_MILLIS, myListener);
+  private Propagator attachedTo = null;
+
+  public SimulationProfileFrame(Project project) {
+    super(project);
+    setDefaultCloseOperation(HIDE_ON_CLOSE);
+
+    tabs.addTab("", createTable(byFactory));
+    tabs.addTab("", createTable(byInstance));
+
+    final var buttonPanel = new JPanel();
+    buttonPanel.add(start);
+    buttonPanel.add(stop);
+    buttonPanel.add(clear);
+    buttonPanel.add(close);
+    start.addActionListener(myListener);
+    stop.addActionListener(myListener);
+    clear.addActionListener(myListener);
+    close.addActionListener(myListener);
+    stop.setEnabled(false);
+
+    final var contents = getContentPane();
+    contents.setLayout(new BorderLayout());
+    contents.add(tabs, BorderLayout.CENTER);
+    contents.add(buttonPanel, BorderLayout.PAGE_END);
+    addWindowListener(
+        new WindowAdapter() {
+          @Override
+          public void windowClosing(WindowEvent e) {
+            setProfiling(false);
+          }
+
+          @Override
+          public void windowClosed(WindowEvent e) {
+            setProfiling(false);
+          }
+        });
+
+    LocaleManager.addLocaleListener(myListener);
+    myListener.localeChanged();
+    pack();
+  }
+
+  private static JScrollPane createTable(ProfileTableModel model) {
+    final var table = new JTable();
+    final var sorter = new TableSorter(model, table.getTableHeader());
+    sorter.setSortingStatus(3, TableSorter.DESCENDING);
+    table.setModel(sorter);
+    table.getColumnModel().getColumn(0).setPreferredWidth(300);
+    final var pane = new JScrollPane(table);
+    pane.setPreferredSize(new Dimension(600, 400));
+    return pane;
+  }
+
+  /**
+   * Attaches the profiler to the propagator of the current simulation, or detaches it. The
+   * simulation can change its root state, so this is checked again on every refresh.
+   */
+  private void setProfiling(boolean value) {
+    final var sim = project.getSimulator();
+    final var prop = value && sim != null ? sim.getCircuitState().getPropagator() : null;
+    if (attachedTo != null && attachedTo != prop) attachedTo.setProfiler(null);
+    if (prop != null) prop.setProfiler(profiler);
+    attachedTo = prop;
+    start.setEnabled(prop == null);
+    stop.setEnabled(prop != null);
+    if (prop != null) {
+      refreshTimer.start();
+    } else {
+      refreshTimer.stop();
+    }
+    refresh();
+  }
+
+  private void refresh() {
+    byFactory.refresh();
+    byInstance.refresh();
+  }
+
+  private class MyListener implements ActionListener, LocaleListener {
+    @Override
+    public void actionPerformed(ActionEvent event) {
+      final var src = event.getSource();
+      if (src == start) {
+        setProfiling(true);
+      } else if (src == stop) {
+        setProfiling(false);
+      } else if (src == clear) {
+        profiler.clear();
+        refresh();
+      } else if (src == close) {
+        requestClose();
+      } else if (src == refreshTimer) {
+        final var sim = project.getSimulator();
+        if (sim != null && sim.getCircuitState().getPropagator() != attachedTo) setProfiling(true);
+        refresh();
+      }
+    }
+
+    @Override
+    public void localeChanged() {
+      setTitle(S.get("simProfileTitle", project.getLogisimFile().getDisplayName()));
+      tabs.setTitleAt(0, S.get("simProfileByFactory"));
+      tabs.setTitleAt(1, S.get("simProfileByInstance"));
+      start.setText(S.get("simProfileStart"));
+      stop.setText(S.get("simProfileStop"));
+      clear.setText(S.get("simProfileClear"));
+      close.setText(S.get("closeButton"));
+      byFactory.fireTableStructureChanged();
+      byInstance.fireTableStructureChanged();
+    }
+  }
+
+  private static class ProfileTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private final transient Supplier<List<SimulationProfiler.Sample>> source;
+    private transient List<SimulationProfiler.Sample> samples = List.of();
+    private long totalNanos = 0;
+
+    ProfileTableModel(Supplier<List<SimulationProfiler.Sample>> source) {
+      this.source = source;
+    }
+
+    void refresh() {
+      samples = source.get();
+      totalNanos = 0;
+      for (final var sample : samples) totalNanos += sample.nanos();
+      fireTableDataChanged();
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+      return switch (column) {
+        case 0 -> String.class;
+        case 1, 2 -> Long.class;
+        default -> Double.class;
+      };
+    }
+
+    @Override
+    public int getColumnCount() {
+      return 5;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+      return switch (column) {
+        case 0 -> S.get("simProfileNameColumn");
+        case 1 -> S.get("simProfileCallsColumn");
+        case 2 -> S.get("simProfileEventsColumn");
+        case 3 -> S.get("simProfileTimeColumn");
+        case 4 -> S.get("simProfileShareColumn");
+        default -> "??"; // should never happen
+      };
+    }
+
+    @Override
+    public int getRowCount() {
+      return samples.size();
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+      if (row < 0 || row >= samples.size()) return "";
+      final var sample = samples.get(row);
+      return switch (column) {
+        case 0 -> sample.name();
+        case 1 -> sample.invocations();
+        case 2 -> sample.events();
+        case 3 -> sample.nanos() / 1e6;
+        case 4 -> totalNanos == 0 ? 0.0 : Math.round(1000.0 * sample.nanos() / totalNanos) / 10.0;
+        default -> ""; // should never happen
+      };
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.main;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.comp.ComponentDrawContext;
+import com.cburch.logisim.gui.generic.GridPainter;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the grid and the components with a static appearance of the shown circuit in images, in
+ * tiles of the canvas at the current zoom, so that a repaint only has to draw these images and
+ * the wires and other components on top. The tiles are dropped when anything else changes the
+ * picture: an edit of the circuit, the zoom, the scale of the screen or a preference.
+ */
+class StaticLayerCache {
+  /** The size of a tile in pixels of the canvas. */
+  static final int TILE_SIZE = 256;
+  /** The most pixels kept, 32 MB in 32-bit color. */
+  private static final long MAX_PIXELS = 8L << 20;
+
+  private final Canvas canvas;
+  private final GridPainter grid;
+  private final LinkedHashMap<Long, BufferedImage> tiles = new LinkedHashMap<>(64, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+      return size() > maxTiles;
+    }
+  };
+  private int maxTiles = 1;
+  private int tilesRendered = 0;
+  private volatile boolean stale = false;
+
+  // what the tiles show; a different value for any of these drops them
+  private Circuit circuit = null;
+  private double zoom = 0;
+  private double scale = 0;
+  private Color background = null;
+  private Object antialiasing = null;
+
+  StaticLayerCache(Canvas canvas, GridPainter grid) {
+    this.canvas = canvas;
+    this.grid = grid;
+  }
+
+  /** Drops all tiles before the next paint, as the picture changed. Called from any thread. */
+  void invalidate() {
+    stale = true;
+  }
+
+  int getTileCount() {
+    return tiles.size();
+  }
+
+  int getTilesRendered() {
+    return tilesRendered;
+  }
+
+  /** Paints the static layer of circ over the clip of g, in place of the grid, from the tiles. */
+  void paint(Graphics2D g, Circuit circ, CircuitState state) {
+    final var clip = g.getClipBounds();
+    if (clip == null) return;
+    final var transform = g.getTransform();
+    final var newScale = Math.max(1.0, Math.abs(transform.getScaleX()));
+    final var newZoom = canvas.getZoomFactor();
+    final var newBackground = canvas.getBackground();
+    final var newAntialiasing = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+    if (stale) {
+      stale = false;
+      tiles.clear();
+    }
+    if (circ != circuit || newZoom != zoom || newScale != scale
+        || !newBackground.equals(background) || newAntialiasing != antialiasing) {
+      tiles.clear();
+      circuit = circ;
+      zoom = newZoom;
+      scale = newScale;
+      background = newBackground;
+      antialiasing = newAntialiasing;
+      final var tilePixels = (long) Math.ceil(TILE_SIZE * scale) * (long) Math.ceil(TILE_SIZE * scale);
+      maxTiles = (int) Math.max(1, MAX_PIXELS / tilePixels);
+    }
+    final var col0 = Math.floorDiv(clip.x, TILE_SIZE);
+    final var row0 = Math.floorDiv(clip.y, TILE_SIZE);
+    final var col1 = Math.floorDiv(clip.x + clip.width - 1, TILE_SIZE);
+    final var row1 = Math.floorDiv(clip.y + clip.height - 1, TILE_SIZE);
+    for (var row = row0; row <= row1; row++) {
+      for (var col = col0; col <= col1; col++) {
+        final var key = ((long) row << 32) | (col & 0xffffffffL);
+        var tile = tiles.get(key);
+        if (tile == null) {
+          tile = render(col * TILE_SIZE, row * TILE_SIZE, state);
+          tiles.put(key, tile);
+        }
+        g.drawImage(tile, col * TILE_SIZE, row * TILE_SIZE, TILE_SIZE, TILE_SIZE, null);
+      }
+    }
+  }
+
+  private BufferedImage render(int x, int y, CircuitState state) {
+    final var size = (int) Math.ceil(TILE_SIZE * scale);
+    final var config = canvas.getGraphicsConfiguration();
+    final var image = config != null
+        ? config.createCompatibleImage(size, size, Transparency.OPAQUE)
+        : new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+    final var g = image.createGraphics();
+    if (antialiasing != null) {
+      g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+      g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+          antialiasing == RenderingHints.VALUE_ANTIALIAS_ON
+              ? RenderingHints.VALUE_TEXT_ANTIALIAS_ON
+              : RenderingHints.VALUE_TEXT_ANTIALIAS_DEFAULT);
+    }
+    g.scale(scale, scale);
+    g.translate(-x, -y);
+    g.setClip(x, y, TILE_SIZE, TILE_SIZE);
+    g.setColor(background);
+    g.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+    grid.paintGrid(g);
+    final var gScaled = (Graphics2D) g.create();
+    if (zoom != 1.0) gScaled.scale(zoom, zoom);
+    gScaled.setColor(Color.BLACK);
+    circuit.drawStaticLayer(new ComponentDrawContext(canvas, circuit, state, g, gScaled));
+    gScaled.dispose();
+    g.dispose();
+    tilesRendered++;
+    return image;
+  }
+}
@@ -76,7 +76,7 @@ public class TickCounter implements Simulator.Listener {
   @Override
   public void propagationCompleted(Simulator.Event e) {
     if (e.didTick() && e.getSource().isAutoTicking()) {
-      propagateData.propagateCompleted(System.nanoTime());
+      propagateData.propagateCompleted(System.nanoTime(), e.getTickCount());
     }
   }
 
@@ -158,12 +158,17 @@ public class TickCounter implements Simulator.Listener {
      * Updates data for end of propagation cycle at the given time.
      *
      * @param nanoTime the time at which the cycle ended.
+     * @param ticks the number of ticks propagated in the cycle.
      */
-    public synchronized void propagateCompleted(long nanoTime) {
-      final var thisTick = fullTickCount + 1;
+    public synchronized void propagateCompleted(long nanoTime, int ticks) {
       tickTime = nanoTime;
-      fullTickCount = thisTick;
-      if (thisTick == 0) startTime = nanoTime;
+      if (fullTickCount < 0) {
+        // the first cycle only starts the measurement
+        fullTickCount = 0;
+        startTime = nanoTime;
+      } else {
+        fullTickCount += ticks;
+      }
     }
   }
 }
@@ -15,6 +15,7 @@ import com.cburch.logisim.circuit.CircuitEvent;
 import com.cburch.logisim.circuit.CircuitListener;
 import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.circuit.Simulator;
+import com.cburch.logisim.gui.main.SimulationProfileFrame;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.prefs.PrefMonitorKeyStroke;
 import java.awt.event.ActionEvent;
@@ -47,6 +48,7 @@ public class MenuSimulate extends Menu {
   private final MenuItemCheckImpl ticksEnabled;
   private final MenuItemImpl tickHalf;
   private final MenuItemImpl tickFull;
+  private final JMenuItem tickBack = new JMenuItem();
   private final JMenu tickFreq = new JMenu();
   private final TickFrequencyChoice[] tickFreqs =
       new TickFrequencyChoice[SUPPORTED_TICK_FREQUENCIES.length];
@@ -56,8 +58,10 @@ public class MenuSimulate extends Menu {
   private final ArrayList<CircuitStateMenuItem> upStateItems = new ArrayList<>();
   private final JMenuItem log = new JMenuItem();
   private final JMenuItem test = new JMenuItem();
+  private final JMenuItem profile = new JMenuItem();
   private final JMenuItem assemblyWindow = new JMenuItem();
   AssemblyWindow assWin = null;
+  SimulationProfileFrame profileWin = null;
   private CircuitState currentState = null;
   private CircuitState bottomState = null;
   private Simulator currentSim = null;
@@ -117,11 +121,13 @@ public class MenuSimulate extends Menu {
     addSeparator();
     add(tickHalf);
     add(tickFull);
+    add(tickBack);
     add(ticksEnabled);
     add(tickFreq);
     addSeparator();
     add(log);
     add(test);
+    add(profile);
     addSeparator();
     add(assemblyWindow);
 
@@ -135,6 +141,7 @@ public class MenuSimulate extends Menu {
     downStateMenu.setEnabled(false);
     tickHalf.setEnabled(false);
     tickFull.setEnabled(false);
+    tickBack.setEnabled(false);
     ticksEnabled.setEnabled(false);
     tickFreq.setEnabled(false);
 
@@ -148,12 +155,14 @@ public class MenuSimulate extends Menu {
     menubar.addActionListener(LogisimMenuBar.TICK_FULL, myListener);
     // runToggle.addActionListener(myListener);
     reset.addActionListener(myListener);
+    tickBack.addActionListener(myListener);
     // step.addActionListener(myListener);
     // tickHalf.addActionListener(myListener);
     // tickFull.addActionListener(myListener);
     // ticksEnabled.addActionListener(myListener);
     log.addActionListener(myListener);
     test.addActionListener(myListener);
+    profile.addActionListener(myListener);
     assemblyWindow.addActionListener(myListener);
 
     computeEnabled();
@@ -212,6 +221,7 @@ public class MenuSimulate extends Menu {
     downStateMenu.setEnabled(present);
     tickHalf.setEnabled(present);
     tickFull.setEnabled(present);
+    tickBack.setEnabled(present && AppPreferences.SIMULATION_CHECKPOINTS.getBoolean());
     ticksEnabled.setEnabled(present);
     tickFreq.setEnabled(present);
     menubar.fireEnableChanged();
@@ -226,6 +236,7 @@ public class MenuSimulate extends Menu {
     vhdlSimFiles.setText(S.get("simulateGenVhdlFilesItem"));
     tickHalf.setText(S.get("simulateTickHalfItem"));
     tickFull.setText(S.get("simulateTickFullItem"));
+    tickBack.setText(S.get("simulateStepBackItem"));
     ticksEnabled.setText(S.get("simulateTickItem"));
     tickFreq.setText(S.get("simulateTickFreqMenu"));
 
@@ -237,6 +248,7 @@ public class MenuSimulate extends Menu {
     upStateMenu.setText(S.get("simulateUpStateMenu"));
     log.setText(S.get("simulateLogItem"));
     test.setText(S.get("simulateTestItem"));
+    profile.setText(S.get("simulateProfileItem"));
     assemblyWindow.setText(S.get("simulateAssemblyViewer"));
     if (assWin != null) {
       assWin.localeChanged();
@@ -415,8 +427,14 @@ public class MenuSimulate extends Menu {
         sim.tick(1);
       } else if (src == tickFull || src == LogisimMenuBar.TICK_FULL) {
         sim.tick(2);
+      } else if (src == tickBack) {
+        sim.rewind(2);
       } else if (src == ticksEnabled || src == LogisimMenuBar.TICK_ENABLE) {
         sim.setAutoTicking(!sim.isAutoTicking());
+      } else if (src == profile) {
+        if (profileWin == null || profileWin.getProject() != proj) profileWin = new SimulationProfileFrame(proj);
+        profileWin.setVisible(true);
+        profileWin.toFront();
       } else if (src == assemblyWindow) {
         if (assWin == null || !assWin.isVisible()) {
           assWin = new AssemblyWindow(proj);
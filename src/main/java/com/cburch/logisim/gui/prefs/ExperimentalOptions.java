@@ -12,8 +12,10 @@ package com.cburch.logisim.gui.prefs;
 import static com.cburch.logisim.gui.Strings.S;
 
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.util.StringUtil;
 import java.awt.BorderLayout;
 import java.awt.Font;
+import java.util.ArrayList;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.JLabel;
@@ -25,6 +27,14 @@ class ExperimentalOptions extends OptionsPanel {
   private final PrefOptionList accel;
   private final JLabel simRestart = new JLabel();
   private final PrefOptionList simQueue;
+  private final PrefBoolean simParallel;
+  private final PrefBoolean simTurbo;
+  private final PrefBoolean simCheckpoints;
+  private final PrefBoolean memMapped;
+  private final PrefBoolean socFastForward;
+  private final PrefBoolean staticCache;
+  private final PrefOptionList testThreads;
+  private final PrefOptionList socBusTraceSize;
 
   public ExperimentalOptions(PreferencesFrame window) {
     super(window);
@@ -44,7 +54,11 @@ class ExperimentalOptions extends OptionsPanel {
     final var accelPanel = new JPanel(new BorderLayout());
     accelPanel.add(accel.getJLabel(), BorderLayout.LINE_START);
     accelPanel.add(accel.getJComboBox(), BorderLayout.CENTER);
-    accelPanel.add(accelRestart, BorderLayout.PAGE_END);
+    staticCache = new PrefBoolean(AppPreferences.CANVAS_STATIC_CACHE, S.getter("canvasStaticCacheLabel"));
+    final var accelOptions = new JPanel(new BorderLayout());
+    accelOptions.add(accelRestart, BorderLayout.PAGE_START);
+    accelOptions.add(staticCache, BorderLayout.PAGE_END);
+    accelPanel.add(accelOptions, BorderLayout.PAGE_END);
     accelRestart.setFont(accelRestart.getFont().deriveFont(Font.ITALIC));
     final var accelPanel2 = new JPanel();
     accelPanel2.add(accelPanel);
@@ -62,18 +76,64 @@ class ExperimentalOptions extends OptionsPanel {
             new PrefOption(AppPreferences.SIM_QUEUE_SPLAY, S.getter("simQueueSplay")),
             new PrefOption(AppPreferences.SIM_QUEUE_LINKED, S.getter("simQueueLinked")),
             new PrefOption(AppPreferences.SIM_QUEUE_LIST_OF_QUEUES, S.getter("simQueueListOfQueues")),
-            new PrefOption(AppPreferences.SIM_QUEUE_TREE_OF_QUEUES, S.getter("simQueueTreeOfQueues"))
+            new PrefOption(AppPreferences.SIM_QUEUE_TREE_OF_QUEUES, S.getter("simQueueTreeOfQueues")),
+            new PrefOption(AppPreferences.SIM_QUEUE_TIMING_WHEEL, S.getter("simQueueTimingWheel"))
         }
     );
     final var simPanel = new JPanel(new BorderLayout());
     simPanel.add(simQueue.getJLabel(), BorderLayout.LINE_START);
     simPanel.add(simQueue.getJComboBox(), BorderLayout.CENTER);
-    simPanel.add(simRestart, BorderLayout.PAGE_END);
+    simParallel = new PrefBoolean(AppPreferences.SIMULATION_PARALLEL, S.getter("simParallelLabel"));
+    final var simOptions = new JPanel(new BorderLayout());
+    simOptions.add(simParallel, BorderLayout.PAGE_START);
+    simTurbo = new PrefBoolean(AppPreferences.SIMULATION_TURBO, S.getter("simTurboLabel"));
+    simCheckpoints = new PrefBoolean(AppPreferences.SIMULATION_CHECKPOINTS, S.getter("simCheckpointsLabel"));
+    final var simTicking = new JPanel(new BorderLayout());
+    simTicking.add(simTurbo, BorderLayout.PAGE_START);
+    simTicking.add(simCheckpoints, BorderLayout.CENTER);
+    memMapped = new PrefBoolean(AppPreferences.MEMORY_MAPPED, S.getter("memMappedLabel"));
+    socFastForward = new PrefBoolean(AppPreferences.SOC_FAST_FORWARD, S.getter("socFastForwardLabel"));
+    final var simMemory = new JPanel(new BorderLayout());
+    simMemory.add(memMapped, BorderLayout.PAGE_START);
+    simMemory.add(socFastForward, BorderLayout.PAGE_END);
+    simTicking.add(simMemory, BorderLayout.PAGE_END);
+    simOptions.add(simTicking, BorderLayout.CENTER);
+    simOptions.add(simRestart, BorderLayout.PAGE_END);
+    simPanel.add(simOptions, BorderLayout.PAGE_END);
     simRestart.setFont(simRestart.getFont().deriveFont(Font.ITALIC));
     final var simPanel2 = new JPanel();
     simPanel2.add(simPanel);
 
     add(simPanel2);
+
+    final var threadOptions = new ArrayList<PrefOption>();
+    threadOptions.add(new PrefOption(AppPreferences.TEST_VECTOR_THREADS_AUTO, S.getter("testThreadsAuto")));
+    for (final var count : new String[] {"1", "2", "4", "8", "16"}) {
+      threadOptions.add(new PrefOption(count, StringUtil.constantGetter(count)));
+    }
+    testThreads = new PrefOptionList(AppPreferences.TEST_VECTOR_THREADS, S.getter("testThreadsLabel"),
+        threadOptions.toArray(new PrefOption[0]));
+    final var testPanel = new JPanel(new BorderLayout());
+    testPanel.add(testThreads.getJLabel(), BorderLayout.LINE_START);
+    testPanel.add(testThreads.getJComboBox(), BorderLayout.CENTER);
+    final var testPanel2 = new JPanel();
+    testPanel2.add(testPanel);
+
+    add(testPanel2);
+
+    final var traceSizeOptions = new ArrayList<PrefOption>();
+    for (final var size : new String[] {"1000", "10000", "100000", "1000000"}) {
+      traceSizeOptions.add(new PrefOption(size, StringUtil.constantGetter(size)));
+    }
+    socBusTraceSize = new PrefOptionList(AppPreferences.SOC_BUS_TRACE_SIZE,
+        S.getter("socBusTraceSizeLabel"), traceSizeOptions.toArray(new PrefOption[0]));
+    final var tracePanel = new JPanel(new BorderLayout());
+    tracePanel.add(socBusTraceSize.getJLabel(), BorderLayout.LINE_START);
+    tracePanel.add(socBusTraceSize.getJComboBox(), BorderLayout.CENTER);
+    final var tracePanel2 = new JPanel();
+    tracePanel2.add(tracePanel);
+
+    add(tracePanel2);
     add(Box.createGlue());
   }
 
@@ -90,6 +150,14 @@ class ExperimentalOptions extends OptionsPanel {
   @Override
   public void localeChanged() {
     accel.localeChanged();
+    testThreads.localeChanged();
+    socBusTraceSize.localeChanged();
+    simParallel.localeChanged();
+    simTurbo.localeChanged();
+    simCheckpoints.localeChanged();
+    memMapped.localeChanged();
+    socFastForward.localeChanged();
+    staticCache.localeChanged();
     accelRestart.setText(S.get("accelRestartLabel"));
     simRestart.setText(S.get("simRestartLabel"));
   }
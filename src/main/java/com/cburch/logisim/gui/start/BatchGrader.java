@@ -0,0 +1,206 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import static com.cburch.logisim.gui.Strings.S;
+
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.TestVectorEvaluator;
+import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.util.UniquelyNamedThread;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.apache.commons.text.StringEscapeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Grades many circuit files against one test vector in a single JVM (<code>--grade</code>). Files
+ * are loaded and simulated in a pool of worker threads, and one JSON line is printed per file, in
+ * the order the files were given. Any failure while loading or simulating a file, including running
+ * out of memory or taking longer than the timeout, is reported in its line and does not affect the
+ * other files.
+ */
+class BatchGrader {
+  static final Logger logger = LoggerFactory.getLogger(BatchGrader.class);
+
+  static final String STATUS_PASS = "pass";
+  static final String STATUS_FAIL = "fail";
+  static final String STATUS_ERROR = "error";
+  static final int DEFAULT_TIMEOUT_SECONDS = 60;
+
+  /** The outcome for one file. */
+  record Result(File file, String status, int passed, int failed, int oscillating, long millis, String message) {
+    String toJson() {
+      return String.format("{\"file\":\"%s\",\"status\":\"%s\",\"passed\":%d,\"failed\":%d,"
+              + "\"oscillating\":%d,\"millis\":%d,\"message\":\"%s\"}",
+          StringEscapeUtils.escapeJson(file.getPath()), status, passed, failed, oscillating, millis,
+          message == null ? "" : StringEscapeUtils.escapeJson(message));
+    }
+  }
+
+  private final String circuitName;
+  private final TestVector vector;
+  private final Map<File, File> substitutions;
+  private final int workers;
+  private final long timeoutMillis;
+
+  BatchGrader(String circuitName, TestVector vector, Map<File, File> substitutions, int workers,
+      long timeoutMillis) {
+    this.circuitName = circuitName;
+    this.vector = vector;
+    this.substitutions = substitutions;
+    this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  static int run(Startup args) {
+    TestVector vector;
+    try {
+      vector = new TestVector(args.getGradeVector());
+    } catch (Exception e) {
+      logger.error("{}", S.get("testLoadingFailed", e.getMessage()));
+      return -1;
+    }
+    final var grader = new BatchGrader(args.getCircuitToTest(), vector, args.getSubstitutions(),
+        args.getTestThreads(), args.getGradeTimeout() * 1000L);
+    return grader.grade(expand(args.getFilesToOpen()), System.out) == 0 ? 0 : 1;
+  }
+
+  /** Replaces every directory by the circuit files it contains, sorted by name. */
+  static List<File> expand(List<File> files) {
+    final var ret = new ArrayList<File>();
+    for (final var file : files) {
+      if (file.isDirectory()) {
+        final var children = file.listFiles((dir, name) -> name.endsWith(Loader.LOGISIM_EXTENSION));
+        if (children == null) continue;
+        Arrays.sort(children);
+        ret.addAll(Arrays.asList(children));
+      } else {
+        ret.add(file);
+      }
+    }
+    return ret;
+  }
+
+  /** Grades all files, printing a line for each one. Returns the number of files that did not pass. */
+  int grade(List<File> files, PrintStream out) {
+    final var pool = Executors.newFixedThreadPool(workers, r -> {
+      final var thread = new UniquelyNamedThread(r, "BatchGrader");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      final var results = new ArrayList<Future<Result>>();
+      final var started = new AtomicLongArray(files.size());
+      for (var i = 0; i < files.size(); i++) {
+        final var index = i;
+        results.add(pool.submit(() ->
+            gradeFile(files.get(index), () -> started.set(index, System.currentTimeMillis()))));
+      }
+      var notPassed = 0;
+      for (var i = 0; i < files.size(); i++) {
+        Result result;
+        try {
+          result = await(results.get(i), started, i, files.get(i));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+        if (!STATUS_PASS.equals(result.status())) notPassed++;
+        out.println(result.toJson());
+        out.flush();
+      }
+      return notPassed;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Waits for the result of a file. The timeout starts once the file is loaded, not when it is
+   * queued or waiting for the load of another file; a file that runs out of time is canceled, which
+   * stops its simulation at the next row.
+   */
+  private Result await(Future<Result> future, AtomicLongArray started, int index, File file)
+      throws InterruptedException {
+    while (true) {
+      final var start = started.get(index);
+      final var wait = start == 0 ? timeoutMillis : start + timeoutMillis - System.currentTimeMillis();
+      try {
+        return future.get(Math.max(wait, 0), TimeUnit.MILLISECONDS);
+      } catch (ExecutionException e) {
+        return new Result(file, STATUS_ERROR, 0, 0, 0, 0, e.getCause().toString());
+      } catch (TimeoutException e) {
+        // a file that was still queued or loading gets the full timeout once it is loaded
+        if (start == 0) continue;
+        future.cancel(true);
+        return new Result(file, STATUS_ERROR, 0, 0, 0, System.currentTimeMillis() - start,
+            S.get("gradeTimeout", timeoutMillis));
+      }
+    }
+  }
+
+  /** Grades one file, calling loaded once it is loaded and its simulation starts. */
+  Result gradeFile(File file, Runnable loaded) {
+    final var start = System.currentTimeMillis();
+    Project proj = null;
+    try {
+      proj = load(file);
+      loaded.run();
+      final var logisimFile = proj.getLogisimFile();
+      final var circuit = circuitName == null || circuitName.isEmpty()
+          ? logisimFile.getMainCircuit()
+          : logisimFile.getCircuit(circuitName);
+      if (circuit == null) {
+        return new Result(file, STATUS_ERROR, 0, 0, 0, System.currentTimeMillis() - start,
+            S.get("gradeNoCircuit", circuitName));
+      }
+      final var state = CircuitState.createRootState(proj, circuit, Thread.currentThread());
+      final var oscillating = new int[1];
+      final var evaluator = new TestVectorEvaluator(state, vector);
+      final var passFail = evaluator.evaluate((row, report) -> {
+        if (report.stream().anyMatch(TestVectorEvaluator.LineReport::oscillating)) oscillating[0]++;
+        // set when the file timed out, the result is not used anymore
+        if (Thread.currentThread().isInterrupted()) evaluator.setCanceled(true);
+      });
+      return new Result(file, passFail[1] == 0 ? STATUS_PASS : STATUS_FAIL, passFail[0], passFail[1],
+          oscillating[0], System.currentTimeMillis() - start, null);
+    } catch (Exception | StackOverflowError | OutOfMemoryError e) {
+      // the memory of a file that ran out of it is unreachable again once this returns
+      return new Result(file, STATUS_ERROR, 0, 0, 0, System.currentTimeMillis() - start,
+          e.getMessage() != null ? e.getMessage() : e.toString());
+    } finally {
+      // the project starts a simulator thread of its own, which would keep the project alive
+      if (proj != null) proj.getSimulator().shutDown();
+    }
+  }
+
+  private Project load(File file) throws Exception {
+    // The library manager caches libraries in shared maps, so files are loaded one at a time;
+    // simulating them, which takes most of the time, is done in parallel.
+    synchronized (BatchGrader.class) {
+      final var logisimFile = new Loader(null).openLogisimFile(file, substitutions);
+      return new Project(logisimFile);
+    }
+  }
+}
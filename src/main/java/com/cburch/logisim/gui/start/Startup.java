@@ -97,6 +97,9 @@ public class Startup implements AWTEventListener {
   private boolean templEmpty = false;
   private boolean templPlain = false;
   private String testVector = null;
+  private int testThreads = 0;
+  private String gradeVector = null;
+  private int gradeTimeout = BatchGrader.DEFAULT_TIMEOUT_SECONDS;
   private String circuitToTest = null;
   private boolean exitAfterStartup = false;
   private boolean showSplash;
@@ -107,6 +110,11 @@ public class Startup implements AWTEventListener {
 
   private File saveFile;
   private int ttyFormat = 0;
+  /* Processor that runs socElfFile with "--soc-run", and its run limits */
+  private String socCpu = null;
+  private File socElfFile = null;
+  private Integer socHaltAddress = null;
+  private long socInstructionBudget = -1;
   // from other sources
   private boolean initialized = false;
   private SplashScreen monitor = null;
@@ -173,8 +181,14 @@ public class Startup implements AWTEventListener {
   private static final String ARG_VERSION_LONG = "version";
   private static final String ARG_TEST_VECTOR_SHORT = "w";
   private static final String ARG_TEST_VECTOR_LONG = "test-vector";
+  private static final String ARG_TEST_THREADS_LONG = "test-threads";
+  private static final String ARG_GRADE_LONG = "grade";
+  private static final String ARG_GRADE_TIMEOUT_LONG = "grade-timeout";
   private static final String ARG_NO_SPLASH_LONG = "no-splash";
   private static final String ARG_MAIN_CIRCUIT = "toplevel-circuit";
+  private static final String ARG_SOC_RUN_LONG = "soc-run";
+  private static final String ARG_SOC_HALT_LONG = "soc-halt";
+  private static final String ARG_SOC_BUDGET_LONG = "soc-budget";
 
   /**
    * Parses provided string expecting it represent boolean option. Accepted values
@@ -340,6 +354,12 @@ public class Startup implements AWTEventListener {
     addOption(opts, "argNoSplashOption", ARG_NO_SPLASH_LONG);
     addOption(opts, "argMainCircuitOption", ARG_MAIN_CIRCUIT, 1);
     addOption(opts, "argTestVectorOption", ARG_TEST_VECTOR_LONG, ARG_TEST_VECTOR_SHORT, 2);
+    addOption(opts, "argTestThreadsOption", ARG_TEST_THREADS_LONG, 1);
+    addOption(opts, "argGradeOption", ARG_GRADE_LONG, 1);
+    addOption(opts, "argGradeTimeoutOption", ARG_GRADE_TIMEOUT_LONG, 1);
+    addOption(opts, "argSocRunOption", ARG_SOC_RUN_LONG, 2);
+    addOption(opts, "argSocHaltOption", ARG_SOC_HALT_LONG, 1);
+    addOption(opts, "argSocBudgetOption", ARG_SOC_BUDGET_LONG, 1);
     addOption(opts, "argTestCircuitOption", ARG_TEST_CIRCUIT_LONG, ARG_TEST_CIRCUIT_SHORT, 1);     // FIXME add "Option" suffix to key name
     addOption(opts, "argTestCircGenOption", ARG_TEST_CIRC_GEN_LONG, ARG_TEST_CIRC_GEN_SHORT, 2);   // FIXME add "Option" suffix to key name
 
@@ -360,7 +380,8 @@ public class Startup implements AWTEventListener {
     // see whether we'll be using any graphics
     var isTty = false;
     var shallClearPreferences = false;
-    if (cmd.hasOption(ARG_TTY_SHORT) || cmd.hasOption(ARG_TEST_FGPA_SHORT) || cmd.hasOption(ARG_TEST_FGPA_LONG)) {
+    if (cmd.hasOption(ARG_TTY_SHORT) || cmd.hasOption(ARG_TEST_FGPA_SHORT) || cmd.hasOption(ARG_TEST_FGPA_LONG)
+        || cmd.hasOption(ARG_GRADE_LONG) || cmd.hasOption(ARG_SOC_RUN_LONG)) {
       isTty = true;
       Main.headless = true;
     } else {
@@ -405,6 +426,12 @@ public class Startup implements AWTEventListener {
         case ARG_TEMPLATE_LONG -> handleArgTemplate(startup, opt);
         case ARG_NO_SPLASH_LONG -> handleArgNoSplash(startup, opt);
         case ARG_TEST_VECTOR_LONG -> handleArgTestVector(startup, opt);
+        case ARG_TEST_THREADS_LONG -> handleArgTestThreads(startup, opt);
+        case ARG_GRADE_LONG -> handleArgGrade(startup, opt);
+        case ARG_GRADE_TIMEOUT_LONG -> handleArgGradeTimeout(startup, opt);
+        case ARG_SOC_RUN_LONG -> handleArgSocRun(startup, opt);
+        case ARG_SOC_HALT_LONG -> handleArgSocHalt(startup, opt);
+        case ARG_SOC_BUDGET_LONG -> handleArgSocBudget(startup, opt);
         case ARG_TEST_FGPA_LONG -> handleArgTestFpga(startup, opt);
         case ARG_TEST_CIRCUIT_LONG -> handleArgTestCircuit(startup, opt);
         case ARG_TEST_CIRC_GEN_LONG -> handleArgTestCircGen(startup, opt);
@@ -441,6 +468,10 @@ public class Startup implements AWTEventListener {
       logger.error(S.get("saveNeedsTtyError"));
       return null;
     }
+    if ((startup.socHaltAddress != null || startup.socInstructionBudget >= 0) && startup.socCpu == null) {
+      logger.error(S.get("socLimitsNeedRunError"));
+      return null;
+    }
 
     return startup;
   }
@@ -497,6 +528,9 @@ public class Startup implements AWTEventListener {
           case "hex" -> TtyInterface.FORMAT_TABLE_HEX;
           case "csv" -> TtyInterface.FORMAT_TABLE_CSV;
           case "tabs" -> TtyInterface.FORMAT_TABLE_TABBED;
+          case "fast" -> TtyInterface.FORMAT_FAST;
+          case "queues" -> TtyInterface.FORMAT_QUEUES;
+          case "profile" -> TtyInterface.FORMAT_PROFILE;
           default -> 0;
         };
 
@@ -673,6 +707,70 @@ public class Startup implements AWTEventListener {
     return RC.OK;
   }
 
+  private static RC handleArgTestThreads(Startup startup, Option opt) {
+    try {
+      startup.testThreads = Integer.parseInt(opt.getValue());
+    } catch (NumberFormatException e) {
+      startup.testThreads = 0;
+    }
+    if (startup.testThreads < 1) {
+      logger.error(S.get("argTestThreadsError"));
+      return RC.QUIT;
+    }
+    return RC.OK;
+  }
+
+  private static RC handleArgGrade(Startup startup, Option opt) {
+    startup.gradeVector = opt.getValue();
+    return RC.OK;
+  }
+
+  private static RC handleArgGradeTimeout(Startup startup, Option opt) {
+    try {
+      startup.gradeTimeout = Integer.parseInt(opt.getValue());
+    } catch (NumberFormatException e) {
+      startup.gradeTimeout = 0;
+    }
+    if (startup.gradeTimeout < 1) {
+      logger.error(S.get("argGradeTimeoutError"));
+      return RC.QUIT;
+    }
+    return RC.OK;
+  }
+
+  private static RC handleArgSocRun(Startup startup, Option opt) {
+    startup.socCpu = opt.getValues()[0];
+    startup.socElfFile = new File(opt.getValues()[1]);
+    return RC.OK;
+  }
+
+  private static RC handleArgSocHalt(Startup startup, Option opt) {
+    try {
+      final var address = Long.decode(opt.getValue());
+      if (address >= 0 && address <= 0xFFFFFFFFL) {
+        startup.socHaltAddress = (int) (long) address;
+        return RC.OK;
+      }
+    } catch (NumberFormatException ignored) {
+      // reported below
+    }
+    logger.error(S.get("argSocHaltError"));
+    return RC.QUIT;
+  }
+
+  private static RC handleArgSocBudget(Startup startup, Option opt) {
+    try {
+      startup.socInstructionBudget = Long.parseLong(opt.getValue());
+    } catch (NumberFormatException e) {
+      startup.socInstructionBudget = -1;
+    }
+    if (startup.socInstructionBudget < 1) {
+      logger.error(S.get("argSocBudgetError"));
+      return RC.QUIT;
+    }
+    return RC.OK;
+  }
+
   private static RC handleArgMainCircuit(Startup startup, Option opt) {
     startup.circuitToTest = opt.getValues()[0];
     return RC.OK;
@@ -847,6 +945,18 @@ public class Startup implements AWTEventListener {
     return circuitToTest;
   }
 
+  String getGradeVector() {
+    return gradeVector;
+  }
+
+  int getGradeTimeout() {
+    return gradeTimeout;
+  }
+
+  int getTestThreads() {
+    return testThreads;
+  }
+
   Map<File, File> getSubstitutions() {
     return Collections.unmodifiableMap(substitutions);
   }
@@ -855,6 +965,22 @@ public class Startup implements AWTEventListener {
     return ttyFormat;
   }
 
+  String getSocCpu() {
+    return socCpu;
+  }
+
+  File getSocElfFile() {
+    return socElfFile;
+  }
+
+  Integer getSocHaltAddress() {
+    return socHaltAddress;
+  }
+
+  long getSocInstructionBudget() {
+    return socInstructionBudget;
+  }
+
   boolean isFpgaDownload() {
     return doFpgaDownload;
   }
@@ -900,6 +1026,7 @@ public class Startup implements AWTEventListener {
   public void run() {
     if (isTty) {
       try {
+        if (gradeVector != null) System.exit(BatchGrader.run(this));
         TtyInterface.run(this);
         System.exit(0);
       } catch (Exception t) {
@@ -1066,7 +1193,7 @@ public class Startup implements AWTEventListener {
         try {
           if (testVector != null) {
             proj = ProjectActions.doOpenNoWindow(monitor, fileToOpen);
-            proj.doTestVector(testVector, circuitToTest);
+            proj.doTestVector(testVector, circuitToTest, testThreads);
           } else if (testCircPathInput != null && testCircPathOutput != null) {
             /* This part of the function will create a new circuit file (
              * XML) which will be open and saved again using the  */
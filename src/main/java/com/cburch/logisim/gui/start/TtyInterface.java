@@ -14,8 +14,13 @@ import static com.cburch.logisim.gui.Strings.S;
 import com.cburch.logisim.analyze.model.TruthTable;
 import com.cburch.logisim.analyze.model.Var;
 import com.cburch.logisim.circuit.Analyze;
+import com.cburch.logisim.circuit.BitParallelEvaluator;
 import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitException;
 import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.DenseCircuitSimulation;
+import com.cburch.logisim.circuit.ParallelRowSimulator;
+import com.cburch.logisim.circuit.SimulationProfiler;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.file.FileStatistics;
 import com.cburch.logisim.file.LoadFailedException;
@@ -24,8 +29,15 @@ import com.cburch.logisim.file.LogisimFile;
 import com.cburch.logisim.gui.hex.HexFile;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.instance.InstanceStateImpl;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.soc.data.SocInstanceFactory;
+import com.cburch.logisim.soc.data.SocUpSimulationState;
+import com.cburch.logisim.soc.data.SocUpStateInterface;
+import com.cburch.logisim.soc.file.ProcessorReadElf;
+import com.cburch.logisim.soc.jtaguart.JtagUart;
 import com.cburch.logisim.std.io.Keyboard;
 import com.cburch.logisim.std.io.Tty;
 import com.cburch.logisim.std.memory.Mem;
@@ -34,11 +46,13 @@ import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.util.UniquelyNamedThread;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -55,6 +69,15 @@ public class TtyInterface {
   public static final int FORMAT_TABLE_CSV = 64;
   public static final int FORMAT_TABLE_BIN = 128;
   public static final int FORMAT_TABLE_HEX = 256;
+  public static final int FORMAT_FAST = 512;
+  public static final int FORMAT_QUEUES = 1024;
+  public static final int FORMAT_PROFILE = 2048;
+  /** Clock ticks simulated with each event queue type by the "queues" format. */
+  private static final int QUEUE_BENCHMARK_TICKS = 10000;
+  /** Truth table rows that are computed before printing them. */
+  private static final int TABLE_CHUNK_ROWS = 4096;
+  /** Clock ticks after a SoC processor stopped in which the JTAG UARTs may still send characters. */
+  private static final int SOC_DRAIN_TICKS = 1 << 17;
   static final Logger logger = LoggerFactory.getLogger(TtyInterface.class);
   private static boolean lastIsNewline = true;
 
@@ -81,6 +104,58 @@ public class TtyInterface {
     System.out.printf(S.get("ttySpeedMsg") + "\n", hertzStr, tickCount, elapse);
   }
 
+  /**
+   * Runs the same clock ticks with each type of simulation event queue, starting from copies of
+   * the given state, and prints how long each took, so that the fastest can be picked in the
+   * preferences.
+   */
+  private static void benchmarkQueues(CircuitState circState, Instance haltPin) {
+    final var types = new String[] {
+        AppPreferences.SIM_QUEUE_PRIORITY, AppPreferences.SIM_QUEUE_SPLAY, AppPreferences.SIM_QUEUE_LINKED,
+        AppPreferences.SIM_QUEUE_LIST_OF_QUEUES, AppPreferences.SIM_QUEUE_TREE_OF_QUEUES,
+        AppPreferences.SIM_QUEUE_TIMING_WHEEL,
+    };
+    for (final var type : types) {
+      final var state = circState.cloneAsNewRootState(Thread.currentThread());
+      final var prop = state.getPropagator();
+      prop.setQueueType(type);
+      prop.propagate();
+      var tickCount = 0;
+      final var start = System.nanoTime();
+      while (tickCount < QUEUE_BENCHMARK_TICKS && !prop.isOscillating()) {
+        if (haltPin != null && Pin.FACTORY.getValue(state.getInstanceState(haltPin)).equals(Value.TRUE)) break;
+        tickCount++;
+        prop.toggleClocks();
+        prop.propagate();
+      }
+      final var elapse = System.nanoTime() - start;
+      System.out.printf(S.get("ttyQueueMsg") + "\n", type, tickCount == 0 ? 0.0 : elapse / 1000.0 / tickCount,
+          tickCount, elapse / 1000000);
+    }
+  }
+
+  /** Prints the measurements of the profiler, the most expensive first. */
+  private static void displayProfile(SimulationProfiler profiler) {
+    final var factories = profiler.getFactorySamples();
+    final var instances = profiler.getInstanceSamples();
+    System.out.println(S.get("ttyProfileByFactory"));
+    displayProfileSamples(factories);
+    System.out.println();
+    System.out.println(S.get("ttyProfileByInstance"));
+    displayProfileSamples(instances);
+  }
+
+  private static void displayProfileSamples(List<SimulationProfiler.Sample> samples) {
+    var total = 0L;
+    for (final var sample : samples) total += sample.nanos();
+    System.out.printf(S.get("ttyProfileHeader") + "\n", S.get("simProfileCallsColumn"),
+        S.get("simProfileEventsColumn"), S.get("simProfileTimeColumn"), "%", S.get("simProfileNameColumn"));
+    for (final var sample : samples) {
+      System.out.printf(S.get("ttyProfileRow") + "\n", sample.invocations(), sample.events(),
+          sample.nanos() / 1e6, total == 0 ? 0.0 : 100.0 * sample.nanos() / total, sample.name());
+    }
+  }
+
   private static void displayStatistics(LogisimFile file, Circuit circuit) {
     final var stats = FileStatistics.compute(file, circuit);
     final var total = stats.getTotalWithSubcircuits();
@@ -311,7 +386,7 @@ public class TtyInterface {
       format &= ~FORMAT_STATISTICS;
       displayStatistics(file, circuit);
     }
-    if (format == 0) { // no simulation remaining to perform, so just exit
+    if (format == 0 && args.getSocCpu() == null) { // no simulation remaining to perform, so just exit
       System.exit(0);
     }
 
@@ -331,7 +406,7 @@ public class TtyInterface {
         }
       }
     }
-    if (haltPin == null && (format & FORMAT_TABLE) != 0) {
+    if (haltPin == null && (format & FORMAT_TABLE) != 0 && args.getSocCpu() == null) {
       doTableAnalysis(proj, circuit, pinNames, format);
       return;
     }
@@ -358,7 +433,41 @@ public class TtyInterface {
     }
 
     final var ttyFormat = args.getTtyFormat();
-    final var simCode = runSimulation(circState, outputPins, haltPin, ttyFormat);
+    if (args.getSocCpu() != null) {
+      System.exit(runSoc(circState, args.getSocCpu(), args.getSocElfFile(), args.getSocHaltAddress(),
+          args.getSocInstructionBudget()));
+    }
+    if ((ttyFormat & FORMAT_QUEUES) != 0) {
+      benchmarkQueues(circState, haltPin);
+      System.exit(0);
+    }
+    SimulationProfiler profiler = null;
+    if ((ttyFormat & FORMAT_PROFILE) != 0) {
+      profiler = new SimulationProfiler();
+      prop.setProfiler(profiler);
+    }
+    DenseCircuitSimulation fastSim = null;
+    if ((ttyFormat & FORMAT_FAST) != 0 && (ttyFormat & FORMAT_TTY) == 0 && profiler == null
+        && memoriesToLoad.isEmpty() && args.getSaveFile() == null) {
+      try {
+        fastSim = DenseCircuitSimulation.compile(circuit);
+        for (final var pin : inputPins) {
+          fastSim.setValue(pin, Pin.FACTORY.getValue(circState.getInstanceState(pin)));
+        }
+        fastSim.propagate();
+        if (fastSim.hasUndefinedValues()) {
+          logger.warn("{}", S.get("ttyFastUndefinedFallback"));
+          fastSim = null;
+        }
+      } catch (CircuitException e) {
+        logger.warn("{}", S.get("ttyFastFallback", e.getMessage()));
+        fastSim = null;
+      }
+    }
+    final var simCode = fastSim != null
+        ? runSimulation(fastSim, outputPins, haltPin, ttyFormat)
+        : runSimulation(circState, outputPins, haltPin, ttyFormat);
+    if (profiler != null) displayProfile(profiler);
 
     if (args.getSaveFile() != null) {
       try {
@@ -424,54 +533,73 @@ public class TtyInterface {
     final var inputCount = inputNames.size();
     final var rowCount = 1 << inputCount;
 
+    BitParallelEvaluator evaluator = null;
+    try {
+      evaluator = BitParallelEvaluator.create(circuit, inputPins);
+    } catch (CircuitException e) {
+      // not compilable, use the propagator for every row
+    }
+    // Rows are computed a chunk at a time, so that they can be printed in order while the rows
+    // that cannot be evaluated bit-parallel are simulated on all cores.
     var needTableHeader = true;
     final var valueMap = new HashMap<Instance, Value>();
-    for (var i = 0; i < rowCount; i++) {
-      valueMap.clear();
-      final var circuitState = CircuitState.createRootState(proj, circuit, Thread.currentThread());
-      final var prop = circuitState.getPropagator();
-      var incol = 0;
-      for (final var pin : inputPins) {
-        final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
-        final var v = new Value[width];
-        for (var b = width - 1; b >= 0; b--) {
-          final var value = TruthTable.isInputSet(i, incol++, inputCount);
-          v[b] = value ? Value.TRUE : Value.FALSE;
+    try (final var simulator = new ParallelRowSimulator(proj, circuit, inputPins, outputPins)) {
+      for (var start = 0; start < rowCount; start += TABLE_CHUNK_ROWS) {
+        final var first = start;
+        final var chunkRows = Math.min(TABLE_CHUNK_ROWS, rowCount - first);
+        final var outputs = new Value[chunkRows][];
+        final var done = new boolean[chunkRows];
+        if (evaluator != null) {
+          for (var block = 0; block < chunkRows; block += BitParallelEvaluator.LANES) {
+            if (!evaluator.evaluate(first + block)) continue;
+            for (var i = block; i < Math.min(chunkRows, block + BitParallelEvaluator.LANES); i++) {
+              outputs[i] = new Value[outputPins.size()];
+              for (var j = 0; j < outputs[i].length; j++) {
+                outputs[i][j] = evaluator.getValue(outputPins.get(j), i - block);
+              }
+              done[i] = true;
+            }
+          }
         }
-        final var pinState = circuitState.getInstanceState(pin);
-        Pin.FACTORY.driveInputPin(pinState, Value.create(v));
-        valueMap.put(pin, Value.create(v));
-      }
-
-      prop.propagate();
-      /*
-       * TODO for the SimulatorPrototype class do { prop.step(); } while
-       * (prop.isPending());
-       */
-      // TODO: Search for circuit state
-
-
-      for (final var pin : outputPins) {
-        if (prop.isOscillating()) {
-          final var width = pin.getAttributeValue(StdAttr.WIDTH);
-          valueMap.put(pin, Value.createError(width));
-        } else {
-          final var pinState = circuitState.getInstanceState(pin);
-          final var outValue = Pin.FACTORY.getValue(pinState);
-          valueMap.put(pin, outValue);
+        simulator.simulate(first, first + chunkRows, i -> !done[i - first],
+            (i, values) -> outputs[i - first] = values);
+
+        for (var row = 0; row < chunkRows; row++) {
+          valueMap.clear();
+          var incol = 0;
+          for (final var pin : inputPins) {
+            final var width = pin.getAttributeValue(StdAttr.WIDTH).getWidth();
+            final var v = new Value[width];
+            for (var b = width - 1; b >= 0; b--) {
+              final var value = TruthTable.isInputSet(first + row, incol++, inputCount);
+              v[b] = value ? Value.TRUE : Value.FALSE;
+            }
+            valueMap.put(pin, Value.create(v));
+          }
+          for (var j = 0; j < outputPins.size(); j++) {
+            final var pin = outputPins.get(j);
+            // a row without outputs oscillated
+            valueMap.put(pin, outputs[row] != null
+                ? outputs[row][j]
+                : Value.createError(pin.getAttributeValue(StdAttr.WIDTH)));
+          }
+          displayTableRow(needTableHeader, null, tableRow(pinList, valueMap), headers, formats, format);
+          needTableHeader = false;
         }
       }
-      final var currValues = new ArrayList<Value>();
-      for (final var pin : pinList) {
-        currValues.add(valueMap.get(pin));
-      }
-      displayTableRow(needTableHeader, null, currValues, headers, formats, format);
-      needTableHeader = false;
     }
 
     return 0;
   }
 
+  private static ArrayList<Value> tableRow(ArrayList<Instance> pinList, Map<Instance, Value> valueMap) {
+    final var currValues = new ArrayList<Value>();
+    for (final var pin : pinList) {
+      currValues.add(valueMap.get(pin));
+    }
+    return currValues;
+  }
+
   private static int runSimulation(CircuitState circState, ArrayList<Instance> outputPins, Instance haltPin, int format) {
     final var showTable = (format & FORMAT_TABLE) != 0;
     final var showSpeed = (format & FORMAT_SPEED) != 0;
@@ -555,6 +683,172 @@ public class TtyInterface {
     return retCode;
   }
 
+  /**
+   * Same as the propagator based loop above, but runs the circuit compiled to a {@link
+   * DenseCircuitSimulation}. There is no keyboard or TTY support in this mode. As the compiled
+   * circuit is two-valued, the run stops with an error as soon as a gate or flip-flop reads a
+   * floating or error value.
+   */
+  private static int runSimulation(DenseCircuitSimulation sim, ArrayList<Instance> outputPins, Instance haltPin, int format) {
+    final var showTable = (format & FORMAT_TABLE) != 0;
+    var retCode = 0;
+    long tickCount = 0;
+    final var start = System.currentTimeMillis();
+    ArrayList<Value> prevOutputs = null;
+    while (true) {
+      if (sim.hasUndefinedValues()) {
+        retCode = 1; // the outputs may no longer be those the propagator gives
+        break;
+      }
+      if (showTable) {
+        final var curOutputs = new ArrayList<Value>();
+        for (final var pin : outputPins) {
+          if (pin != haltPin) curOutputs.add(sim.getValue(pin));
+        }
+        displayTableRow(prevOutputs, curOutputs);
+        prevOutputs = curOutputs;
+      }
+      if (haltPin != null && sim.getValue(haltPin).equals(Value.TRUE)) {
+        break; // normal exit
+      }
+      if (sim.isOscillating()) {
+        retCode = 1; // abnormal exit
+        break;
+      }
+      tickCount++;
+      sim.toggleClocks();
+      sim.propagate();
+    }
+    final var elapse = System.currentTimeMillis() - start;
+    if (sim.hasUndefinedValues()) {
+      logger.error("{}", S.get("ttyHaltReasonUndefined", Long.toString(tickCount)));
+    } else if ((format & FORMAT_HALT) != 0 || retCode != 0) {
+      logger.error("{}", S.get(retCode == 0 ? "ttyHaltReasonPin" : "ttyHaltReasonOscillation"));
+    }
+    if ((format & FORMAT_SPEED) != 0) {
+      displaySpeed(tickCount, elapse);
+    }
+    return retCode;
+  }
+
+  /** Returns the state of the SoC processor labeled label in circState or its substates. */
+  private static InstanceState findSocProcessor(CircuitState circState, String label) {
+    for (final var comp : circState.getCircuit().getNonWires()) {
+      if (comp.getFactory() instanceof SocInstanceFactory factory
+          && factory.getProcessorInterface(comp.getAttributeSet()) != null
+          && label.equals(comp.getAttributeSet().getValue(StdAttr.LABEL))) {
+        return circState.getInstanceState(comp);
+      }
+    }
+    for (final var sub : circState.getSubstates()) {
+      final var found = findSocProcessor(sub, label);
+      if (found != null) return found;
+    }
+    return null;
+  }
+
+  private static void prepareJtagUarts(CircuitState circState, ArrayList<InstanceState> uartStates) {
+    for (final var comp : circState.getCircuit().getNonWires()) {
+      if (comp.getFactory() instanceof JtagUart) {
+        final var uartState = circState.getInstanceState(comp);
+        JtagUart.sendToStdout(uartState);
+        uartStates.add(uartState);
+      }
+    }
+    for (final var sub : circState.getSubstates()) {
+      prepareJtagUarts(sub, uartStates);
+    }
+  }
+
+  /**
+   * Loads elfFile into the SoC processor labeled cpuLabel, starts it and clocks the circuit until
+   * the processor stops, with the JTAG UARTs connected to stdin and stdout. Returns the exit code:
+   * 0 at haltAddress, 1 on an error, 2 when instructionBudget is used up, and on a trap 0 or 3,
+   * depending on whether the first argument register, the exit value, is 0. The exit value itself
+   * is only printed, as it could be mistaken for the other codes and is cut to 8 bits by the OS.
+   */
+  static int runSoc(CircuitState circState, String cpuLabel, File elfFile, Integer haltAddress,
+      long instructionBudget) {
+    final var cpuState = findSocProcessor(circState, cpuLabel);
+    if (cpuState == null || !(cpuState.getData() instanceof SocUpStateInterface cpu)) {
+      logger.error("{}", S.get("ttySocNoCpuError", cpuLabel));
+      return 1;
+    }
+    final var reader = new ProcessorReadElf(elfFile, cpuState.getInstance(), cpu.getElfType(), true);
+    if (!reader.canExecute() || !reader.execute(((InstanceStateImpl) cpuState).getCircuitState())) {
+      logger.error("{}", S.get("ttySocElfError", elfFile.getName(), reader.getErrorMessage()));
+      return 1;
+    }
+    final var simState = cpu.getSimState();
+    simState.setRunLimits(haltAddress, instructionBudget, true);
+    if (!simState.canExecute()) cpu.simButtonPressed();
+
+    final var uartStates = new ArrayList<InstanceState>();
+    prepareJtagUarts(circState, uartStates);
+    StdinThread stdinThread = null;
+    if (!uartStates.isEmpty()) {
+      stdinThread = new StdinThread();
+      stdinThread.start();
+    }
+
+    final var prop = circState.getPropagator();
+    var oscillating = false;
+    final var start = System.nanoTime();
+    while (simState.canExecute()) {
+      if (prop.isOscillating()) {
+        oscillating = true;
+        break;
+      }
+      if (stdinThread != null) {
+        final var buffer = stdinThread.getBuffer();
+        if (buffer != null) {
+          for (final var uartState : uartStates) JtagUart.addToBuffer(uartState, buffer);
+        }
+      }
+      if (!prop.toggleClocks()) {
+        logger.error("{}", S.get("ttySocNoClockError"));
+        return 1;
+      }
+      prop.propagate();
+    }
+    final var elapse = System.nanoTime() - start;
+    for (var i = 0; i < SOC_DRAIN_TICKS && !oscillating; i++) {
+      if (uartStates.stream().noneMatch(JtagUart::hasPendingOutput)) break;
+      prop.toggleClocks();
+      prop.propagate();
+    }
+    ensureLineTerminated();
+    System.out.flush();
+
+    int retCode;
+    if (oscillating) {
+      System.err.println(S.get("ttyHaltReasonOscillation"));
+      retCode = 1;
+    } else if (simState.getSimulationState() != SocUpSimulationState.SIMULATION_FINISHED) {
+      System.err.println(S.get("ttySocFinishedError"));
+      retCode = 1;
+    } else {
+      switch (simState.getFinishReason()) {
+        case SocUpSimulationState.FINISHED_AT_HALT_ADDRESS -> {
+          System.err.printf(S.get("ttySocFinishedAddress") + "\n", haltAddress);
+          retCode = 0;
+        }
+        case SocUpSimulationState.FINISHED_BY_TRAP -> {
+          System.err.printf(S.get("ttySocFinishedTrap") + "\n", simState.getExitValue());
+          retCode = simState.getExitValue() == 0 ? 0 : 3;
+        }
+        default -> {
+          System.err.println(S.get("ttySocFinishedBudget"));
+          retCode = 2;
+        }
+      }
+    }
+    final var instructions = simState.getInstructionCount();
+    System.err.printf(S.get("ttySocSpeedMsg") + "\n", instructions, elapse / 1000000,
+        elapse == 0 ? 0.0 : instructions * 1e9 / elapse);
+    return retCode;
+  }
+
   public static void sendFromTty(char c) {
     lastIsNewline = c == '\n';
     System.out.print(c);
@@ -564,12 +858,20 @@ public class TtyInterface {
   // System.in.available(),
   // but this doesn't quite work because on some systems, the keyboard input
   // is not interactively echoed until System.in.read() is invoked.
-  private static class StdinThread extends UniquelyNamedThread {
+  static class StdinThread extends UniquelyNamedThread {
     private final LinkedList<char[]> queue; // of char[]
+    private final InputStream in;
 
     public StdinThread() {
+      this(System.in);
+    }
+
+    StdinThread(InputStream in) {
       super("TtyInterface-StdInThread");
       queue = new LinkedList<>();
+      this.in = in;
+      // blocked in a read, it would otherwise keep the JVM from exiting once the simulation is done
+      setDaemon(true);
     }
 
     public char[] getBuffer() {
@@ -580,11 +882,13 @@ public class TtyInterface {
 
     @Override
     public void run() {
-      final var stdin = new InputStreamReader(System.in);
+      final var stdin = new InputStreamReader(in);
       final var buffer = new char[32];
       while (true) {
         try {
           int nbytes = stdin.read(buffer);
+          // at the end of the input, e.g. when it is closed or /dev/null, read returns -1 at once
+          if (nbytes < 0) return;
           if (nbytes > 0) {
             final var add = new char[nbytes];
             System.arraycopy(buffer, 0, add, 0, nbytes);
@@ -592,7 +896,8 @@ public class TtyInterface {
               queue.addLast(add);
             }
           }
-        } catch (IOException ignored) {
+        } catch (IOException e) {
+          return;
         }
       }
     }
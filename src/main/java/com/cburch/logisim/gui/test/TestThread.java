@@ -15,7 +15,7 @@ import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitEvent;
 import com.cburch.logisim.circuit.CircuitListener;
 import com.cburch.logisim.circuit.CircuitState;
-import com.cburch.logisim.circuit.TestVectorEvaluator;
+import com.cburch.logisim.circuit.ParallelTestVectorEvaluator;
 import com.cburch.logisim.data.TestException;
 import com.cburch.logisim.data.TestVector;
 import com.cburch.logisim.proj.Project;
@@ -27,7 +27,7 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
   private final Circuit circuit;
   private final CircuitState circuitState;
   private final TestVector vector;
-  private final TestVectorEvaluator evaluator;
+  private final ParallelTestVectorEvaluator evaluator;
   private Model model;
   private boolean canceled = false;
   private boolean paused = false;
@@ -40,22 +40,30 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
     this.circuit = model.getCircuit();
     this.circuitState = this.project.getCircuitState().cloneAsNewRootState(this);
     this.vector = model.getVector();
-    this.evaluator = new TestVectorEvaluator(circuitState, vector);
+    this.evaluator = new ParallelTestVectorEvaluator(circuitState, vector, 0);
     model.getCircuit().addCircuitListener(this);
   }
 
   // used only for automated testing via command line arguments
-  private TestThread(Project proj, Circuit circuit, TestVector vec) throws TestException {
+  private TestThread(Project proj, Circuit circuit, TestVector vec, int threads) throws TestException {
     super("TestThread-Project");
     this.project = proj;
     this.circuit = circuit;
     this.circuitState = CircuitState.createRootState(this.project, this.circuit, Thread.currentThread());
     this.vector = vec;
-    evaluator = new TestVectorEvaluator(circuitState, vector);
+    evaluator = new ParallelTestVectorEvaluator(circuitState, vector, threads);
   }
 
   // used only for automated testing via command line arguments
   public static int doTestVector(Project proj, Circuit circuit, String vectorname) {
+    return doTestVector(proj, circuit, vectorname, 0);
+  }
+
+  /**
+   * Runs the test vector on the given number of worker threads, or on the number selected in the
+   * preferences if threads is 0.
+   */
+  public static int doTestVector(Project proj, Circuit circuit, String vectorname, int threads) {
     System.out.println(S.get("testLoadingVector", vectorname));
     TestVector vec;
     try {
@@ -67,7 +75,7 @@ public class TestThread extends UniquelyNamedThread implements CircuitListener {
 
     TestThread tester;
     try {
-      tester = new TestThread(proj, circuit, vec);
+      tester = new TestThread(proj, circuit, vec, threads);
     } catch (TestException e) {
       System.err.println(S.get("testSetupFailed", e.getMessage()));
       return -1;
@@ -427,7 +427,20 @@ public final class InstanceComponent implements Component, AttributeListener, To
 
   void recomputeBounds() {
     Location p = loc;
+    final var old = bounds;
     bounds = factory.getOffsetBounds(attrs).translate(p.getX(), p.getY());
+    if (!bounds.equals(old)) fireBoundsChanged();
+  }
+
+  private void fireBoundsChanged() {
+    final var listeners = this.listeners;
+    if (listeners != null) {
+      ComponentEvent e = null;
+      for (final var listener : listeners) {
+        if (e == null) e = new ComponentEvent(this);
+        listener.boundsChanged(e);
+      }
+    }
   }
 
   @Override
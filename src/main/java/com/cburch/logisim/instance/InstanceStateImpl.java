@@ -12,7 +12,6 @@ package com.cburch.logisim.instance;
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.comp.Component;
-import com.cburch.logisim.comp.EndData;
 import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.Value;
@@ -86,8 +85,7 @@ public class InstanceStateImpl implements InstanceState {
 
   @Override
   public Value getPortValue(int portIndex) {
-    EndData data = component.getEnd(portIndex);
-    return circuitState.getValue(data.getLocation());
+    return circuitState.getPortValue(component, portIndex);
   }
 
   @Override
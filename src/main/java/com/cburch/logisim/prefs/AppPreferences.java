@@ -970,6 +970,8 @@ public class AppPreferences {
               "graphicsAcceleration",
               new String[] {ACCEL_DEFAULT, ACCEL_NONE, ACCEL_OPENGL, ACCEL_D3D, ACCEL_METAL},
               ACCEL_DEFAULT));
+  public static final PrefMonitor<Boolean> CANVAS_STATIC_CACHE =
+      create(new PrefMonitorBoolean("canvasStaticCache", false));
 
   public static final String SIM_QUEUE_DEFAULT = "default";
   public static final String SIM_QUEUE_PRIORITY = "priority";
@@ -977,13 +979,38 @@ public class AppPreferences {
   public static final String SIM_QUEUE_LINKED = "linked";
   public static final String SIM_QUEUE_LIST_OF_QUEUES = "listOfQueues";
   public static final String SIM_QUEUE_TREE_OF_QUEUES = "treeOfQueues";
+  public static final String SIM_QUEUE_TIMING_WHEEL = "timingWheel";
   public static final PrefMonitor<String> SIMULATION_QUEUE =
       create(
           new PrefMonitorStringOpts("simQueue",
               new String[] {SIM_QUEUE_DEFAULT, SIM_QUEUE_PRIORITY, SIM_QUEUE_SPLAY,
-                            SIM_QUEUE_LINKED, SIM_QUEUE_LIST_OF_QUEUES, SIM_QUEUE_TREE_OF_QUEUES},
+                            SIM_QUEUE_LINKED, SIM_QUEUE_LIST_OF_QUEUES, SIM_QUEUE_TREE_OF_QUEUES,
+                            SIM_QUEUE_TIMING_WHEEL},
               SIM_QUEUE_DEFAULT)
       );
+  public static final PrefMonitor<Boolean> SIMULATION_PARALLEL =
+      create(new PrefMonitorBoolean("simParallel", false));
+  public static final PrefMonitor<Boolean> SIMULATION_TURBO =
+      create(new PrefMonitorBoolean("simTurbo", false));
+  public static final PrefMonitor<Boolean> SIMULATION_CHECKPOINTS =
+      create(new PrefMonitorBoolean("simCheckpoints", false));
+  public static final PrefMonitor<Boolean> MEMORY_MAPPED =
+      create(new PrefMonitorBoolean("memMapped", false));
+  public static final PrefMonitor<Boolean> SOC_FAST_FORWARD =
+      create(new PrefMonitorBoolean("socFastForward", false));
+  public static final PrefMonitor<String> SOC_BUS_TRACE_SIZE =
+      create(
+          new PrefMonitorStringOpts("socBusTraceSize",
+              new String[] {"1000", "10000", "100000", "1000000"},
+              "10000")
+      );
+  public static final String TEST_VECTOR_THREADS_AUTO = "auto";
+  public static final PrefMonitor<String> TEST_VECTOR_THREADS =
+      create(
+          new PrefMonitorStringOpts("testVectorThreads",
+              new String[] {TEST_VECTOR_THREADS_AUTO, "1", "2", "4", "8", "16"},
+              TEST_VECTOR_THREADS_AUTO)
+      );
   public static final PrefMonitor<Boolean> AntiAliassing =
       create(new PrefMonitorBoolean("AntiAliassing", true));
 
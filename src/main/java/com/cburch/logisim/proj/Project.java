@@ -260,13 +260,18 @@ public class Project {
   }
 
   public int doTestVector(String vectorname, String name) {
+    return doTestVector(vectorname, name, 0);
+  }
+
+  /** Runs a test vector with the given number of threads; 0 uses the preference. */
+  public int doTestVector(String vectorname, String name, int threads) {
     final var circuit = (name == null ? file.getMainCircuit() : file.getCircuit(name));
     if (circuit == null) {
       System.err.println("Circuit '" + name + "' not found.");
       return -1;
     }
     setCurrentCircuit(circuit);
-    return TestThread.doTestVector(this, circuit, vectorname);
+    return TestThread.doTestVector(this, circuit, vectorname, threads);
   }
 
   private void fireEvent(int action, Object data) {
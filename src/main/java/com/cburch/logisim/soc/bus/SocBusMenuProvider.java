@@ -12,6 +12,7 @@ package com.cburch.logisim.soc.bus;
 import static com.cburch.logisim.soc.Strings.S;
 
 import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.gui.generic.OptionPane;
 import com.cburch.logisim.gui.main.Frame;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.StdAttr;
@@ -29,7 +30,9 @@ import com.cburch.logisim.util.StringUtil;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
 import java.util.HashMap;
+import javax.swing.JFileChooser;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
@@ -43,6 +46,7 @@ public class SocBusMenuProvider implements ActionListener {
   private static final int SHOW_MEMORY_MAP = 1;
   private static final int INSERT_TRANSACTION = 2;
   private static final int SHOW_TRACES = 3;
+  private static final int EXPORT_TRACES = 4;
   private final HashMap<Instance, InstanceInformation> myInfo;
 
   public SocBusMenuProvider() {
@@ -71,6 +75,7 @@ public class SocBusMenuProvider implements ActionListener {
               .insertTransaction(inst, info.getCircuitState(), info.getState(), info.getName());
           case SHOW_TRACES ->
               myInfo.get(inst).showTraceWindow(inst, info.getState(), info.getHierInfo());
+          case EXPORT_TRACES -> myInfo.get(inst).exportTraces(info.getState());
           default ->
               throw new IllegalStateException(String.format("Unsupported function: %d", function));
         }
@@ -208,6 +213,11 @@ public class SocBusMenuProvider implements ActionListener {
         traceWin.addActionListener(parent);
         traceWin.setEnabled(true);
         menu.add(traceWin);
+        name = instanceName + ": " + S.get("SocBusExportTraces");
+        final var exportTraces = new InstanceMenuItem(instance, name, EXPORT_TRACES, data, hierarchy);
+        exportTraces.addActionListener(parent);
+        exportTraces.setEnabled(data != null);
+        menu.add(exportTraces);
       }
     }
 
@@ -324,6 +334,18 @@ public class SocBusMenuProvider implements ActionListener {
       myTraceFrame.setExtendedState(fstate);
     }
 
+    public void exportTraces(SocBusStateInfo.SocBusState state) {
+      if (state == null) return;
+      final var fc = new JFileChooser();
+      fc.setDialogTitle(S.get("SocBusSelectExportFile"));
+      if (fc.showSaveDialog(parentFrame) != JFileChooser.APPROVE_OPTION) return;
+      try {
+        state.getTrace().writeCsv(fc.getSelectedFile());
+      } catch (IOException e) {
+        OptionPane.showMessageDialog(parentFrame, e.getMessage(), S.get("SocBusErrorExportingTracesTitle"), OptionPane.ERROR_MESSAGE);
+      }
+    }
+
     public void destroyTraceWindow() {
       if (myTraceFrame != null) {
         myTraceFrame.setVisible(false);
@@ -0,0 +1,134 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import com.cburch.logisim.soc.util.AssemblerInterface;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The last instructions a processor executed, in a ring buffer that only keeps the program counter,
+ * the instruction word and some flags of each. They are disassembled when they are shown.
+ *
+ * <p>All executed instructions can also be recorded in a file: after the 4 bytes "LTRC" and the
+ * version as an int, each instruction is written as the program counter and the instruction word
+ * as ints and the flags as a byte, all big endian.
+ */
+public class InstructionTrace {
+  static final Logger logger = LoggerFactory.getLogger(InstructionTrace.class);
+
+  public static final int FLAG_ERROR = 1;
+  public static final int FLAG_INVALID = 2;
+  private static final int FILE_VERSION = 1;
+
+  private final AssemblerInterface disassembler;
+  private final String invalidAsm;
+  private final int[] pcs;
+  private final int[] words;
+  private final byte[] flags;
+  private int next = 0;
+  private int size = 0;
+  private DataOutputStream recording = null;
+
+  /**
+   * Creates a trace of the last capacity instructions. The disassembler must not be used for
+   * anything else, as it is used when the trace is shown. Invalid instructions are shown as
+   * invalidAsm.
+   */
+  public InstructionTrace(int capacity, AssemblerInterface disassembler, String invalidAsm) {
+    this.disassembler = disassembler;
+    this.invalidAsm = invalidAsm;
+    pcs = new int[capacity];
+    words = new int[capacity];
+    flags = new byte[capacity];
+  }
+
+  public synchronized void add(int pc, int word, int flags) {
+    pcs[next] = pc;
+    words[next] = word;
+    this.flags[next] = (byte) flags;
+    next = (next + 1) % pcs.length;
+    if (size < pcs.length) size++;
+    if (recording != null) {
+      try {
+        recording.writeInt(pc);
+        recording.writeInt(word);
+        recording.writeByte(flags);
+      } catch (IOException e) {
+        logger.error("Cannot record the instruction trace: {}", e.getMessage());
+        stopRecording();
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    next = 0;
+    size = 0;
+  }
+
+  public synchronized boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Returns the instructions in the trace, the last executed first. */
+  public synchronized List<TraceInfo> getTraces() {
+    final var ret = new ArrayList<TraceInfo>(size);
+    for (var i = 1; i <= size; i++) {
+      final var index = (next - i + pcs.length) % pcs.length;
+      final var error = (flags[index] & (FLAG_ERROR | FLAG_INVALID)) != 0;
+      final var asm = (flags[index] & FLAG_INVALID) != 0 ? invalidAsm : null;
+      ret.add(new TraceInfo(pcs[index], words[index], asm, error, this));
+    }
+    return ret;
+  }
+
+  String disassemble(int word) {
+    synchronized (disassembler) {
+      disassembler.decode(word);
+      final var exe = disassembler.getExeUnit();
+      return exe == null ? invalidAsm : exe.getAsmInstruction();
+    }
+  }
+
+  /** Records all instructions executed from now on in file, until stopRecording() is called. */
+  public synchronized void startRecording(File file) throws IOException {
+    stopRecording();
+    final var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    try {
+      out.writeBytes("LTRC");
+      out.writeInt(FILE_VERSION);
+    } catch (IOException e) {
+      out.close();
+      throw e;
+    }
+    recording = out;
+  }
+
+  public synchronized boolean isRecording() {
+    return recording != null;
+  }
+
+  public synchronized void stopRecording() {
+    if (recording == null) return;
+    try {
+      recording.close();
+    } catch (IOException e) {
+      logger.error("Cannot close the instruction trace file: {}", e.getMessage());
+    }
+    recording = null;
+  }
+}
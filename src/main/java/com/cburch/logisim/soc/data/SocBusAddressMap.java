@@ -0,0 +1,78 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The slaves of a bus by address: the address space is cut into the intervals in which the same
+ * slaves respond, sorted by start address, so that the responder of a transaction is found by a
+ * binary search instead of asking every slave. It must be built again when a slave is added,
+ * removed or moved.
+ */
+class SocBusAddressMap {
+  private static final long ADDRESS_MASK = 0xFFFFFFFFL;
+
+  private final long[] starts;
+  private final int[] counts;
+  private final SocBusSlaveInterface[] responders;
+
+  SocBusAddressMap(List<SocBusSlaveInterface> slaves) {
+    final var bounds = new TreeSet<Long>();
+    bounds.add(0L);
+    for (final var slave : slaves) {
+      final var start = getStart(slave);
+      final var end = getEnd(slave);
+      if (end <= start) continue;
+      bounds.add(start);
+      if (end <= ADDRESS_MASK) bounds.add(end);
+    }
+    starts = new long[bounds.size()];
+    var i = 0;
+    for (final var bound : bounds) starts[i++] = bound;
+    counts = new int[starts.length];
+    responders = new SocBusSlaveInterface[starts.length];
+    for (final var slave : slaves) {
+      final var start = getStart(slave);
+      final var end = getEnd(slave);
+      if (end <= start) continue;
+      for (i = Arrays.binarySearch(starts, start); i < starts.length && starts[i] < end; i++) {
+        counts[i]++;
+        responders[i] = slave;
+      }
+    }
+  }
+
+  private static long getStart(SocBusSlaveInterface slave) {
+    return slave.getStartAddress() & ADDRESS_MASK;
+  }
+
+  private static long getEnd(SocBusSlaveInterface slave) {
+    return getStart(slave) + (slave.getMemorySize() & ADDRESS_MASK);
+  }
+
+  /** Returns the index of the interval that contains address. */
+  int find(int address) {
+    final var i = Arrays.binarySearch(starts, address & ADDRESS_MASK);
+    return i >= 0 ? i : -i - 2;
+  }
+
+  /** Returns the number of slaves that respond in the interval. */
+  int getResponderCount(int interval) {
+    return counts[interval];
+  }
+
+  /** Returns the slave that responds in the interval, if there is exactly one. */
+  SocBusSlaveInterface getResponder(int interval) {
+    return counts[interval] == 1 ? responders[interval] : null;
+  }
+}
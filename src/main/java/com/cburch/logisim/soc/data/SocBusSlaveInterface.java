@@ -28,4 +28,12 @@ public interface SocBusSlaveInterface {
   void removeListener(SocBusSlaveListener l);
 
   InstanceComponent getComponent();
+
+  /**
+   * Returns whether reading and writing this slave only reads and writes its contents, like a
+   * memory, so that a processor may run ahead on it without showing each transaction.
+   */
+  default boolean isSideEffectFree() {
+    return false;
+  }
 }
@@ -23,7 +23,6 @@ import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.soc.bus.SocBus;
 import com.cburch.logisim.soc.bus.SocBusAttributes;
 import com.cburch.logisim.soc.gui.TraceWindowTableModel;
-import com.cburch.logisim.util.CircularArray;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.LocaleListener;
 import com.cburch.logisim.util.LocaleManager;
@@ -37,7 +36,10 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.WindowEvent;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
 import javax.swing.JButton;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
@@ -46,14 +48,17 @@ import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.table.TableCellRenderer;
 
-public class SocBusStateInfo extends JDialog
-    implements ActionListener, LocaleListener, BaseWindowListenerContract {
-
-  private static final long serialVersionUID = 1L;
+/**
+ * The state of a SoC bus: the slaves and sniffers attached to it, which it routes the transactions
+ * to. The memory map of the bus is shown in a dialog, which is only created when it is first shown,
+ * so that a bus can be simulated without a display.
+ */
+public class SocBusStateInfo implements ActionListener, LocaleListener, BaseWindowListenerContract {
 
   public static final int TRACE_WIDTH = 630;
   public static final int TRACE_HEIGHT = 30;
   public static final int BLOCK_WIDTH = 238;
+  public static final int DEFAULT_NR_OF_TRACES_TO_KEEP = 10000;
 
   public interface SocBusStateListener {
     void fireCanged(SocBusState item);
@@ -94,23 +99,27 @@ public class SocBusStateInfo extends JDialog
       }
     }
 
-    private static final int NR_OF_TRACES_TO_KEEP = 10000;
-    private final CircularArray<SocBusTransaction> trace;
-    private final Object traceLock = new Object();
-    private long startTraceIndex;
+    private final SocBusTrace trace;
     private final SocBusStateInfo parent;
     private final Instance instance;
     private final ArrayList<SocBusStateListener> listeners;
 
     public SocBusState(SocBusStateInfo parent, Instance instance) {
-      trace = new CircularArray<>();
-      startTraceIndex = 0;
+      trace = new SocBusTrace(getTraceCapacity());
       this.parent = parent;
       this.instance = instance;
       SocBus.MENU_PROVIDER.registerBusState(this, instance);
       listeners = new ArrayList<>();
     }
 
+    private static int getTraceCapacity() {
+      try {
+        return Integer.parseInt(AppPreferences.SOC_BUS_TRACE_SIZE.get());
+      } catch (NumberFormatException e) {
+        return DEFAULT_NR_OF_TRACES_TO_KEEP;
+      }
+    }
+
     @Override
     public SocBusState clone() {
       try {
@@ -121,49 +130,40 @@ public class SocBusStateInfo extends JDialog
     }
 
     public void addTransaction(SocBusTransaction t) {
-      synchronized (traceLock) {
-        while (trace.size() >= NR_OF_TRACES_TO_KEEP) {
-          startTraceIndex++;
-          trace.removeFirst();
-        }
-        trace.addLast(t);
-      }
+      trace.add(t);
       for (SocBusStateListener l : listeners) l.fireCanged(this);
     }
 
     public void clear() {
-      synchronized (traceLock) {
+      synchronized (trace) {
         if (trace.size() == 0) return;
         trace.clear();
-        startTraceIndex = 0;
       }
       for (SocBusStateListener l : listeners) l.fireCanged(this);
     }
 
+    /** Returns the transactions kept for the trace window, e.g. to export them. */
+    public SocBusTrace getTrace() {
+      return trace;
+    }
+
     public void paint(Graphics2D g, Bounds b) {
-      int traceSize;
-      long theStartTraceIndex;
       int nrOfTraces = b.getHeight() / TRACE_HEIGHT;
       final var neededTraces = new ArrayList<SocBusTransaction>();
-      synchronized (traceLock) {
-        traceSize = trace.size();
+      long lastTraceIndex;
+      synchronized (trace) {
+        final var traceSize = trace.size();
         if (nrOfTraces > traceSize) nrOfTraces = traceSize;
-        if (nrOfTraces > 0) {
-          final var indexOfFirstTrace = traceSize - nrOfTraces;
-          for (int i = indexOfFirstTrace; i < traceSize; i++) {
-            neededTraces.add(trace.get(i));
-          }
-        }
-        theStartTraceIndex = startTraceIndex;
+        for (int i = 1; i <= nrOfTraces; i++) neededTraces.add(trace.get(traceSize - i));
+        lastTraceIndex = trace.getFirstIndex() + traceSize - 1;
       }
       if (nrOfTraces <= 0) {
         GraphicsUtil.drawCenteredText(g, S.get("SocBusNoTrace"), b.getCenterX(), b.getCenterY());
         return;
       }
-      int startIndex = traceSize - 1;
       for (int i = 0; i < nrOfTraces; i++) {
-        SocBusTransaction t = neededTraces.get(nrOfTraces - 1 - i);
-        t.paint(b.getX() + 1, b.getY() + 1 + i * TRACE_HEIGHT, g, theStartTraceIndex + startIndex - i);
+        SocBusTransaction t = neededTraces.get(i);
+        t.paint(b.getX() + 1, b.getY() + 1 + i * TRACE_HEIGHT, g, lastTraceIndex - i);
       }
     }
 
@@ -180,13 +180,14 @@ public class SocBusStateInfo extends JDialog
     }
 
     public SocBusStateTrace getEntry(int index, TraceWindowTableModel model) {
-      synchronized (traceLock) {
-        if (index < 0 || index >= trace.size()) {
+      synchronized (trace) {
+        final var traceSize = trace.size();
+        if (index < 0 || index >= traceSize) {
           if (index == 0) return new SocBusStateTrace(null, 0, model);
           return null;
         }
-        long indx = startTraceIndex + trace.size() - index - 1;
-        return new SocBusStateTrace(trace.get(trace.size() - index - 1), indx, model);
+        final var row = traceSize - index - 1;
+        return new SocBusStateTrace(trace.get(row), trace.getFirstIndex() + row, model);
       }
     }
 
@@ -200,22 +201,35 @@ public class SocBusStateInfo extends JDialog
   private final SocSimulationManager socManager;
   private Component myComp;
   private final ArrayList<SocBusSnifferInterface> sniffers;
-  private final JButton okButton;
-  private final JLabel title;
-  private final JScrollPane scroll;
+  private final Set<SocBusSnifferInterface> writeSniffers = Collections.newSetFromMap(new WeakHashMap<>());
   private final SocMemMapModel memMap;
+  private JDialog dialog = null;
+  private JButton okButton = null;
 
   public SocBusStateInfo(SocSimulationManager man, Component comp) {
-    super();
     LocaleManager.addLocaleListener(this);
     socManager = man;
     myComp = comp;
     sniffers = new ArrayList<>();
     memMap = new SocMemMapModel();
-    setTitle(S.get("SocMemMapWindowTitle") + getName());
-    setLayout(new BorderLayout());
-    title = new JLabel(S.get("SocMemoryMapTitle"), JLabel.CENTER);
-    add(title, BorderLayout.NORTH);
+  }
+
+  /** Shows or hides the memory map of the bus. */
+  public void setVisible(boolean value) {
+    if (value && dialog == null) createDialog();
+    if (dialog != null) dialog.setVisible(value);
+  }
+
+  public boolean isVisible() {
+    return dialog != null && dialog.isVisible();
+  }
+
+  private void createDialog() {
+    dialog = new JDialog();
+    dialog.setTitle(S.get("SocMemMapWindowTitle") + getName());
+    dialog.setLayout(new BorderLayout());
+    final var title = new JLabel(S.get("SocMemoryMapTitle"), JLabel.CENTER);
+    dialog.add(title, BorderLayout.NORTH);
     JTable table =
         new JTable(memMap) {
           private static final long serialVersionUID = 1L;
@@ -229,14 +243,14 @@ public class SocBusStateInfo extends JDialog
     table.setFillsViewportHeight(true);
     table.setRowHeight(AppPreferences.getScaled(20));
     table.addMouseListener(memMap);
-    scroll = new JScrollPane(table);
+    final var scroll = new JScrollPane(table);
     scroll.setPreferredSize(
         new Dimension(AppPreferences.getScaled(320), AppPreferences.getScaled(240)));
-    add(scroll, BorderLayout.CENTER);
+    dialog.add(scroll, BorderLayout.CENTER);
     okButton = new JButton(S.get("SocMemoryMapOk"));
-    add(okButton, BorderLayout.SOUTH);
+    dialog.add(okButton, BorderLayout.SOUTH);
     okButton.addActionListener(this);
-    pack();
+    dialog.pack();
   }
 
   public void registerSocBusSlave(SocBusSlaveInterface slave) {
@@ -255,11 +269,33 @@ public class SocBusStateInfo extends JDialog
     sniffers.remove(sniffer);
   }
 
+  /**
+   * Registers a sniffer that sees every write that was performed on the bus, also the hidden ones
+   * that are not shown in the trace, e.g. to keep a cache of the memory contents up to date. The
+   * sniffer is only weakly referenced.
+   */
+  public void registerWriteSniffer(SocBusSnifferInterface sniffer) {
+    writeSniffers.add(sniffer);
+  }
+
+  public void removeWriteSniffer(SocBusSnifferInterface sniffer) {
+    writeSniffers.remove(sniffer);
+  }
+
+  /**
+   * Returns whether the word at address is handled by a single slave that declares its accesses
+   * free of side effects, so that a processor may access it without showing the transaction.
+   */
+  public boolean isSideEffectFree(int address) {
+    final var addressMap = memMap.getAddressMap();
+    final var responder = addressMap.getResponder(addressMap.find(address));
+    return responder != null && responder.isSideEffectFree();
+  }
+
   public List<SocBusSlaveInterface> getSlaves() {
     return memMap.getSlaves();
   }
 
-  @Override
   public String getName() {
     var name = myComp.getAttributeSet().getValue(StdAttr.LABEL);
     if (StringUtil.isNullOrEmpty(name)) {
@@ -282,8 +318,6 @@ public class SocBusStateInfo extends JDialog
   }
 
   public void initializeTransaction(SocBusTransaction trans, String busId) {
-    int nrOfReponders = 0;
-    int reponder = -1;
     final var slaves = memMap.getSlaves();
     if (slaves.isEmpty()) trans.setError(SocBusTransaction.NO_SLAVES_ERROR);
     else if (trans.isReadTransaction()
@@ -291,19 +325,19 @@ public class SocBusStateInfo extends JDialog
         && !trans.isAtomicTransaction()) {
       trans.setError(SocBusTransaction.NONE_ATOMIC_READ_WRITE_ERROR);
     } else {
-      for (int i = 0; i < slaves.size(); i++) {
-        if (slaves.get(i).canHandleTransaction(trans)) {
-          nrOfReponders++;
-          reponder = i;
-        }
-      }
+      final var addressMap = memMap.getAddressMap();
+      final var interval = addressMap.find(trans.getAddress());
+      final var nrOfReponders = addressMap.getResponderCount(interval);
       if (nrOfReponders == 0) trans.setError(SocBusTransaction.NO_RESPONS_ERROR);
       else if (nrOfReponders != 1) trans.setError(SocBusTransaction.MULTIPLE_SLAVES_ERROR);
-      else slaves.get(reponder).handleTransaction(trans);
+      else addressMap.getResponder(interval).handleTransaction(trans);
     }
     if (!trans.hasError() && !trans.isHidden()) {
       for (SocBusSnifferInterface sniffer : sniffers) sniffer.sniffTransaction(trans);
     }
+    if (!trans.hasError() && trans.isWriteTransaction() && !writeSniffers.isEmpty()) {
+      for (final var sniffer : writeSniffers) sniffer.sniffTransaction(trans);
+    }
     if (!trans.isHidden()) {
       final var data = getRegPropagateState();
       if (data != null) {
@@ -348,7 +382,7 @@ public class SocBusStateInfo extends JDialog
 
   @Override
   public void localeChanged() {
-    okButton.setText(S.get("SocMemoryMapOk"));
+    if (okButton != null) okButton.setText(S.get("SocMemoryMapOk"));
   }
 
   @Override
@@ -0,0 +1,196 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import com.cburch.logisim.comp.Component;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The last transactions of a bus, in a ring buffer that keeps each field of a transaction in its
+ * own array. The masters and responders are kept once in a table and referred to by their index in
+ * it. A SocBusTransaction is only created again for the transactions that are shown. The arrays
+ * start small and grow up to the capacity as transactions come in, so that a bus that sees little
+ * traffic does not hold the memory for a large trace window.
+ */
+public class SocBusTrace {
+  private static final int NO_PARTY = -1;
+  private static final int INITIAL_LENGTH = 256;
+
+  private final int capacity;
+  private byte[] types;
+  private byte[] accesses;
+  private byte[] errors;
+  private int[] addresses;
+  private int[] writeData;
+  private int[] readData;
+  private int[] masters;
+  private int[] responders;
+  private final ArrayList<Object> parties = new ArrayList<>();
+  private final HashMap<Object, Integer> partyIds = new HashMap<>();
+  private int next = 0;
+  private int size = 0;
+  private long count = 0;
+
+  public SocBusTrace(int capacity) {
+    this.capacity = capacity;
+    allocate(Math.min(capacity, INITIAL_LENGTH));
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  private void allocate(int length) {
+    types = new byte[length];
+    accesses = new byte[length];
+    errors = new byte[length];
+    addresses = new int[length];
+    writeData = new int[length];
+    readData = new int[length];
+    masters = new int[length];
+    responders = new int[length];
+  }
+
+  /** Makes room for more transactions. Only called while the ring has not wrapped yet. */
+  private void grow() {
+    final var length = (int) Math.min(capacity, 2L * types.length);
+    types = Arrays.copyOf(types, length);
+    accesses = Arrays.copyOf(accesses, length);
+    errors = Arrays.copyOf(errors, length);
+    addresses = Arrays.copyOf(addresses, length);
+    writeData = Arrays.copyOf(writeData, length);
+    readData = Arrays.copyOf(readData, length);
+    masters = Arrays.copyOf(masters, length);
+    responders = Arrays.copyOf(responders, length);
+    next = size;
+  }
+
+  private int getPartyId(Object party) {
+    if (party == null) return NO_PARTY;
+    var id = partyIds.get(party);
+    if (id == null) {
+      id = parties.size();
+      parties.add(party);
+      partyIds.put(party, id);
+    }
+    return id;
+  }
+
+  public synchronized void add(SocBusTransaction trans) {
+    if (size == types.length && size < capacity) grow();
+    types[next] = (byte) trans.getType();
+    accesses[next] = (byte) trans.getAccessType();
+    errors[next] = (byte) trans.getErrorCode();
+    addresses[next] = trans.getAddress();
+    writeData[next] = trans.getWriteData();
+    readData[next] = trans.getReadData();
+    masters[next] = getPartyId(trans.getTransactionInitiator());
+    responders[next] = getPartyId(trans.getTransactionResponder());
+    next = (next + 1) % types.length;
+    if (size < types.length) size++;
+    count++;
+  }
+
+  public synchronized void clear() {
+    if (types.length > INITIAL_LENGTH) allocate(INITIAL_LENGTH);
+    next = 0;
+    size = 0;
+    count = 0;
+    parties.clear();
+    partyIds.clear();
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  /** Returns the number of the oldest transaction in the trace, counted from the first one added. */
+  public synchronized long getFirstIndex() {
+    return count - size;
+  }
+
+  private int getSlot(int row) {
+    return (next - size + row + types.length) % types.length;
+  }
+
+  /** Returns the transaction at row of the trace, the oldest being at row 0. */
+  public synchronized SocBusTransaction get(int row) {
+    if (row < 0 || row >= size) throw new IndexOutOfBoundsException(row);
+    final var slot = getSlot(row);
+    final var trans =
+        new SocBusTransaction(
+            types[slot], addresses[slot], writeData[slot], accesses[slot], getParty(masters[slot]));
+    trans.setReadData(readData[slot]);
+    trans.setError(errors[slot]);
+    trans.setTransactionResponder((Component) getParty(responders[slot]));
+    return trans;
+  }
+
+  /**
+   * Writes the transactions in the trace to out as comma separated values, the oldest first, with
+   * one line per transaction after a header line.
+   */
+  public synchronized void writeCsv(Writer out) throws IOException {
+    out.write("index,type,address,writeData,readData,access,master,responder,error\n");
+    final var first = count - size;
+    for (var row = 0; row < size; row++) {
+      final var slot = getSlot(row);
+      final var type = types[slot];
+      out.write(Long.toString(first + row));
+      out.write(',');
+      if ((type & SocBusTransaction.ATOMIC_TRANSACTION) != 0) out.write('A');
+      if ((type & SocBusTransaction.READ_TRANSACTION) != 0) out.write('R');
+      if ((type & SocBusTransaction.WRITE_TRANSACTION) != 0) out.write('W');
+      out.write(String.format(",0x%08X,0x%08X,0x%08X,", addresses[slot], writeData[slot], readData[slot]));
+      final var width = switch (accesses[slot]) {
+        case SocBusTransaction.BYTE_ACCESS -> "8";
+        case SocBusTransaction.HALF_WORD_ACCESS -> "16";
+        default -> "32";
+      };
+      out.write(width);
+      out.write(',');
+      out.write(quote(getPartyName(masters[slot])));
+      out.write(',');
+      out.write(quote(getPartyName(responders[slot])));
+      out.write(',');
+      out.write(Integer.toString(errors[slot]));
+      out.write('\n');
+    }
+  }
+
+  /** Writes the transactions in the trace to file, see writeCsv(Writer). */
+  public void writeCsv(File file) throws IOException {
+    try (final var out = new BufferedWriter(new FileWriter(file))) {
+      writeCsv(out);
+    }
+  }
+
+  private Object getParty(int id) {
+    return id == NO_PARTY ? null : parties.get(id);
+  }
+
+  private String getPartyName(int id) {
+    final var party = getParty(id);
+    if (party == null) return "";
+    return party instanceof Component comp ? SocSupport.getComponentName(comp) : party.toString();
+  }
+
+  private static String quote(String value) {
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+    return "\"" + value.replace("\"", "\"\"") + "\"";
+  }
+}
@@ -130,6 +130,10 @@ public class SocBusTransaction {
     error = value;
   }
 
+  public int getErrorCode() {
+    return error;
+  }
+
   public boolean hasError() {
     return error != NO_ERROR;
   }
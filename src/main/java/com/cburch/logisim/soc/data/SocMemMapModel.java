@@ -203,6 +203,7 @@ public class SocMemMapModel extends AbstractTableModel
   private final SlaveInfoRenderer slaveRenderer;
   private final MemoryMapHeaderRenderer headRenderer;
   private InstanceComponent marked;
+  private volatile SocBusAddressMap addressMap;
 
   public SocMemMapModel() {
     super();
@@ -235,6 +236,11 @@ public class SocMemMapModel extends AbstractTableModel
     return slaves;
   }
 
+  /** Returns the slaves by address, as they are now. */
+  SocBusAddressMap getAddressMap() {
+    return addressMap;
+  }
+
   public SlaveInfoRenderer getCellRender() {
     return slaveRenderer;
   }
@@ -285,6 +291,7 @@ public class SocMemMapModel extends AbstractTableModel
   }
 
   private void rebuild() {
+    addressMap = new SocBusAddressMap(slaves);
     slaveMap.clear();
     if (slaves.isEmpty())
       slaveMap.add(new SlaveInfo(0, -1));
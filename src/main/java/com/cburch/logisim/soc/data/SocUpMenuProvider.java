@@ -25,6 +25,7 @@ import com.cburch.logisim.tools.MenuExtender;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 import java.util.HashMap;
 import javax.swing.JFileChooser;
 import javax.swing.JMenuItem;
@@ -37,6 +38,7 @@ public class SocUpMenuProvider implements ActionListener {
   private static final int SHOW_STATE_FUNCTION = 2;
   private static final int SHOW_PROGRAM = 3;
   private static final int SHOW_ASM = 4;
+  private static final int RECORD_TRACE = 5;
 
   private static class InstanceMenuItem extends JMenuItem {
     private static final long serialVersionUID = 1L;
@@ -155,6 +157,14 @@ public class SocUpMenuProvider implements ActionListener {
           showProg.setEnabled(true);
           menu.add(showProg);
         }
+      if (state != null && instance.getData(state) instanceof SocUpStateInterface cpu) {
+        final var key = cpu.getInstructionTrace().isRecording() ? "SocUpMenuStopTrace" : "SocUpMenuRecordTrace";
+        name = circuitState != null ? instName + " : " + S.get(key) : S.get(key);
+        final var record = new InstanceMenuItem(instance, name, RECORD_TRACE, cpu, state, hinfo);
+        record.addActionListener(parent);
+        record.setEnabled(true);
+        menu.add(record);
+      }
     }
 
     @Override
@@ -198,6 +208,22 @@ public class SocUpMenuProvider implements ActionListener {
       OptionPane.showMessageDialog(parentFrame, S.get("ProcReadElfLoadedAndEntrySet"));
     }
 
+    public void recordTrace(SocUpStateInterface data) {
+      final var trace = data.getInstructionTrace();
+      if (trace.isRecording()) {
+        trace.stopRecording();
+        return;
+      }
+      final var fc = new JFileChooser();
+      fc.setDialogTitle(S.get("SocUpMenuSelectTraceFile"));
+      if (fc.showSaveDialog(parentFrame) != JFileChooser.APPROVE_OPTION) return;
+      try {
+        trace.startRecording(fc.getSelectedFile());
+      } catch (IOException e) {
+        OptionPane.showMessageDialog(parentFrame, e.getMessage(), S.get("SocUpMenuErrorRecordingTraceTitle"), OptionPane.ERROR_MESSAGE);
+      }
+    }
+
     public void registerCpuState(SocUpStateInterface data) {
       if (!myStates.containsKey(data))
         myStates.put(data, null);
@@ -339,6 +365,10 @@ public class SocUpMenuProvider implements ActionListener {
                 .showProgram(info.getState(), info.getHierarchyInfo(), info.getCircuitState());
             return;
           }
+          case RECORD_TRACE -> {
+            myInfo.get(inst).recordTrace(info.getState());
+            return;
+          }
           case SHOW_ASM -> {
             myInfo.get(inst).showAsmWindow(inst, info.getState(), info.getHierarchyInfo(),
                 info.getCircuitState());
@@ -25,10 +25,22 @@ public class SocUpSimulationState {
   public static final int SIMULATION_HALTED_BY_ERROR = 1;
   public static final int SIMULATION_HALTED_BY_BREAKPOINT = 2;
   public static final int SIMULATION_HALTED_BY_STOP = 3;
+  public static final int SIMULATION_FINISHED = 4;
+  public static final int FINISHED_AT_HALT_ADDRESS = 1;
+  public static final int FINISHED_BY_TRAP = 2;
+  public static final int FINISHED_BY_BUDGET = 3;
+  /** The most instructions a processor runs per clock cycle when fast-forwarding. */
+  public static final int FAST_FORWARD_INSTRUCTIONS = 1024;
 
   private int simulationState = SIMULATION_RUNNING;
   private final ArrayList<SocUpSimulationStateListener> listeners = new ArrayList<>();
   private boolean canContinueAfterBreak = false;
+  private Integer haltAddress = null;
+  private long instructionBudget = -1;
+  private boolean haltOnTrap = false;
+  private long instructionCount = 0;
+  private int finishReason = 0;
+  private int exitValue = 0;
 
   public String getStateString() {
     return switch (simulationState) {
@@ -36,6 +48,7 @@ public class SocUpSimulationState {
       case SIMULATION_HALTED_BY_ERROR -> S.get("SocUpSimHaltError");
       case SIMULATION_HALTED_BY_BREAKPOINT -> S.get("SocUpSimHaltBreak");
       case SIMULATION_HALTED_BY_STOP -> S.get("SocUpSimHalt");
+      case SIMULATION_FINISHED -> S.get("SocUpSimFinished");
       default -> S.get("SocUpUnknown");
     };
   }
@@ -47,13 +60,78 @@ public class SocUpSimulationState {
   public void reset() {
     canContinueAfterBreak = false;
     simulationState = SIMULATION_HALTED_BY_STOP;
+    instructionCount = 0;
+    finishReason = 0;
+    exitValue = 0;
     fireChange();
   }
 
+  /**
+   * Lets the processor finish when it reaches haltAddress (if not null), after it executed
+   * instructionBudget instructions (if not negative), or on a trap instruction (if haltOnTrap), as
+   * when running a program without the GUI.
+   */
+  public void setRunLimits(Integer haltAddress, long instructionBudget, boolean haltOnTrap) {
+    this.haltAddress = haltAddress;
+    this.instructionBudget = instructionBudget;
+    this.haltOnTrap = haltOnTrap;
+  }
+
   public boolean canExecute() {
     return simulationState == SIMULATION_RUNNING;
   }
 
+  /** Returns whether the instruction at pc may be executed, finishing if a run limit is reached. */
+  public boolean canExecute(int pc) {
+    if (!canExecute()) return false;
+    if (haltAddress != null && pc == haltAddress) {
+      finish(FINISHED_AT_HALT_ADDRESS, 0);
+      return false;
+    }
+    if (instructionBudget >= 0 && instructionCount >= instructionBudget) {
+      finish(FINISHED_BY_BUDGET, 0);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Called instead of executing a trap instruction (ecall, ebreak, trap, break), returns whether
+   * the processor finished on it. exitValue is the value of the first argument register.
+   */
+  public boolean trapReached(int exitValue) {
+    if (!haltOnTrap) return false;
+    finish(FINISHED_BY_TRAP, exitValue);
+    return true;
+  }
+
+  private void finish(int reason, int value) {
+    finishReason = reason;
+    exitValue = value;
+    simulationState = SIMULATION_FINISHED;
+    fireChange();
+  }
+
+  public void instructionExecuted() {
+    instructionCount++;
+  }
+
+  public long getInstructionCount() {
+    return instructionCount;
+  }
+
+  public int getSimulationState() {
+    return simulationState;
+  }
+
+  public int getFinishReason() {
+    return finishReason;
+  }
+
+  public int getExitValue() {
+    return exitValue;
+  }
+
   public void errorInExecution() {
     simulationState = SIMULATION_HALTED_BY_ERROR;
     fireChange();
@@ -11,7 +11,6 @@ package com.cburch.logisim.soc.data;
 
 import com.cburch.logisim.soc.util.AssemblerInterface;
 import java.awt.event.WindowListener;
-import java.util.LinkedList;
 import javax.swing.JPanel;
 
 public interface SocUpStateInterface {
@@ -25,7 +24,7 @@ public interface SocUpStateInterface {
 
   int getProgramCounter();
 
-  LinkedList<TraceInfo> getTraces();
+  InstructionTrace getInstructionTrace();
 
   void simButtonPressed();
 
@@ -17,17 +17,42 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
 
+/** One instruction of an InstructionTrace, as it is shown. */
 public class TraceInfo {
   private final int pc;
   private final int instruction;
-  private final String asm;
+  private String asm;
   private boolean error;
+  private final InstructionTrace trace;
 
   public TraceInfo(int pc, int instruction, String asm, boolean error) {
+    this(pc, instruction, asm, error, null);
+  }
+
+  /** Creates an instruction of trace, which is disassembled when asm is null and it is painted. */
+  TraceInfo(int pc, int instruction, String asm, boolean error, InstructionTrace trace) {
     this.pc = pc;
     this.instruction = instruction;
     this.asm = asm;
     this.error = error;
+    this.trace = trace;
+  }
+
+  public int getPc() {
+    return pc;
+  }
+
+  public int getInstruction() {
+    return instruction;
+  }
+
+  public boolean isError() {
+    return error;
+  }
+
+  public String getAsm() {
+    if (asm == null && trace != null) asm = trace.disassemble(instruction);
+    return asm;
   }
 
   public void setError() {
@@ -51,7 +76,7 @@ public class TraceInfo {
             : new Font("Monospaced", Font.PLAIN, 12).deriveFont(Font.BOLD);
     g.setFont(myFont);
     Bounds bds = CpuDrawSupport.getBounds(xOff, yOffset + 15, 0, 0, scale);
-    g.drawString(asm, bds.getX(), bds.getY());
+    g.drawString(getAsm(), bds.getX(), bds.getY());
     g.setFont(f);
   }
 
@@ -139,6 +139,21 @@ public class JtagUart extends SocInstanceFactory {
     myState.handleOperations(state);
   }
 
+  /** Sends the characters written by the processors to stdout, as the Tty component does. */
+  public static void sendToStdout(InstanceState state) {
+    state.getAttributeValue(JtagUartAttributes.JTAG_STATE).getFifoState(state).setSendStdout(true);
+  }
+
+  /** Lets the processors read the characters typed on stdin, as the Keyboard component does. */
+  public static void addToBuffer(InstanceState state, char[] newChars) {
+    state.getAttributeValue(JtagUartAttributes.JTAG_STATE).getFifoState(state).addHostInput(newChars);
+  }
+
+  /** Returns whether characters written by the processors are still waiting to be sent. */
+  public static boolean hasPendingOutput(InstanceState state) {
+    return !state.getAttributeValue(JtagUartAttributes.JTAG_STATE).getFifoState(state).isWriteFifoEmpty();
+  }
+
   @Override
   public SocBusSlaveInterface getSlaveInterface(AttributeSet attrs) {
     return attrs.getValue(JtagUartAttributes.JTAG_STATE);
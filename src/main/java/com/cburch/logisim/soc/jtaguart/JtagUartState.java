@@ -11,6 +11,7 @@ package com.cburch.logisim.soc.jtaguart;
 
 import com.cburch.logisim.data.AttributeOption;
 import com.cburch.logisim.data.Value;
+import com.cburch.logisim.gui.start.TtyInterface;
 import com.cburch.logisim.instance.InstanceComponent;
 import com.cburch.logisim.instance.InstanceData;
 import com.cburch.logisim.instance.InstanceState;
@@ -37,6 +38,8 @@ public class JtagUartState implements SocBusSlaveInterface {
     private Value lastClock = Value.UNKNOWN;
     private boolean doReset = false;
     private boolean endReset = false;
+    private boolean sendStdout = false;
+    private final LinkedList<Integer> hostInput = new LinkedList<>();
 
     public JtagUartFifoState() {
       reset();
@@ -140,6 +143,22 @@ public class JtagUartState implements SocBusSlaveInterface {
       ReadFifo.add(val);
     }
 
+    public void setSendStdout(boolean value) {
+      sendStdout = value;
+    }
+
+    /** Queues characters typed on the host, they enter the read FIFO as space frees up. */
+    public void addHostInput(char[] chars) {
+      for (final var c : chars) hostInput.add(c & 0xFF);
+    }
+
+    private void pollHostInput() {
+      while (!hostInput.isEmpty() && ReadFifo.size() < getSize(readFifoSize)) {
+        ReadFifo.add(hostInput.removeFirst());
+        acBit = true;
+      }
+    }
+
     private int getSize(AttributeOption opt) {
       if (opt.equals(JtagUartAttributes.OPT_8)) return 8;
       if (opt.equals(JtagUartAttributes.OPT_16)) return 16;
@@ -250,14 +269,19 @@ public class JtagUartState implements SocBusSlaveInterface {
     d.readIrqThreshold = readIrqThreshold;
   }
 
-  public void handleOperations(InstanceState state) {
-    Value curReset = state.getPortValue(JtagUart.RESET_PIN);
-    Value curClock = state.getPortValue(JtagUart.CLOCK_PIN);
-    JtagUartFifoState instState = (JtagUartFifoState) state.getData();
+  public JtagUartFifoState getFifoState(InstanceState state) {
+    var instState = (JtagUartFifoState) state.getData();
     if (instState == null) {
       instState = new JtagUartFifoState();
       state.setData(instState);
     }
+    return instState;
+  }
+
+  public void handleOperations(InstanceState state) {
+    Value curReset = state.getPortValue(JtagUart.RESET_PIN);
+    Value curClock = state.getPortValue(JtagUart.CLOCK_PIN);
+    final var instState = getFifoState(state);
     instState.setReset(curReset);
     if (instState.doReset) {
       state.setPort(JtagUart.READ_ENABLE_PIN, Value.FALSE, 5);
@@ -286,7 +310,9 @@ public class JtagUartState implements SocBusSlaveInterface {
         instState.setAcBit();
         state.setPort(JtagUart.WRITE_PIN, Value.TRUE, 5);
         state.setPort(JtagUart.DATA_OUT_PIN, Value.createKnown(7, val), 5);
+        if (instState.sendStdout) TtyInterface.sendFromTty((char) val);
       }
+      instState.pollHostInput();
       if (state.getPortValue(JtagUart.AVAILABLE_PIN) == Value.TRUE
           && state.getPortValue(JtagUart.READ_ENABLE_PIN) == Value.FALSE) {
         instState.setAcBit();
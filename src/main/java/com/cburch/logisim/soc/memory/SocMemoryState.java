@@ -19,134 +19,94 @@ import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocSupport;
 import com.cburch.logisim.util.StringUtil;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.Random;
 
 public class SocMemoryState implements SocBusSlaveInterface {
 
+  /**
+   * The contents of a memory, by word. The words are kept in pages that are allocated on the first
+   * write to them, and a bit per word tells whether it was written; a word that was never written
+   * reads as a random value. A clone shares the pages until either side writes to them.
+   */
   public class SocMemoryInfo implements InstanceData, Cloneable {
-    private class SocMemoryInfoBlock {
-      private final LinkedList<Integer> contents = new LinkedList<>();
-      private int startAddress;
-      private final Random rand = new Random();
-
-      public SocMemoryInfoBlock(int address, int data) {
-        startAddress = (address >> 2) << 2;
-        contents.add(data);
-      }
-
-      public boolean canAddBefore(int address) {
-        final var previousAddress = getStartAddress() - 4;
-        return (address >= previousAddress) && (address < getStartAddress());
-      }
-
-      public boolean canAddAfter(int address) {
-        return (address >= getEndAddress()) && (address < getEndAddress() + 4);
-      }
-
-      public boolean contains(int address) {
-        return (address >= getStartAddress()) && (address < getEndAddress());
-      }
-
-      public boolean canAdd(int address) {
-        return canAddBefore(address) || canAddAfter(address);
-      }
-
-      public boolean addInfo(int address, int data) {
-        if (canAddBefore(address)) {
-          contents.addFirst(data);
-          startAddress -= 4;
-          return true;
-        }
-        if (canAddAfter(address)) {
-          contents.add(data);
-          return true;
-        }
-        if (contains(address)) {
-          final var index = (address - startAddress) >> 2;
-          contents.set(index, data);
-          return true;
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_WORDS = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_WORDS - 1;
+    /** The 30 bits of a word address are split into a directory index and a page index. */
+    private static final int DIRECTORY_BITS = 30 - 2 * PAGE_BITS;
+
+    private static final class Page implements Cloneable {
+      private int[] words = new int[PAGE_WORDS];
+      private long[] written = new long[PAGE_WORDS / 64];
+      /** Set when a clone refers to this page too, which must then be copied before a write. */
+      private boolean shared;
+
+      @Override
+      public Page clone() {
+        try {
+          final var ret = (Page) super.clone();
+          ret.words = words.clone();
+          ret.written = written.clone();
+          ret.shared = false;
+          return ret;
+        } catch (CloneNotSupportedException e) {
+          return null;
         }
-        return false;
-      }
-
-      public int getValue(int address) {
-        final var index = (address - startAddress) >> 2;
-        if (index >= contents.size()) {
-          return rand.nextInt();
-        }
-        return contents.get(index);
-      }
-
-      public int getStartAddress() {
-        return startAddress;
-      }
-
-      public int getEndAddress() {
-        return startAddress + contents.size() * 4;
       }
     }
 
-    private final ArrayList<SocMemoryInfoBlock> memInfo;
+    private Page[][] directory = new Page[1 << DIRECTORY_BITS][];
 
-    public SocMemoryInfo() {
-      memInfo = new ArrayList<>();
-    }
+    public SocMemoryInfo() {}
 
     @Override
     public SocMemoryInfo clone() {
       try {
-        return (SocMemoryInfo) super.clone();
+        final var ret = (SocMemoryInfo) super.clone();
+        ret.directory = directory.clone();
+        for (var i = 0; i < directory.length; i++) {
+          if (directory[i] == null) continue;
+          ret.directory[i] = directory[i].clone();
+          for (final var page : directory[i]) {
+            if (page != null) page.shared = true;
+          }
+        }
+        return ret;
       } catch (CloneNotSupportedException e) {
         return null;
       }
     }
 
     public int getWord(int address) {
-      for (final var info : memInfo)
-        if (info.contains(address)) return info.getValue(address);
+      final var word = address >>> 2;
+      final var pages = directory[word >>> (2 * PAGE_BITS)];
+      if (pages != null) {
+        final var page = pages[(word >>> PAGE_BITS) & PAGE_MASK];
+        final var index = word & PAGE_MASK;
+        if (page != null && (page.written[index >>> 6] & (1L << index)) != 0) return page.words[index];
+      }
       return rand.nextInt();
     }
 
     public void writeWord(int address, int wdata) {
-      final var adders = new ArrayList<SocMemoryInfoBlock>();
-      for (final var info : memInfo) {
-        if (info.contains(address)) {
-          info.addInfo(address, wdata);
-          return;
-        }
-        if (info.canAdd(address)) adders.add(info);
-      }
-      if (adders.isEmpty()) {
-        /* we have to create a new set */
-        memInfo.add(new SocMemoryInfoBlock(address, wdata));
-        return;
+      final var word = address >>> 2;
+      var pages = directory[word >>> (2 * PAGE_BITS)];
+      if (pages == null) {
+        pages = new Page[PAGE_WORDS];
+        directory[word >>> (2 * PAGE_BITS)] = pages;
       }
-      if (adders.size() == 1) {
-        /* easy case we can add in front or at the end of an existing one */
-        adders.get(0).addInfo(address, wdata);
-        return;
+      final var pageIndex = (word >>> PAGE_BITS) & PAGE_MASK;
+      var page = pages[pageIndex];
+      if (page == null) {
+        page = new Page();
+        pages[pageIndex] = page;
+      } else if (page.shared) {
+        page = page.clone();
+        pages[pageIndex] = page;
       }
-      if (adders.size() > 2) {
-        // FIXME: hardcoded string
-        System.out.println("BUG! Memory management does not function corectly for the SocMemory component!");
-        return;
-      }
-      final var addBefore = adders.get(0).canAddBefore(address)
-                            ? adders.get(0)
-                            : adders.get(1).canAddBefore(address) ? adders.get(1) : null;
-      final var addAfter = adders.get(0).canAddAfter(address)
-                           ? adders.get(0)
-                           : adders.get(1).canAddAfter(address) ? adders.get(1) : null;
-      if (addBefore == null || addAfter == null) {
-        System.out.println("BUG! Memory management does not function corectly for the SocMemory component!");
-        return;
-      }
-      addAfter.addInfo(address, wdata);
-      for (var i = addBefore.getStartAddress(); i < addBefore.getEndAddress(); i += 4) {
-        addAfter.addInfo(i, addBefore.getValue(i));
-      }
-      memInfo.remove(addBefore);
+      final var index = word & PAGE_MASK;
+      page.words[index] = wdata;
+      page.written[index >>> 6] |= 1L << index;
     }
   }
 
@@ -229,6 +189,11 @@ public class SocMemoryState implements SocBusSlaveInterface {
     return (InstanceComponent) attachedBus.getComponent();
   }
 
+  @Override
+  public boolean isSideEffectFree() {
+    return true;
+  }
+
   @Override
   public void registerListener(SocBusSlaveListener l) {
     if (!listeners.contains(l)) listeners.add(l);
@@ -142,6 +142,11 @@ public class Nios2DataTransferInstructions implements AssemblerExecutionInterfac
     return false;
   }
 
+  /** Returns the address the decoded load or store accesses in the given processor state. */
+  int getAddress(Nios2State.ProcessorState cpuState) {
+    return cpuState.getRegisterValue(base) + immediate;
+  }
+
   private boolean transactionHasError(SocBusTransaction trans) {
     if (trans.hasError()) {
       StringBuilder s = new StringBuilder();
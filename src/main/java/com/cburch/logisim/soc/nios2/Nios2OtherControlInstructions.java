@@ -98,6 +98,11 @@ public class Nios2OtherControlInstructions implements AssemblerExecutionInterfac
     return true;
   }
 
+  /** Returns whether the instruction is a trap or break, with which a program may finish. */
+  public boolean isTrap() {
+    return valid && (operation == INSTR_TRAP || operation == INSTR_BREAK);
+  }
+
   public String getAsmInstruction() {
     if (!valid) return null;
     StringBuilder s = new StringBuilder();
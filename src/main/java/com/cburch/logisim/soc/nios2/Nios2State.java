@@ -22,7 +22,9 @@ import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstanceComponent;
 import com.cburch.logisim.instance.InstanceData;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.soc.data.InstructionTrace;
 import com.cburch.logisim.soc.data.SocBusInfo;
+import com.cburch.logisim.soc.data.SocBusStateInfo;
 import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocProcessorInterface;
 import com.cburch.logisim.soc.data.SocSupport;
@@ -30,13 +32,14 @@ import com.cburch.logisim.soc.data.SocUpMenuProvider;
 import com.cburch.logisim.soc.data.SocUpSimulationState;
 import com.cburch.logisim.soc.data.SocUpSimulationStateListener;
 import com.cburch.logisim.soc.data.SocUpStateInterface;
-import com.cburch.logisim.soc.data.TraceInfo;
 import com.cburch.logisim.soc.file.ElfHeader;
 import com.cburch.logisim.soc.file.ElfProgramHeader;
 import com.cburch.logisim.soc.file.ElfSectionHeader;
 import com.cburch.logisim.soc.gui.BreakpointPanel;
 import com.cburch.logisim.soc.gui.CpuDrawSupport;
+import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerInterface;
+import com.cburch.logisim.soc.util.DecodedInstructionCache;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
@@ -44,7 +47,6 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
-import java.util.LinkedList;
 import java.util.Map;
 import javax.swing.JPanel;
 import org.fife.ui.rsyntaxtextarea.AbstractTokenMakerFactory;
@@ -65,8 +67,8 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     private int ienable;
     private int ipending;
     private int lastRegisterWritten = -1;
-    private final LinkedList<TraceInfo> instrTrace;
-    private final Object instrTraceLock = new Object();
+    private final InstructionTrace instrTrace =
+        new InstructionTrace(CpuDrawSupport.NR_OF_TRACES, new Nios2Assembler(), S.get("RV32imFetchInvInstrAsm"));
     private Value lastClock;
     private final SocUpSimulationState simState;
     private final Instance myInstance;
@@ -74,11 +76,12 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     private Integer entryPoint;
     private boolean programLoaded;
     private final BreakpointPanel bPanel;
+    private final DecodedInstructionCache decodedInstructions = new DecodedInstructionCache(ASSEMBLER);
+    private AssemblerExecutionInterface lastExe = null;
 
     public ProcessorState(Instance inst) {
       registers = new int[32];
       registers_valid = new Boolean[32];
-      instrTrace = new LinkedList<>();
       lastClock = Value.createUnknown(BitWidth.ONE);
       simState = new SocUpSimulationState();
       myInstance = inst;
@@ -122,9 +125,9 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
       bstatus = 0;
       ienable = 0;
       ipending = 0;
-      synchronized (instrTraceLock) {
-        instrTrace.clear();
-      }
+      lastExe = null;
+      decodedInstructions.clear();
+      instrTrace.clear();
       if (visible) repaint();
       simState.reset();
     }
@@ -279,14 +282,28 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     }
 
     public void execute(CircuitState cState) {
+      if (!executeInstruction(cState, false)) return;
+      if (!AppPreferences.SOC_FAST_FORWARD.getBoolean()) return;
+      for (var i = 1; i < SocUpSimulationState.FAST_FORWARD_INSTRUCTIONS; i++) {
+        if (!executeInstruction(cState, true)) return;
+      }
+    }
+
+    /**
+     * Executes the instruction at the program counter, and returns whether the next one may follow
+     * in the same clock cycle. When fast-forwarding, the instruction is only executed if it only
+     * accesses slaves without side effects, and the fetch is not shown on the bus.
+     */
+    private boolean executeInstruction(CircuitState cState, boolean fastForward) {
       /* check the simulation state */
-      if (!simState.canExecute()) return;
+      if (!simState.canExecute(pc)) return false;
       /* here we handle the custom instructions */
-      if (ASSEMBLER.getExeUnit() != null && ASSEMBLER.getExeUnit() instanceof Nios2CustomInstructions cust) {
-        if (cust.isValid() && cust.waitingOnReady(this, cState)) return;
+      if (lastExe instanceof Nios2CustomInstructions cust) {
+        if (cust.isValid() && cust.waitingOnReady(this, cState)) return false;
       }
       Map<Integer, Integer> breakPoints = bPanel.getBreakPoints();
       if (breakPoints.containsKey(pc)) {
+        if (fastForward) return false;
         if (simState.breakPointReached()) {
           bPanel.gotoLine(breakPoints.get(pc) - 1);
           OptionPane.showMessageDialog(
@@ -294,43 +311,59 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
               S.get("RV32imBreakPointReached"),
               SocSupport.getMasterName(cState, Nios2State.this.getName()),
               OptionPane.INFORMATION_MESSAGE);
-          return;
+          return false;
         }
       }
-      /* check interrupts */
-      if ((status & STATUS_PIE) != 0) {
-        int maskedIrqs = ienable & ipending;
-        if (maskedIrqs != 0) {
-          writeRegister(29, pc);
-          interrupt();
-          repaint();
+      final var bus = attachedBus.getSocSimulationManager().getSocBusState(attachedBus.getBusId());
+      decodedInstructions.attach(bus);
+      int instruction;
+      AssemblerExecutionInterface exe;
+      if (fastForward) {
+        if (bus == null || ((status & STATUS_PIE) != 0 && (ienable & ipending) != 0)) return false;
+        if (decodedInstructions.contains(pc)) {
+          instruction = decodedInstructions.getWord(pc);
+        } else {
+          if (!bus.isSideEffectFree(pc)) return false;
+          final var trans = new SocBusTransaction(SocBusTransaction.READ_TRANSACTION, pc, 0,
+              SocBusTransaction.WORD_ACCESS, attachedBus.getComponent());
+          insertTransaction(trans, true, cState);
+          if (trans.hasError()) return false;
+          instruction = trans.getReadData();
         }
+        exe = decodedInstructions.decode(pc, instruction);
+        if (!canFastForward(exe, bus)) return false;
+      } else {
+        /* check interrupts */
+        if ((status & STATUS_PIE) != 0) {
+          int maskedIrqs = ienable & ipending;
+          if (maskedIrqs != 0) {
+            writeRegister(29, pc);
+            interrupt();
+            repaint();
+          }
+        }
+        /* fetch an instruction */
+        SocBusTransaction trans =
+            new SocBusTransaction(SocBusTransaction.READ_TRANSACTION, pc, 0, SocBusTransaction.WORD_ACCESS, attachedBus.getComponent());
+        attachedBus
+            .getSocSimulationManager()
+            .initializeTransaction(trans, attachedBus.getBusId(), cState);
+        if (trans.hasError()) {
+          OptionPane.showMessageDialog(
+              null,
+              trans.getErrorMessage(),
+              SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
+              OptionPane.ERROR_MESSAGE);
+          simState.errorInExecution();
+          return false;
+        }
+        /* decode instruction */
+        instruction = trans.getReadData();
+        exe = decodedInstructions.decode(pc, instruction);
       }
-      /* fetch an instruction */
-      SocBusTransaction trans =
-          new SocBusTransaction(SocBusTransaction.READ_TRANSACTION, pc, 0, SocBusTransaction.WORD_ACCESS, attachedBus.getComponent());
-      attachedBus
-          .getSocSimulationManager()
-          .initializeTransaction(trans, attachedBus.getBusId(), cState);
-      if (trans.hasError()) {
-        OptionPane.showMessageDialog(
-            null,
-            trans.getErrorMessage(),
-            SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
-            OptionPane.ERROR_MESSAGE);
-        simState.errorInExecution();
-        return;
-      }
-      /* decode instruction */
-      final var instruction = trans.getReadData();
-      ASSEMBLER.decode(instruction);
+      lastExe = exe;
       /* execute instruction */
-      final var exe = ASSEMBLER.getExeUnit();
       lastRegisterWritten = -1;
-      synchronized (instrTraceLock) {
-        while (instrTrace.size() >= CpuDrawSupport.NR_OF_TRACES)
-          instrTrace.removeLast();
-      }
       if (exe == null) {
         OptionPane.showMessageDialog(
             null,
@@ -338,14 +371,16 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
             SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        synchronized (instrTraceLock) {
-          instrTrace.addFirst(new TraceInfo(pc, instruction, S.get("RV32imFetchInvInstrAsm"), true));
-        }
+        instrTrace.add(pc, instruction, InstructionTrace.FLAG_INVALID);
         pc = pc + 4;
         if (visible) repaint();
-        return;
+        return false;
+      }
+      if (exe instanceof Nios2OtherControlInstructions control && control.isTrap()
+          && simState.trapReached(getRegisterValue(4))) {
+        if (visible) repaint();
+        return false;
       }
-      final var trace = new TraceInfo(pc, instruction, exe.getAsmInstruction(), false);
       if (!exe.execute(this, cState)) {
         final var s = new StringBuilder();
         s.append(S.get("RV32imFetchExecutionError"));
@@ -357,19 +392,29 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
             SocSupport.getMasterName(cState, Nios2State.this.getName()) + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        trace.setError();
-        synchronized (instrTraceLock) {
-          instrTrace.addFirst(trace);
-        }
+        instrTrace.add(pc, instruction, InstructionTrace.FLAG_ERROR);
         if (visible) repaint();
-        return;
-      }
-      synchronized (instrTraceLock) {
-        instrTrace.addFirst(trace);
+        return false;
       }
+      instrTrace.add(pc, instruction, 0);
+      simState.instructionExecuted();
       /* all done increment pc */
       if (!exe.performedJump()) pc = pc + 4;
       if (visible) repaint();
+      return true;
+    }
+
+    /** Returns whether exe can be executed ahead of the clock, i.e. without effects outside memory. */
+    private boolean canFastForward(AssemblerExecutionInterface exe, SocBusStateInfo bus) {
+      if (exe == null
+          || exe instanceof Nios2CustomInstructions
+          || exe instanceof Nios2OtherControlInstructions) {
+        return false;
+      }
+      if (exe instanceof Nios2DataTransferInstructions dataTransfer) {
+        return bus.isSideEffectFree(dataTransfer.getAddress(this));
+      }
+      return true;
     }
 
     @Override
@@ -402,6 +447,7 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
 
     @Override
     public void destroy() {
+      instrTrace.stopRecording();
       SocUpMenuProvider.SOCUPMENUPROVIDER.deregisterCpuState(this, myInstance);
     }
 
@@ -448,12 +494,8 @@ public class Nios2State implements SocUpSimulationStateListener, SocProcessorInt
     }
 
     @Override
-    public LinkedList<TraceInfo> getTraces() {
-      synchronized (instrTraceLock) {
-        @SuppressWarnings("unchecked")
-        LinkedList<TraceInfo> ret = (LinkedList<TraceInfo>) instrTrace.clone();
-        return ret;
-      }
+    public InstructionTrace getInstructionTrace() {
+      return instrTrace;
     }
 
     @Override
@@ -51,6 +51,11 @@ public class RV32imEnvironmentCallAndBreakpoints implements AssemblerExecutionIn
     return true;
   }
 
+  /** Returns whether the instruction is an ecall or ebreak, with which a program may finish. */
+  public boolean isTrap() {
+    return valid && operation != INSTR_MRET;
+  }
+
   @Override
   public String getAsmInstruction() {
     if (!valid) return null;
@@ -123,6 +123,11 @@ public class RV32imLoadAndStoreInstructions implements AssemblerExecutionInterfa
     return false;
   }
 
+  /** Returns the address the decoded load or store accesses in the given processor state. */
+  int getAddress(RV32imState.ProcessorState cpuState) {
+    return cpuState.getRegisterValue(base) + immediate;
+  }
+
   private boolean transactionHasError(SocBusTransaction trans) {
     if (trans.hasError()) {
       StringBuilder s = new StringBuilder();
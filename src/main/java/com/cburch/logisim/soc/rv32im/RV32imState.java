@@ -23,7 +23,9 @@ import com.cburch.logisim.instance.InstanceComponent;
 import com.cburch.logisim.instance.InstanceData;
 import com.cburch.logisim.instance.InstanceStateImpl;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.soc.data.InstructionTrace;
 import com.cburch.logisim.soc.data.SocBusInfo;
+import com.cburch.logisim.soc.data.SocBusStateInfo;
 import com.cburch.logisim.soc.data.SocBusTransaction;
 import com.cburch.logisim.soc.data.SocProcessorInterface;
 import com.cburch.logisim.soc.data.SocSupport;
@@ -31,13 +33,14 @@ import com.cburch.logisim.soc.data.SocUpMenuProvider;
 import com.cburch.logisim.soc.data.SocUpSimulationState;
 import com.cburch.logisim.soc.data.SocUpSimulationStateListener;
 import com.cburch.logisim.soc.data.SocUpStateInterface;
-import com.cburch.logisim.soc.data.TraceInfo;
 import com.cburch.logisim.soc.file.ElfHeader;
 import com.cburch.logisim.soc.file.ElfProgramHeader;
 import com.cburch.logisim.soc.file.ElfSectionHeader;
 import com.cburch.logisim.soc.gui.BreakpointPanel;
 import com.cburch.logisim.soc.gui.CpuDrawSupport;
+import com.cburch.logisim.soc.util.AssemblerExecutionInterface;
 import com.cburch.logisim.soc.util.AssemblerInterface;
+import com.cburch.logisim.soc.util.DecodedInstructionCache;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringUtil;
 import java.awt.Color;
@@ -46,7 +49,6 @@ import java.awt.Graphics2D;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
 import java.util.Arrays;
-import java.util.LinkedList;
 import javax.swing.JPanel;
 import org.fife.ui.rsyntaxtextarea.AbstractTokenMakerFactory;
 import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
@@ -96,8 +98,8 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     private final Boolean[] registers_valid;
     private int pc;
     private int lastRegisterWritten = -1;
-    private final LinkedList<TraceInfo> instrTrace;
-    private final Object instrTraceLock = new Object();
+    private final InstructionTrace instrTrace =
+        new InstructionTrace(CpuDrawSupport.NR_OF_TRACES, new RV32imAssembler(), S.get("RV32imFetchInvInstrAsm"));
     private Value lastClock;
     private final SocUpSimulationState simState;
     private final Instance myInstance;
@@ -105,12 +107,12 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     private Integer entryPoint;
     private boolean programLoaded;
     private final BreakpointPanel bPanel;
+    private final DecodedInstructionCache decodedInstructions = new DecodedInstructionCache(ASSEMBLER);
 
     public ProcessorState(Instance inst) {
       csrs = new int[implementedSprs.length];
       registers = new int[32];
       registers_valid = new Boolean[32];
-      instrTrace = new LinkedList<>();
       lastClock = Value.createUnknown(BitWidth.ONE);
       simState = new SocUpSimulationState();
       myInstance = inst;
@@ -157,9 +159,8 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
       Arrays.fill(csrs, 0);
       // mtvec remains 0 until firmware initializes it
       lastRegisterWritten = -1;
-      synchronized (instrTraceLock) {
-        instrTrace.clear();
-      }
+      decodedInstructions.clear();
+      instrTrace.clear();
       if (visible) repaint();
       simState.reset();
     }
@@ -301,10 +302,24 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     }
 
     public void execute(CircuitState cState) {
+      if (!executeInstruction(cState, false)) return;
+      if (!AppPreferences.SOC_FAST_FORWARD.getBoolean()) return;
+      for (var i = 1; i < SocUpSimulationState.FAST_FORWARD_INSTRUCTIONS; i++) {
+        if (!executeInstruction(cState, true)) return;
+      }
+    }
+
+    /**
+     * Executes the instruction at the program counter, and returns whether the next one may follow
+     * in the same clock cycle. When fast-forwarding, the instruction is only executed if it only
+     * accesses slaves without side effects, and the fetch is not shown on the bus.
+     */
+    private boolean executeInstruction(CircuitState cState, boolean fastForward) {
       /* check the simulation state */
-      if (!simState.canExecute()) return;
+      if (!simState.canExecute(pc)) return false;
       final var breakPoints = bPanel.getBreakPoints();
       if (breakPoints.containsKey(pc)) {
+        if (fastForward) return false;
         if (simState.breakPointReached()) {
           bPanel.gotoLine(breakPoints.get(pc) - 1);
           OptionPane.showMessageDialog(
@@ -312,42 +327,57 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
               S.get("RV32imBreakPointReached"),
               SocSupport.getMasterName(cState, RV32imState.this.getName()),
               OptionPane.INFORMATION_MESSAGE);
-          return;
+          return false;
         }
       }
-      /* Check interrupts */
-      if (isMachineExternalInterruptEnabled()) takeMachineExternalInterrupt();
-      /* fetch an instruction */
-      final var trans =
-          new SocBusTransaction(
-              SocBusTransaction.READ_TRANSACTION,
-              pc,
-              0,
-              SocBusTransaction.WORD_ACCESS,
-              attachedBus.getComponent());
-      attachedBus
-          .getSocSimulationManager()
-          .initializeTransaction(trans, attachedBus.getBusId(), cState);
-      if (trans.hasError()) {
-        OptionPane.showMessageDialog(
-            null,
-            trans.getErrorMessage(),
-            SocSupport.getMasterName(cState, RV32imState.this.getName())
-                + S.get("RV32imFetchTransaction"),
-            OptionPane.ERROR_MESSAGE);
-        simState.errorInExecution();
-        return;
+      final var bus = attachedBus.getSocSimulationManager().getSocBusState(attachedBus.getBusId());
+      decodedInstructions.attach(bus);
+      int instruction;
+      AssemblerExecutionInterface exe;
+      if (fastForward) {
+        if (bus == null || isMachineExternalInterruptEnabled()) return false;
+        if (decodedInstructions.contains(pc)) {
+          instruction = decodedInstructions.getWord(pc);
+        } else {
+          if (!bus.isSideEffectFree(pc)) return false;
+          final var trans = new SocBusTransaction(SocBusTransaction.READ_TRANSACTION, pc, 0,
+              SocBusTransaction.WORD_ACCESS, attachedBus.getComponent());
+          insertTransaction(trans, true, cState);
+          if (trans.hasError()) return false;
+          instruction = trans.getReadData();
+        }
+        exe = decodedInstructions.decode(pc, instruction);
+        if (!canFastForward(exe, bus)) return false;
+      } else {
+        /* Check interrupts */
+        if (isMachineExternalInterruptEnabled()) takeMachineExternalInterrupt();
+        /* fetch an instruction */
+        final var trans =
+            new SocBusTransaction(
+                SocBusTransaction.READ_TRANSACTION,
+                pc,
+                0,
+                SocBusTransaction.WORD_ACCESS,
+                attachedBus.getComponent());
+        attachedBus
+            .getSocSimulationManager()
+            .initializeTransaction(trans, attachedBus.getBusId(), cState);
+        if (trans.hasError()) {
+          OptionPane.showMessageDialog(
+              null,
+              trans.getErrorMessage(),
+              SocSupport.getMasterName(cState, RV32imState.this.getName())
+                  + S.get("RV32imFetchTransaction"),
+              OptionPane.ERROR_MESSAGE);
+          simState.errorInExecution();
+          return false;
+        }
+        /* decode instruction */
+        instruction = trans.getReadData();
+        exe = decodedInstructions.decode(pc, instruction);
       }
-      /* decode instruction */
-      int instruction = trans.getReadData();
-      ASSEMBLER.decode(instruction);
       /* execute instruction */
-      final var exe = ASSEMBLER.getExeUnit();
       lastRegisterWritten = -1;
-      synchronized (instrTraceLock) {
-        while (instrTrace.size() >= CpuDrawSupport.NR_OF_TRACES) 
-          instrTrace.removeLast();
-      }
       if (exe == null) {
         OptionPane.showMessageDialog(
             null,
@@ -356,14 +386,16 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
                 + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        synchronized (instrTraceLock) {
-          instrTrace.addFirst(new TraceInfo(pc, instruction, S.get("RV32imFetchInvInstrAsm"), true));
-        }
+        instrTrace.add(pc, instruction, InstructionTrace.FLAG_INVALID);
         pc = pc + 4;
         if (visible) repaint();
-        return;
+        return false;
+      }
+      if (exe instanceof RV32imEnvironmentCallAndBreakpoints control && control.isTrap()
+          && simState.trapReached(getRegisterValue(10))) {
+        if (visible) repaint();
+        return false;
       }
-      final var trace = new TraceInfo(pc, instruction, exe.getAsmInstruction(), false);
       if (!exe.execute(this, cState)) {
         final var s = new StringBuilder();
         s.append(S.get("RV32imFetchExecutionError"));
@@ -375,19 +407,32 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
                 + S.get("RV32imFetchTransaction"),
             OptionPane.ERROR_MESSAGE);
         simState.errorInExecution();
-        trace.setError();
-        synchronized (instrTraceLock) {
-          instrTrace.addFirst(trace);
-        }
+        instrTrace.add(pc, instruction, InstructionTrace.FLAG_ERROR);
         if (visible) repaint();
-        return;
-      }
-      synchronized (instrTraceLock) {
-        instrTrace.addFirst(trace);
+        return false;
       }
+      instrTrace.add(pc, instruction, 0);
+      simState.instructionExecuted();
       /* all done increment pc */
       if (!exe.performedJump()) pc = pc + 4;
       if (visible) repaint();
+      return true;
+    }
+
+    /**
+     * Returns whether exe can be executed ahead of the clock, i.e. without effects outside memory.
+     * CSR instructions are not, as they can enable interrupts or change how traps are handled.
+     */
+    private boolean canFastForward(AssemblerExecutionInterface exe, SocBusStateInfo bus) {
+      if (exe == null
+          || exe instanceof RV32imEnvironmentCallAndBreakpoints
+          || exe instanceof RV32im_Zicsr_ExtensionInstructions) {
+        return false;
+      }
+      if (exe instanceof RV32imLoadAndStoreInstructions loadStore) {
+        return bus.isSideEffectFree(loadStore.getAddress(this));
+      }
+      return true;
     }
 
     @Override
@@ -414,6 +459,7 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
 
     @Override
     public void destroy() {
+      instrTrace.stopRecording();
       SocUpMenuProvider.SOCUPMENUPROVIDER.deregisterCpuState(this, myInstance);
     }
 
@@ -460,12 +506,8 @@ public class RV32imState implements SocUpSimulationStateListener, SocProcessorIn
     }
 
     @Override
-    public LinkedList<TraceInfo> getTraces() {
-      synchronized (instrTraceLock) {
-        @SuppressWarnings("unchecked")
-        LinkedList<TraceInfo> ret = (LinkedList<TraceInfo>) instrTrace.clone();
-        return ret;
-      }
+    public InstructionTrace getInstructionTrace() {
+      return instrTrace;
     }
 
     @Override
@@ -0,0 +1,91 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.util;
+
+import com.cburch.logisim.soc.data.SocBusSnifferInterface;
+import com.cburch.logisim.soc.data.SocBusStateInfo;
+import com.cburch.logisim.soc.data.SocBusTransaction;
+import java.util.Arrays;
+
+/**
+ * Remembers, for the instructions a processor executed, the instruction word and the execution
+ * unit that decoded it, by program counter. A hit only needs that one unit to decode the word again,
+ * instead of all the units of the assembler. The entries are dropped when the bus writes their
+ * address, so that a cached word can also be executed without fetching it again.
+ */
+public class DecodedInstructionCache implements SocBusSnifferInterface {
+  private static final int INDEX_BITS = 12;
+  private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+
+  private final AssemblerInterface assembler;
+  private final int[] addresses = new int[1 << INDEX_BITS];
+  private final int[] words = new int[1 << INDEX_BITS];
+  private final AssemblerExecutionInterface[] units = new AssemblerExecutionInterface[1 << INDEX_BITS];
+  private SocBusStateInfo bus = null;
+
+  public DecodedInstructionCache(AssemblerInterface assembler) {
+    this.assembler = assembler;
+  }
+
+  private static int index(int address) {
+    return (address >>> 2) & INDEX_MASK;
+  }
+
+  /** Follows the writes on bus, which must be the bus the instructions are fetched from. */
+  public void attach(SocBusStateInfo bus) {
+    if (bus == this.bus) return;
+    if (this.bus != null) this.bus.removeWriteSniffer(this);
+    clear();
+    this.bus = bus;
+    if (bus != null) bus.registerWriteSniffer(this);
+  }
+
+  public void clear() {
+    Arrays.fill(units, null);
+  }
+
+  /** Returns whether the word at address is known, so that it need not be fetched. */
+  public boolean contains(int address) {
+    final var i = index(address);
+    return units[i] != null && addresses[i] == address;
+  }
+
+  /** Returns the word at address, which must be known. */
+  public int getWord(int address) {
+    return words[index(address)];
+  }
+
+  /**
+   * Decodes the instruction word fetched from address, and returns the execution unit that executes
+   * it, or null if it is not a valid instruction.
+   */
+  public AssemblerExecutionInterface decode(int address, int word) {
+    final var i = index(address);
+    var unit = units[i];
+    if (unit != null && addresses[i] == address && words[i] == word) {
+      unit.setBinInstruction(word);
+      return unit;
+    }
+    assembler.decode(word);
+    unit = assembler.getExeUnit();
+    addresses[i] = address;
+    words[i] = word;
+    units[i] = unit;
+    return unit;
+  }
+
+  @Override
+  public void sniffTransaction(SocBusTransaction trans) {
+    if (!trans.isWriteTransaction()) return;
+    final var address = trans.getAddress() & ~3;
+    final var i = index(address);
+    if (addresses[i] == address) units[i] = null;
+  }
+}
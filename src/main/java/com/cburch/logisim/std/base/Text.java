@@ -164,6 +164,11 @@ public class Text extends InstanceFactory {
     g.setFont(old);
   }
 
+  @Override
+  public boolean hasStaticAppearance(AttributeSet attrs) {
+    return true;
+  }
+
   @Override
   public void paintInstance(InstancePainter painter) {
     final var loc = painter.getLocation();
@@ -12,6 +12,7 @@ package com.cburch.logisim.std.gates;
 import com.cburch.logisim.LogisimVersion;
 import com.cburch.logisim.analyze.model.Expression;
 import com.cburch.logisim.analyze.model.Expressions;
+import com.cburch.logisim.circuit.DenseLogicEmitter;
 import com.cburch.logisim.circuit.ExpressionComputer;
 import com.cburch.logisim.comp.TextField;
 import com.cburch.logisim.data.Attribute;
@@ -30,6 +31,7 @@ import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
 import com.cburch.logisim.tools.WireRepair;
 import com.cburch.logisim.tools.WireRepairData;
 import com.cburch.logisim.tools.key.BitWidthConfigurator;
@@ -210,6 +212,14 @@ abstract class AbstractGate extends InstanceFactory {
   //
   protected abstract Value getIdentity();
 
+  /**
+   * Returns the two-input {@link DenseLogicCircuit} gate type that combines the last two inputs of
+   * this gate, or -1 if the gate cannot be compiled with the given attributes.
+   */
+  protected int getDenseGateType(GateAttributes attrs) {
+    return -1;
+  }
+
   Location getInputOffset(GateAttributes attrs, int index) {
     final var inputs = attrs.inputs;
     final var facing = attrs.facing;
@@ -304,9 +314,59 @@ abstract class AbstractGate extends InstanceFactory {
             }
           };
     }
+    if (key == DenseLogicEmitter.class) {
+      final var attrs = (GateAttributes) instance.getAttributeSet();
+      final var type = getDenseGateType(attrs);
+      if (type < 0 || attrs.out != GateAttributes.OUTPUT_01) return null;
+      return (DenseLogicEmitter) context -> emitDenseLogic(instance, type, context);
+    }
     return super.getInstanceFeature(instance, key);
   }
 
+  private static void emitDenseLogic(Instance instance, int type, DenseLogicEmitter.Context context) {
+    final var attrs = (GateAttributes) instance.getAttributeSet();
+    final var builder = context.getBuilder();
+    final var inverting = type == DenseLogicCircuit.GATE_NAND
+        || type == DenseLogicCircuit.GATE_NOR
+        || type == DenseLogicCircuit.GATE_NXOR;
+    final var accumulate = switch (type) {
+      case DenseLogicCircuit.GATE_NAND -> DenseLogicCircuit.GATE_AND;
+      case DenseLogicCircuit.GATE_NOR -> DenseLogicCircuit.GATE_OR;
+      case DenseLogicCircuit.GATE_NXOR -> DenseLogicCircuit.GATE_XOR;
+      default -> type;
+    };
+    final var inputs = new int[attrs.inputs];
+    for (var b = 0; b < attrs.width.getWidth(); b++) {
+      final var out = context.getCell(instance.getPortLocation(0), b);
+      if (out < 0) continue;
+      var numInputs = 0;
+      for (var i = 1; i <= attrs.inputs; i++) {
+        var cell = context.getCell(instance.getPortLocation(i), b);
+        if (cell < 0) continue; // unconnected inputs are ignored, as in propagate()
+        if (((attrs.negated >> (i - 1)) & 1) == 1) {
+          final var inverted = builder.addCell(false);
+          builder.attachGate(DenseLogicCircuit.GATE_NAND, cell, cell, inverted);
+          cell = inverted;
+        }
+        inputs[numInputs++] = cell;
+      }
+      if (numInputs == 0) {
+        builder.attachBuffer(DenseLogicCircuit.LEV_ERR, out);
+      } else if (numInputs == 1) {
+        final var single = inverting ? DenseLogicCircuit.GATE_NAND : DenseLogicCircuit.GATE_AND;
+        builder.attachGate(single, inputs[0], inputs[0], out);
+      } else {
+        var acc = inputs[0];
+        for (var i = 1; i < numInputs - 1; i++) {
+          final var next = builder.addCell(false);
+          builder.attachGate(accumulate, acc, inputs[i], next);
+          acc = next;
+        }
+        builder.attachGate(type, acc, inputs[numInputs - 1], out);
+      }
+    }
+  }
+
   @Override
   public Bounds getOffsetBounds(AttributeSet attrsBase) {
     final var attrs = (GateAttributes) attrsBase;
@@ -522,6 +582,11 @@ abstract class AbstractGate extends InstanceFactory {
 
   protected abstract void paintIconANSI(Graphics2D g, int iconSize, int borderSize, int negateSize);
 
+  @Override
+  public boolean hasStaticAppearance(AttributeSet attrs) {
+    return true;
+  }
+
   @Override
   public void paintInstance(InstancePainter painter) {
     paintBase(painter);
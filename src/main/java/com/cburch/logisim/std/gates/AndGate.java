@@ -17,6 +17,7 @@ import com.cburch.logisim.data.Value;
 import com.cburch.logisim.fpga.hdlgenerator.Hdl;
 import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.LineBuffer;
 
@@ -74,6 +75,11 @@ class AndGate extends AbstractGate {
     return GateFunctions.computeAnd(inputs, numInputs);
   }
 
+  @Override
+  protected int getDenseGateType(GateAttributes attrs) {
+    return DenseLogicCircuit.GATE_AND;
+  }
+
   @Override
   protected Value getIdentity() {
     return Value.TRUE;
@@ -11,6 +11,7 @@ package com.cburch.logisim.std.gates;
 
 import static com.cburch.logisim.std.Strings.S;
 
+import com.cburch.logisim.circuit.DenseLogicEmitter;
 import com.cburch.logisim.circuit.ExpressionComputer;
 import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeSet;
@@ -135,6 +136,17 @@ class Buffer extends InstanceFactory {
         }
       };
     }
+    if (key == DenseLogicEmitter.class) {
+      if (instance.getAttributeValue(GateAttributes.ATTR_OUTPUT) != GateAttributes.OUTPUT_01) return null;
+      return (DenseLogicEmitter) context -> {
+        final var width = instance.getAttributeValue(StdAttr.WIDTH).getWidth();
+        for (var b = 0; b < width; b++) {
+          final var in = context.getCell(instance.getPortLocation(1), b);
+          final var out = context.getCell(instance.getPortLocation(0), b);
+          if (in >= 0 && out >= 0) context.getBuilder().attachBuffer(in, out);
+        }
+      };
+    }
     return super.getInstanceFeature(instance, key);
   }
 
@@ -208,6 +220,11 @@ class Buffer extends InstanceFactory {
     paintBase(painter);
   }
 
+  @Override
+  public boolean hasStaticAppearance(AttributeSet attrs) {
+    return true;
+  }
+
   @Override
   public void paintInstance(InstancePainter painter) {
     final var g = painter.getGraphics();
@@ -16,6 +16,7 @@ import com.cburch.logisim.analyze.model.Expressions;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
 import com.cburch.logisim.util.LineBuffer;
 import java.awt.Graphics2D;
 
@@ -49,6 +50,11 @@ class EvenParityGate extends AbstractGate {
     return GateFunctions.computeOddParity(inputs, numInputs).not();
   }
 
+  @Override
+  protected int getDenseGateType(GateAttributes attrs) {
+    return DenseLogicCircuit.GATE_NXOR;
+  }
+
   @Override
   protected Value getIdentity() {
     return Value.FALSE;
@@ -17,6 +17,7 @@ import com.cburch.logisim.data.Value;
 import com.cburch.logisim.fpga.hdlgenerator.Hdl;
 import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
 import com.cburch.logisim.util.LineBuffer;
 
 import java.awt.Graphics2D;
@@ -80,6 +81,11 @@ class NandGate extends AbstractGate {
     return GateFunctions.computeAnd(inputs, numInputs).not();
   }
 
+  @Override
+  protected int getDenseGateType(GateAttributes attrs) {
+    return DenseLogicCircuit.GATE_NAND;
+  }
+
   @Override
   protected Value getIdentity() {
     return Value.TRUE;
@@ -18,6 +18,7 @@ import com.cburch.logisim.fpga.hdlgenerator.Hdl;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
 import com.cburch.logisim.tools.WireRepairData;
 import com.cburch.logisim.util.LineBuffer;
 
@@ -77,6 +78,11 @@ class NorGate extends AbstractGate {
     return GateFunctions.computeOr(inputs, numInputs).not();
   }
 
+  @Override
+  protected int getDenseGateType(GateAttributes attrs) {
+    return DenseLogicCircuit.GATE_NOR;
+  }
+
   @Override
   protected Value getIdentity() {
     return Value.FALSE;
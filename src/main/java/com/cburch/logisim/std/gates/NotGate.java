@@ -12,6 +12,7 @@ package com.cburch.logisim.std.gates;
 import static com.cburch.logisim.std.Strings.S;
 
 import com.cburch.logisim.analyze.model.Expressions;
+import com.cburch.logisim.circuit.DenseLogicEmitter;
 import com.cburch.logisim.circuit.ExpressionComputer;
 import com.cburch.logisim.comp.TextField;
 import com.cburch.logisim.data.Attribute;
@@ -30,6 +31,7 @@ import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
 import com.cburch.logisim.tools.key.BitWidthConfigurator;
 import com.cburch.logisim.util.GraphicsUtil;
 import java.awt.Color;
@@ -152,6 +154,20 @@ class NotGate extends InstanceFactory {
             }
           };
     }
+    if (key == DenseLogicEmitter.class) {
+      if (instance.getAttributeValue(GateAttributes.ATTR_OUTPUT) != GateAttributes.OUTPUT_01) return null;
+      return (DenseLogicEmitter)
+          context -> {
+            final var width = instance.getAttributeValue(StdAttr.WIDTH).getWidth();
+            for (var b = 0; b < width; b++) {
+              final var in = context.getCell(instance.getPortLocation(1), b);
+              final var out = context.getCell(instance.getPortLocation(0), b);
+              if (in >= 0 && out >= 0) {
+                context.getBuilder().attachGate(DenseLogicCircuit.GATE_NAND, in, in, out);
+              }
+            }
+          };
+    }
     return super.getInstanceFeature(instance, key);
   }
 
@@ -237,6 +253,11 @@ class NotGate extends InstanceFactory {
     else AbstractGate.paintIconBufferAnsi(g, true, false);
   }
 
+  @Override
+  public boolean hasStaticAppearance(AttributeSet attrs) {
+    return true;
+  }
+
   @Override
   public void paintInstance(InstancePainter painter) {
     painter.getGraphics().setColor(new Color(AppPreferences.COMPONENT_COLOR.get()));
@@ -18,6 +18,7 @@ import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
 import com.cburch.logisim.tools.WireRepairData;
 import com.cburch.logisim.util.LineBuffer;
 import java.awt.Graphics2D;
@@ -58,6 +59,14 @@ class XnorGate extends AbstractGate {
     }
   }
 
+  @Override
+  protected int getDenseGateType(GateAttributes attrs) {
+    // "exactly one" differs from parity only for more than two inputs
+    return attrs.xorBehave == GateAttributes.XOR_ODD || attrs.inputs <= 2
+        ? DenseLogicCircuit.GATE_NXOR
+        : -1;
+  }
+
   @Override
   protected Value getIdentity() {
     return Value.FALSE;
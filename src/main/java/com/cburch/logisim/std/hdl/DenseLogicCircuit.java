@@ -101,9 +101,24 @@ public final class DenseLogicCircuit {
    */
   private final int updateQueueSize;
   /**
-   * The amount of auxillary data (contains the update queue and sequential logic data).
+   * The amount of auxillary data (contains the update queue, sequential logic data and the
+   * undefined read count).
    */
   private final int auxDataSize;
+  /**
+   * Where auxData counts the inputs of gates, flip-flops and latches that read a floating or error
+   * cell, see hasUndefinedInputs. Kept up to date by the byte simulation only.
+   */
+  private final int undefinedReadsIndex;
+  /**
+   * For each cell, the number of inputs reading it whose undefined value matters, see
+   * hasUndefinedInputs.
+   */
+  private final int[] cellReaders;
+  /**
+   * The undefined read count of newly initialized cells.
+   */
+  private final int initialUndefinedReads;
   /**
    * The amount and types of combinatorial gates.
    */
@@ -147,7 +162,8 @@ public final class DenseLogicCircuit {
     this.cellPull = cellPull;
     this.gateCount = gateTypes.length;
     this.updateQueueSize = gateCount + 1;
-    this.auxDataSize = updateQueueSize + seqDataSize;
+    this.undefinedReadsIndex = updateQueueSize + seqDataSize;
+    this.auxDataSize = undefinedReadsIndex + 1;
     this.cellUpdateNotifiesGate = cellUpdateNotifiesGate;
     this.gateTypes = gateTypes;
     this.gateCellA = gateCellA;
@@ -155,6 +171,36 @@ public final class DenseLogicCircuit {
     this.gateCellO = gateCellO;
     this.sequentialScript = seq;
     this.symbolTable = symbolTable;
+    this.cellReaders = new int[cellCount];
+    for (int g = 0; g < gateCount; g++) {
+      switch (gateTypes[g]) {
+        case GATE_BUS:
+          break;
+        case GATE_TRIS:
+        case GATE_TRISI:
+          cellReaders[gateCellB[g]]++;
+          break;
+        default:
+          cellReaders[gateCellA[g]]++;
+          cellReaders[gateCellB[g]]++;
+          break;
+      }
+    }
+    int ptr = 0;
+    while (ptr < seq.length) {
+      int seqType = seq[ptr++];
+      // both start with the data input and the clock or enable input
+      cellReaders[seq[ptr]]++;
+      cellReaders[seq[ptr + 1]]++;
+      ptr += seqType == SQOP_DFF ? 4 : 3;
+    }
+    int undefinedReads = 0;
+    for (int i = 0; i < cellCount; i++) {
+      if (isUndefined(cellPull[i])) {
+        undefinedReads += cellReaders[i];
+      }
+    }
+    this.initialUndefinedReads = undefinedReads;
   }
 
   /**
@@ -192,9 +238,198 @@ public final class DenseLogicCircuit {
       // there are no gates, so the update queue must be empty
       dat[gateCount] = -1;
     }
+    dat[undefinedReadsIndex] = initialUndefinedReads;
     return dat;
   }
 
+  /**
+   * Returns false if the last simulation gave up with gates still queued, e.g. because the
+   * circuit oscillates.
+   */
+  public final boolean isStable(int[] auxData) {
+    return auxData[gateCount] == -1;
+  }
+
+  /**
+   * Returns true if the circuit contains flip-flops or latches.
+   */
+  public final boolean hasSequentialLogic() {
+    return sequentialScript.length > 0;
+  }
+
+  /**
+   * Initializes the two planes of a bit-sliced simulation, see simulateCombinatorialWide.
+   */
+  public final void newWideCells(long[] low, long[] high) {
+    for (int i = 0; i < cellCount; i++) {
+      low[i] = (cellPull[i] & LEV_LOW) != 0 ? -1L : 0L;
+      high[i] = (cellPull[i] & LEV_HIGH) != 0 ? -1L : 0L;
+    }
+  }
+
+  /**
+   * Updates all lanes of a cell in a bit-sliced simulation.
+   */
+  public final void setCellWide(int cell, long lo, long hi, long[] low, long[] high, int[] auxData) {
+    if (low[cell] == lo && high[cell] == hi) {
+      return;
+    }
+    low[cell] = lo;
+    high[cell] = hi;
+    for (int g : cellUpdateNotifiesGate[cell]) {
+      if (auxData[g] == -1) {
+        auxData[g] = auxData[gateCount];
+        auxData[gateCount] = g;
+      }
+    }
+  }
+
+  /**
+   * Bit-sliced variant of the combinatorial simulation.
+   * Each cell is held in two planes of 64 lanes: bit 0 of its level in low, bit 1 in high.
+   * This evaluates 64 independent sets of inputs in one pass over the gates.
+   * Sequential scripts are not run.
+   * Returns false if the gates did not settle.
+   */
+  public final boolean simulateCombinatorialWide(long[] low, long[] high, int[] auxData) {
+    long maxIterationCount = (long) gateCount;
+    maxIterationCount *= maxIterationCount;
+    while (maxIterationCount > 0) {
+      maxIterationCount--;
+      int gateToEval = auxData[gateCount];
+      if (gateToEval == -1) {
+        break;
+      }
+      auxData[gateCount] = auxData[gateToEval];
+      auxData[gateToEval] = -1;
+      int a = gateCellA[gateToEval];
+      int b = gateCellB[gateToEval];
+      // lanes in which the input is exactly LEV_HIGH
+      long ha = high[a] & ~low[a];
+      long hb = high[b] & ~low[b];
+      long lo;
+      long hi;
+      switch (gateTypes[gateToEval]) {
+        case GATE_BUS:
+          lo = low[a] | low[b];
+          hi = high[a] | high[b];
+          break;
+        case GATE_TRIS:
+          lo = low[a] & hb;
+          hi = high[a] & hb;
+          break;
+        case GATE_TRISI:
+          lo = low[a] & ~hb;
+          hi = high[a] & ~hb;
+          break;
+        case GATE_AND:
+          hi = ha & hb;
+          lo = ~hi;
+          break;
+        case GATE_OR:
+          hi = ha | hb;
+          lo = ~hi;
+          break;
+        case GATE_XOR:
+          hi = ha ^ hb;
+          lo = ~hi;
+          break;
+        case GATE_NAND:
+          lo = ha & hb;
+          hi = ~lo;
+          break;
+        case GATE_NOR:
+          lo = ha | hb;
+          hi = ~lo;
+          break;
+        case GATE_NXOR:
+          lo = ha ^ hb;
+          hi = ~lo;
+          break;
+        case GATE_ANDNOT:
+          hi = ha & ~hb;
+          lo = ~hi;
+          break;
+        case GATE_ORNOT:
+          hi = ha | ~hb;
+          lo = ~hi;
+          break;
+        default:
+          throw new RuntimeException("invalid gate opcode " + gateTypes[gateToEval]);
+      }
+      int outCell = gateCellO[gateToEval];
+      long none = ~(lo | hi);
+      if (none != 0) {
+        if ((cellPull[outCell] & LEV_LOW) != 0) {
+          lo |= none;
+        }
+        if ((cellPull[outCell] & LEV_HIGH) != 0) {
+          hi |= none;
+        }
+      }
+      if (lo != low[outCell] || hi != high[outCell]) {
+        low[outCell] = lo;
+        high[outCell] = hi;
+        for (int g : cellUpdateNotifiesGate[outCell]) {
+          if (auxData[g] == -1) {
+            auxData[g] = auxData[gateCount];
+            auxData[gateCount] = g;
+          }
+        }
+      }
+    }
+    return auxData[gateCount] == -1;
+  }
+
+  /**
+   * Returns the lanes of a bit-sliced simulation in which a gate reads an input that is floating or
+   * an error, where gates are two-valued: their outputs may differ from Logisim's in these lanes.
+   * Only the enable input of a tri-state buffer matters, its data input passes through.
+   */
+  public final long undefinedInputLanesWide(long[] low, long[] high) {
+    long ret = 0;
+    for (int g = 0; g < gateCount; g++) {
+      final int b = gateCellB[g];
+      switch (gateTypes[g]) {
+        case GATE_BUS:
+          break;
+        case GATE_TRIS:
+        case GATE_TRISI:
+          ret |= ~(low[b] ^ high[b]);
+          break;
+        default:
+          final int a = gateCellA[g];
+          ret |= ~(low[a] ^ high[a]) | ~(low[b] ^ high[b]);
+          break;
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Returns true if a gate, flip-flop or latch reads an input that is floating or an error, where
+   * they are two-valued: from then on the results may differ from Logisim's.
+   * Only the enable input of a tri-state buffer matters, its data input passes through.
+   * This reads a count that the byte simulation keeps up to date as cells change.
+   */
+  public final boolean hasUndefinedInputs(int[] auxData) {
+    return auxData[undefinedReadsIndex] != 0;
+  }
+
+  private static boolean isUndefined(int level) {
+    return level == LEV_NONE || level == LEV_ERR;
+  }
+
+  /**
+   * Updates the undefined read count for a cell about to change from one level to another.
+   */
+  private void trackUndefined(int cell, int oldLevel, int newLevel, int[] auxData) {
+    final boolean undefined = isUndefined(newLevel);
+    if (undefined != isUndefined(oldLevel)) {
+      auxData[undefinedReadsIndex] += undefined ? cellReaders[cell] : -cellReaders[cell];
+    }
+  }
+
   /**
    * Updates a cell.
    */
@@ -202,6 +437,7 @@ public final class DenseLogicCircuit {
     if (cells[cell] == value) {
       return;
     }
+    trackUndefined(cell, cells[cell], value, auxData);
     cells[cell] = value;
     for (int g : cellUpdateNotifiesGate[cell]) {
       if (auxData[g] == -1) {
@@ -280,6 +516,7 @@ public final class DenseLogicCircuit {
         vo = cellPull[outCell];
       }
       if (vo != cells[outCell]) {
+        trackUndefined(outCell, cells[outCell], vo, auxData);
         cells[outCell] = (byte) vo;
         // inlined: markCellUpdate
         for (int g : cellUpdateNotifiesGate[outCell]) {
@@ -315,6 +552,7 @@ public final class DenseLogicCircuit {
           }
           byte newValue = (byte) (cells[newValueSrc] == LEV_HIGH ? LEV_HIGH : LEV_LOW);
           if (cells[q] != newValue) {
+            trackUndefined(q, cells[q], newValue, auxData);
             cells[q] = newValue;
             // inlined: markCellUpdate
             for (int g : cellUpdateNotifiesGate[q]) {
@@ -332,6 +570,7 @@ public final class DenseLogicCircuit {
           if (cells[e] == LEV_HIGH) {
             byte newValue = (byte) (cells[d] == LEV_HIGH ? LEV_HIGH : LEV_LOW);
             if (cells[q] != newValue) {
+              trackUndefined(q, cells[q], newValue, auxData);
               cells[q] = newValue;
               // inlined: markCellUpdate
               for (int g : cellUpdateNotifiesGate[q]) {
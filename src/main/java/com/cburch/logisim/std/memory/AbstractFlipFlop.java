@@ -11,6 +11,7 @@ package com.cburch.logisim.std.memory;
 
 import static com.cburch.logisim.std.Strings.S;
 
+import com.cburch.logisim.circuit.DenseLogicEmitter;
 import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeOption;
 import com.cburch.logisim.data.AttributeSet;
@@ -31,6 +32,8 @@ import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
+import com.cburch.logisim.std.hdl.DenseLogicCircuitBuilder;
 import com.cburch.logisim.util.GraphicsUtil;
 import com.cburch.logisim.util.StringGetter;
 
@@ -222,6 +225,76 @@ abstract class AbstractFlipFlop extends InstanceFactory {
 
   protected abstract Value computeValue(Value[] inputs, Value curValue);
 
+  /**
+   * Attaches to the builder the logic computing the next state of the flip-flop from the cells of
+   * its inputs and of its state q, for the compiled simulation of {@link DenseLogicEmitter}, and
+   * returns the cell of the next state. For a latch q is -1, as it has no state to compute from
+   * while it is transparent. Returns -1 if the flip-flop cannot be compiled.
+   */
+  protected int emitDenseNextState(DenseLogicCircuitBuilder builder, int[] inputs, int q) {
+    return -1;
+  }
+
+  @Override
+  protected Object getInstanceFeature(Instance instance, Object key) {
+    if (key == DenseLogicEmitter.class) return (DenseLogicEmitter) context -> emitDenseLogic(instance, context);
+    return super.getInstanceFeature(instance, key);
+  }
+
+  private void emitDenseLogic(Instance instance, DenseLogicEmitter.Context context) {
+    // the compiled simulation cannot start from an unknown state
+    if (AppPreferences.Memory_Startup_Unknown.get()) throw new UnsupportedOperationException();
+    final var builder = context.getBuilder();
+    final var inputs = new int[numInputs];
+    for (var i = 0; i < numInputs; i++) {
+      inputs[i] = denseCell(context, instance, i, DenseLogicCircuit.LEV_NONE);
+    }
+    // an unconnected clock never triggers, as a low one
+    var clock = denseCell(context, instance, numInputs, DenseLogicCircuit.LEV_LOW);
+    final var reset = denseCell(context, instance, numInputs + 3, -1);
+    final var preset = denseCell(context, instance, numInputs + 4, -1);
+    final var trigger = instance.getAttributeValue(triggerAttribute);
+    if (trigger == StdAttr.TRIG_FALLING || trigger == StdAttr.TRIG_LOW) {
+      final var inverted = builder.addCell(false);
+      builder.attachGate(DenseLogicCircuit.GATE_NAND, clock, clock, inverted);
+      clock = inverted;
+    }
+    int q;
+    if (trigger == StdAttr.TRIG_HIGH || trigger == StdAttr.TRIG_LOW) {
+      final var next = emitDenseNextState(builder, inputs, -1);
+      if (next < 0 || reset >= 0 || preset >= 0) throw new UnsupportedOperationException();
+      q = builder.addLatch(next, clock);
+    } else {
+      final var d = builder.addCell(false);
+      if (reset >= 0 || preset >= 0) {
+        q = builder.addDffsr(clock, d,
+            preset >= 0 ? preset : DenseLogicCircuit.LEV_LOW,
+            reset >= 0 ? reset : DenseLogicCircuit.LEV_LOW);
+      } else {
+        q = builder.addDff(clock, d);
+      }
+      final var next = emitDenseNextState(builder, inputs, q);
+      if (next < 0) throw new UnsupportedOperationException();
+      builder.attachBuffer(next, d);
+    }
+    final var out = context.getCell(instance.getPortLocation(numInputs + 1), 0);
+    if (out >= 0) builder.attachBuffer(q, out);
+    final var notOut = context.getCell(instance.getPortLocation(numInputs + 2), 0);
+    if (notOut >= 0) builder.attachGate(DenseLogicCircuit.GATE_NAND, q, q, notOut);
+  }
+
+  /** Attaches a gate of the given type to a new cell, and returns that cell. */
+  protected static int denseGate(DenseLogicCircuitBuilder builder, int type, int a, int b) {
+    final var out = builder.addCell(false);
+    builder.attachGate(type, a, b, out);
+    return out;
+  }
+
+  private static int denseCell(DenseLogicEmitter.Context context, Instance instance, int port, int unconnected) {
+    final var cell = context.getCell(instance.getPortLocation(port), 0);
+    return cell < 0 ? unconnected : cell;
+  }
+
   //
   // concrete methods not intended to be overridden
   //
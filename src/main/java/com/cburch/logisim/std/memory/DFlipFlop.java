@@ -15,6 +15,7 @@ import com.cburch.logisim.data.Value;
 import com.cburch.logisim.gui.icons.FlipFlopIcon;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.hdl.DenseLogicCircuitBuilder;
 import com.cburch.logisim.util.LineBuffer;
 
 public class DFlipFlop extends AbstractFlipFlop {
@@ -54,6 +55,11 @@ public class DFlipFlop extends AbstractFlipFlop {
     return inputs[0];
   }
 
+  @Override
+  protected int emitDenseNextState(DenseLogicCircuitBuilder builder, int[] inputs, int q) {
+    return inputs[0];
+  }
+
   @Override
   protected String getInputName(int index) {
     return "D";
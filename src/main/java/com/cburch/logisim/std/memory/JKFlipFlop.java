@@ -15,6 +15,8 @@ import com.cburch.logisim.data.Value;
 import com.cburch.logisim.gui.icons.FlipFlopIcon;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
+import com.cburch.logisim.std.hdl.DenseLogicCircuitBuilder;
 import com.cburch.logisim.util.LineBuffer;
 
 public class JKFlipFlop extends AbstractFlipFlop {
@@ -72,6 +74,15 @@ public class JKFlipFlop extends AbstractFlipFlop {
     return Value.UNKNOWN;
   }
 
+  @Override
+  protected int emitDenseNextState(DenseLogicCircuitBuilder builder, int[] inputs, int q) {
+    if (q < 0) return -1;
+    // J and not Q, or Q and not K
+    final var set = denseGate(builder, DenseLogicCircuit.GATE_ANDNOT, inputs[0], q);
+    final var keep = denseGate(builder, DenseLogicCircuit.GATE_ANDNOT, q, inputs[1]);
+    return denseGate(builder, DenseLogicCircuit.GATE_OR, set, keep);
+  }
+
   @Override
   protected String getInputName(int index) {
     return index == 0 ? "J" : "K";
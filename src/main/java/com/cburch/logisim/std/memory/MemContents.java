@@ -13,6 +13,12 @@ import com.cburch.hex.HexModel;
 import com.cburch.hex.HexModelListener;
 import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.util.EventSourceWeakSupport;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 
 public class MemContents implements Cloneable, HexModel {
@@ -30,7 +36,11 @@ public class MemContents implements Cloneable, HexModel {
   private int addrBits;
   private long mask;
   private Page[] pages;
+  /** The pages shared with a clone, which are copied before they are changed (copy-on-write). */
+  private boolean[] shared;
   private boolean randomize;
+  /** The file the pages are mapped from, see attachImage(), or null if they are on the heap. */
+  private File mappedFile = null;
 
   private MemContents(int addrBits, int width, boolean randomize) {
     listeners = null;
@@ -58,7 +68,13 @@ public class MemContents implements Cloneable, HexModel {
     else {
       for (var i = 0; i < pages.length; i++) {
         long[] oldValues = pages[i] != null ? pages[i].get(0, pages[i].getLength()) : null;
-        pages[i] = MemContentsSub.createPage(PAGE_SIZE, width, randomize);
+        final var page = MemContentsSub.createPage(PAGE_SIZE, width, randomize);
+        if (mappedFile != null) {
+          writablePage(i).load(0, page.get(0, page.getLength()), mask);
+        } else {
+          pages[i] = page;
+          shared[i] = false;
+        }
         if (oldValues != null) fireBytesChanged(i << PAGE_SIZE_BITS, oldValues.length, oldValues);
         else
           fireBytesChanged(
@@ -77,7 +93,11 @@ public class MemContents implements Cloneable, HexModel {
       if (val != 0) changed = true;
     }
     if (changed) {
-      pages[index] = null;
+      if (mappedFile != null) {
+        writablePage(index).load(0, new long[oldValues.length], mask);
+      } else {
+        pages[index] = null;
+      }
       fireBytesChanged(index << PAGE_SIZE_BITS, oldValues.length, oldValues);
     }
   }
@@ -85,17 +105,21 @@ public class MemContents implements Cloneable, HexModel {
   //
   // other methods
   //
+  /**
+   * Returns a copy of the contents. The pages are shared until either copy changes them, so this
+   * takes time in proportion to the number of pages, not to the size of the memory.
+   */
   @Override
   public MemContents clone() {
     try {
       final var ret = (MemContents) super.clone();
       ret.listeners = null;
-      ret.pages = new Page[this.pages.length];
-      for (var i = 0; i < ret.pages.length; i++) {
-        if (this.pages[i] != null) {
-          ret.pages[i] = this.pages[i].clone();
-        }
+      ret.mappedFile = null;
+      ret.pages = this.pages.clone();
+      for (var i = 0; i < pages.length; i++) {
+        if (pages[i] != null) shared[i] = true;
       }
+      ret.shared = this.shared.clone();
       return ret;
     } catch (CloneNotSupportedException ex) {
       return this;
@@ -108,6 +132,30 @@ public class MemContents implements Cloneable, HexModel {
     }
   }
 
+  /**
+   * Returns the page to be changed, created if there is none and copied if it is shared. A shared
+   * page of the mapped file stays in the file of the contents that mapped it, and the clones get
+   * the copy instead; a clone always changes a copy of its own, never the file.
+   */
+  private Page writablePage(int index) {
+    if (pages[index] == null) {
+      pages[index] = MemContentsSub.createPage(PAGE_SIZE, width, randomize);
+    } else if (shared[index]) {
+      pages[index] = mappedFile != null
+              && pages[index] instanceof MemContentsSub.MappedPage mapped
+              && mapped.isLive()
+          ? mapped.detach()
+          : pages[index].clone();
+    }
+    shared[index] = false;
+    return pages[index];
+  }
+
+  /** Drops a page that is all zeros, unless it is in the mapped file, which keeps all pages. */
+  private void releasePage(int index) {
+    if (mappedFile == null) pages[index] = null;
+  }
+
   @Override
   public void fill(long start, long len, long value) {
     if (len == 0) return;
@@ -122,11 +170,11 @@ public class MemContents implements Cloneable, HexModel {
       ensurePage(pageStart);
       final var vals = new long[(int) len];
       Arrays.fill(vals, value);
-      final var page = pages[pageStart];
-      if (!page.matches(vals, startOffs, mask)) {
+      if (!pages[pageStart].matches(vals, startOffs, mask)) {
+        final var page = writablePage(pageStart);
         final var oldValues = page.get(startOffs, (int) len);
         page.load(startOffs, vals, mask);
-        if (value == 0 && page.isClear()) pages[pageStart] = null;
+        if (value == 0 && page.isClear()) releasePage(pageStart);
         fireBytesChanged(start, len, oldValues);
       }
     } else {
@@ -139,11 +187,11 @@ public class MemContents implements Cloneable, HexModel {
           ensurePage(pageStart);
           final var vals = new long[PAGE_SIZE - startOffs];
           Arrays.fill(vals, value);
-          final var page = pages[pageStart];
-          if (!page.matches(vals, startOffs, mask)) {
+          if (!pages[pageStart].matches(vals, startOffs, mask)) {
+            final var page = writablePage(pageStart);
             final var oldValues = page.get(startOffs, vals.length);
             page.load(startOffs, vals, mask);
-            if (value == 0 && page.isClear()) pages[pageStart] = null;
+            if (value == 0 && page.isClear()) releasePage(pageStart);
             fireBytesChanged(start, PAGE_SIZE - pageStart, oldValues);
           }
         }
@@ -157,8 +205,8 @@ public class MemContents implements Cloneable, HexModel {
         Arrays.fill(vals, value);
         for (var i = pageStart + 1; i < pageEnd; i++) {
           ensurePage(i);
-          final var page = pages[i];
-          if (!page.matches(vals, 0, mask)) {
+          if (!pages[i].matches(vals, 0, mask)) {
+            final var page = writablePage(i);
             final var oldValues = page.get(0, PAGE_SIZE);
             page.load(0, vals, mask);
             fireBytesChanged(i << PAGE_SIZE_BITS, PAGE_SIZE, oldValues);
@@ -166,17 +214,17 @@ public class MemContents implements Cloneable, HexModel {
         }
       }
       if (endOffs >= 0) {
-        final var page = pages[pageEnd];
-        if (value == 0 && page == null) {
+        if (value == 0 && pages[pageEnd] == null) {
           // nothing to do
         } else {
           ensurePage(pageEnd);
           final var vals = new long[endOffs + 1];
           Arrays.fill(vals, value);
-          if (!page.matches(vals, 0, mask)) {
+          if (!pages[pageEnd].matches(vals, 0, mask)) {
+            final var page = writablePage(pageEnd);
             final var oldValues = page.get(0, endOffs + 1);
             page.load(0, vals, mask);
-            if (value == 0 && page.isClear()) pages[pageEnd] = null;
+            if (value == 0 && page.isClear()) releasePage(pageEnd);
             fireBytesChanged(pageEnd << PAGE_SIZE_BITS, endOffs + 1, oldValues);
           }
         }
@@ -261,10 +309,7 @@ public class MemContents implements Cloneable, HexModel {
     long old = pages[page] == null ? 0 : pages[page].get(offs) & mask;
     long val = value & mask;
     if (old != val) {
-      if (pages[page] == null) {
-        pages[page] = MemContentsSub.createPage(PAGE_SIZE, width, randomize);
-      }
-      pages[page].set(offs, val);
+      writablePage(page).set(offs, val);
       fireBytesChanged(addr, 1, new long[] {old});
     }
   }
@@ -280,11 +325,11 @@ public class MemContents implements Cloneable, HexModel {
 
     if (pageStart == pageEnd) {
       ensurePage(pageStart);
-      final var page = pages[pageStart];
-      if (!page.matches(values, startOffs, mask)) {
+      if (!pages[pageStart].matches(values, startOffs, mask)) {
+        final var page = writablePage(pageStart);
         final var oldValues = page.get(startOffs, values.length);
         page.load(startOffs, values, mask);
-        if (page.isClear()) pages[pageStart] = null;
+        if (page.isClear()) releasePage(pageStart);
         fireBytesChanged(start, values.length, oldValues);
       }
     } else {
@@ -296,11 +341,11 @@ public class MemContents implements Cloneable, HexModel {
         ensurePage(pageStart);
         final var vals = new long[PAGE_SIZE - startOffs];
         System.arraycopy(values, 0, vals, 0, vals.length);
-        final var page = pages[pageStart];
-        if (!page.matches(vals, startOffs, mask)) {
+        if (!pages[pageStart].matches(vals, startOffs, mask)) {
+          final var page = writablePage(pageStart);
           final var oldValues = page.get(startOffs, vals.length);
           page.load(startOffs, vals, mask);
-          if (page.isClear()) pages[pageStart] = null;
+          if (page.isClear()) releasePage(pageStart);
           fireBytesChanged(start, PAGE_SIZE - pageStart, oldValues);
         }
         nextOffs = vals.length;
@@ -325,9 +370,10 @@ public class MemContents implements Cloneable, HexModel {
         if (page != null) {
           System.arraycopy(values, offs, vals, 0, PAGE_SIZE);
           if (!page.matches(vals, startOffs, mask)) {
+            page = writablePage(i);
             final var oldValues = page.get(0, PAGE_SIZE);
             page.load(0, vals, mask);
-            if (page.isClear()) pages[i] = null;
+            if (page.isClear()) releasePage(i);
             fireBytesChanged(i << PAGE_SIZE_BITS, PAGE_SIZE, oldValues);
           }
         }
@@ -336,11 +382,11 @@ public class MemContents implements Cloneable, HexModel {
         ensurePage(pageEnd);
         vals = new long[endOffs + 1];
         System.arraycopy(values, offs, vals, 0, endOffs + 1);
-        final var page = pages[pageEnd];
-        if (!page.matches(vals, startOffs, mask)) {
+        if (!pages[pageEnd].matches(vals, startOffs, mask)) {
+          final var page = writablePage(pageEnd);
           final var oldValues = page.get(0, endOffs + 1);
           page.load(0, vals, mask);
-          if (page.isClear()) pages[pageEnd] = null;
+          if (page.isClear()) releasePage(pageEnd);
           fireBytesChanged(pageEnd << PAGE_SIZE_BITS, endOffs + 1, oldValues);
         }
       }
@@ -377,7 +423,7 @@ public class MemContents implements Cloneable, HexModel {
         // clearing locations di..di+n on this page
         fill(dp * PAGE_SIZE + di, n, 0);
       } else {
-        if (dstPage == null) dstPage = pages[dp] = MemContentsSub.createPage(PAGE_SIZE, width, randomize);
+        dstPage = writablePage(dp);
         // copy locations di..di+n on this page
         final var vals = srcPage.get(si, n);
         dstPage.set(di, vals);
@@ -399,6 +445,7 @@ public class MemContents implements Cloneable, HexModel {
 
   public void setDimensions(int addrBits, int width) {
     if (addrBits == this.addrBits && width == this.width) return;
+    unmapFile();
     this.addrBits = addrBits;
     this.width = width;
     this.mask = width == 64 ? -1L : ((1L << width) - 1);
@@ -414,6 +461,7 @@ public class MemContents implements Cloneable, HexModel {
       pageLength = PAGE_SIZE;
     }
     pages = new Page[pageCount];
+    shared = new boolean[pageCount];
     if (oldPages != null) {
       final var n = Math.min(oldPages.length, pages.length);
       for (var i = 0; i < n; i++) {
@@ -433,6 +481,70 @@ public class MemContents implements Cloneable, HexModel {
     fireMetainfoChanged();
   }
 
+  /**
+   * Maps the pages to a binary image file, which holds each value in 1, 2, 4 or 8 bytes, depending
+   * on the width, in the given byte order. The values are then those of the file, without copying
+   * them, and every change is written to the file. A file that is too short is extended with
+   * zeros. The listeners are told that all values changed.
+   */
+  public void attachImage(File image, ByteOrder order) throws IOException {
+    mapFile(image, order, false);
+    fireBytesChanged(0, 1L << addrBits, null);
+  }
+
+  /**
+   * Moves the values to a new temporary file mapped into memory, so that a large memory does not
+   * take space on the Java heap.
+   */
+  public void attachTempFile() throws IOException {
+    final var file = File.createTempFile("logisim-mem", ".bin");
+    file.deleteOnExit();
+    mapFile(file, ByteOrder.nativeOrder(), true);
+  }
+
+  /** Returns the file mapped by attachImage() or attachTempFile(), or null if there is none. */
+  public File getMappedFile() {
+    return mappedFile;
+  }
+
+  /** Moves the values of a mapped file back to the heap, and stops writing to the file. */
+  public void unmapFile() {
+    if (mappedFile == null) return;
+    for (var i = 0; i < pages.length; i++) {
+      if (pages[i] instanceof MemContentsSub.MappedPage mapped && mapped.isLive()) {
+        final var len = mapped.getLength();
+        if (mapped.isClear()) {
+          pages[i] = null;
+        } else {
+          pages[i] = MemContentsSub.createPage(len, width, false);
+          pages[i].load(0, mapped.get(0, len), mask);
+        }
+        shared[i] = false;
+      }
+    }
+    mappedFile = null;
+  }
+
+  private void mapFile(File file, ByteOrder order, boolean keepValues) throws IOException {
+    final var bytes = MemContentsSub.getMappedBytes(width);
+    final var pageLength = addrBits < PAGE_SIZE_BITS ? 1 << addrBits : PAGE_SIZE;
+    final var pageBytes = pageLength * bytes;
+    final var size = (long) pages.length * pageBytes;
+    if (size > Integer.MAX_VALUE) throw new IOException("memory too large to map: " + size + " bytes");
+    final MappedByteBuffer buffer;
+    try (final var channel = FileChannel.open(file.toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+    for (var i = 0; i < pages.length; i++) {
+      final var page = new MemContentsSub.MappedPage(buffer.slice(i * pageBytes, pageBytes).order(order), bytes);
+      if (keepValues && pages[i] != null) page.load(0, pages[i].get(0, pageLength), mask);
+      pages[i] = page;
+      shared[i] = false;
+    }
+    mappedFile = file;
+  }
+
   public void condFillRandom() {
     if (AppPreferences.Memory_Startup_Unknown.get()) {
       final var pageLength = (addrBits < PAGE_SIZE_BITS) ? 1 << addrBits : PAGE_SIZE;
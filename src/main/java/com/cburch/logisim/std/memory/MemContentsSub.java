@@ -11,6 +11,7 @@ package com.cburch.logisim.std.memory;
 
 import com.cburch.logisim.prefs.AppPreferences;
 
+import java.nio.ByteBuffer;
 import java.util.Random;
 
 class MemContentsSub {
@@ -224,6 +225,95 @@ class MemContentsSub {
     }
   }
 
+  /**
+   * A page that is a view of a part of a memory-mapped file, holding each value in 1, 2, 4 or 8
+   * bytes. Only the MemContents that mapped the file writes to it; a page shared with a clone is
+   * detached first, so that the clone keeps a copy of the old values on the heap.
+   */
+  static class MappedPage extends MemContents.Page {
+    private final int bytes;
+    private ByteBuffer data;
+    private boolean live = true;
+
+    MappedPage(ByteBuffer data, int bytes) {
+      this.data = data;
+      this.bytes = bytes;
+    }
+
+    /** Returns whether this is still a view of the file, rather than a copy on the heap. */
+    boolean isLive() {
+      return live;
+    }
+
+    /**
+     * Returns a new view of the same part of the file, and turns this page into a copy of its
+     * current values on the heap, for the clones that share it.
+     */
+    MappedPage detach() {
+      final var ret = new MappedPage(data, bytes);
+      data = copyOf(data);
+      live = false;
+      return ret;
+    }
+
+    @Override
+    public MappedPage clone() {
+      final var ret = (MappedPage) super.clone();
+      ret.data = copyOf(data);
+      ret.live = false;
+      return ret;
+    }
+
+    private static ByteBuffer copyOf(ByteBuffer src) {
+      final var ret = ByteBuffer.allocate(src.capacity()).order(src.order());
+      ret.put(src.duplicate().clear());
+      return ret;
+    }
+
+    @Override
+    long get(long addr) {
+      if (addr < 0 || addr >= getLength()) return 0;
+      final var index = (int) addr * bytes;
+      return switch (bytes) {
+        case 1 -> data.get(index) & 0xffL;
+        case 2 -> data.getShort(index) & 0xffffL;
+        case 4 -> data.getInt(index) & 0xffffffffL;
+        default -> data.getLong(index);
+      };
+    }
+
+    @Override
+    int getLength() {
+      return data.capacity() / bytes;
+    }
+
+    @Override
+    void load(long start, long[] values, long mask) {
+      final var n = Math.min(values.length, getLength() - (int) start);
+      for (var i = 0; i < n; i++) set(start + i, values[i] & mask);
+    }
+
+    @Override
+    void set(long addr, long value) {
+      if (addr < 0 || addr >= getLength()) return;
+      final var index = (int) addr * bytes;
+      switch (bytes) {
+        case 1 -> data.put(index, (byte) value);
+        case 2 -> data.putShort(index, (short) value);
+        case 4 -> data.putInt(index, (int) value);
+        default -> data.putLong(index, value);
+      }
+    }
+  }
+
+  /** Returns the bytes a mapped page uses for each value of the given width. */
+  static int getMappedBytes(int bits) {
+    if (bits <= 8) return 1;
+    else if (bits <= 16) return 2;
+    else if (bits <= 32) return 4;
+    else return 8;
+  }
+
   static MemContents.Page createPage(int size, int bits, boolean randomize) {
     long mask = (bits == 64) ? 0xffffffffffffffffL : (1L << bits) - 1;
     if (bits <= 8) return new BytePage(size, mask, randomize);
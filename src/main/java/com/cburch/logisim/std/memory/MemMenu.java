@@ -17,9 +17,13 @@ import com.cburch.logisim.gui.hex.HexFile;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.tools.MenuExtender;
+import com.cburch.logisim.util.JFileChoosers;
 import java.awt.Frame;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import javax.swing.JFileChooser;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
 
@@ -33,6 +37,7 @@ class MemMenu implements ActionListener, MenuExtender {
   private JMenuItem clear;
   private JMenuItem load;
   private JMenuItem save;
+  private JMenuItem map;
 
   MemMenu(Mem factory, Instance instance) {
     this.factory = factory;
@@ -46,6 +51,7 @@ class MemMenu implements ActionListener, MenuExtender {
     else if (src == clear) doClear();
     else if (src == load) doLoad();
     else if (src == save) doSave();
+    else if (src == map) doMap();
   }
 
   @Override
@@ -64,12 +70,14 @@ class MemMenu implements ActionListener, MenuExtender {
     clear = createItem(enabled, S.get("ramClearMenuItem"));
     load = createItem(enabled, S.get("ramLoadMenuItem"));
     save = createItem(enabled, S.get("ramSaveMenuItem"));
+    map = createItem(enabled, S.get("ramMapMenuItem"));
 
     menu.addSeparator();
     menu.add(edit);
     menu.add(clear);
     menu.add(load);
     menu.add(save);
+    menu.add(map);
   }
 
   private JMenuItem createItem(boolean enabled, String label) {
@@ -107,6 +115,18 @@ class MemMenu implements ActionListener, MenuExtender {
     HexFile.open(m, frame, proj, instance);
   }
 
+  private void doMap() {
+    final var m = factory.getState(instance, circState).getContents();
+    final var chooser = JFileChoosers.create();
+    chooser.setDialogTitle(S.get("ramMapDialogTitle"));
+    if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+    try {
+      m.attachImage(chooser.getSelectedFile(), ByteOrder.LITTLE_ENDIAN);
+    } catch (IOException e) {
+      OptionPane.showMessageDialog(frame, e.getMessage(), S.get("ramMapErrorTitle"), OptionPane.ERROR_MESSAGE);
+    }
+  }
+
   private void doSave() {
     final var m = factory.getState(instance, circState).getContents();
     HexFile.save(m, frame, proj, instance);
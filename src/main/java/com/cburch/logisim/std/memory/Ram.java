@@ -29,9 +29,11 @@ import com.cburch.logisim.instance.InstanceLogger;
 import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.util.StringGetter;
 
+import java.io.IOException;
 import java.util.WeakHashMap;
 import java.util.function.Consumer;
 
@@ -99,6 +101,8 @@ public class Ram extends Mem {
     }
   }
 
+  /** From this size on, the contents go to a temporary file when AppPreferences.MEMORY_MAPPED is on. */
+  private static final int MAPPED_MIN_ADDR_BITS = 18;
   private static final Object[][] logOptions = new Object[9][];
   private static final WeakHashMap<MemContents, HexFrame> windowRegistry = new WeakHashMap<>();
 
@@ -144,6 +148,13 @@ public class Ram extends Mem {
         MemContents.create(
             attrs.getValue(Mem.ADDR_ATTR).getWidth(), attrs.getValue(Mem.DATA_ATTR).getWidth(), true);
     contents.condFillRandom();
+    if (AppPreferences.MEMORY_MAPPED.getBoolean() && contents.getLogLength() >= MAPPED_MIN_ADDR_BITS) {
+      try {
+        contents.attachTempFile();
+      } catch (IOException e) {
+        // the contents stay on the heap
+      }
+    }
     return contents;
   }
 
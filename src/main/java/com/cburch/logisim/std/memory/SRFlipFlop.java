@@ -15,6 +15,8 @@ import com.cburch.logisim.data.Value;
 import com.cburch.logisim.gui.icons.FlipFlopIcon;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
+import com.cburch.logisim.std.hdl.DenseLogicCircuitBuilder;
 import com.cburch.logisim.util.LineBuffer;
 
 public class SRFlipFlop extends AbstractFlipFlop {
@@ -68,6 +70,16 @@ public class SRFlipFlop extends AbstractFlipFlop {
     return Value.UNKNOWN;
   }
 
+  @Override
+  protected int emitDenseNextState(DenseLogicCircuitBuilder builder, int[] inputs, int q) {
+    if (q < 0) return -1;
+    // S and not R sets, R and not S resets, otherwise Q is kept (S and R both high is an error)
+    final var set = denseGate(builder, DenseLogicCircuit.GATE_ANDNOT, inputs[0], inputs[1]);
+    final var same = denseGate(builder, DenseLogicCircuit.GATE_NXOR, inputs[0], inputs[1]);
+    final var keep = denseGate(builder, DenseLogicCircuit.GATE_AND, same, q);
+    return denseGate(builder, DenseLogicCircuit.GATE_OR, set, keep);
+  }
+
   @Override
   protected String getInputName(int index) {
     return index == 0 ? "S" : "R";
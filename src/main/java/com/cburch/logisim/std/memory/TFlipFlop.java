@@ -15,6 +15,8 @@ import com.cburch.logisim.data.Value;
 import com.cburch.logisim.gui.icons.FlipFlopIcon;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
+import com.cburch.logisim.std.hdl.DenseLogicCircuitBuilder;
 import com.cburch.logisim.util.LineBuffer;
 
 public class TFlipFlop extends AbstractFlipFlop {
@@ -59,6 +61,12 @@ public class TFlipFlop extends AbstractFlipFlop {
     }
   }
 
+  @Override
+  protected int emitDenseNextState(DenseLogicCircuitBuilder builder, int[] inputs, int q) {
+    if (q < 0) return -1;
+    return denseGate(builder, DenseLogicCircuit.GATE_XOR, inputs[0], q);
+  }
+
   @Override
   protected String getInputName(int index) {
     return "T";
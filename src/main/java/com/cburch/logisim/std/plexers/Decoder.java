@@ -12,6 +12,7 @@ package com.cburch.logisim.std.plexers;
 import static com.cburch.logisim.std.Strings.S;
 
 import com.cburch.logisim.LogisimVersion;
+import com.cburch.logisim.circuit.DenseLogicEmitter;
 import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.BitWidth;
@@ -28,6 +29,7 @@ import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
 import com.cburch.logisim.tools.key.BitWidthConfigurator;
 import com.cburch.logisim.util.GraphicsUtil;
 import java.awt.Color;
@@ -244,6 +246,27 @@ public class Decoder extends InstanceFactory {
     painter.drawPorts();
   }
 
+  @Override
+  protected Object getInstanceFeature(Instance instance, Object key) {
+    if (key == DenseLogicEmitter.class) return (DenseLogicEmitter) context -> emitDenseLogic(instance, context);
+    return super.getInstanceFeature(instance, key);
+  }
+
+  /** Drives the selected output high with a tri-state, and the others low if needed. */
+  private static void emitDenseLogic(Instance instance, DenseLogicEmitter.Context context) {
+    final var builder = context.getBuilder();
+    final var outputs = 1 << instance.getAttributeValue(PlexersLibrary.ATTR_SELECT).getWidth();
+    final var en = PlexersLibrary.denseEnable(instance, context, outputs);
+    final var selected = PlexersLibrary.denseSelectLines(instance, context, outputs, en);
+    final var zero = PlexersLibrary.denseZeroLines(instance, builder, en, selected);
+    for (var i = 0; i < outputs; i++) {
+      final var out = context.getCell(instance.getPortLocation(i), 0);
+      if (out < 0) continue;
+      builder.attachGate(DenseLogicCircuit.GATE_TRIS, DenseLogicCircuit.LEV_HIGH, selected[i], out);
+      if (zero[i] >= 0) builder.attachGate(DenseLogicCircuit.GATE_TRIS, DenseLogicCircuit.LEV_LOW, zero[i], out);
+    }
+  }
+
   @Override
   public void propagate(InstanceState state) {
     // get attributes
@@ -12,6 +12,7 @@ package com.cburch.logisim.std.plexers;
 import static com.cburch.logisim.std.Strings.S;
 
 import com.cburch.logisim.LogisimVersion;
+import com.cburch.logisim.circuit.DenseLogicEmitter;
 import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.BitWidth;
@@ -28,6 +29,7 @@ import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
 import com.cburch.logisim.tools.key.BitWidthConfigurator;
 import com.cburch.logisim.tools.key.JoinedConfigurator;
 import com.cburch.logisim.util.GraphicsUtil;
@@ -245,6 +247,33 @@ public class Demultiplexer extends InstanceFactory {
     painter.drawPorts();
   }
 
+  @Override
+  protected Object getInstanceFeature(Instance instance, Object key) {
+    if (key == DenseLogicEmitter.class) return (DenseLogicEmitter) context -> emitDenseLogic(instance, context);
+    return super.getInstanceFeature(instance, key);
+  }
+
+  /** Passes the input to the selected output with tri-states, and drives the others low if needed. */
+  private static void emitDenseLogic(Instance instance, DenseLogicEmitter.Context context) {
+    final var builder = context.getBuilder();
+    final var width = instance.getAttributeValue(StdAttr.WIDTH).getWidth();
+    final var enable = instance.getAttributeValue(PlexersLibrary.ATTR_ENABLE);
+    final var outputs = 1 << instance.getAttributeValue(PlexersLibrary.ATTR_SELECT).getWidth();
+    final var inLoc = instance.getPortLocation(outputs + (enable ? 2 : 1));
+    final var en = PlexersLibrary.denseEnable(instance, context, outputs);
+    final var selected = PlexersLibrary.denseSelectLines(instance, context, outputs, en);
+    final var zero = PlexersLibrary.denseZeroLines(instance, builder, en, selected);
+    for (var i = 0; i < outputs; i++) {
+      for (var b = 0; b < width; b++) {
+        final var out = context.getCell(instance.getPortLocation(i), b);
+        if (out < 0) continue;
+        final var in = context.getCell(inLoc, b);
+        builder.attachGate(DenseLogicCircuit.GATE_TRIS, in < 0 ? DenseLogicCircuit.LEV_NONE : in, selected[i], out);
+        if (zero[i] >= 0) builder.attachGate(DenseLogicCircuit.GATE_TRIS, DenseLogicCircuit.LEV_LOW, zero[i], out);
+      }
+    }
+  }
+
   @Override
   public void propagate(InstanceState state) {
     // get attributes
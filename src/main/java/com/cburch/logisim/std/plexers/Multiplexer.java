@@ -12,6 +12,7 @@ package com.cburch.logisim.std.plexers;
 import static com.cburch.logisim.std.Strings.S;
 
 import com.cburch.logisim.LogisimVersion;
+import com.cburch.logisim.circuit.DenseLogicEmitter;
 import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.BitWidth;
@@ -28,6 +29,7 @@ import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
 import com.cburch.logisim.tools.key.BitWidthConfigurator;
 import com.cburch.logisim.tools.key.JoinedConfigurator;
 import com.cburch.logisim.util.GraphicsUtil;
@@ -260,6 +262,37 @@ public class Multiplexer extends InstanceFactory {
     painter.drawPorts();
   }
 
+  @Override
+  protected Object getInstanceFeature(Instance instance, Object key) {
+    if (key == DenseLogicEmitter.class) return (DenseLogicEmitter) context -> emitDenseLogic(instance, context);
+    return super.getInstanceFeature(instance, key);
+  }
+
+  /** Decodes the select lines into one enable per input and joins the inputs with tri-states. */
+  private static void emitDenseLogic(Instance instance, DenseLogicEmitter.Context context) {
+    final var builder = context.getBuilder();
+    final var width = instance.getAttributeValue(StdAttr.WIDTH).getWidth();
+    final var enable = instance.getAttributeValue(PlexersLibrary.ATTR_ENABLE);
+    final var inputs = 1 << instance.getAttributeValue(PlexersLibrary.ATTR_SELECT).getWidth();
+    final var outLoc = instance.getPortLocation(inputs + (enable ? 2 : 1));
+    final var en = PlexersLibrary.denseEnable(instance, context, inputs);
+    final var selected = PlexersLibrary.denseSelectLines(instance, context, inputs, en);
+    for (var i = 0; i < inputs; i++) {
+      for (var b = 0; b < width; b++) {
+        final var in = context.getCell(instance.getPortLocation(i), b);
+        final var out = context.getCell(outLoc, b);
+        if (out < 0) continue;
+        builder.attachGate(DenseLogicCircuit.GATE_TRIS, in < 0 ? DenseLogicCircuit.LEV_NONE : in, selected[i], out);
+      }
+    }
+    if (enable && instance.getAttributeValue(PlexersLibrary.ATTR_DISABLED) == PlexersLibrary.DISABLED_ZERO) {
+      for (var b = 0; b < width; b++) {
+        final var out = context.getCell(outLoc, b);
+        if (out >= 0) builder.attachGate(DenseLogicCircuit.GATE_TRISI, DenseLogicCircuit.LEV_LOW, en, out);
+      }
+    }
+  }
+
   @Override
   public void propagate(InstanceState state) {
     final var data = state.getAttributeValue(StdAttr.WIDTH);
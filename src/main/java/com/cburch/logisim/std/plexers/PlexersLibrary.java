@@ -11,6 +11,7 @@ package com.cburch.logisim.std.plexers;
 
 import static com.cburch.logisim.std.Strings.S;
 
+import com.cburch.logisim.circuit.DenseLogicEmitter;
 import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeOption;
 import com.cburch.logisim.data.Attributes;
@@ -18,6 +19,9 @@ import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Bounds;
 import com.cburch.logisim.data.Direction;
 import com.cburch.logisim.data.Location;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
+import com.cburch.logisim.std.hdl.DenseLogicCircuitBuilder;
 import com.cburch.logisim.tools.FactoryDescription;
 import com.cburch.logisim.tools.Library;
 import com.cburch.logisim.tools.Tool;
@@ -94,6 +98,71 @@ public class PlexersLibrary extends Library {
     g.drawPolygon(xp, yp, 4);
   }
 
+  /**
+   * Returns the cell of the enable input of a plexer with count data ports, for the compiled
+   * simulation of {@link DenseLogicEmitter}. A missing or unconnected enable does not disable.
+   */
+  static int denseEnable(Instance instance, DenseLogicEmitter.Context context, int count) {
+    final var en = instance.getAttributeValue(ATTR_ENABLE)
+        ? context.getCell(instance.getPortLocation(count + 1), 0)
+        : -1;
+    return en < 0 ? DenseLogicCircuit.LEV_HIGH : en;
+  }
+
+  /**
+   * Decodes the select input of a plexer with count data ports into one cell per data port, which
+   * is high when the plexer is enabled and selects that port. An unconnected select input is
+   * undefined, as in propagate().
+   */
+  static int[] denseSelectLines(Instance instance, DenseLogicEmitter.Context context, int count, int en) {
+    final var builder = context.getBuilder();
+    final var selectWidth = instance.getAttributeValue(ATTR_SELECT).getWidth();
+    final var select = new int[selectWidth];
+    for (var s = 0; s < selectWidth; s++) {
+      select[s] = context.getCell(instance.getPortLocation(count), s);
+      if (select[s] < 0) select[s] = DenseLogicCircuit.LEV_NONE;
+    }
+    final var ret = new int[count];
+    for (var i = 0; i < count; i++) {
+      var selected = en;
+      for (var s = 0; s < selectWidth; s++) {
+        final var next = builder.addCell(false);
+        final var type = ((i >> s) & 1) == 1 ? DenseLogicCircuit.GATE_AND : DenseLogicCircuit.GATE_ANDNOT;
+        builder.attachGate(type, selected, select[s], next);
+        selected = next;
+      }
+      ret[i] = selected;
+    }
+    return ret;
+  }
+
+  /**
+   * Returns for each output of a decoder or demultiplexer a cell that is high when the output is
+   * zero rather than floating while not selected, following the three-state and disabled output
+   * attributes, or -1 if it always floats then.
+   */
+  static int[] denseZeroLines(Instance instance, DenseLogicCircuitBuilder builder, int en, int[] selected) {
+    final var enable = instance.getAttributeValue(ATTR_ENABLE);
+    final var disabledZero = enable && instance.getAttributeValue(ATTR_DISABLED) == DISABLED_ZERO;
+    final var threeState = instance.getAttributeValue(ATTR_TRISTATE);
+    final var ret = new int[selected.length];
+    for (var i = 0; i < selected.length; i++) {
+      if (threeState && !disabledZero) {
+        ret[i] = -1;
+        continue;
+      }
+      ret[i] = builder.addCell(false);
+      if (threeState) {
+        builder.attachGate(DenseLogicCircuit.GATE_NAND, en, en, ret[i]);
+      } else if (disabledZero || !enable) {
+        builder.attachGate(DenseLogicCircuit.GATE_NAND, selected[i], selected[i], ret[i]);
+      } else {
+        builder.attachGate(DenseLogicCircuit.GATE_ANDNOT, en, selected[i], ret[i]);
+      }
+    }
+    return ret;
+  }
+
   static final AttributeOption SIZE_NARROW = new AttributeOption(20, S.getter("gateSizeNarrowOpt"));
   static final AttributeOption SIZE_WIDE =
       new AttributeOption(40, S.getter("gateSizeWideOpt")); /* 30 for 2-to-1 */
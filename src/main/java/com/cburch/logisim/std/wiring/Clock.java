@@ -103,12 +103,7 @@ public class Clock extends InstanceFactory {
     }
 
     boolean updateTick(int ticks, AttributeSet attrs) {
-      int durationHigh = attrs.getValue(ATTR_HIGH);
-      int durationLow = attrs.getValue(ATTR_LOW);
-      int cycle = durationHigh + durationLow;
-      int phase = ((attrs.getValue(ATTR_PHASE) % cycle) + cycle) % cycle;
-      boolean isLow = ((ticks + phase) % cycle) < durationLow;
-      Value desired = (isLow ? Value.FALSE : Value.TRUE);
+      Value desired = getValueAt(ticks, attrs);
       if (sending.equals(desired)) return false;
       sending = desired;
       return true;
@@ -133,6 +128,16 @@ public class Clock extends InstanceFactory {
     return ret;
   }
 
+  /** Returns the value a clock with the given attributes sends after the given number of ticks. */
+  public static Value getValueAt(int ticks, AttributeSet attrs) {
+    int durationHigh = attrs.getValue(ATTR_HIGH);
+    int durationLow = attrs.getValue(ATTR_LOW);
+    int cycle = durationHigh + durationLow;
+    int phase = ((attrs.getValue(ATTR_PHASE) % cycle) + cycle) % cycle;
+    boolean isLow = ((ticks + phase) % cycle) < durationLow;
+    return isLow ? Value.FALSE : Value.TRUE;
+  }
+
   public static boolean tick(CircuitState circState, int ticks, Component comp) {
     AttributeSet attrs = comp.getAttributeSet();
     ClockState state = (ClockState) circState.getData(comp);
@@ -12,6 +12,7 @@ package com.cburch.logisim.std.wiring;
 import static com.cburch.logisim.std.Strings.S;
 
 import com.cburch.logisim.analyze.model.Expressions;
+import com.cburch.logisim.circuit.DenseLogicEmitter;
 import com.cburch.logisim.circuit.ExpressionComputer;
 import com.cburch.logisim.data.AbstractAttributeSet;
 import com.cburch.logisim.data.Attribute;
@@ -28,6 +29,7 @@ import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstanceState;
 import com.cburch.logisim.instance.Port;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.std.hdl.DenseLogicCircuit;
 import com.cburch.logisim.tools.key.BitWidthConfigurator;
 import com.cburch.logisim.tools.key.JoinedConfigurator;
 import com.cburch.logisim.util.GraphicsUtil;
@@ -119,6 +121,19 @@ public class Constant extends InstanceFactory {
     }
   }
 
+  /** Drives bit b of the port at the location of the instance with bit b of the value. */
+  static DenseLogicEmitter denseConstant(Instance instance, long value) {
+    return context -> {
+      final var width = instance.getAttributeValue(StdAttr.WIDTH).getWidth();
+      for (var b = 0; b < width; b++) {
+        final var out = context.getCell(instance.getLocation(), b);
+        if (out < 0) continue;
+        final var level = ((value >> b) & 1) == 1 ? DenseLogicCircuit.LEV_HIGH : DenseLogicCircuit.LEV_LOW;
+        context.getBuilder().attachBuffer(level, out);
+      }
+    };
+  }
+
   private static class ConstantHdlGeneratorFactory extends AbstractConstantHdlGeneratorFactory {
     @Override
     public long getConstant(AttributeSet attrs) {
@@ -159,6 +174,7 @@ public class Constant extends InstanceFactory {
   @Override
   protected Object getInstanceFeature(Instance instance, Object key) {
     if (key == ExpressionComputer.class) return new ConstantExpression(instance);
+    if (key == DenseLogicEmitter.class) return denseConstant(instance, instance.getAttributeValue(ATTR_VALUE));
     return super.getInstanceFeature(instance, key);
   }
 
@@ -236,6 +252,11 @@ public class Constant extends InstanceFactory {
     g.fillOval(pinx, piny, 3, 3);
   }
 
+  @Override
+  public boolean hasStaticAppearance(AttributeSet attrs) {
+    return true;
+  }
+
   @Override
   public void paintInstance(InstancePainter painter) {
     final var bds = painter.getOffsetBounds();
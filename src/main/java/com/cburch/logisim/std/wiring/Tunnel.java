@@ -210,6 +210,11 @@ public class Tunnel extends InstanceFactory {
     g.drawPolygon(xp, yp, xp.length);
   }
 
+  @Override
+  public boolean hasStaticAppearance(AttributeSet attrs) {
+    return true;
+  }
+
   @Override
   public void paintInstance(InstancePainter painter) {
     Location loc = painter.getLocation();
@@ -10,7 +10,8 @@
 package com.cburch.logisim.util;
 
 public class QNode implements Comparable<QNode> {
-  public final int timeKey, serialNumber;
+  /** Only changed through reuse(), never while the node is in a queue. */
+  public int timeKey, serialNumber;
   QNode left, right;
 
   public QNode(int timeKey, int serialNumber) {
@@ -18,6 +19,16 @@ public class QNode implements Comparable<QNode> {
     this.serialNumber = serialNumber;
   }
 
+  /**
+   * Re-initializes a node that was removed from its queue so that it can be added again. This
+   * lets subclasses recycle their instances instead of allocating a new node for every add.
+   */
+  protected void reuse(int timeKey, int serialNumber) {
+    this.timeKey = timeKey;
+    this.serialNumber = serialNumber;
+    left = right = null;
+  }
+
   @Override
   public int compareTo(QNode other) {
     // Yes, these subtractions may overflow. This is intentional, as it
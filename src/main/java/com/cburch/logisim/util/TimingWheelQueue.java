@@ -0,0 +1,174 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.util;
+
+import java.util.Arrays;
+
+/**
+ * A timing wheel (calendar queue) of QNodes. Like QueueOfQueues, it relies on the nodes of any one
+ * timeKey being added in the order of their serial numbers, which is what Propagator does, so that
+ * each time only needs a plain FIFO queue.
+ */
+public class TimingWheelQueue<T extends QNode> implements QNodeQueue<T> {
+  /*
+   * The wheel has one bucket for each of the WHEEL_SIZE times starting at baseTime, the bucket of
+   * a time being its low bits. Propagator only adds events a small delay after the current time,
+   * so nearly all adds and removes take constant time. Events further in the future are kept in
+   * the overflow list, sorted, and moved to the wheel when the base time gets close enough.
+   *
+   * Invariants of the class:
+   * 1. Every node in the wheel has baseTime <= timeKey < baseTime + WHEEL_SIZE.
+   * 2. Every node in the overflow list has timeKey >= baseTime + WHEEL_SIZE.
+   * 3. The buckets of the times baseTime to baseTime + cursor - 1 are empty.
+   * The nodes are linked through QNode.right, both in the buckets and in the overflow list.
+   */
+  private static final int WHEEL_BITS = 10;
+  private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+  private final QNode[] heads = new QNode[WHEEL_SIZE];
+  private final QNode[] tails = new QNode[WHEEL_SIZE];
+  private QNode overflow = null;
+  private int baseTime = 0;
+  private int cursor = 0;
+  private int wheelCount = 0; // the number of nodes in the wheel
+  private int size = 0; // the number of nodes in the wheel and in the overflow list
+
+  @Override
+  public boolean add(T node) {
+    final var time = node.timeKey;
+    if (size == 0) {
+      baseTime = time;
+      cursor = 0;
+    } else if (time - baseTime < 0) {
+      rebase(time);
+    }
+    node.left = node.right = null;
+    final var offset = time - baseTime;
+    if (offset < WHEEL_SIZE) {
+      append(node);
+      if (offset < cursor) cursor = offset;
+    } else {
+      addOverflow(node);
+    }
+    size++;
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(heads, null);
+    Arrays.fill(tails, null);
+    overflow = null;
+    cursor = 0;
+    wheelCount = 0;
+    size = 0;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T peek() {
+    if (size == 0) return null;
+    if (wheelCount == 0) {
+      // only far-future nodes are left: jump to the first of them
+      advance(overflow.timeKey);
+    }
+    while (heads[(baseTime + cursor) & WHEEL_MASK] == null) cursor++;
+    return (T) heads[(baseTime + cursor) & WHEEL_MASK];
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T remove() {
+    final var ret = peek();
+    if (ret == null) return null;
+    final var bucket = (baseTime + cursor) & WHEEL_MASK;
+    heads[bucket] = ret.right;
+    if (heads[bucket] == null) tails[bucket] = null;
+    ret.right = null;
+    wheelCount--;
+    size--;
+    // everything left is at or after the removed node, so the wheel can turn
+    if (ret.timeKey != baseTime) advance(ret.timeKey);
+    return (T) ret;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  private void append(QNode node) {
+    final var bucket = node.timeKey & WHEEL_MASK;
+    if (heads[bucket] == null) {
+      heads[bucket] = node;
+    } else {
+      tails[bucket].right = node;
+    }
+    tails[bucket] = node;
+    wheelCount++;
+  }
+
+  /** Inserts the node in the overflow list, after the nodes with the same or an earlier time. */
+  private void addOverflow(QNode node) {
+    if (overflow == null || node.timeKey - overflow.timeKey < 0) {
+      node.right = overflow;
+      overflow = node;
+      return;
+    }
+    var p = overflow;
+    while (p.right != null && p.right.timeKey - node.timeKey <= 0) p = p.right;
+    node.right = p.right;
+    p.right = node;
+  }
+
+  /**
+   * Moves the base time forward to time, which must not be after the first node, and moves the
+   * overflow nodes that are now close enough to the wheel.
+   */
+  private void advance(int time) {
+    baseTime = time;
+    cursor = 0;
+    while (overflow != null && overflow.timeKey - baseTime < WHEEL_SIZE) {
+      final var node = overflow;
+      overflow = node.right;
+      node.right = null;
+      append(node);
+    }
+  }
+
+  /**
+   * Moves the base time back to time, which is before every node. The nodes that no longer fit
+   * in the wheel are moved to the front of the overflow list, as they are all earlier than the
+   * nodes already there.
+   */
+  private void rebase(int time) {
+    for (var offset = WHEEL_SIZE - 1; offset >= cursor && wheelCount > 0; offset--) {
+      final var t = baseTime + offset;
+      if (t - time < WHEEL_SIZE) break;
+      final var bucket = t & WHEEL_MASK;
+      final var head = heads[bucket];
+      if (head == null) continue;
+      var count = 1;
+      for (var p = head; p.right != null; p = p.right) count++;
+      tails[bucket].right = overflow;
+      overflow = head;
+      heads[bucket] = tails[bucket] = null;
+      wheelCount -= count;
+    }
+    baseTime = time;
+    cursor = 0;
+  }
+}
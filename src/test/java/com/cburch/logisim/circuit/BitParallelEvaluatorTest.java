@@ -0,0 +1,153 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.analyze.model.AnalyzerModel;
+import com.cburch.logisim.analyze.model.Entry;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.memory.MemoryLibrary;
+import com.cburch.logisim.std.plexers.PlexersLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import com.cburch.logisim.tools.Library;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class BitParallelEvaluatorTest {
+
+  private static final int WIDTH = 4;
+
+  private final LogisimFile file = LogisimFile.createNew(new Loader(null), null);
+  private final Project project = new Project(file);
+  private final Circuit main = file.getMainCircuit();
+  private int nextY = 100;
+
+  @Test
+  void everyRowMatchesPropagator() {
+    final var a = addPin("a", false, WIDTH);
+    final var b = addPin("b", false, WIDTH);
+    final var s = addPin("s", false, 1);
+    final var y = addPin("y", true, WIDTH);
+    final var gates = new GatesLibrary();
+    final var nand = addComponent(factory(gates, "NAND Gate"), WIDTH, "a", "b");
+    addTunnel(nand.getEnd(0).getLocation(), "g1");
+    final var xor = addComponent(factory(gates, "XOR Gate"), WIDTH, "a", "b");
+    addTunnel(xor.getEnd(0).getLocation(), "g2");
+    final var mux = addComponent(factory(new PlexersLibrary(), "Multiplexer"), WIDTH, "g1", "g2", "s");
+    addTunnel(mux.getEnd(mux.getEnds().size() - 1).getLocation(), "y");
+    project.setCurrentCircuit(main);
+
+    final var inputs = List.of(Instance.getInstanceFor(a), Instance.getInstanceFor(b), Instance.getInstanceFor(s));
+    final var output = Instance.getInstanceFor(y);
+    final var evaluator = BitParallelEvaluator.create(main, inputs);
+    final var rowCount = 1 << (2 * WIDTH + 1);
+    for (var row = 0; row < rowCount; row++) {
+      if (row % BitParallelEvaluator.LANES == 0) assertTrue(evaluator.evaluate(row));
+      final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+      // the first pin holds the most significant bits of the row number
+      drive(state, a, row >> (WIDTH + 1));
+      drive(state, b, (row >> 1) & ((1 << WIDTH) - 1));
+      drive(state, s, row & 1);
+      state.getPropagator().propagate();
+      assertEquals(Pin.FACTORY.getValue(state.getInstanceState(output)),
+          evaluator.getValue(output, row % BitParallelEvaluator.LANES), "row " + row);
+    }
+  }
+
+  @Test
+  void floatingInputIsLeftToThePropagator() {
+    final var a = addPin("a", false, 1);
+    final var y = addPin("y", true, 1);
+    // nothing drives the tunnel f, so the second input of the gate floats
+    final var and = addComponent(factory(new GatesLibrary(), "AND Gate"), 1, "a", "f");
+    addTunnel(and.getEnd(0).getLocation(), "y");
+    project.setCurrentCircuit(main);
+
+    final var input = Instance.getInstanceFor(a);
+    final var output = Instance.getInstanceFor(y);
+    assertFalse(BitParallelEvaluator.create(main, List.of(input)).evaluate(0));
+    final var model = new AnalyzerModel();
+    Analyze.computeTable(model, project, main, Map.of(input, "a", output, "y"));
+    assertEquals(Entry.ZERO, model.getTruthTable().getOutputEntry(0, 0));
+    assertEquals(Entry.BUS_ERROR, model.getTruthTable().getOutputEntry(1, 0));
+  }
+
+  @Test
+  void sequentialCircuitIsRejected() {
+    final var d = addPin("d", false, 1);
+    addComponent(factory(new MemoryLibrary(), "D Flip-Flop"), 1, "d");
+    assertThrows(CircuitException.class,
+        () -> BitParallelEvaluator.create(main, List.of(Instance.getInstanceFor(d))));
+  }
+
+  private void drive(CircuitState state, Component pin, int value) {
+    final var width = pin.getAttributeSet().getValue(StdAttr.WIDTH);
+    Pin.FACTORY.driveInputPin(state.getInstanceState(pin), Value.createKnown(width, value));
+  }
+
+  private Component addPin(String label, boolean output, int width) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    if (output) attrs.setValue(Pin.ATTR_TYPE, Pin.OUTPUT);
+    attrs.setValue(StdAttr.LABEL, label);
+    attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+    final var pin = Pin.FACTORY.createComponent(Location.create(50, nextY += 100, true), attrs);
+    add(pin);
+    addTunnel(pin.getLocation(), label);
+    return pin;
+  }
+
+  /** Adds a component whose first input ports are connected to the named tunnels. */
+  private Component addComponent(ComponentFactory factory, int width, String... inputs) {
+    final var attrs = factory.createAttributeSet();
+    if (attrs.containsAttribute(StdAttr.WIDTH)) attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+    final var comp = factory.createComponent(Location.create(300, nextY += 100, true), attrs);
+    add(comp);
+    var port = 0;
+    for (final var label : inputs) {
+      while (!comp.getEnd(port).isInput() || comp.getEnd(port).isOutput()) port++;
+      addTunnel(comp.getEnd(port++).getLocation(), label);
+    }
+    return comp;
+  }
+
+  private void addTunnel(Location loc, String label) {
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, label);
+    attrs.setValue(StdAttr.WIDTH, main.getWidth(loc) == BitWidth.UNKNOWN ? BitWidth.ONE : main.getWidth(loc));
+    add(Tunnel.FACTORY.createComponent(loc, attrs));
+  }
+
+  private static ComponentFactory factory(Library lib, String name) {
+    return ((AddTool) lib.getTool(name)).getFactory();
+  }
+
+  private void add(Component component) {
+    final var mutation = new CircuitMutation(main);
+    mutation.add(component);
+    mutation.execute();
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GateAttributes;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.memory.Counter;
+import com.cburch.logisim.std.wiring.Clock;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+class CheckpointHistoryTest {
+  private static final int TICKS = 40;
+
+  private final LogisimFile file = LogisimFile.createNew(new Loader(null), null);
+  private final Project project = new Project(file);
+  private final Circuit main = file.getMainCircuit();
+  private Component counter;
+
+  /** main: clock -> counter */
+  private CircuitState createCircuit() {
+    final var clock = Clock.FACTORY.createComponent(Location.create(50, 100, true), Clock.FACTORY.createAttributeSet());
+    add(clock);
+    addTunnel(clock.getLocation());
+    final var factory = new Counter();
+    counter = factory.createComponent(Location.create(300, 100, true), factory.createAttributeSet());
+    add(counter);
+    addTunnel(counter.getEnd(Counter.CK).getLocation());
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+    state.getPropagator().propagate();
+    return state;
+  }
+
+  @Test
+  void rewindReturnsToTheValuesOfAnEarlierTick() {
+    final var state = createCircuit();
+    final var prop = state.getPropagator();
+    final var history = new CheckpointHistory(8, 100);
+    final var values = new ArrayList<Value>();
+    history.tickCompleted(prop);
+    values.add(state.getPortValue(counter, Counter.OUT));
+    for (var i = 1; i <= TICKS; i++) {
+      prop.toggleClocks();
+      prop.propagate();
+      history.tickCompleted(prop);
+      values.add(state.getPortValue(counter, Counter.OUT));
+    }
+    assertEquals(TICKS / 8 + 1, history.size());
+    assertNotEquals(values.get(5), values.get(TICKS));
+
+    assertTrue(history.rewind(prop, 13));
+    assertEquals(TICKS - 13, prop.getTickCount());
+    assertEquals(values.get(TICKS - 13), state.getPortValue(counter, Counter.OUT));
+    assertEquals(TICKS - 13, history.getCheckpoint(TICKS).getTickCount() + 3);
+
+    // ticking on from there gives the same values again
+    for (var i = TICKS - 12; i <= TICKS; i++) {
+      prop.toggleClocks();
+      prop.propagate();
+      history.tickCompleted(prop);
+      assertEquals(values.get(i), state.getPortValue(counter, Counter.OUT));
+    }
+
+    // not before the oldest checkpoint
+    assertTrue(history.rewind(prop, 10 * TICKS));
+    assertEquals(0, prop.getTickCount());
+    assertEquals(values.get(0), state.getPortValue(counter, Counter.OUT));
+  }
+
+  @Test
+  void restoredCheckpointIsNotChangedBySimulating() {
+    final var state = createCircuit();
+    final var prop = state.getPropagator();
+    for (var i = 0; i < 6; i++) {
+      prop.toggleClocks();
+      prop.propagate();
+    }
+    final var checkpoint = prop.checkpoint();
+    final var value = state.getPortValue(counter, Counter.OUT);
+    for (var pass = 0; pass < 2; pass++) {
+      for (var i = 0; i < 6; i++) {
+        prop.toggleClocks();
+        prop.propagate();
+      }
+      assertNotEquals(value, state.getPortValue(counter, Counter.OUT));
+      prop.restore(checkpoint);
+      prop.propagate();
+      assertEquals(6, prop.getTickCount());
+      assertEquals(value, state.getPortValue(counter, Counter.OUT));
+    }
+  }
+
+  @Test
+  void restoreKeepsTheStateHeldOnWires() {
+    // an SR latch of two cross-coupled NOR gates, whose state is only on the wires between them
+    final var nor = ((AddTool) new GatesLibrary().getTool("NOR Gate")).getFactory();
+    final var attrs = nor.createAttributeSet();
+    attrs.setValue(GateAttributes.ATTR_INPUTS, 2);
+    final var q = nor.createComponent(Location.create(200, 100, true), attrs);
+    final var nq = nor.createComponent(Location.create(200, 300, true), (AttributeSet) attrs.clone());
+    add(q);
+    add(nq);
+    final var reset = addInputPin(q.getEnd(1).getLocation());
+    final var set = addInputPin(nq.getEnd(2).getLocation());
+    addTunnel(q.getLocation(), "q");
+    addTunnel(nq.getEnd(1).getLocation(), "q");
+    addTunnel(nq.getLocation(), "nq");
+    addTunnel(q.getEnd(2).getLocation(), "nq");
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+    final var prop = state.getPropagator();
+    drive(state, reset, Value.FALSE);
+    drive(state, set, Value.TRUE);
+    drive(state, set, Value.FALSE);
+    assertEquals(Value.TRUE, state.getPortValue(q, 0));
+    final var checkpoint = prop.checkpoint();
+
+    drive(state, reset, Value.TRUE);
+    drive(state, reset, Value.FALSE);
+    assertEquals(Value.FALSE, state.getPortValue(q, 0));
+    prop.restore(checkpoint);
+    prop.propagate();
+    assertEquals(Value.TRUE, state.getPortValue(q, 0));
+    assertEquals(Value.FALSE, state.getPortValue(nq, 0));
+  }
+
+  @Test
+  void resetDropsTheCheckpoints() {
+    final var state = createCircuit();
+    final var prop = state.getPropagator();
+    final var history = new CheckpointHistory(1, 4);
+    assertFalse(history.rewind(prop, 1));
+    for (var i = 0; i < 10; i++) {
+      prop.toggleClocks();
+      prop.propagate();
+      history.tickCompleted(prop);
+    }
+    assertEquals(4, history.size());
+    assertEquals(7, history.getOldestTick());
+    prop.reset();
+    prop.propagate();
+    history.tickCompleted(prop);
+    assertEquals(1, history.size());
+    assertEquals(0, history.getOldestTick());
+  }
+
+  private void addTunnel(Location loc) {
+    addTunnel(loc, "clk");
+  }
+
+  private void addTunnel(Location loc, String label) {
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, label);
+    add(Tunnel.FACTORY.createComponent(loc, attrs));
+  }
+
+  private Component addInputPin(Location loc) {
+    final var pin = Pin.FACTORY.createComponent(loc, Pin.FACTORY.createAttributeSet());
+    add(pin);
+    return pin;
+  }
+
+  private static void drive(CircuitState state, Component pin, Value value) {
+    Pin.FACTORY.driveInputPin(state.getInstanceState(pin), value);
+    state.markComponentAsDirty(pin);
+    state.getPropagator().propagate();
+  }
+
+  private void add(Component component) {
+    final var mutation = new CircuitMutation(main);
+    mutation.add(component);
+    mutation.execute();
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.Test;
+
+class CircuitWiresTest {
+
+  private final LogisimFile file = LogisimFile.createNew(new Loader(null), null);
+  private final Project project = new Project(file);
+  private final Circuit main = file.getMainCircuit();
+
+  @Test
+  void simulationDoesNotWaitForEventThread() throws Exception {
+    final var a = addPin("a", false, 2, 100);
+    final var lo = addPin("lo", true, 1, 200);
+    final var hi = addPin("hi", true, 1, 300);
+    final var attrs = SplitterFactory.instance.createAttributeSet();
+    attrs.setValue(SplitterAttributes.ATTR_FANOUT, 2);
+    attrs.setValue(SplitterAttributes.ATTR_WIDTH, BitWidth.create(2));
+    final var splitter = SplitterFactory.instance.createComponent(Location.create(400, 500, true), attrs);
+    add(splitter);
+    addTunnel(splitter.getEnd(0).getLocation(), "a", 2);
+    addTunnel(splitter.getEnd(1).getLocation(), "lo", 1);
+    addTunnel(splitter.getEnd(2).getLocation(), "hi", 1);
+
+    final var blocked = new CountDownLatch(1);
+    final var release = new CountDownLatch(1);
+    SwingUtilities.invokeLater(() -> {
+      blocked.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    blocked.await();
+    try {
+      assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+        final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+        Pin.FACTORY.driveInputPin(state.getInstanceState(a), Value.createKnown(2, 2));
+        state.getPropagator().propagate();
+        assertEquals(Value.FALSE, Pin.FACTORY.getValue(state.getInstanceState(lo)));
+        assertEquals(Value.TRUE, Pin.FACTORY.getValue(state.getInstanceState(hi)));
+      });
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  void changesAreSeenByOtherThreads() throws Exception {
+    final var a = addPin("a", false, 4, 100);
+    final var end = Location.create(50, 400, true);
+    assertEquals(BitWidth.UNKNOWN, widthFromOtherThread(end));
+    add(Wire.create(a.getLocation(), end));
+    assertEquals(BitWidth.create(4), widthFromOtherThread(end));
+  }
+
+  @Test
+  void editKeepsUntouchedBundles() {
+    final var a = addPin("a", false, 4, 100);
+    final var b = addPin("b", false, 2, 200);
+    add(Wire.create(a.getLocation(), Location.create(150, 100, true)));
+    add(Wire.create(b.getLocation(), Location.create(150, 200, true)));
+    final var before = main.wires.getWireBundle(b.getLocation());
+    final var end = Location.create(150, 150, true);
+    add(Wire.create(Location.create(150, 100, true), end));
+    assertSame(before, main.wires.getWireBundle(b.getLocation()));
+    assertSame(main.wires.getWireBundle(a.getLocation()), main.wires.getWireBundle(end));
+    assertEquals(BitWidth.create(4), main.getWidth(end));
+  }
+
+  @Test
+  void incrementalEditsMatchFullComputation() {
+    final var random = new Random(42);
+    addPin("a", false, 4, 100);
+    addPin("b", false, 1, 150);
+    final var grid = new ArrayList<Location>();
+    for (var x = 50; x <= 110; x += 10) {
+      for (var y = 100; y <= 160; y += 10) grid.add(Location.create(x, y, true));
+    }
+    addTunnel(Location.create(110, 160, true), "a", 4);
+    for (var step = 0; step < 200; step++) {
+      final var p = grid.get(random.nextInt(grid.size()));
+      final var q = random.nextBoolean() ? p.translate(10, 0) : p.translate(0, 10);
+      final var wire = Wire.create(p, q);
+      final var mutation = new CircuitMutation(main);
+      if (main.getWires().contains(wire)) {
+        mutation.remove(wire);
+      } else {
+        mutation.add(wire);
+      }
+      mutation.execute();
+
+      final var reference = new Circuit("reference", file, project);
+      final var copy = new CircuitMutation(reference);
+      copy.addAll(main.getNonWires());
+      copy.addAll(new ArrayList<>(main.getWires()));
+      copy.execute();
+      for (final var r : grid) {
+        assertEquals(reference.getWidth(r), main.getWidth(r), "step " + step + " at " + r);
+        for (final var s : grid) {
+          final var expected = reference.wires.getWireBundle(r) != null
+              && reference.wires.getWireBundle(r) == reference.wires.getWireBundle(s);
+          final var actual = main.wires.getWireBundle(r) != null
+              && main.wires.getWireBundle(r) == main.wires.getWireBundle(s);
+          assertEquals(expected, actual, "step " + step + " at " + r + " and " + s);
+        }
+      }
+    }
+  }
+
+  @Test
+  void simulationFollowsEdits() {
+    final var a = addPin("a", false, 1, 100);
+    final var y = addPin("y", true, 1, 200);
+    final var wire = Wire.create(Location.create(50, 100, true), Location.create(50, 200, true));
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+    Pin.FACTORY.driveInputPin(state.getInstanceState(a), Value.TRUE);
+    state.getPropagator().propagate();
+    assertEquals(Value.UNKNOWN, Pin.FACTORY.getValue(state.getInstanceState(y)));
+
+    final var before = main.wires.getWireBundle(a.getLocation());
+    add(wire);
+    assertNotSame(before, main.wires.getWireBundle(a.getLocation()));
+    state.getPropagator().propagate();
+    assertEquals(Value.TRUE, Pin.FACTORY.getValue(state.getInstanceState(y)));
+
+    final var mutation = new CircuitMutation(main);
+    mutation.remove(wire);
+    mutation.execute();
+    state.getPropagator().propagate();
+    assertEquals(Value.UNKNOWN, Pin.FACTORY.getValue(state.getInstanceState(y)));
+  }
+
+  @Test
+  void valuesFarFromOrigin() {
+    final var a = addPin("a", false, 4, 100);
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    attrs.setValue(Pin.ATTR_TYPE, Pin.OUTPUT);
+    attrs.setValue(StdAttr.WIDTH, BitWidth.create(4));
+    final var y = Pin.FACTORY.createComponent(Location.create(5010, 7000, true), attrs);
+    add(y);
+    add(Wire.create(Location.create(5010, 7000, true), Location.create(5010, 6000, true)));
+    addTunnel(Location.create(5010, 6000, true), "a", 4);
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+    Pin.FACTORY.driveInputPin(state.getInstanceState(a), Value.createKnown(4, 9));
+    state.markComponentAsDirty(a);
+    state.getPropagator().propagate();
+    assertEquals(Value.createKnown(4, 9), Pin.FACTORY.getValue(state.getInstanceState(y)));
+    assertEquals(Value.createKnown(4, 9), state.getValue(Location.create(5010, 6000, true)));
+    assertEquals(Value.createKnown(4, 9), state.getPortValue(y, 0));
+    assertEquals(Value.NIL, state.getValue(Location.create(4000, 4000, true)));
+  }
+
+  @Test
+  void valuesOfUntouchedBusesSurviveEdits() {
+    final var a = addPin("a", false, 1, 100);
+    final var y = addPin("a", true, 1, 200);
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+    Pin.FACTORY.driveInputPin(state.getInstanceState(a), Value.TRUE);
+    state.markComponentAsDirty(a);
+    state.getPropagator().propagate();
+    assertEquals(Value.TRUE, state.getPortValue(y, 0));
+
+    // an unrelated edit gives a new map, whose slots are not those of the old one
+    for (var i = 0; i < 20; i++) {
+      final var wire = Wire.create(Location.create(300, 100 + 10 * i, true), Location.create(400, 100 + 10 * i, true));
+      add(wire);
+      state.getPropagator().propagate();
+      assertEquals(Value.TRUE, state.getPortValue(y, 0), "after edit " + i);
+      assertEquals(Value.TRUE, state.getValue(y.getLocation()), "after edit " + i);
+    }
+  }
+
+  private BitWidth widthFromOtherThread(Location loc) throws Exception {
+    final var result = new BitWidth[1];
+    final var thread = new Thread(() -> result[0] = main.getWidth(loc));
+    thread.start();
+    thread.join();
+    return result[0];
+  }
+
+  private Component addPin(String label, boolean output, int width, int y) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    if (output) attrs.setValue(Pin.ATTR_TYPE, Pin.OUTPUT);
+    attrs.setValue(StdAttr.LABEL, label);
+    attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+    final var pin = Pin.FACTORY.createComponent(Location.create(50, y, true), attrs);
+    add(pin);
+    addTunnel(pin.getLocation(), label, width);
+    return pin;
+  }
+
+  private void addTunnel(Location loc, String label, int width) {
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, label);
+    attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+    add(Tunnel.FACTORY.createComponent(loc, attrs));
+  }
+
+  private void add(Component component) {
+    final var mutation = new CircuitMutation(main);
+    mutation.add(component);
+    mutation.execute();
+  }
+}
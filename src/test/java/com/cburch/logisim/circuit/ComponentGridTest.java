@@ -0,0 +1,126 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Bounds;
+import com.cburch.logisim.data.Direction;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.wiring.Constant;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.tools.AddTool;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ComponentGridTest {
+
+  private final LogisimFile file = LogisimFile.createNew(new Loader(null), null);
+  private final Project project = new Project(file);
+  private final Circuit main = file.getMainCircuit();
+  private final Random random = new Random(7);
+
+  @Test
+  void queriesMatchLinearScan() {
+    main.setProject(project);
+    final var and = ((AddTool) new GatesLibrary().getTool("AND Gate")).getFactory();
+    final var mutation = new CircuitMutation(main);
+    for (var i = 0; i < 300; i++) {
+      final var loc = randomLocation();
+      if (i % 3 == 0) {
+        mutation.add(Wire.create(loc, random.nextBoolean() ? loc.translate(10 * (1 + random.nextInt(40)), 0)
+            : loc.translate(0, 10 * (1 + random.nextInt(40)))));
+      } else {
+        final var factory = i % 3 == 1 ? and : Pin.FACTORY;
+        mutation.add(factory.createComponent(loc, factory.createAttributeSet()));
+      }
+    }
+    mutation.execute();
+    checkQueries();
+
+    // remove some components and turn others, which changes their bounds
+    final var edit = new CircuitMutation(main);
+    var i = 0;
+    for (final var comp : main.getNonWires()) {
+      if (i++ % 4 == 0) {
+        edit.remove(comp);
+      } else if (i % 4 == 1) {
+        edit.set(comp, StdAttr.FACING, Direction.NORTH);
+      }
+    }
+    edit.execute();
+    checkQueries();
+  }
+
+  @Test
+  void boundsChangedOutsideOfMutationsAreFollowed() {
+    final var attrs = Constant.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.WIDTH, BitWidth.create(32));
+    attrs.setValue(StdAttr.FACING, Direction.WEST);
+    final var constant = Constant.FACTORY.createComponent(Location.create(680, 700, true), attrs);
+    final var mutation = new CircuitMutation(main);
+    mutation.add(constant);
+    mutation.execute();
+    // turning the constant moves its bounds into the next cell of the grid, without a mutation
+    attrs.setValue(StdAttr.FACING, Direction.EAST);
+    final var pt = Location.create(constant.getBounds().getX() + 2, 700, false);
+    assertEquals(List.of(constant), List.copyOf(main.getAllContaining(pt)));
+  }
+
+  private void checkQueries() {
+    for (var i = 0; i < 200; i++) {
+      final var pt = randomLocation();
+      final var expected = new ArrayList<Component>();
+      for (final var comp : allComponents()) {
+        if (comp.contains(pt)) expected.add(comp);
+      }
+      final var actual = main.getAllContaining(pt);
+      // the components are returned in drawing order
+      assertEquals(expected.stream().filter(c -> !(c instanceof Wire)).toList(),
+          actual.stream().filter(c -> !(c instanceof Wire)).toList(), "at " + pt);
+      assertEquals(sorted(expected), sorted(actual), "at " + pt);
+
+      final var area = Bounds.create(pt.getX(), pt.getY(), random.nextInt(600), random.nextInt(600));
+      expected.clear();
+      for (final var comp : allComponents()) {
+        if (area.contains(comp.getBounds())) expected.add(comp);
+      }
+      assertEquals(sorted(expected), sorted(main.getAllWithin(area)), "within " + area);
+    }
+  }
+
+  /** Components in drawing order, then the wires. */
+  private List<Component> allComponents() {
+    final var ret = new ArrayList<Component>(main.getNonWires());
+    ret.addAll(main.getWires());
+    return ret;
+  }
+
+  private static List<String> sorted(Collection<Component> comps) {
+    final var ret = new ArrayList<String>();
+    for (final var comp : comps) ret.add(comp.getFactory().getName() + comp.getBounds());
+    ret.sort(null);
+    return ret;
+  }
+
+  private Location randomLocation() {
+    return Location.create(10 * random.nextInt(300), 10 * random.nextInt(300), true);
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.EndData;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Propagates through a binary tree of nested subcircuits in which only one path from the root to a
+ * leaf is driven, so most of the substates stay clean while the input toggles. The benchmark test,
+ * run by the "benchmark" Gradle task, prints the time per propagation, which should hardly depend
+ * on the number of clean substates.
+ */
+class DeepHierarchyPropagationTest {
+
+  private static final int DEPTH = 9; // 2^(DEPTH + 1) - 1 circuit states
+  private static final int TOGGLES = 100;
+  private static final int BENCHMARK_TOGGLES = 2000;
+
+  private static final class Fixture {
+    private final LogisimFile file;
+    private final Project project;
+    private Circuit leaf;
+    private Component leafNot;
+    private Component leafOutTunnel;
+    private Component input;
+    private Component output;
+
+    private Fixture(int depth) {
+      file = LogisimFile.createNew(new Loader(null), null);
+      project = new Project(file);
+      var child = createLeaf();
+      for (var level = 1; level <= depth; level++) {
+        child = createLevel("level" + level, child, level == depth ? file.getMainCircuit() : null);
+      }
+      project.setCurrentCircuit(file.getMainCircuit());
+    }
+
+    /** a -> NOT -> y. */
+    private Circuit createLeaf() {
+      leaf = newCircuit("leaf");
+      addPins(leaf);
+      final var notFactory = ((AddTool) new GatesLibrary().getTool("NOT Gate")).getFactory();
+      leafNot = notFactory.createComponent(Location.create(200, 100, true), notFactory.createAttributeSet());
+      add(leaf, leafNot);
+      add(leaf, tunnel(leafNot.getEnd(1).getLocation(), "a"));
+      add(leaf, tunnel(leafNot.getEnd(0).getLocation(), "na"));
+      leafOutTunnel = tunnel(output.getLocation(), "na");
+      add(leaf, leafOutTunnel);
+      add(leaf, tunnel(input.getLocation(), "a"));
+      return leaf;
+    }
+
+    /** a -> child -> y, plus a second child instance whose input is left floating. */
+    private Circuit createLevel(String name, Circuit child, Circuit target) {
+      final var circ = target != null ? target : newCircuit(name);
+      addPins(circ);
+      add(circ, tunnel(input.getLocation(), "a"));
+      add(circ, tunnel(output.getLocation(), "y"));
+      final var driven = addInstance(circ, child, 100);
+      add(circ, tunnel(getEnd(driven, true).getLocation(), "a"));
+      add(circ, tunnel(getEnd(driven, false).getLocation(), "y"));
+      addInstance(circ, child, 400);
+      return circ;
+    }
+
+    private Circuit newCircuit(String name) {
+      final var circ = new Circuit(name, file, project);
+      file.addCircuit(circ);
+      return circ;
+    }
+
+    private void addPins(Circuit circ) {
+      final var inAttrs = Pin.FACTORY.createAttributeSet();
+      inAttrs.setValue(StdAttr.LABEL, "a");
+      input = Pin.FACTORY.createComponent(Location.create(50, 100, true), inAttrs);
+      final var outAttrs = Pin.FACTORY.createAttributeSet();
+      outAttrs.setValue(Pin.ATTR_TYPE, Pin.OUTPUT);
+      outAttrs.setValue(StdAttr.LABEL, "y");
+      output = Pin.FACTORY.createComponent(Location.create(600, 100, true), outAttrs);
+      add(circ, input);
+      add(circ, output);
+    }
+
+    private Component addInstance(Circuit circ, Circuit child, int y) {
+      final var factory = child.getSubcircuitFactory();
+      final var comp = factory.createComponent(Location.create(300, y, true), factory.createAttributeSet());
+      add(circ, comp);
+      return comp;
+    }
+  }
+
+  @Test
+  void drivenPathPropagatesThroughAllLevels() {
+    final var fixture = new Fixture(DEPTH);
+    final var state = CircuitState.createRootState(fixture.project, fixture.file.getMainCircuit(), Thread.currentThread());
+    for (final var v : new Value[] {Value.FALSE, Value.TRUE, Value.FALSE}) {
+      drive(state, fixture.input, v);
+      assertEquals(v.not(), outputValue(state, fixture.output));
+    }
+  }
+
+  @Test
+  void connectivityChangeInCleanSubtreeIsPropagated() {
+    final var fixture = new Fixture(3);
+    final var state = CircuitState.createRootState(fixture.project, fixture.file.getMainCircuit(), Thread.currentThread());
+    drive(state, fixture.input, Value.TRUE);
+    assertEquals(Value.FALSE, outputValue(state, fixture.output));
+
+    // turn the leaf inverter into a plain connection: only the wire data of the leaves changes
+    final var mutation = new CircuitMutation(fixture.leaf);
+    mutation.remove(fixture.leafNot);
+    mutation.execute();
+    fixture.leafOutTunnel.getAttributeSet().setValue(StdAttr.LABEL, "a");
+    state.getPropagator().propagate();
+    assertEquals(Value.TRUE, outputValue(state, fixture.output));
+  }
+
+  @Test
+  void everyToggleReachesTheOutputThroughTheDeepHierarchy() {
+    final var fixture = new Fixture(DEPTH);
+    final var state = CircuitState.createRootState(fixture.project, fixture.file.getMainCircuit(), Thread.currentThread());
+    var v = Value.FALSE;
+    for (var i = 0; i < TOGGLES; i++) {
+      drive(state, fixture.input, v);
+      assertEquals(v.not(), outputValue(state, fixture.output), "toggle " + i);
+      v = v.not();
+    }
+  }
+
+  @Test
+  @Tag("benchmark")
+  void benchmarkTogglingOnePathOfDeepHierarchy() {
+    final var fixture = new Fixture(DEPTH);
+    final var state = CircuitState.createRootState(fixture.project, fixture.file.getMainCircuit(), Thread.currentThread());
+    drive(state, fixture.input, Value.FALSE);
+    var v = Value.FALSE;
+    final var start = System.nanoTime();
+    for (var i = 0; i < BENCHMARK_TOGGLES; i++) {
+      v = v.not();
+      drive(state, fixture.input, v);
+    }
+    final var elapsed = System.nanoTime() - start;
+    assertEquals(v.not(), outputValue(state, fixture.output));
+    System.out.printf("%d states, %d toggles: %.1f us per propagation%n",
+        (1 << (DEPTH + 1)) - 1, BENCHMARK_TOGGLES, elapsed / 1000.0 / BENCHMARK_TOGGLES);
+  }
+
+  private static void drive(CircuitState state, Component pin, Value value) {
+    Pin.FACTORY.driveInputPin(state.getInstanceState(pin), value);
+    state.markComponentAsDirty(pin);
+    state.getPropagator().propagate();
+  }
+
+  private static Value outputValue(CircuitState state, Component pin) {
+    return Pin.FACTORY.getValue(state.getInstanceState(pin));
+  }
+
+  private static EndData getEnd(Component comp, boolean input) {
+    return comp.getEnds().stream().filter(e -> input ? e.isInput() : e.isOutput()).findFirst().orElseThrow();
+  }
+
+  private static Component tunnel(Location loc, String label) {
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, label);
+    return Tunnel.FACTORY.createComponent(loc, attrs);
+  }
+
+  private static void add(Circuit circuit, Component component) {
+    final var mutation = new CircuitMutation(circuit);
+    mutation.add(component);
+    mutation.execute();
+  }
+}
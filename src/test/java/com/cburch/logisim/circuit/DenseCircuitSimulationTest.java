@@ -0,0 +1,329 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.memory.MemoryLibrary;
+import com.cburch.logisim.std.plexers.PlexersLibrary;
+import com.cburch.logisim.std.wiring.Clock;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import com.cburch.logisim.tools.Library;
+import org.junit.jupiter.api.Test;
+
+/** Compares the compiled simulation of small circuits with the event-driven propagator. */
+class DenseCircuitSimulationTest {
+
+  private static final int CHAIN_LENGTH = 64;
+  private static final int TOGGLES = 20;
+
+  private final LogisimFile file = LogisimFile.createNew(new Loader(null), null);
+  private final Project project = new Project(file);
+  private int nextY = 100;
+
+  @Test
+  void gatesMultiplexerAndSubcircuitMatchPropagator() {
+    final var main = file.getMainCircuit();
+    final var a = addPin(main, "a", false);
+    final var b = addPin(main, "b", false);
+    final var s = addPin(main, "s", false);
+    final var y = addPin(main, "y", true);
+    final var z = addPin(main, "z", true);
+    final var and = addComponent(main, factory(new GatesLibrary(), "AND Gate"), "a", "b");
+    final var xor = addComponent(main, factory(new GatesLibrary(), "XOR Gate"), "a", "b");
+    addPortTunnel(main, and, 0, "g1");
+    addPortTunnel(main, xor, 0, "g2");
+    final var mux = addComponent(main, factory(new PlexersLibrary(), "Multiplexer"), "g1", "g2", "s");
+    addPortTunnel(main, mux, Instance.getInstanceFor(mux).getPorts().size() - 1, "y");
+    final var inverter = addInstance(main, createInverterCircuit());
+    final var pins = ((CircuitAttributes) inverter.getAttributeSet()).getPinInstances();
+    final var inputPort = Pin.FACTORY.isInputPin(pins[0]) ? 0 : 1;
+    addPortTunnel(main, inverter, inputPort, "y");
+    addPortTunnel(main, inverter, 1 - inputPort, "z");
+    project.setCurrentCircuit(main);
+
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+    final var sim = DenseCircuitSimulation.compile(main);
+    for (var row = 0; row < 8; row++) {
+      for (final var pin : new Component[] {a, b, s}) {
+        final var v = Value.createKnown(1, (row >> (pin == a ? 0 : pin == b ? 1 : 2)) & 1);
+        Pin.FACTORY.driveInputPin(state.getInstanceState(pin), v);
+        state.markComponentAsDirty(pin);
+        sim.setValue(Instance.getInstanceFor(pin), v);
+      }
+      state.getPropagator().propagate();
+      sim.propagate();
+      assertFalse(sim.isOscillating());
+      assertEquals(valueOf(state, y), sim.getValue(Instance.getInstanceFor(y)), "row " + row);
+      assertEquals(valueOf(state, z), sim.getValue(Instance.getInstanceFor(z)), "row " + row);
+    }
+  }
+
+  @Test
+  void clockedFlipFlopMatchesPropagator() {
+    final var main = file.getMainCircuit();
+    final var q = addPin(main, "q", true);
+    final var clock = Clock.FACTORY.createComponent(Location.create(50, nextY += 100, true),
+        Clock.FACTORY.createAttributeSet());
+    add(main, clock);
+    add(main, tunnel(clock.getLocation(), "clk"));
+    final var dff = addComponent(main, factory(new MemoryLibrary(), "D Flip-Flop"), "nq", "clk");
+    addPortTunnel(main, dff, 2, "q");
+    addPortTunnel(main, dff, 3, "nq");
+    project.setCurrentCircuit(main);
+
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+    final var prop = state.getPropagator();
+    prop.propagate();
+    final var sim = DenseCircuitSimulation.compile(main);
+    sim.propagate();
+    for (var tick = 0; tick < 16; tick++) {
+      prop.toggleClocks();
+      prop.propagate();
+      sim.toggleClocks();
+      sim.propagate();
+      assertEquals(valueOf(state, q), sim.getValue(Instance.getInstanceFor(q)), "tick " + tick);
+    }
+  }
+
+  @Test
+  void otherFlipFlopsMatchPropagator() {
+    final var main = file.getMainCircuit();
+    final var a = addPin(main, "a", false);
+    final var b = addPin(main, "b", false);
+    final var clock = Clock.FACTORY.createComponent(Location.create(50, nextY += 100, true),
+        Clock.FACTORY.createAttributeSet());
+    add(main, clock);
+    add(main, tunnel(clock.getLocation(), "clk"));
+    final var memory = new MemoryLibrary();
+    final var outputs = new Component[3];
+    final var names = new String[] {"T Flip-Flop", "J-K Flip-Flop", "S-R Flip-Flop"};
+    for (var i = 0; i < names.length; i++) {
+      final var ff = i == 0
+          ? addComponent(main, factory(memory, names[i]), "a", "clk")
+          : addComponent(main, factory(memory, names[i]), "a", "b", "clk");
+      outputs[i] = addPin(main, "q" + i, true);
+      addPortTunnel(main, ff, Instance.getInstanceFor(ff).getPorts().size() - 4, "q" + i);
+    }
+    project.setCurrentCircuit(main);
+
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+    final var prop = state.getPropagator();
+    prop.propagate();
+    final var sim = DenseCircuitSimulation.compile(main);
+    sim.propagate();
+    for (var tick = 0; tick < 32; tick++) {
+      // change the inputs while the clock is low
+      if (tick % 2 == 0) {
+        for (final var pin : new Component[] {a, b}) {
+          final var v = Value.createKnown(1, ((tick / 2) >> (pin == a ? 0 : 1)) & 1);
+          Pin.FACTORY.driveInputPin(state.getInstanceState(pin), v);
+          state.markComponentAsDirty(pin);
+          sim.setValue(Instance.getInstanceFor(pin), v);
+        }
+      }
+      prop.toggleClocks();
+      prop.propagate();
+      sim.toggleClocks();
+      sim.propagate();
+      assertFalse(sim.hasUndefinedValues());
+      for (final var q : outputs) {
+        assertEquals(valueOf(state, q), sim.getValue(Instance.getInstanceFor(q)), q + " at tick " + tick);
+      }
+    }
+  }
+
+  @Test
+  void decoderAndDemultiplexerMatchPropagator() {
+    final var main = file.getMainCircuit();
+    final var a = addPin(main, "a", false);
+    final var s = addPin(main, "s", false);
+    final var plexers = new PlexersLibrary();
+    final var decoder = addComponent(main, factory(plexers, "Decoder"), "s");
+    final var demux = addComponent(main, factory(plexers, "Demultiplexer"), "s", "a");
+    final var outputs = new Component[4];
+    for (var i = 0; i < 2; i++) {
+      outputs[i] = addPin(main, "d" + i, true);
+      addPortTunnel(main, decoder, i, "d" + i);
+      outputs[2 + i] = addPin(main, "m" + i, true);
+      addPortTunnel(main, demux, i, "m" + i);
+    }
+    project.setCurrentCircuit(main);
+
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+    final var sim = DenseCircuitSimulation.compile(main);
+    for (var row = 0; row < 4; row++) {
+      for (final var pin : new Component[] {a, s}) {
+        final var v = Value.createKnown(1, (row >> (pin == a ? 0 : 1)) & 1);
+        Pin.FACTORY.driveInputPin(state.getInstanceState(pin), v);
+        state.markComponentAsDirty(pin);
+        sim.setValue(Instance.getInstanceFor(pin), v);
+      }
+      state.getPropagator().propagate();
+      sim.propagate();
+      assertFalse(sim.hasUndefinedValues());
+      for (final var out : outputs) {
+        assertEquals(valueOf(state, out), sim.getValue(Instance.getInstanceFor(out)), out + " in row " + row);
+      }
+    }
+  }
+
+  @Test
+  void floatingGateInputIsReported() {
+    final var main = file.getMainCircuit();
+    addPin(main, "a", false);
+    // nothing drives the tunnel f
+    addComponent(main, factory(new GatesLibrary(), "AND Gate"), "a", "f");
+    final var sim = DenseCircuitSimulation.compile(main);
+    sim.propagate();
+    assertTrue(sim.hasUndefinedValues());
+  }
+
+  @Test
+  void undefinedInputIsTrackedAsPinsChange() {
+    final var main = file.getMainCircuit();
+    final var a = Instance.getInstanceFor(addPin(main, "a", false));
+    final var b = Instance.getInstanceFor(addPin(main, "b", false));
+    addComponent(main, factory(new GatesLibrary(), "AND Gate"), "a", "b");
+    final var sim = DenseCircuitSimulation.compile(main);
+    sim.setValue(a, Value.TRUE);
+    sim.setValue(b, Value.FALSE);
+    sim.propagate();
+    assertFalse(sim.hasUndefinedValues());
+    sim.setValue(b, Value.UNKNOWN);
+    sim.propagate();
+    assertTrue(sim.hasUndefinedValues());
+    sim.setValue(b, Value.TRUE);
+    sim.propagate();
+    assertFalse(sim.hasUndefinedValues());
+  }
+
+  @Test
+  void componentWithoutEmitterIsRejected() {
+    final var main = file.getMainCircuit();
+    addPin(main, "a", false);
+    addComponent(main, factory(new MemoryLibrary(), "Register"), "a");
+    assertThrows(CircuitException.class, () -> DenseCircuitSimulation.compile(main));
+  }
+
+  @Test
+  void inverterChainMatchesPropagator() {
+    final var main = file.getMainCircuit();
+    final var input = addPin(main, "a", false);
+    final var output = addPin(main, "y", true);
+    add(main, tunnel(input.getLocation(), "n0"));
+    add(main, tunnel(output.getLocation(), "n" + CHAIN_LENGTH));
+    final var not = factory(new GatesLibrary(), "NOT Gate");
+    for (var i = 0; i < CHAIN_LENGTH; i++) {
+      final var gate = addComponent(main, not, "n" + i);
+      addPortTunnel(main, gate, 0, "n" + (i + 1));
+    }
+    project.setCurrentCircuit(main);
+    final var pin = Instance.getInstanceFor(input);
+
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+    final var sim = DenseCircuitSimulation.compile(main);
+    var v = Value.FALSE;
+    for (var i = 0; i < TOGGLES; i++) {
+      Pin.FACTORY.driveInputPin(state.getInstanceState(pin), v);
+      state.markComponentAsDirty(input);
+      state.getPropagator().propagate();
+      sim.setValue(pin, v);
+      sim.propagate();
+      // an even number of inverters
+      assertEquals(v, valueOf(state, output), "toggle " + i);
+      assertEquals(v, sim.getValue(Instance.getInstanceFor(output)), "toggle " + i);
+      v = v.not();
+    }
+  }
+
+  /** a -> NOT -> y. */
+  private Circuit createInverterCircuit() {
+    final var circ = new Circuit("inverter", file, project);
+    file.addCircuit(circ);
+    final var savedY = nextY;
+    addPin(circ, "a", false);
+    addPin(circ, "y", true);
+    addComponent(circ, factory(new GatesLibrary(), "NOT Gate"), "a");
+    addPortTunnel(circ, circ.getNonWires().stream()
+        .filter(c -> !(c.getFactory() instanceof Pin) && !(c.getFactory() instanceof Tunnel))
+        .findFirst().orElseThrow(), 0, "y");
+    nextY = savedY + 1000;
+    return circ;
+  }
+
+  private Component addPin(Circuit circ, String label, boolean output) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    if (output) attrs.setValue(Pin.ATTR_TYPE, Pin.OUTPUT);
+    attrs.setValue(StdAttr.LABEL, label);
+    final var pin = Pin.FACTORY.createComponent(Location.create(50, nextY += 100, true), attrs);
+    add(circ, pin);
+    add(circ, tunnel(pin.getLocation(), label));
+    return pin;
+  }
+
+  /** Adds a component whose first input ports are connected to the named tunnels. */
+  private Component addComponent(Circuit circ, ComponentFactory factory, String... inputs) {
+    final var comp = factory.createComponent(Location.create(300, nextY += 100, true), factory.createAttributeSet());
+    add(circ, comp);
+    var port = 0;
+    for (final var label : inputs) {
+      while (!comp.getEnd(port).isInput() || comp.getEnd(port).isOutput()) port++;
+      add(circ, tunnel(comp.getEnd(port++).getLocation(), label));
+    }
+    return comp;
+  }
+
+  private Component addInstance(Circuit circ, Circuit child) {
+    final var factory = child.getSubcircuitFactory();
+    final var comp = factory.createComponent(Location.create(600, nextY += 100, true), factory.createAttributeSet());
+    add(circ, comp);
+    return comp;
+  }
+
+  private void addPortTunnel(Circuit circ, Component comp, int port, String label) {
+    add(circ, tunnel(comp.getEnd(port).getLocation(), label));
+  }
+
+  private static ComponentFactory factory(Library lib, String name) {
+    return ((AddTool) lib.getTool(name)).getFactory();
+  }
+
+  private static Value valueOf(CircuitState state, Component pin) {
+    return Pin.FACTORY.getValue(state.getInstanceState(pin));
+  }
+
+  private static Component tunnel(Location loc, String label) {
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, label);
+    return Tunnel.FACTORY.createComponent(loc, attrs);
+  }
+
+  private static void add(Circuit circuit, Component component) {
+    final var mutation = new CircuitMutation(circuit);
+    mutation.add(component);
+    mutation.execute();
+  }
+}
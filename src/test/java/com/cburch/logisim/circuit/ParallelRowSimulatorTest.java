@@ -0,0 +1,165 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.plexers.PlexersLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import com.cburch.logisim.tools.Library;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.Test;
+
+class ParallelRowSimulatorTest {
+
+  private static final int WIDTH = 4;
+
+  private final LogisimFile file = LogisimFile.createNew(new Loader(null), null);
+  private final Project project = new Project(file);
+  private final Circuit main = file.getMainCircuit();
+  private int nextY = 100;
+
+  @Test
+  void everyRowMatchesSerialSimulation() {
+    final var a = addPin("a", false, WIDTH);
+    final var b = addPin("b", false, WIDTH);
+    final var s = addPin("s", false, 1);
+    final var y = addPin("y", true, WIDTH);
+    final var gates = new GatesLibrary();
+    final var nand = addComponent(factory(gates, "NAND Gate"), WIDTH, "a", "b");
+    addTunnel(nand.getEnd(0).getLocation(), "g1");
+    final var xor = addComponent(factory(gates, "XOR Gate"), WIDTH, "a", "b");
+    addTunnel(xor.getEnd(0).getLocation(), "g2");
+    final var mux = addComponent(factory(new PlexersLibrary(), "Multiplexer"), WIDTH, "g1", "g2", "s");
+    addTunnel(mux.getEnd(mux.getEnds().size() - 1).getLocation(), "y");
+    project.setCurrentCircuit(main);
+
+    final var inputs = List.of(Instance.getInstanceFor(a), Instance.getInstanceFor(b), Instance.getInstanceFor(s));
+    final var output = Instance.getInstanceFor(y);
+    final var rowCount = 1 << (2 * WIDTH + 1);
+    final var results = new Value[rowCount];
+    final var calls = new AtomicIntegerArray(rowCount);
+    try (final var simulator = new ParallelRowSimulator(project, main, inputs, List.of(output))) {
+      simulator.simulate(0, rowCount, row -> row != 7, (row, outputs) -> {
+        calls.incrementAndGet(row);
+        assertNotNull(outputs);
+        results[row] = outputs[0];
+      });
+    }
+
+    for (var row = 0; row < rowCount; row++) {
+      assertEquals(row == 7 ? 0 : 1, calls.get(row), "row " + row);
+      if (row == 7) continue;
+      final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+      // the first pin holds the most significant bits of the row number
+      drive(state, a, row >> (WIDTH + 1));
+      drive(state, b, (row >> 1) & ((1 << WIDTH) - 1));
+      drive(state, s, row & 1);
+      state.getPropagator().propagate();
+      assertEquals(Pin.FACTORY.getValue(state.getInstanceState(output)), results[row], "row " + row);
+    }
+  }
+
+  @Test
+  void workersAreKeptAcrossRunsAndStoppedByClose() throws InterruptedException {
+    final var a = addPin("a", false, WIDTH);
+    final var y = addPin("y", true, WIDTH);
+    final var not = addComponent(factory(new GatesLibrary(), "NOT Gate"), WIDTH, "a");
+    addTunnel(not.getEnd(0).getLocation(), "y");
+    project.setCurrentCircuit(main);
+    final var inputs = List.of(Instance.getInstanceFor(a));
+    final var output = Instance.getInstanceFor(y);
+    final var threads = ConcurrentHashMap.<Thread>newKeySet();
+    final var results = new Value[1 << WIDTH];
+    try (final var simulator = new ParallelRowSimulator(project, main, inputs, List.of(output))) {
+      simulator.simulate(0, 1 << WIDTH, row -> true, (row, outputs) -> threads.add(Thread.currentThread()));
+      final var firstRun = Set.copyOf(threads);
+      // the second run starts from states left by the first, which must not leak into it
+      simulator.simulate(0, 1 << WIDTH, row -> true, (row, outputs) -> {
+        threads.add(Thread.currentThread());
+        results[row] = outputs[0];
+      });
+      assertEquals(firstRun, threads);
+    }
+    assertFalse(threads.contains(Thread.currentThread()));
+    for (var row = 0; row < results.length; row++) {
+      assertEquals(Value.createKnown(WIDTH, ~row & ((1 << WIDTH) - 1)), results[row], "row " + row);
+    }
+    for (final var thread : threads) {
+      thread.join(10_000);
+      assertFalse(thread.isAlive(), thread.getName());
+    }
+  }
+
+  private void drive(CircuitState state, Component pin, int value) {
+    final var width = pin.getAttributeSet().getValue(StdAttr.WIDTH);
+    Pin.FACTORY.driveInputPin(state.getInstanceState(pin), Value.createKnown(width, value));
+  }
+
+  private Component addPin(String label, boolean output, int width) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    if (output) attrs.setValue(Pin.ATTR_TYPE, Pin.OUTPUT);
+    attrs.setValue(StdAttr.LABEL, label);
+    attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+    final var pin = Pin.FACTORY.createComponent(Location.create(50, nextY += 100, true), attrs);
+    add(pin);
+    addTunnel(pin.getLocation(), label);
+    return pin;
+  }
+
+  /** Adds a component whose first input ports are connected to the named tunnels. */
+  private Component addComponent(ComponentFactory factory, int width, String... inputs) {
+    final var attrs = factory.createAttributeSet();
+    if (attrs.containsAttribute(StdAttr.WIDTH)) attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
+    final var comp = factory.createComponent(Location.create(300, nextY += 100, true), attrs);
+    add(comp);
+    var port = 0;
+    for (final var label : inputs) {
+      while (!comp.getEnd(port).isInput() || comp.getEnd(port).isOutput()) port++;
+      addTunnel(comp.getEnd(port++).getLocation(), label);
+    }
+    return comp;
+  }
+
+  private void addTunnel(Location loc, String label) {
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, label);
+    attrs.setValue(StdAttr.WIDTH, main.getWidth(loc) == BitWidth.UNKNOWN ? BitWidth.ONE : main.getWidth(loc));
+    add(Tunnel.FACTORY.createComponent(loc, attrs));
+  }
+
+  private static ComponentFactory factory(Library lib, String name) {
+    return ((AddTool) lib.getTool(name)).getFactory();
+  }
+
+  private void add(Component component) {
+    final var mutation = new CircuitMutation(main);
+    mutation.add(component);
+    mutation.execute();
+  }
+}
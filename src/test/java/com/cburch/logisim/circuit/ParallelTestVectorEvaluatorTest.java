@@ -0,0 +1,117 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.memory.MemoryLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParallelTestVectorEvaluatorTest {
+
+  private static final int SETS = 300;
+
+  @TempDir
+  File tempDir;
+
+  private final LogisimFile file = LogisimFile.createNew(new Loader(null), null);
+  private final Project project = new Project(file);
+  private final Circuit main = file.getMainCircuit();
+  private int nextY = 100;
+
+  @Test
+  void reportsMatchSequentialEvaluationInRowOrder() throws Exception {
+    addPin("d", false);
+    addPin("c", false);
+    addPin("q", true);
+    final var factory = ((AddTool) new MemoryLibrary().getTool("D Flip-Flop")).getFactory();
+    final var dff = add(factory.createComponent(Location.create(300, nextY += 100, true),
+        factory.createAttributeSet()));
+    addTunnel(dff.getEnd(0).getLocation(), "d");
+    addTunnel(dff.getEnd(1).getLocation(), "c");
+    addTunnel(dff.getEnd(2).getLocation(), "q");
+    project.setCurrentCircuit(main);
+
+    // every set loads a bit into the flip-flop; every seventh set expects the wrong value
+    final var vectorFile = new File(tempDir, "dff.txt");
+    try (final var writer = new FileWriter(vectorFile)) {
+      writer.write("<set> <seq> d c q\n");
+      // combinational rows, the circuit is reset before each of them
+      for (var row = 0; row < SETS; row++) writer.write("0 0 " + (row % 2) + " 0 0\n");
+      for (var set = 1; set <= SETS; set++) {
+        final var bit = set % 2;
+        final var expected = set % 7 == 0 ? 1 - bit : bit;
+        writer.write(set + " 1 " + bit + " 0 0\n");
+        writer.write(set + " 2 " + bit + " 1 " + expected + "\n");
+        writer.write(set + " 3 " + (1 - bit) + " 0 " + expected + "\n");
+      }
+    }
+    final var vector = new TestVector(vectorFile);
+
+    final var serialRows = new ArrayList<Integer>();
+    final var serialReports = new ArrayList<String>();
+    final var serial = new TestVectorEvaluator(CircuitState.createRootState(project, main, Thread.currentThread()),
+        vector).evaluate((row, report) -> {
+          serialRows.add(row);
+          serialReports.add(report.toString());
+        });
+
+    final var parallelRows = new ArrayList<Integer>();
+    final var parallelReports = new ArrayList<String>();
+    final var evaluator = new ParallelTestVectorEvaluator(
+        CircuitState.createRootState(project, main, Thread.currentThread()), vector, 4);
+    final var parallel = evaluator.evaluate((row, report) -> {
+      parallelRows.add(row);
+      parallelReports.add(report.toString());
+    });
+
+    assertEquals(4 * SETS, parallelRows.size());
+    for (var i = 0; i < parallelRows.size(); i++) assertEquals(i, parallelRows.get(i));
+    assertEquals(serialReports, parallelReports);
+    assertArrayEquals(serial, parallel);
+    assertEquals(2 * (SETS / 7), parallel[1]);
+  }
+
+  private void addPin(String label, boolean output) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    if (output) attrs.setValue(Pin.ATTR_TYPE, Pin.OUTPUT);
+    attrs.setValue(StdAttr.LABEL, label);
+    final var pin = add(Pin.FACTORY.createComponent(Location.create(50, nextY += 100, true), attrs));
+    addTunnel(pin.getLocation(), label);
+  }
+
+  private void addTunnel(Location loc, String label) {
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, label);
+    add(Tunnel.FACTORY.createComponent(loc, attrs));
+  }
+
+  private Component add(Component component) {
+    final var mutation = new CircuitMutation(main);
+    mutation.add(component);
+    mutation.execute();
+    return component;
+  }
+}
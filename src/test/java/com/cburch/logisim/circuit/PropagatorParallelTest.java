@@ -0,0 +1,182 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.file.Options;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PropagatorParallelTest {
+  private static final int PAIRS = 8;
+
+  private final LogisimFile file = LogisimFile.createNew(new Loader(null), null);
+  private final Project project = new Project(file);
+  private final Circuit main = file.getMainCircuit();
+
+  @Test
+  void parallelStepsMatchSerialSteps() {
+    file.getOptions().getAttributeSet().setValue(Options.ATTR_SIM_RAND, 0);
+    final var gates = new GatesLibrary();
+
+    // half adder
+    final var half = addCircuit("half");
+    addPin(half, "a", false, 0);
+    addPin(half, "b", false, 1);
+    addPin(half, "s", true, 2);
+    addPin(half, "c", true, 3);
+    addComponent(half, factory(gates, "XOR Gate"), Location.create(300, 100, true), "s", "a", "b");
+    addComponent(half, factory(gates, "AND Gate"), Location.create(300, 300, true), "c", "a", "b");
+
+    // two bit incrementer, made of two half adders
+    final var pair = addCircuit("pair");
+    addPin(pair, "a0", false, 0);
+    addPin(pair, "a1", false, 1);
+    addPin(pair, "ci", false, 2);
+    addPin(pair, "s0", true, 3);
+    addPin(pair, "s1", true, 4);
+    addPin(pair, "co", true, 5);
+    addSubcircuit(pair, half, 0, Map.of("a", "a0", "b", "ci", "s", "s0", "c", "k"));
+    addSubcircuit(pair, half, 1, Map.of("a", "a1", "b", "k", "s", "s1", "c", "co"));
+
+    // 2 * PAIRS bit incrementer
+    final var inputs = new Component[2 * PAIRS];
+    final var outputs = new Component[2 * PAIRS];
+    for (var i = 0; i < 2 * PAIRS; i++) {
+      inputs[i] = addPin(main, "x" + i, false, i);
+      outputs[i] = addPin(main, "y" + i, true, 2 * PAIRS + i);
+    }
+    final var cin = addPin(main, "c0", false, 4 * PAIRS);
+    final var cout = addPin(main, "c" + PAIRS, true, 4 * PAIRS + 1);
+    for (var i = 0; i < PAIRS; i++) {
+      addSubcircuit(main, pair, i, Map.of("a0", "x" + (2 * i), "a1", "x" + (2 * i + 1), "ci", "c" + i,
+          "s0", "y" + (2 * i), "s1", "y" + (2 * i + 1), "co", "c" + (i + 1)));
+    }
+
+    final var serial = CircuitState.createRootState(project, main, Thread.currentThread());
+    serial.getPropagator().setParallel(false);
+    final var parallel = CircuitState.createRootState(project, main, Thread.currentThread());
+    parallel.getPropagator().setParallel(true);
+    // creating the substates of one root state marks the subcircuits dirty in the other one
+    for (final var state : new CircuitState[] {serial, parallel, serial}) state.getPropagator().propagate();
+    final var serialEvents = serial.getPropagator().getEventCount();
+    final var parallelEvents = parallel.getPropagator().getEventCount();
+
+    final var random = new Random(11);
+    for (var round = 0; round < 100; round++) {
+      final var x = random.nextInt(1 << (2 * PAIRS));
+      final var carry = random.nextBoolean();
+      for (final var state : new CircuitState[] {serial, parallel}) {
+        for (var i = 0; i < inputs.length; i++) drive(state, inputs[i], Value.createKnown(1, (x >> i) & 1));
+        drive(state, cin, carry ? Value.TRUE : Value.FALSE);
+      }
+      // step both simulations in lockstep: the values must agree after every step
+      var steps = 0;
+      while (true) {
+        final var pending = serial.getPropagator().step(null);
+        assertEquals(pending, parallel.getPropagator().step(null), "round " + round + " step " + steps);
+        // the same events are scheduled: the ports of a subcircuit are updated once for every pin
+        // that changed, as in the serial pass, and not once at the end
+        assertEquals(serial.getPropagator().getEventCount() - serialEvents,
+            parallel.getPropagator().getEventCount() - parallelEvents, "round " + round + " step " + steps);
+        for (var i = 0; i < outputs.length; i++) {
+          assertEquals(value(serial, outputs[i]), value(parallel, outputs[i]),
+              "round " + round + " step " + steps + " y" + i);
+        }
+        assertEquals(value(serial, cout), value(parallel, cout), "round " + round + " step " + steps);
+        if (!pending) break;
+        steps++;
+      }
+      final var sum = x + (carry ? 1 : 0);
+      for (var i = 0; i < outputs.length; i++) {
+        assertEquals(Value.createKnown(1, (sum >> i) & 1), value(parallel, outputs[i]), "round " + round);
+      }
+      assertEquals(Value.createKnown(1, sum >> (2 * PAIRS)), value(parallel, cout), "round " + round);
+    }
+  }
+
+  private static void drive(CircuitState state, Component pin, Value value) {
+    Pin.FACTORY.driveInputPin(state.getInstanceState(pin), value);
+    state.markComponentAsDirty(pin);
+  }
+
+  private static Value value(CircuitState state, Component pin) {
+    return Pin.FACTORY.getValue(state.getInstanceState(pin));
+  }
+
+  private static ComponentFactory factory(GatesLibrary gates, String name) {
+    return ((AddTool) gates.getTool(name)).getFactory();
+  }
+
+  private Circuit addCircuit(String name) {
+    final var circuit = new Circuit(name, file, project);
+    file.addCircuit(circuit);
+    return circuit;
+  }
+
+  /** Adds a pin, and a tunnel that names the net of the pin. */
+  private Component addPin(Circuit circuit, String label, boolean output, int index) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    if (output) attrs.setValue(Pin.ATTR_TYPE, Pin.OUTPUT);
+    attrs.setValue(StdAttr.LABEL, label);
+    final var pin = Pin.FACTORY.createComponent(Location.create(50, 100 + 40 * index, true), attrs);
+    add(circuit, pin);
+    addTunnel(circuit, pin.getLocation(), label);
+    return pin;
+  }
+
+  /** Adds a component with its ends connected to the nets named by the labels, in end order. */
+  private void addComponent(Circuit circuit, ComponentFactory factory, Location loc, String... labels) {
+    final var comp = factory.createComponent(loc, factory.createAttributeSet());
+    add(circuit, comp);
+    for (var i = 0; i < labels.length; i++) addTunnel(circuit, comp.getEnd(i).getLocation(), labels[i]);
+  }
+
+  /** Adds an instance of sub, with its pins connected to the nets given by their label. */
+  private void addSubcircuit(Circuit circuit, Circuit sub, int index, Map<String, String> nets) {
+    final var factory = sub.getSubcircuitFactory();
+    final var comp = factory.createComponent(Location.create(600, 100 + 200 * index, true),
+        factory.createAttributeSet());
+    add(circuit, comp);
+    final var pins = ((CircuitAttributes) comp.getAttributeSet()).getPinInstances();
+    final var labels = new HashMap<String, String>(nets);
+    for (var i = 0; i < pins.length; i++) {
+      final var net = labels.get(pins[i].getAttributeValue(StdAttr.LABEL));
+      addTunnel(circuit, comp.getEnd(i).getLocation(), net);
+    }
+  }
+
+  private void addTunnel(Circuit circuit, Location loc, String label) {
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, label);
+    add(circuit, Tunnel.FACTORY.createComponent(loc, attrs));
+  }
+
+  private static void add(Circuit circuit, Component component) {
+    final var mutation = new CircuitMutation(circuit);
+    mutation.add(component);
+    mutation.execute();
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.prefs.AppPreferences;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class PropagatorTest {
+
+  private static final int CHAIN_LENGTH = 16;
+
+  /** a -> NOT -> NOT -> ... -> y, connected through tunnels. */
+  private static final class Fixture {
+    private final Project project;
+    private final Circuit circuit;
+    private final Component input;
+    private final Component output;
+
+    private Fixture() {
+      final var file = LogisimFile.createNew(new Loader(null), null);
+      project = new Project(file);
+      circuit = file.getMainCircuit();
+      circuit.setProject(project);
+      project.setCurrentCircuit(circuit);
+      final var inAttrs = Pin.FACTORY.createAttributeSet();
+      input = Pin.FACTORY.createComponent(Location.create(50, 100, true), inAttrs);
+      final var outAttrs = Pin.FACTORY.createAttributeSet();
+      outAttrs.setValue(Pin.ATTR_TYPE, Pin.OUTPUT);
+      output = Pin.FACTORY.createComponent(Location.create(50, 200, true), outAttrs);
+      add(input);
+      add(output);
+      add(tunnel(input.getLocation(), "n0"));
+      add(tunnel(output.getLocation(), "n" + CHAIN_LENGTH));
+      final var notFactory = ((AddTool) new GatesLibrary().getTool("NOT Gate")).getFactory();
+      for (var i = 0; i < CHAIN_LENGTH; i++) {
+        final var gate = notFactory.createComponent(Location.create(200, 100 + 100 * i, true),
+            notFactory.createAttributeSet());
+        add(gate);
+        add(tunnel(gate.getEnd(1).getLocation(), "n" + i));
+        add(tunnel(gate.getEnd(0).getLocation(), "n" + (i + 1)));
+      }
+    }
+
+    private void add(Component component) {
+      final var mutation = new CircuitMutation(circuit);
+      mutation.add(component);
+      mutation.execute();
+    }
+
+    private static Component tunnel(Location loc, String label) {
+      final var attrs = Tunnel.FACTORY.createAttributeSet();
+      attrs.setValue(StdAttr.LABEL, label);
+      return Tunnel.FACTORY.createComponent(loc, attrs);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      AppPreferences.SIM_QUEUE_PRIORITY,
+      AppPreferences.SIM_QUEUE_SPLAY,
+      AppPreferences.SIM_QUEUE_LINKED,
+      AppPreferences.SIM_QUEUE_LIST_OF_QUEUES,
+      AppPreferences.SIM_QUEUE_TREE_OF_QUEUES,
+      AppPreferences.SIM_QUEUE_TIMING_WHEEL})
+  void steadyStatePropagationRecyclesEvents(String queueType) {
+    final var previousQueue = AppPreferences.SIMULATION_QUEUE.get();
+    try {
+      AppPreferences.SIMULATION_QUEUE.set(queueType);
+      final var fixture = new Fixture();
+      final var state = CircuitState.createRootState(fixture.project, fixture.circuit, Thread.currentThread());
+      final var prop = state.getPropagator();
+      var v = Value.FALSE;
+      for (var i = 0; i < 10; i++) { // warm up the event pool
+        v = v.not();
+        drive(state, fixture.input, v);
+      }
+      final var events = prop.getEventCount();
+      final var allocations = prop.getEventAllocationCount();
+      for (var i = 0; i < 100; i++) {
+        v = v.not();
+        drive(state, fixture.input, v);
+        assertEquals(v, Pin.FACTORY.getValue(state.getInstanceState(fixture.output)));
+      }
+      assertTrue(prop.getEventCount() - events >= 100 * CHAIN_LENGTH);
+      assertEquals(allocations, prop.getEventAllocationCount());
+    } finally {
+      AppPreferences.SIMULATION_QUEUE.set(previousQueue);
+    }
+  }
+
+  @Test
+  void switchingQueuesKeepsPendingEvents() {
+    final var fixture = new Fixture();
+    final var state = CircuitState.createRootState(fixture.project, fixture.circuit, Thread.currentThread());
+    final var prop = state.getPropagator();
+    drive(state, fixture.input, Value.FALSE);
+    Pin.FACTORY.driveInputPin(state.getInstanceState(fixture.input), Value.TRUE);
+    state.markComponentAsDirty(fixture.input);
+    for (var i = 0; i < CHAIN_LENGTH / 2; i++) prop.step(null);
+    prop.setQueueType(AppPreferences.SIM_QUEUE_TIMING_WHEEL);
+    prop.propagate();
+    assertEquals(Value.TRUE, Pin.FACTORY.getValue(state.getInstanceState(fixture.output)));
+  }
+
+  @Test
+  void everyQueueTypeReachesTheOutputOnEachToggle() {
+    final var fixture = new Fixture();
+    final var state = CircuitState.createRootState(fixture.project, fixture.circuit, Thread.currentThread());
+    final var prop = state.getPropagator();
+    for (final var queueType : new String[] {
+        AppPreferences.SIM_QUEUE_PRIORITY,
+        AppPreferences.SIM_QUEUE_SPLAY,
+        AppPreferences.SIM_QUEUE_LINKED,
+        AppPreferences.SIM_QUEUE_LIST_OF_QUEUES,
+        AppPreferences.SIM_QUEUE_TREE_OF_QUEUES,
+        AppPreferences.SIM_QUEUE_TIMING_WHEEL}) {
+      prop.setQueueType(queueType);
+      var v = Value.FALSE;
+      for (var i = 0; i < 20; i++) {
+        v = v.not();
+        drive(state, fixture.input, v);
+        assertEquals(v, Pin.FACTORY.getValue(state.getInstanceState(fixture.output)), queueType);
+      }
+    }
+  }
+
+  private static void drive(CircuitState state, Component pin, Value value) {
+    Pin.FACTORY.driveInputPin(state.getInstanceState(pin), value);
+    state.markComponentAsDirty(pin);
+    state.getPropagator().propagate();
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.file.Options;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.std.wiring.Tunnel;
+import com.cburch.logisim.tools.AddTool;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class SimulationProfilerTest {
+  private static final int INSTANCES = 4;
+
+  private final LogisimFile file = LogisimFile.createNew(new Loader(null), null);
+  private final Project project = new Project(file);
+  private final Circuit main = file.getMainCircuit();
+  private final ComponentFactory not = ((AddTool) new GatesLibrary().getTool("NOT Gate")).getFactory();
+  private Component input;
+  private Component[] outputs;
+
+  /** main: a -> INSTANCES x (inv: x -> NOT -> y) -> y0, y1, ... */
+  private void createCircuit() {
+    file.getOptions().getAttributeSet().setValue(Options.ATTR_SIM_RAND, 0);
+    final var inv = new Circuit("inv", file, project);
+    file.addCircuit(inv);
+    addPin(inv, "x", false, 0);
+    addPin(inv, "y", true, 1);
+    final var gate = not.createComponent(Location.create(300, 100, true), not.createAttributeSet());
+    add(inv, gate);
+    addTunnel(inv, gate.getEnd(0).getLocation(), "y");
+    addTunnel(inv, gate.getEnd(1).getLocation(), "x");
+
+    input = addPin(main, "a", false, 0);
+    outputs = new Component[INSTANCES];
+    for (var i = 0; i < INSTANCES; i++) {
+      outputs[i] = addPin(main, "y" + i, true, i + 1);
+      final var factory = inv.getSubcircuitFactory();
+      final var attrs = factory.createAttributeSet();
+      if (i == 0) attrs.setValue(StdAttr.LABEL, "first");
+      final var sub = factory.createComponent(Location.create(600, 100 + 200 * i, true), attrs);
+      add(main, sub);
+      final var pins = ((CircuitAttributes) sub.getAttributeSet()).getPinInstances();
+      for (var j = 0; j < pins.length; j++) {
+        final var isInput = "x".equals(pins[j].getAttributeValue(StdAttr.LABEL));
+        addTunnel(main, sub.getEnd(j).getLocation(), isInput ? "a" : "y" + i);
+      }
+    }
+  }
+
+  @Test
+  void countsCallsAndEventsPerFactoryAndInstance() {
+    createCircuit();
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+    final var prop = state.getPropagator();
+    prop.propagate();
+    final var profiler = new SimulationProfiler();
+    prop.setProfiler(profiler);
+    drive(state, Value.TRUE);
+    for (final var out : outputs) assertEquals(Value.FALSE, Pin.FACTORY.getValue(state.getInstanceState(out)));
+
+    final var byFactory = byName(profiler.getFactorySamples());
+    final var gates = byFactory.get(not.getDisplayName());
+    assertNotNull(gates);
+    assertEquals(INSTANCES, gates.invocations());
+    assertEquals(INSTANCES, gates.events());
+    assertNotNull(byFactory.get(WireFactory.instance.getDisplayName()));
+
+    final var byInstance = byName(profiler.getInstanceSamples());
+    assertEquals(INSTANCES + 1, byInstance.size());
+    assertTrue(byInstance.containsKey("main"));
+    assertTrue(byInstance.containsKey("main/first"));
+    assertTrue(byInstance.containsKey("main/inv(600,300)"));
+
+    // detached, nothing more is counted
+    prop.setProfiler(null);
+    drive(state, Value.FALSE);
+    assertEquals(INSTANCES, byName(profiler.getFactorySamples()).get(not.getDisplayName()).invocations());
+    profiler.clear();
+    assertTrue(profiler.getFactorySamples().isEmpty());
+  }
+
+  @Test
+  void parallelPropagationCountsTheSameEvents() {
+    createCircuit();
+    final var counts = new long[2][];
+    for (var pass = 0; pass < 2; pass++) {
+      final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+      final var prop = state.getPropagator();
+      prop.setParallel(pass == 1);
+      prop.propagate();
+      final var profiler = new SimulationProfiler();
+      prop.setProfiler(profiler);
+      drive(state, Value.TRUE);
+      drive(state, Value.FALSE);
+      final var samples = byName(profiler.getFactorySamples());
+      counts[pass] = new long[] {
+        samples.get(not.getDisplayName()).invocations(), samples.get(not.getDisplayName()).events(),
+        samples.get(Pin.FACTORY.getDisplayName()).events(),
+      };
+    }
+    assertEquals(List.of(counts[0][0], counts[0][1], counts[0][2]), List.of(counts[1][0], counts[1][1], counts[1][2]));
+  }
+
+  private void drive(CircuitState state, Value value) {
+    Pin.FACTORY.driveInputPin(state.getInstanceState(input), value);
+    state.markComponentAsDirty(input);
+    state.getPropagator().propagate();
+  }
+
+  private static Map<String, SimulationProfiler.Sample> byName(List<SimulationProfiler.Sample> samples) {
+    return samples.stream().collect(Collectors.toMap(SimulationProfiler.Sample::name, s -> s));
+  }
+
+  private Component addPin(Circuit circuit, String label, boolean output, int index) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    if (output) attrs.setValue(Pin.ATTR_TYPE, Pin.OUTPUT);
+    attrs.setValue(StdAttr.LABEL, label);
+    final var pin = Pin.FACTORY.createComponent(Location.create(50, 100 + 40 * index, true), attrs);
+    add(circuit, pin);
+    addTunnel(circuit, pin.getLocation(), label);
+    return pin;
+  }
+
+  private void addTunnel(Circuit circuit, Location loc, String label) {
+    final var attrs = Tunnel.FACTORY.createAttributeSet();
+    attrs.setValue(StdAttr.LABEL, label);
+    add(circuit, Tunnel.FACTORY.createComponent(loc, attrs));
+  }
+
+  private static void add(Circuit circuit, Component component) {
+    final var mutation = new CircuitMutation(circuit);
+    mutation.add(component);
+    mutation.execute();
+  }
+}
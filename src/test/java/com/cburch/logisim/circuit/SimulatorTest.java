@@ -24,11 +24,14 @@ import com.cburch.logisim.file.LogisimFile;
 import com.cburch.logisim.instance.InstanceFactory;
 import com.cburch.logisim.instance.InstancePainter;
 import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.prefs.AppPreferences;
 import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Clock;
 import com.cburch.logisim.std.wiring.Pin;
 import java.awt.Graphics2D;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 class SimulatorTest {
@@ -123,6 +126,53 @@ class SimulatorTest {
     }
   }
 
+  @Test
+  void turboModeBatchesTicksAndReportsEachOne() throws InterruptedException {
+    final var previous = AppPreferences.SIMULATION_TURBO.getBoolean();
+    final var file = LogisimFile.createNew(new Loader(null), null);
+    final var project = new Project(file);
+    final var circuit = file.getMainCircuit();
+    circuit.setProject(project);
+    add(circuit, Clock.FACTORY.createComponent(Location.create(100, 100, true), Clock.FACTORY.createAttributeSet()));
+
+    final var simulator = project.getSimulator();
+    final var batched = new CountDownLatch(1);
+    final var batchedTicks = new AtomicInteger();
+    final var miscounted = new AtomicInteger();
+    try {
+      AppPreferences.SIMULATION_TURBO.setBoolean(true);
+      simulator.addSimulatorListener(
+          new Simulator.TickListener() {
+            @Override
+            public void tickCompleted() {
+              batchedTicks.incrementAndGet();
+            }
+
+            @Override
+            public void propagationCompleted(Simulator.Event e) {
+              if (!e.didTick()) return;
+              // every tick is seen by the tick listeners, either on its own or through this event
+              if (batchedTicks.getAndSet(0) + 1 != e.getTickCount()) miscounted.incrementAndGet();
+              if (e.getTickCount() > 1) batched.countDown();
+            }
+
+            @Override
+            public void simulatorReset(Simulator.Event e) {}
+
+            @Override
+            public void simulatorStateChanged(Simulator.Event e) {}
+          });
+      simulator.setCircuitState(CircuitState.createRootState(project, circuit));
+      simulator.setTickFrequency(1e6);
+      simulator.setAutoTicking(true);
+      assertTrue(batched.await(10, TimeUnit.SECONDS), "ticks were not batched");
+    } finally {
+      simulator.shutDown();
+      AppPreferences.SIMULATION_TURBO.setBoolean(previous);
+    }
+    assertEquals(0, miscounted.get());
+  }
+
   private static void add(Circuit circuit, Component component) {
     final var mutation = new CircuitMutation(circuit);
     mutation.add(component);
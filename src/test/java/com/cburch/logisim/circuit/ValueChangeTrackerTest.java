@@ -0,0 +1,100 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.data.Bounds;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.tools.AddTool;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ValueChangeTrackerTest {
+  private final LogisimFile file = LogisimFile.createNew(new Loader(null), null);
+  private final Project project = new Project(file);
+  private final Circuit main = file.getMainCircuit();
+  private final ComponentFactory not = ((AddTool) new GatesLibrary().getTool("NOT Gate")).getFactory();
+
+  @Test
+  void reportsTheChangedWiresAndComponents() {
+    // a --in--> NOT --out--> y
+    final var gate = not.createComponent(Location.create(300, 100, true), not.createAttributeSet());
+    add(gate);
+    final var a = addPin(Location.create(50, 100, true), false);
+    final var y = addPin(Location.create(400, 100, true), true);
+    final var in = Wire.create(a.getLocation(), gate.getEnd(1).getLocation());
+    final var out = Wire.create(gate.getLocation(), y.getLocation());
+    add(in);
+    add(out);
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+    state.getPropagator().propagate();
+
+    final var tracker = new ValueChangeTracker();
+    state.setChangeTracker(tracker);
+    assertNull(tracker.takeChangedBounds(state), "everything is dirty when attached");
+    assertEquals(List.of(), tracker.takeChangedBounds(state));
+
+    drive(state, a, Value.TRUE);
+    final var bounds = tracker.takeChangedBounds(state);
+    assertNotNull(bounds);
+    for (final var changed : List.of(in, out, a, gate, y)) {
+      assertTrue(covers(bounds, changed.getBounds()), changed + " is not covered by " + bounds);
+    }
+    assertEquals(List.of(), tracker.takeChangedBounds(state));
+
+    // a new wire changes the connectivity, so everything is repainted
+    add(Wire.create(y.getLocation(), Location.create(400, 200, true)));
+    drive(state, a, Value.FALSE);
+    assertNull(tracker.takeChangedBounds(state));
+
+    state.setChangeTracker(null);
+    drive(state, a, Value.TRUE);
+    assertEquals(List.of(), tracker.takeChangedBounds(state));
+  }
+
+  private static boolean covers(List<Bounds> bounds, Bounds b) {
+    for (final var c : bounds) {
+      if (c.contains(b)) return true;
+    }
+    return false;
+  }
+
+  private static void drive(CircuitState state, Component pin, Value value) {
+    Pin.FACTORY.driveInputPin(state.getInstanceState(pin), value);
+    state.markComponentAsDirty(pin);
+    state.getPropagator().propagate();
+  }
+
+  private Component addPin(Location loc, boolean output) {
+    final var attrs = Pin.FACTORY.createAttributeSet();
+    if (output) attrs.setValue(Pin.ATTR_TYPE, Pin.OUTPUT);
+    final var pin = Pin.FACTORY.createComponent(loc, attrs);
+    add(pin);
+    return pin;
+  }
+
+  private void add(Component component) {
+    final var mutation = new CircuitMutation(main);
+    mutation.add(component);
+    mutation.execute();
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CanvasPaintCoordinatorTest {
+  private static final Rectangle VISIBLE = new Rectangle(100, 100, 2000, 1500);
+
+  @Test
+  void mergesNearbyRegionsFirst() {
+    final var regions = new ArrayList<Rectangle>();
+    for (var i = 0; i < 10; i++) {
+      regions.add(new Rectangle(200 + 20 * i, 200, 10, 10));
+      regions.add(new Rectangle(1500, 1000 + 20 * i, 10, 10));
+    }
+    final var merged = CanvasPaintCoordinator.mergeRegions(regions, VISIBLE, 2);
+    assertNotNull(merged);
+    assertEquals(2, merged.size());
+    assertCovered(regions, merged);
+    for (final var r : merged) assertTrue(r.width * r.height <= 200 * 10, r.toString());
+  }
+
+  @Test
+  void coversManyRegions() {
+    final var random = new Random(5);
+    final var regions = new ArrayList<Rectangle>();
+    for (var i = 0; i < 1000; i++) {
+      regions.add(new Rectangle(100 + random.nextInt(60), 100 + random.nextInt(1400), 8, 8));
+    }
+    final var merged = CanvasPaintCoordinator.mergeRegions(regions, VISIBLE, CanvasPaintCoordinator.MAX_REGIONS);
+    assertNotNull(merged);
+    assertTrue(merged.size() <= CanvasPaintCoordinator.MAX_REGIONS);
+    assertCovered(regions, merged);
+  }
+
+  @Test
+  void repaintsEverythingWhenMostIsDirty() {
+    final var regions = List.of(new Rectangle(100, 100, 10, 10), new Rectangle(2000, 1500, 10, 10));
+    assertNull(CanvasPaintCoordinator.mergeRegions(regions, VISIBLE, 1));
+    assertEquals(2, CanvasPaintCoordinator.mergeRegions(regions, VISIBLE, 2).size());
+  }
+
+  private static void assertCovered(List<Rectangle> regions, List<Rectangle> merged) {
+    for (final var r : regions) {
+      assertTrue(merged.stream().anyMatch(m -> m.contains(r)), r + " is not covered");
+    }
+  }
+}
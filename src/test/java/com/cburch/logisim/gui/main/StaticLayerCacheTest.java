@@ -0,0 +1,104 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitMutation;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.gui.generic.GridPainter;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.gates.GatesLibrary;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.tools.AddTool;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageProducer;
+import org.junit.jupiter.api.Test;
+
+class StaticLayerCacheTest {
+  private static final int SIZE = 600;
+
+  private final LogisimFile file = LogisimFile.createNew(new Loader(null), null);
+  private final Project project = new Project(file);
+  private final Canvas canvas = mock(Canvas.class);
+
+  @Test
+  void drawsStaticComponentsOnceIntoTiles() {
+    when(canvas.createImage(any(ImageProducer.class)))
+        .thenReturn(new BufferedImage(20, 20, BufferedImage.TYPE_INT_ARGB));
+    when(canvas.getSize()).thenReturn(new Dimension(SIZE, SIZE));
+    when(canvas.getZoomFactor()).thenReturn(1.0);
+    when(canvas.getBackground()).thenReturn(Color.WHITE);
+
+    final var main = file.getMainCircuit();
+    final var not = ((AddTool) new GatesLibrary().getTool("NOT Gate")).getFactory();
+    final var gate = not.createComponent(Location.create(300, 100, true), not.createAttributeSet());
+    final var pin = Pin.FACTORY.createComponent(Location.create(100, 300, true), Pin.FACTORY.createAttributeSet());
+    add(main, gate);
+    add(main, pin);
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+
+    final var cache = new StaticLayerCache(canvas, new GridPainter(canvas));
+    final var image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+    paint(cache, image, main, state);
+    final var tiles = (SIZE + StaticLayerCache.TILE_SIZE - 1) / StaticLayerCache.TILE_SIZE;
+    assertEquals(tiles * tiles, cache.getTileCount());
+    assertEquals(tiles * tiles, cache.getTilesRendered());
+    assertTrue(countBlack(image, gate) > 0, "the gate is in the static layer");
+    assertEquals(0, countBlack(image, pin), "the pin shows its value, so it is drawn on top");
+
+    paint(cache, image, main, state);
+    assertEquals(tiles * tiles, cache.getTilesRendered(), "the tiles are reused");
+
+    cache.invalidate();
+    paint(cache, image, main, state);
+    assertEquals(2 * tiles * tiles, cache.getTilesRendered());
+
+    when(canvas.getZoomFactor()).thenReturn(2.0);
+    paint(cache, image, main, state);
+    assertEquals(3 * tiles * tiles, cache.getTilesRendered());
+  }
+
+  private static void paint(StaticLayerCache cache, BufferedImage image, Circuit circ,
+      CircuitState state) {
+    final var g = image.createGraphics();
+    g.setClip(0, 0, SIZE, SIZE);
+    cache.paint(g, circ, state);
+    g.dispose();
+  }
+
+  private static int countBlack(BufferedImage image, Component comp) {
+    final var bds = comp.getBounds();
+    var count = 0;
+    for (var y = bds.getY(); y < bds.getY() + bds.getHeight(); y++) {
+      for (var x = bds.getX(); x < bds.getX() + bds.getWidth(); x++) {
+        if ((image.getRGB(x, y) & 0xffffff) == 0) count++;
+      }
+    }
+    return count;
+  }
+
+  private static void add(Circuit circuit, Component component) {
+    final var mutation = new CircuitMutation(circuit);
+    mutation.add(component);
+    mutation.execute();
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.gui.start;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.data.TestVector;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchGraderTest {
+
+  /** Output pin y is wired to the input pin named by the second argument. */
+  private static final String CIRCUIT = """
+      <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+      <project source="4.0.0dev" version="1.0">
+      <lib desc="#Wiring" name="0"/>
+      <main name="main"/>
+      <circuit name="main">
+        <comp lib="0" loc="(100,100)" name="Pin">
+          <a name="label" val="a"/>
+        </comp>
+        <comp lib="0" loc="(100,200)" name="Pin">
+          <a name="label" val="b"/>
+        </comp>
+        <comp lib="0" loc="(300,%d)" name="Pin">
+          <a name="facing" val="west"/>
+          <a name="label" val="y"/>
+          <a name="type" val="output"/>
+        </comp>
+        <wire from="(100,%d)" to="(300,%d)"/>
+      </circuit>
+      </project>
+      """;
+
+  @TempDir File tempDir;
+
+  @Test
+  void everyFileGetsOneLineInOrder() throws IOException {
+    final var vectorFile = write("vector.txt", "a y\n0 0\n1 1\n");
+    final var submissions = new File(tempDir, "submissions");
+    submissions.mkdir();
+    write("submissions/1-good.circ", String.format(CIRCUIT, 100, 100, 100));
+    write("submissions/2-wrong.circ", String.format(CIRCUIT, 200, 200, 200));
+    write("submissions/3-broken.circ", "this is not a circuit");
+    final var files = BatchGrader.expand(List.of(submissions, new File(tempDir, "missing.circ")));
+    assertEquals(4, files.size());
+
+    final var out = new ByteArrayOutputStream();
+    final var grader = new BatchGrader(null, new TestVector(vectorFile), Collections.emptyMap(), 2,
+        BatchGrader.DEFAULT_TIMEOUT_SECONDS * 1000L);
+    final var notPassed = grader.grade(files, new PrintStream(out, true, StandardCharsets.UTF_8));
+
+    final var lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+    assertEquals(4, lines.size());
+    assertEquals(3, notPassed);
+    assertTrue(lines.get(0).contains("1-good.circ\",\"status\":\"pass\",\"passed\":2,\"failed\":0"), lines.get(0));
+    assertTrue(lines.get(1).contains("2-wrong.circ\",\"status\":\"fail\",\"passed\":1,\"failed\":1"), lines.get(1));
+    assertTrue(lines.get(2).contains("3-broken.circ\",\"status\":\"error\""), lines.get(2));
+    assertTrue(lines.get(3).contains("missing.circ\",\"status\":\"error\""), lines.get(3));
+  }
+
+  @Test
+  void slowFileTimesOutWithoutHoldingUpTheOthers() throws IOException {
+    final var vectorFile = write("vector.txt", "a y\n0 0\n1 1\n");
+    final var slow = write("1-slow.circ", String.format(CIRCUIT, 100, 100, 100));
+    final var good = write("2-good.circ", String.format(CIRCUIT, 100, 100, 100));
+    final var canceled = new CountDownLatch(1);
+    final var grader = new BatchGrader(null, new TestVector(vectorFile), Collections.emptyMap(), 2, 5_000) {
+      @Override
+      Result gradeFile(File file, Runnable loaded) {
+        if (!file.equals(slow)) return super.gradeFile(file, loaded);
+        loaded.run();
+        try {
+          Thread.sleep(60_000);
+        } catch (InterruptedException e) {
+          canceled.countDown();
+        }
+        return new Result(file, STATUS_PASS, 2, 0, 0, 60_000, null);
+      }
+    };
+
+    final var out = new ByteArrayOutputStream();
+    final var start = System.currentTimeMillis();
+    final var notPassed = grader.grade(List.of(slow, good), new PrintStream(out, true, StandardCharsets.UTF_8));
+
+    assertTrue(System.currentTimeMillis() - start < 30_000);
+    final var lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+    assertEquals(1, notPassed, lines.toString());
+    assertTrue(lines.get(0).contains("1-slow.circ\",\"status\":\"error\""), lines.get(0));
+    assertTrue(lines.get(1).contains("2-good.circ\",\"status\":\"pass\""), lines.get(1));
+    assertDoesNotThrow(() -> assertTrue(canceled.await(10, TimeUnit.SECONDS)));
+  }
+
+  @Test
+  void gradedFilesLeaveNoSimulatorThreadsBehind() throws IOException, InterruptedException {
+    final var vectorFile = write("vector.txt", "a y\n0 0\n1 1\n");
+    final var files = new ArrayList<File>();
+    for (var i = 0; i < 4; i++) files.add(write(i + ".circ", String.format(CIRCUIT, 100, 100, 100)));
+    final var before = simulatorThreads();
+    final var grader = new BatchGrader(null, new TestVector(vectorFile), Collections.emptyMap(), 2,
+        BatchGrader.DEFAULT_TIMEOUT_SECONDS * 1000L);
+    assertEquals(0, grader.grade(files, new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8)));
+
+    // the simulator threads stop shortly after being asked to
+    final var left = simulatorThreads();
+    left.removeAll(before);
+    for (final var thread : left) thread.join(10_000);
+    left.removeIf(thread -> !thread.isAlive());
+    assertTrue(left.isEmpty(), left.toString());
+  }
+
+  private static Set<Thread> simulatorThreads() {
+    final var ret = new HashSet<Thread>();
+    for (final var thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().startsWith("SimThread")) ret.add(thread);
+    }
+    return ret;
+  }
+
+  private File write(String name, String content) throws IOException {
+    final var file = new File(tempDir, name);
+    Files.writeString(file.toPath(), content);
+    return file;
+  }
+}
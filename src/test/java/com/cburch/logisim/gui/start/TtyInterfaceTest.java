@@ -10,15 +10,62 @@
 package com.cburch.logisim.gui.start;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitMutation;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
 import com.cburch.logisim.data.TestVector;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.soc.bus.SocBus;
+import com.cburch.logisim.soc.bus.SocBusAttributes;
+import com.cburch.logisim.soc.data.SocSimulationManager;
+import com.cburch.logisim.soc.jtaguart.JtagUart;
+import com.cburch.logisim.soc.jtaguart.JtagUartAttributes;
+import com.cburch.logisim.soc.memory.SocMemory;
+import com.cburch.logisim.soc.memory.SocMemoryAttributes;
+import com.cburch.logisim.soc.rv32im.Rv32imRiscV;
+import com.cburch.logisim.std.wiring.Clock;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 public class TtyInterfaceTest {
+  private static final int UART_ADDRESS = 0x10000;
+  /** Writes "Hi" to the JTAG UART and does an ecall with 42 in a0. */
+  private static final int[] HELLO_PROGRAM = {
+    0x000102B7, // lui t0, 0x10
+    0x04800313, // li t1, 'H'
+    0x0062A023, // sw t1, 0(t0)
+    0x06900313, // li t1, 'i'
+    0x0062A023, // sw t1, 0(t0)
+    0x02A00513, // li a0, 42
+    0x00000073, // ecall
+  };
+  /** Does an ecall with 0 in a0. */
+  private static final int[] EXIT_PROGRAM = {
+    0x00000513, // li a0, 0
+    0x00000073, // ecall
+  };
+  private static final int[] LOOP_PROGRAM = {
+    0x0000006F, // j .
+  };
 
   @TempDir File tempDir;
 
@@ -49,4 +96,115 @@ public class TtyInterfaceTest {
     assertEquals(4, vector.columnWidth[1].getWidth());
     assertEquals(2, vector.data.size());
   }
+
+  @Test
+  public void socRunPrintsUartOutputAndStopsOnEcall() throws IOException {
+    final var out = new ByteArrayOutputStream();
+    // the exit value 42 is only printed, a nonzero exit value gives exit code 3
+    assertEquals(3, runSoc(HELLO_PROGRAM, null, -1, out));
+    assertEquals("Hi\n", out.toString());
+  }
+
+  @Test
+  public void socRunExitsWithZeroOnZeroExitValue() throws IOException {
+    assertEquals(0, runSoc(EXIT_PROGRAM, null, -1, new ByteArrayOutputStream()));
+  }
+
+  @Test
+  public void socRunExitsWithOneWithoutProcessor() throws IOException {
+    assertEquals(1, runSoc("nocpu", EXIT_PROGRAM, null, -1, new ByteArrayOutputStream()));
+  }
+
+  @Test
+  public void stdinThreadStopsAtTheEndOfItsInput() throws InterruptedException {
+    final var thread = new TtyInterface.StdinThread(new ByteArrayInputStream("ab".getBytes(StandardCharsets.UTF_8)));
+    assertTrue(thread.isDaemon());
+    thread.start();
+    thread.join(10_000);
+    assertFalse(thread.isAlive());
+    assertEquals("ab", new String(thread.getBuffer()));
+  }
+
+  @Test
+  public void socRunStopsAtHaltAddress() throws IOException {
+    final var out = new ByteArrayOutputStream();
+    assertEquals(0, runSoc(HELLO_PROGRAM, 16, -1, out));
+    assertEquals("H\n", out.toString());
+  }
+
+  @Test
+  public void socRunStopsAfterInstructionBudget() throws IOException {
+    assertEquals(2, runSoc(LOOP_PROGRAM, null, 100, new ByteArrayOutputStream()));
+  }
+
+  /**
+   * Runs program on a RISC-V processor with a memory and a JTAG UART, each clocked by its own
+   * clock, and returns the exit code. What the UART writes goes to out.
+   */
+  private int runSoc(int[] program, Integer haltAddress, long budget, ByteArrayOutputStream out)
+      throws IOException {
+    return runSoc("cpu", program, haltAddress, budget, out);
+  }
+
+  private int runSoc(String cpuLabel, int[] program, Integer haltAddress, long budget,
+      ByteArrayOutputStream out) throws IOException {
+    final var file = LogisimFile.createNew(new Loader(null), null);
+    final var project = new Project(file);
+    final var main = file.getMainCircuit();
+    final var busFactory = new SocBus();
+    final var bus = busFactory.createComponent(Location.create(1000, 100, true), busFactory.createAttributeSet());
+    add(main, bus);
+    final var busInfo = bus.getAttributeSet().getValue(SocBusAttributes.SOC_BUS_ID);
+    final var memFactory = new SocMemory();
+    final var memAttrs = memFactory.createAttributeSet();
+    memAttrs.setValue(SocMemoryAttributes.MEM_SIZE, BitWidth.create(16));
+    memAttrs.setValue(SocSimulationManager.SOC_BUS_SELECT, busInfo);
+    add(main, memFactory.createComponent(Location.create(1000, 600, true), memAttrs));
+    final var uartFactory = new JtagUart();
+    final var uartAttrs = uartFactory.createAttributeSet();
+    uartAttrs.setValue(JtagUartAttributes.START_ADDRESS, UART_ADDRESS);
+    uartAttrs.setValue(SocSimulationManager.SOC_BUS_SELECT, busInfo);
+    add(main, uartFactory.createComponent(Location.create(1000, 1000, true), uartAttrs));
+    add(main, Clock.FACTORY.createComponent(Location.create(1000, 1050, true), Clock.FACTORY.createAttributeSet()));
+    final var cpuFactory = new Rv32imRiscV();
+    final var cpuAttrs = cpuFactory.createAttributeSet();
+    cpuAttrs.setValue(StdAttr.LABEL, "cpu");
+    cpuAttrs.setValue(SocSimulationManager.SOC_BUS_SELECT, busInfo);
+    add(main, cpuFactory.createComponent(Location.create(200, 100, true), cpuAttrs));
+    add(main, Clock.FACTORY.createComponent(Location.create(200, 730, true), Clock.FACTORY.createAttributeSet()));
+    final var state = CircuitState.createRootState(project, main, Thread.currentThread());
+    state.getPropagator().propagate();
+
+    final var elf = new File(tempDir, "program.elf");
+    writeElf(elf, program);
+    final var stdout = System.out;
+    try {
+      System.setOut(new PrintStream(out, true));
+      return TtyInterface.runSoc(state, cpuLabel, elf, haltAddress, budget);
+    } finally {
+      System.setOut(stdout);
+    }
+  }
+
+  /** Writes an executable RISC-V ELF file that loads program at address 0 and starts it there. */
+  private static void writeElf(File file, int[] program) throws IOException {
+    final var buffer = ByteBuffer.allocate(52 + 32 + 4 * program.length).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.put(new byte[] {0x7F, 'E', 'L', 'F', 1, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+    buffer.putShort((short) 2).putShort((short) 243).putInt(1); // executable, RISC-V, version
+    buffer.putInt(0).putInt(52).putInt(0).putInt(0); // entry, program and section header offsets, flags
+    buffer.putShort((short) 52).putShort((short) 32).putShort((short) 1); // program headers
+    buffer.putShort((short) 40).putShort((short) 0).putShort((short) 0); // no section headers
+    buffer.putInt(1).putInt(84).putInt(0).putInt(0); // loadable, offset, addresses
+    buffer.putInt(4 * program.length).putInt(4 * program.length).putInt(5).putInt(4);
+    for (final var word : program) buffer.putInt(word);
+    try (final var out = new FileOutputStream(file)) {
+      out.write(buffer.array());
+    }
+  }
+
+  private static void add(Circuit circuit, Component comp) {
+    final var mutation = new CircuitMutation(circuit);
+    mutation.add(comp);
+    mutation.execute();
+  }
 }
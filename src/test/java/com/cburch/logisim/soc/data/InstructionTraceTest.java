@@ -0,0 +1,75 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.soc.rv32im.RV32imAssembler;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InstructionTraceTest {
+  private static final int ADDI_X1_X0_5 = 0x00500093;
+
+  @TempDir
+  File tempDir;
+
+  private final InstructionTrace trace = new InstructionTrace(3, new RV32imAssembler(), "invalid");
+
+  @Test
+  void keepsTheLastInstructionsNewestFirst() {
+    assertTrue(trace.isEmpty());
+    for (var i = 0; i < 5; i++) trace.add(4 * i, ADDI_X1_X0_5, 0);
+    final var traces = trace.getTraces();
+    assertEquals(3, traces.size());
+    assertEquals(List.of(16, 12, 8), traces.stream().map(TraceInfo::getPc).toList());
+    trace.clear();
+    assertTrue(trace.isEmpty());
+  }
+
+  @Test
+  void disassemblesWhenShown() {
+    trace.add(0, ADDI_X1_X0_5, 0);
+    trace.add(4, 0, InstructionTrace.FLAG_INVALID);
+    final var traces = trace.getTraces();
+    assertEquals("invalid", traces.get(0).getAsm());
+    assertTrue(traces.get(0).isError());
+    assertTrue(traces.get(1).getAsm().startsWith("li"));
+    assertFalse(traces.get(1).isError());
+  }
+
+  @Test
+  void recordsAllInstructions() throws IOException {
+    final var file = new File(tempDir, "trace.bin");
+    trace.startRecording(file);
+    assertTrue(trace.isRecording());
+    for (var i = 0; i < 5; i++) trace.add(4 * i, ADDI_X1_X0_5 + i, i == 4 ? InstructionTrace.FLAG_ERROR : 0);
+    trace.stopRecording();
+    trace.add(20, ADDI_X1_X0_5, 0);
+    assertFalse(trace.isRecording());
+    assertEquals(8 + 5 * 9, file.length());
+    try (final var in = new DataInputStream(new FileInputStream(file))) {
+      assertEquals("LTRC", new String(in.readNBytes(4)));
+      assertEquals(1, in.readInt());
+      for (var i = 0; i < 5; i++) {
+        assertEquals(4 * i, in.readInt());
+        assertEquals(ADDI_X1_X0_5 + i, in.readInt());
+        assertEquals(i == 4 ? InstructionTrace.FLAG_ERROR : 0, in.readByte());
+      }
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.cburch.logisim.instance.InstanceComponent;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SocBusAddressMapTest {
+  private record Slave(int start, int size) implements SocBusSlaveInterface {
+    @Override
+    public boolean canHandleTransaction(SocBusTransaction trans) {
+      final var addr = SocSupport.convUnsignedInt(trans.getAddress());
+      final var first = SocSupport.convUnsignedInt(start);
+      return addr >= first && addr < first + SocSupport.convUnsignedInt(size);
+    }
+
+    @Override
+    public void handleTransaction(SocBusTransaction trans) {}
+
+    @Override
+    public Integer getStartAddress() {
+      return start;
+    }
+
+    @Override
+    public Integer getMemorySize() {
+      return size;
+    }
+
+    @Override
+    public String getName() {
+      return "slave";
+    }
+
+    @Override
+    public void registerListener(SocBusSlaveListener l) {}
+
+    @Override
+    public void removeListener(SocBusSlaveListener l) {}
+
+    @Override
+    public InstanceComponent getComponent() {
+      return null;
+    }
+  }
+
+  @Test
+  void findsTheSameRespondersAsTheSlaves() {
+    final List<SocBusSlaveInterface> slaves = List.of(
+        new Slave(0, 0x1000),
+        new Slave(0x1000, 8),
+        new Slave(0x1004, 24),
+        new Slave(0x80000000, 4),
+        new Slave(0xfffffff0, 16));
+    final var map = new SocBusAddressMap(slaves);
+    final int[] addresses = {
+      0, 0xffc, 0x1000, 0x1003, 0x1004, 0x1007, 0x1008, 0x101b, 0x101c, 0x2000,
+      0x7fffffff, 0x80000000, 0x80000003, 0x80000004, 0xffffffef, 0xfffffff0, 0xffffffff,
+    };
+    for (final var address : addresses) {
+      final var trans = new SocBusTransaction(SocBusTransaction.READ_TRANSACTION, address, 0,
+          SocBusTransaction.WORD_ACCESS, null);
+      final var expected = slaves.stream().filter(s -> s.canHandleTransaction(trans)).toList();
+      final var interval = map.find(address);
+      final var message = String.format("0x%08X", address);
+      assertEquals(expected.size(), map.getResponderCount(interval), message);
+      if (expected.size() == 1) {
+        assertSame(expected.get(0), map.getResponder(interval), message);
+      } else {
+        assertNull(map.getResponder(interval), message);
+      }
+    }
+  }
+
+  @Test
+  void emptyBusHasNoResponders() {
+    final var map = new SocBusAddressMap(List.of());
+    assertEquals(0, map.getResponderCount(map.find(0)));
+    assertEquals(0, map.getResponderCount(map.find(0xffffffff)));
+  }
+}
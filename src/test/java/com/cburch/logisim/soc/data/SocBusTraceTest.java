@@ -0,0 +1,90 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import org.junit.jupiter.api.Test;
+
+class SocBusTraceTest {
+  private final SocBusTrace trace = new SocBusTrace(3);
+
+  private static SocBusTransaction transaction(int type, int address, int data, String master) {
+    final var trans = new SocBusTransaction(type, address, data, SocBusTransaction.WORD_ACCESS, master);
+    trans.setReadData(~data);
+    return trans;
+  }
+
+  @Test
+  void keepsTheLastTransactions() {
+    for (var i = 0; i < 5; i++) trace.add(transaction(SocBusTransaction.READ_TRANSACTION, 4 * i, i, "cpu"));
+    assertEquals(3, trace.size());
+    assertEquals(2, trace.getFirstIndex());
+    final var oldest = trace.get(0);
+    assertEquals(8, oldest.getAddress());
+    assertEquals(2, oldest.getWriteData());
+    assertEquals(~2, oldest.getReadData());
+    assertEquals("cpu", oldest.getTransactionInitiator());
+    assertNull(oldest.getTransactionResponder());
+    assertEquals(16, trace.get(2).getAddress());
+    assertThrows(IndexOutOfBoundsException.class, () -> trace.get(3));
+    trace.clear();
+    assertEquals(0, trace.size());
+    assertEquals(0, trace.getFirstIndex());
+  }
+
+  @Test
+  void growsUpToTheCapacity() {
+    final var large = new SocBusTrace(1000);
+    for (var i = 0; i < 700; i++) large.add(transaction(SocBusTransaction.READ_TRANSACTION, 4 * i, i, "cpu"));
+    assertEquals(700, large.size());
+    for (var row = 0; row < 700; row++) assertEquals(row, large.get(row).getWriteData());
+    for (var i = 700; i < 2500; i++) large.add(transaction(SocBusTransaction.READ_TRANSACTION, 4 * i, i, "cpu"));
+    assertEquals(1000, large.getCapacity());
+    assertEquals(1000, large.size());
+    assertEquals(1500, large.getFirstIndex());
+    for (var row = 0; row < 1000; row++) assertEquals(1500 + row, large.get(row).getWriteData());
+    large.clear();
+    large.add(transaction(SocBusTransaction.READ_TRANSACTION, 0, 7, "cpu"));
+    assertEquals(1, large.size());
+    assertEquals(7, large.get(0).getWriteData());
+  }
+
+  @Test
+  void keepsErrorsAndAccessTypes() {
+    final var trans = new SocBusTransaction(SocBusTransaction.WRITE_TRANSACTION, 1, 2,
+        SocBusTransaction.BYTE_ACCESS, "dma");
+    trans.setError(SocBusTransaction.NO_RESPONS_ERROR);
+    trace.add(trans);
+    final var copy = trace.get(0);
+    assertEquals(SocBusTransaction.WRITE_TRANSACTION, copy.getType());
+    assertEquals(SocBusTransaction.BYTE_ACCESS, copy.getAccessType());
+    assertEquals(SocBusTransaction.NO_RESPONS_ERROR, copy.getErrorCode());
+  }
+
+  @Test
+  void writesCsv() throws IOException {
+    trace.add(transaction(SocBusTransaction.READ_TRANSACTION, 0x100, 0, "cpu"));
+    final var write = transaction(SocBusTransaction.WRITE_TRANSACTION, 0x104, 0x2A, "cpu, \"fetch\"");
+    write.setError(SocBusTransaction.NO_RESPONS_ERROR);
+    trace.add(write);
+    final var out = new StringWriter();
+    trace.writeCsv(out);
+    assertEquals(
+        "index,type,address,writeData,readData,access,master,responder,error\n"
+            + "0,R,0x00000100,0x00000000,0xFFFFFFFF,32,cpu,,0\n"
+            + "1,W,0x00000104,0x0000002A,0xFFFFFFD5,32,\"cpu, \"\"fetch\"\"\",,1\n",
+        out.toString());
+  }
+}
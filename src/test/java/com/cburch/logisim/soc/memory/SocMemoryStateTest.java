@@ -0,0 +1,143 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitMutation;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.BitWidth;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.soc.bus.SocBus;
+import com.cburch.logisim.soc.bus.SocBusAttributes;
+import com.cburch.logisim.soc.data.SocBusTransaction;
+import com.cburch.logisim.soc.data.SocSimulationManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class SocMemoryStateTest {
+  private static final int FETCHES = 1 << 16;
+  private static final int PROGRAM_WORDS = 1 << 12;
+  private static final int BENCHMARK_FETCHES = 1 << 20;
+  private static final int BENCHMARK_PROGRAM_WORDS = 1 << 14;
+
+  private final LogisimFile file = LogisimFile.createNew(new Loader(null), null);
+  private final Project project = new Project(file);
+  private final Circuit main = file.getMainCircuit();
+  private String busId;
+  private CircuitState state;
+
+  @Test
+  void readsBackWritesAcrossPages() {
+    final var data = new SocMemoryState().getNewState();
+    final int[] addresses = {0, 4, 0xffc, 0x1000, 0x3ffffc, 0x400000, 0x80000000, 0xfffffffc};
+    for (var i = 0; i < addresses.length; i++) data.writeWord(addresses[i], i * 0x01010101);
+    for (var i = 0; i < addresses.length; i++) assertEquals(i * 0x01010101, data.getWord(addresses[i]));
+  }
+
+  @Test
+  void cloneDoesNotShareWrites() {
+    final var data = new SocMemoryState().getNewState();
+    data.writeWord(0x100, 1);
+    final var copy = data.clone();
+    copy.writeWord(0x100, 2);
+    data.writeWord(0x104, 3);
+    copy.writeWord(0x104, 4);
+    assertEquals(1, data.getWord(0x100));
+    assertEquals(2, copy.getWord(0x100));
+    assertEquals(3, data.getWord(0x104));
+    assertEquals(4, copy.getWord(0x104));
+  }
+
+  @Test
+  void memoryIsSideEffectFreeOnTheBus() {
+    createBusWithMemory(12);
+    // registers the memory with the bus
+    transaction(SocBusTransaction.READ_TRANSACTION, 0, 0);
+
+    final var busState = main.getSocSimulationManager().getSocBusState(busId);
+    assertTrue(busState.isSideEffectFree(0));
+    assertTrue(busState.isSideEffectFree(0xffc));
+    assertFalse(busState.isSideEffectFree(0x1000));
+  }
+
+  /** Fetches instructions sequentially through the bus, as a processor does, and checks each word. */
+  @Test
+  void instructionFetchReadsBackTheProgram() {
+    createBusWithMemory(20);
+    for (var i = 0; i < PROGRAM_WORDS; i++) {
+      assertFalse(transaction(SocBusTransaction.WRITE_TRANSACTION, 4 * i, i).hasError());
+    }
+    for (var i = 0; i < FETCHES; i++) {
+      final var trans = transaction(SocBusTransaction.READ_TRANSACTION, 4 * (i % PROGRAM_WORDS), 0);
+      assertFalse(trans.hasError());
+      assertEquals(i % PROGRAM_WORDS, trans.getReadData());
+    }
+  }
+
+  /**
+   * Fetches instructions sequentially through the bus, as a processor does, and prints the time.
+   * Run by the "benchmark" Gradle task.
+   */
+  @Test
+  @Tag("benchmark")
+  void benchmarkInstructionFetch() {
+    createBusWithMemory(20);
+    for (var i = 0; i < BENCHMARK_PROGRAM_WORDS; i++) {
+      assertFalse(transaction(SocBusTransaction.WRITE_TRANSACTION, 4 * i, i).hasError());
+    }
+    var sum = 0L;
+    final var start = System.nanoTime();
+    for (var i = 0; i < BENCHMARK_FETCHES; i++) {
+      sum += transaction(SocBusTransaction.READ_TRANSACTION, 4 * (i % BENCHMARK_PROGRAM_WORDS), 0).getReadData();
+    }
+    final var time = System.nanoTime() - start;
+    assertEquals((long) BENCHMARK_FETCHES / BENCHMARK_PROGRAM_WORDS * BENCHMARK_PROGRAM_WORDS
+        * (BENCHMARK_PROGRAM_WORDS - 1) / 2, sum);
+    System.out.printf("SoC instruction fetch: %d fetches in %.1f ms, %.1f ns per fetch%n",
+        BENCHMARK_FETCHES, time / 1e6, (double) time / BENCHMARK_FETCHES);
+  }
+
+  /** main: a SocBus with a SocMemory of 2^sizeBits bytes at address 0. */
+  private void createBusWithMemory(int sizeBits) {
+    final var busFactory = new SocBus();
+    final var bus = busFactory.createComponent(Location.create(100, 100, true), busFactory.createAttributeSet());
+    add(main, bus);
+    final var busInfo = bus.getAttributeSet().getValue(SocBusAttributes.SOC_BUS_ID);
+    busId = busInfo.getBusId();
+    final var memFactory = new SocMemory();
+    final var memAttrs = memFactory.createAttributeSet();
+    memAttrs.setValue(SocMemoryAttributes.MEM_SIZE, BitWidth.create(sizeBits));
+    memAttrs.setValue(SocSimulationManager.SOC_BUS_SELECT, busInfo);
+    add(main, memFactory.createComponent(Location.create(100, 600, true), memAttrs));
+    state = CircuitState.createRootState(project, main, Thread.currentThread());
+    state.getPropagator().propagate();
+  }
+
+  private SocBusTransaction transaction(int type, int address, int data) {
+    final var trans = new SocBusTransaction(type, address, data, SocBusTransaction.WORD_ACCESS, this);
+    trans.setAsHiddenTransaction();
+    main.getSocSimulationManager().initializeTransaction(trans, busId, state);
+    return trans;
+  }
+
+  private static void add(Circuit circuit, Component comp) {
+    final var mutation = new CircuitMutation(circuit);
+    mutation.add(comp);
+    mutation.execute();
+  }
+}
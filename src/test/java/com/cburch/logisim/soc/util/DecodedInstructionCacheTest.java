@@ -0,0 +1,61 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.soc.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cburch.logisim.soc.data.SocBusTransaction;
+import com.cburch.logisim.soc.rv32im.RV32imState;
+import org.junit.jupiter.api.Test;
+
+class DecodedInstructionCacheTest {
+  private static final int ADDI_X1_X0_5 = 0x00500093;
+  private static final int LW_X2_0_X1 = 0x0000a103;
+
+  @Test
+  void hitDecodesWithTheCachedUnit() {
+    final var cache = new DecodedInstructionCache(RV32imState.ASSEMBLER);
+    assertFalse(cache.contains(0x100));
+    final var addi = cache.decode(0x100, ADDI_X1_X0_5);
+    assertTrue(addi.isValid());
+    assertTrue(cache.contains(0x100));
+    assertEquals(ADDI_X1_X0_5, cache.getWord(0x100));
+
+    final var lw = cache.decode(0x104, LW_X2_0_X1);
+    assertNotSame(addi, lw);
+    assertSame(addi, cache.decode(0x100, ADDI_X1_X0_5));
+    assertEquals(ADDI_X1_X0_5, addi.getBinInstruction());
+    // another word at the same address is decoded again
+    assertSame(lw, cache.decode(0x100, LW_X2_0_X1));
+    assertNull(cache.decode(0x108, 0));
+    assertFalse(cache.contains(0x108));
+  }
+
+  @Test
+  void writesDropTheEntry() {
+    final var cache = new DecodedInstructionCache(RV32imState.ASSEMBLER);
+    cache.decode(0x100, ADDI_X1_X0_5);
+    cache.decode(0x104, LW_X2_0_X1);
+    cache.sniffTransaction(new SocBusTransaction(SocBusTransaction.READ_TRANSACTION, 0x100, 0,
+        SocBusTransaction.WORD_ACCESS, null));
+    assertTrue(cache.contains(0x100));
+    cache.sniffTransaction(new SocBusTransaction(SocBusTransaction.WRITE_TRANSACTION, 0x102, 0,
+        SocBusTransaction.BYTE_ACCESS, null));
+    assertFalse(cache.contains(0x100));
+    assertTrue(cache.contains(0x104));
+    cache.clear();
+    assertFalse(cache.contains(0x104));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.std.memory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.cburch.hex.HexModel;
+import com.cburch.hex.HexModelListener;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MemContentsTest {
+
+  @Test
+  void cloneIsIndependentOfTheOriginal() {
+    final var original = MemContents.create(16, 8, false);
+    original.set(0x10, 0x11);
+    original.set(0x2000, new long[] {1, 2, 3, 4});
+    final var copy = original.clone();
+    assertEquals(0x11, copy.get(0x10));
+    assertEquals(3, copy.get(0x2002));
+
+    copy.set(0x10, 0x22);
+    original.set(0x2001, 0x55);
+    copy.fill(0x4000, 0x800, 0x7f);
+    assertEquals(0x11, original.get(0x10));
+    assertEquals(0x22, copy.get(0x10));
+    assertEquals(0x55, original.get(0x2001));
+    assertEquals(2, copy.get(0x2001));
+    assertEquals(0, original.get(0x4400));
+    assertEquals(0x7f, copy.get(0x4400));
+
+    // a clone of a clone shares with both, and still copies on write
+    final var copy2 = copy.clone();
+    copy2.copyFrom(0x10, original, 0x2000, 4);
+    assertEquals(0x22, copy.get(0x10));
+    assertEquals(1, copy2.get(0x10));
+    assertEquals(0x55, copy2.get(0x11));
+    original.clear();
+    assertEquals(0x7f, copy2.get(0x4400));
+    assertEquals(0x22, copy.get(0x10));
+  }
+
+  @Test
+  void attachedImageIsReadAndWrittenInPlace(@TempDir Path dir) throws IOException {
+    final var image = dir.resolve("image.bin");
+    final var bytes = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    bytes.putShort((short) 0x1234).putShort((short) 0xbeef).putShort((short) 0).putShort((short) 7);
+    Files.write(image, bytes.array());
+
+    final var contents = MemContents.create(14, 16, false);
+    final var changes = new ArrayList<Long>();
+    contents.addHexModelListener(new HexModelListener() {
+      @Override
+      public void bytesChanged(HexModel source, long start, long numBytes, long[] oldValues) {
+        changes.add(start);
+      }
+
+      @Override
+      public void metainfoChanged(HexModel source) {}
+    });
+    contents.attachImage(image.toFile(), ByteOrder.LITTLE_ENDIAN);
+    assertEquals(image.toFile(), contents.getMappedFile());
+    assertEquals(1, changes.size());
+    assertEquals(0x1234, contents.get(0));
+    assertEquals(0xbeef, contents.get(1));
+    assertEquals(7, contents.get(3));
+    assertEquals(0, contents.get(0x3000));
+    // the file is extended to the size of the memory
+    assertEquals(2L << 14, Files.size(image));
+
+    // a clone keeps its values while the original writes to the file
+    final var copy = contents.clone();
+    assertNull(copy.getMappedFile());
+    contents.set(1, 0x5555);
+    contents.fill(0x1000, 4, 0xffff);
+    copy.set(3, 9);
+    assertEquals(0xbeef, copy.get(1));
+    assertEquals(0, copy.get(0x1000));
+    assertEquals(9, copy.get(3));
+    assertEquals(7, contents.get(3));
+    assertEquals(0x5555, contents.get(1));
+    assertEquals(List.of(0L, 1L, 0x1000L), changes);
+
+    // clearing writes zeros to the file, rather than dropping the page
+    contents.set(2, 1);
+    contents.set(2, 0);
+    contents.clear();
+    final var written = ByteBuffer.wrap(Files.readAllBytes(image)).order(ByteOrder.LITTLE_ENDIAN);
+    assertArrayEquals(new short[4], new short[] {written.getShort(0), written.getShort(2), written.getShort(4), written.getShort(6)});
+
+    // resizing moves the values back to the heap
+    contents.set(5, 0x77);
+    contents.setDimensions(15, 16);
+    assertNull(contents.getMappedFile());
+    assertEquals(0x77, contents.get(5));
+    contents.set(5, 0x66);
+    assertEquals(0x77, ByteBuffer.wrap(Files.readAllBytes(image)).order(ByteOrder.LITTLE_ENDIAN).getShort(10));
+  }
+
+  @Test
+  void cloneWritingFirstDoesNotWriteToTheImage(@TempDir Path dir) throws IOException {
+    final var image = dir.resolve("image.bin");
+    Files.write(image, new byte[4]);
+
+    final var contents = MemContents.create(8, 8, false);
+    contents.attachImage(image.toFile(), ByteOrder.LITTLE_ENDIAN);
+    final var copy = contents.clone();
+    copy.set(0, 0x55);
+    contents.set(1, 0x77);
+    assertEquals(0x55, copy.get(0));
+    assertEquals(0, copy.get(1));
+    assertEquals(0, contents.get(0));
+    assertEquals(0x77, contents.get(1));
+    final var written = Files.readAllBytes(image);
+    assertEquals(0, written[0]);
+    assertEquals(0x77, written[1]);
+  }
+
+  @Test
+  void tempFileKeepsTheValues() throws IOException {
+    final var contents = MemContents.create(18, 32, false);
+    contents.set(0x12345, 0xdeadbeefL);
+    contents.attachTempFile();
+    assertEquals(0xdeadbeefL, contents.get(0x12345));
+    contents.set(0x3ffff, 0xffffffffL);
+    assertEquals(0xffffffffL, contents.get(0x3ffff));
+    assertEquals(4L << 18, contents.getMappedFile().length());
+    contents.unmapFile();
+    assertEquals(0xdeadbeefL, contents.get(0x12345));
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Logisim-evolution - digital logic design tool and simulator
+ * Copyright by the Logisim-evolution developers
+ *
+ * https://github.com/logisim-evolution/
+ *
+ * This is free software released under GNU GPLv3 license
+ */
+
+package com.cburch.logisim.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelQueueTest {
+
+  /** Tests if the nodes come out in the same order as from a priority queue. */
+  @Test
+  void removesInTimeAndSerialOrder() {
+    final var wheel = new TimingWheelQueue<QNode>();
+    final var reference = new PriorityQueue<QNode>();
+    final var random = new Random(3);
+    var now = 1 << 30; // close to the wraparound of the time counter
+    var serial = 0;
+    for (var round = 0; round < 20000; round++) {
+      if (random.nextInt(5) < 3 || reference.isEmpty()) {
+        final var kind = random.nextInt(20);
+        final int delay;
+        if (kind == 0) delay = 1000 + random.nextInt(5000); // beyond the wheel
+        else if (kind == 1) delay = -random.nextInt(3000); // before the base time
+        else delay = 1 + random.nextInt(40);
+        final var node = new QNode(now + delay, serial++);
+        wheel.add(node);
+        reference.add(node);
+      } else {
+        final var expected = reference.remove();
+        assertSame(expected, wheel.peek(), "round " + round);
+        assertSame(expected, wheel.remove(), "round " + round);
+        now = expected.timeKey;
+      }
+      assertEquals(reference.size(), wheel.size());
+    }
+    while (!reference.isEmpty()) assertSame(reference.remove(), wheel.remove());
+    assertTrue(wheel.isEmpty());
+    assertNull(wheel.remove());
+  }
+
+  /** Tests if a cleared queue can be filled again from any time. */
+  @Test
+  void clearEmptiesTheQueue() {
+    final var wheel = new TimingWheelQueue<QNode>();
+    for (var i = 0; i < 10; i++) wheel.add(new QNode(i * 500, i));
+    wheel.clear();
+    assertTrue(wheel.isEmpty());
+    assertNull(wheel.peek());
+    final var node = new QNode(-7, 11);
+    wheel.add(node);
+    assertSame(node, wheel.remove());
+    assertEquals(0, wheel.size());
+  }
+}